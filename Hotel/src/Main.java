@@ -1,9 +1,96 @@
+import analytics.PaceEngine;
+import api.HotelApiServer;
+import channel.AriPublisher;
+import channel.FileAriSink;
+import data.GeneratorConfig;
+import data.ServiceDataSink;
+import data.SyntheticDataGenerator;
+import metrics.MetricsRegistry;
+import pricing.PricingEngine;
+import pricing.PricingRules;
+import service.ExecutionMode;
+import service.ReservationService;
+import service.RoomAssignmentOptimizer;
+import service.RoomService;
+import service.StateWriter;
 import ui.MainFrame;
 
 import javax.swing.*;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.file.Path;
+import java.time.Duration;
 
 public class Main {
-    public static void main(String[] args) {
-        SwingUtilities.invokeLater(() -> new MainFrame());
+    public static void main(String[] args) throws IOException {
+        // --data=<preset|count> and --seed=<seed> load a generated data set first, e.g. --data=medium;
+        // --metrics=<file> sets where service metrics are written; --dynamic-pricing prices rooms by occupancy;
+        // --execution=<direct|locked|pipeline> sets how changes to the services are applied;
+        // --api-port=<port> serves the HTTP/JSON API on that port; --ari=<file> pushes availability and rates to a file;
+        // --startup-timing prints how long each startup phase and each tab took
+        GeneratorConfig dataConfig = null;
+        Long seed = null;
+        Path metricsFile = Path.of("metrics.log");
+        boolean dynamicPricing = false;
+        ExecutionMode executionMode = ExecutionMode.DIRECT;
+        Integer apiPort = null;
+        Path ariFile = null;
+        boolean startupTiming = false;
+        for (String arg : args) {
+            if (arg.startsWith("--metrics=")) {
+                metricsFile = Path.of(arg.substring("--metrics=".length()));
+            } else if (arg.startsWith("--data=")) {
+                dataConfig = GeneratorConfig.parse(arg.substring("--data=".length()));
+            } else if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            } else if (arg.equals("--dynamic-pricing")) {
+                dynamicPricing = true;
+            } else if (arg.startsWith("--execution=")) {
+                executionMode = ExecutionMode.valueOf(arg.substring("--execution=".length()).toUpperCase());
+            } else if (arg.startsWith("--api-port=")) {
+                apiPort = Integer.parseInt(arg.substring("--api-port=".length()));
+            } else if (arg.startsWith("--ari=")) {
+                ariFile = Path.of(arg.substring("--ari=".length()));
+            } else if (arg.equals("--startup-timing")) {
+                startupTiming = true;
+            }
+        }
+        if (dataConfig != null) {
+            if (seed != null) {
+                dataConfig = dataConfig.withSeed(seed);
+            }
+            SyntheticDataGenerator.Summary summary = new SyntheticDataGenerator(dataConfig).generate(new ServiceDataSink());
+            System.out.println("Loaded generated data: " + summary);
+        }
+
+        // Generated data is loaded directly; the UI and background tasks go through the chosen mode
+        StateWriter.getInstance().setMode(executionMode);
+
+        // Service latencies are appended to the metrics file once a minute
+        MetricsRegistry.getInstance().startPeriodicDump(metricsFile, Duration.ofMinutes(1));
+        // Cancelled reservations and stays that ended over a month ago are archived every hour
+        ReservationService.getInstance().startArchiving(30, Duration.ofHours(1));
+        // Occupancy is forecast from the booking pace, refitted every day
+        PaceEngine.getInstance().start(Duration.ofDays(1));
+        // Reservations booked by room type are moved between rooms as bookings change, to keep free nights together
+        RoomAssignmentOptimizer.getInstance().start();
+        if (dynamicPricing) {
+            // Base rates are the cheapest room of each type; nights are priced on their forecast occupancy
+            PricingEngine.getInstance().setForecast(PaceEngine.getInstance());
+            PricingEngine.getInstance().start(
+                    PricingRules.defaults(PricingRules.lowestRoomPrices(RoomService.getInstance().getAllRooms())));
+        }
+        if (ariFile != null) {
+            // Changes within a second are pushed together, for the coming year
+            AriPublisher.getInstance().start(new FileAriSink(ariFile), Duration.ofSeconds(1), 365);
+        }
+        if (apiPort != null) {
+            HotelApiServer apiServer = new HotelApiServer(new InetSocketAddress(apiPort));
+            apiServer.start();
+            System.out.println("HTTP API listening on port " + apiServer.getPort());
+        }
+
+        boolean printStartupTiming = startupTiming;
+        SwingUtilities.invokeLater(() -> new MainFrame(printStartupTiming));
     }
 }
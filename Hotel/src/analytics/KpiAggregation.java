@@ -0,0 +1,220 @@
+package analytics;
+
+import model.Bill;
+import model.Reservation;
+import model.ReservationStatus;
+import model.RoomType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.ToLongFunction;
+
+/**
+ * Adds up the nights sold, room revenue and extras of each room type per night over a range
+ * of nights.
+ *
+ * The range is cut into date shards. Reservations are sorted into the shard of their first
+ * night in the range, and bills into the shard of the last night of their stay; the shards
+ * are then split across the common fork/join pool. Each task records its stays as changes at
+ * their first and last night, so a stay costs the same whatever its length, and merging two
+ * halves adds their arrays. One running sum at the end turns the changes into nightly totals.
+ */
+final class KpiAggregation extends RecursiveTask<KpiAggregation.Totals> {
+    private static final int MAX_SHARDS = 64;
+    private static final int MIN_SHARD_DAYS = 7;
+
+    private final Reservation[] reservations;
+    private final int[] reservationShards;
+    private final Bill[] bills;
+    private final int[] billShards;
+    private final long firstDay;
+    private final int days;
+    private final int fromShard;
+    private final int toShard;
+
+    private KpiAggregation(Reservation[] reservations, int[] reservationShards, Bill[] bills, int[] billShards,
+                           long firstDay, int days, int fromShard, int toShard) {
+        this.reservations = reservations;
+        this.reservationShards = reservationShards;
+        this.bills = bills;
+        this.billShards = billShards;
+        this.firstDay = firstDay;
+        this.days = days;
+        this.fromShard = fromShard;
+        this.toShard = toShard;
+    }
+
+    /**
+     * Add up the nights from one day up to, but not including, another.
+     *
+     * @param reservations reservations overlapping the nights; cancelled ones are ignored
+     * @param bills bills of those reservations, or more
+     * @return the totals per room type and night
+     */
+    static Totals aggregate(List<Reservation> reservations, List<Bill> bills, LocalDate from, LocalDate to) {
+        long firstDay = from.toEpochDay();
+        int days = (int) Math.max(0, to.toEpochDay() - firstDay);
+        int shardDays = Math.max(MIN_SHARD_DAYS, (days + MAX_SHARDS - 1) / MAX_SHARDS);
+        int shardCount = Math.max(1, (days + shardDays - 1) / shardDays);
+
+        int[] reservationShards = new int[shardCount + 1];
+        Reservation[] sortedReservations = sortIntoShards(reservations.toArray(new Reservation[0]), reservationShards,
+                reservation -> reservation.getCheckInDate().toEpochDay(), firstDay, days, shardDays);
+        int[] billShards = new int[shardCount + 1];
+        Bill[] sortedBills = sortIntoShards(bills.toArray(new Bill[0]), billShards,
+                bill -> bill.getReservation().getCheckOutDate().toEpochDay() - 1, firstDay, days, shardDays);
+
+        Totals totals = ForkJoinPool.commonPool().invoke(new KpiAggregation(sortedReservations, reservationShards,
+                sortedBills, billShards, firstDay, days, 0, shardCount));
+        totals.accumulate();
+        return totals;
+    }
+
+    /**
+     * Sort items into the shard holding a day of theirs, days before the range going into the
+     * first shard and days after it into none.
+     *
+     * @param shardStarts filled with the index of the first item of each shard, and the item count at the end
+     * @return the items in the range, by shard
+     */
+    private static <T> T[] sortIntoShards(T[] items, int[] shardStarts, ToLongFunction<T> dayOf, long firstDay, int days,
+                                          int shardDays) {
+        int shardCount = shardStarts.length - 1;
+        int[] shardOf = new int[items.length];
+        int[] counts = new int[shardCount + 1];
+        for (int i = 0; i < items.length; i++) {
+            long day = dayOf.applyAsLong(items[i]) - firstDay;
+            shardOf[i] = day >= days ? shardCount : (int) (Math.max(0, day) / shardDays);
+            counts[shardOf[i]]++;
+        }
+        for (int shard = 0; shard < shardCount; shard++) {
+            shardStarts[shard + 1] = shardStarts[shard] + counts[shard];
+        }
+        int[] next = shardStarts.clone();
+        T[] sorted = Arrays.copyOf(items, shardStarts[shardCount]);
+        for (int i = 0; i < items.length; i++) {
+            if (shardOf[i] < shardCount) {
+                sorted[next[shardOf[i]]++] = items[i];
+            }
+        }
+        return sorted;
+    }
+
+    @Override
+    protected Totals compute() {
+        if (toShard - fromShard <= 1) {
+            Totals totals = new Totals(days);
+            for (int i = reservationShards[fromShard]; i < reservationShards[toShard]; i++) {
+                totals.addStay(reservations[i], firstDay);
+            }
+            for (int i = billShards[fromShard]; i < billShards[toShard]; i++) {
+                totals.addExtras(bills[i], firstDay);
+            }
+            return totals;
+        }
+        int middle = (fromShard + toShard) >>> 1;
+        KpiAggregation left = new KpiAggregation(reservations, reservationShards, bills, billShards, firstDay, days,
+                fromShard, middle);
+        KpiAggregation right = new KpiAggregation(reservations, reservationShards, bills, billShards, firstDay, days,
+                middle, toShard);
+        left.fork();
+        Totals totals = right.compute();
+        totals.merge(left.join());
+        return totals;
+    }
+
+    static long toCents(BigDecimal amount) {
+        return amount == null ? 0 : amount.movePointRight(2).longValue();
+    }
+
+    // Get the extras of a bill: everything but the room charge it starts with
+    static long extrasCents(Bill bill) {
+        return toCents(bill.calculateTotal()) - toCents(bill.getReservation().getTotalPrice());
+    }
+
+    /**
+     * Rooms sold, room revenue and extras in cents per room type and night. While tasks run,
+     * each night holds the change from the night before.
+     */
+    static final class Totals {
+        final long[][] sold;
+        final long[][] revenue;
+        final long[][] other;
+
+        Totals(int days) {
+            int types = RoomType.values().length;
+            sold = new long[types][days + 1];
+            revenue = new long[types][days + 1];
+            other = new long[types][days + 1];
+        }
+
+        // Add the nights of a stay in the range, with its price spread evenly and the remainder on its first night
+        void addStay(Reservation reservation, long firstDay) {
+            if (reservation.getStatus() == ReservationStatus.CANCELLED || reservation.getRoom() == null) {
+                return;
+            }
+            int days = sold[0].length - 1;
+            long checkIn = reservation.getCheckInDate().toEpochDay() - firstDay;
+            long checkOut = reservation.getCheckOutDate().toEpochDay() - firstDay;
+            long nights = checkOut - checkIn;
+            int from = (int) Math.max(0, checkIn);
+            int to = (int) Math.min(days, checkOut);
+            if (nights <= 0 || from >= to) {
+                return;
+            }
+            int type = reservation.getRoom().getType().ordinal();
+            long cents = toCents(reservation.getTotalPrice());
+            long nightly = cents / nights;
+            sold[type][from]++;
+            sold[type][to]--;
+            revenue[type][from] += nightly;
+            revenue[type][to] -= nightly;
+            if (checkIn >= 0) {
+                revenue[type][from] += cents - nightly * nights;
+                revenue[type][from + 1] -= cents - nightly * nights;
+            }
+        }
+
+        // Add the extras of a bill on the last night of its stay, if in the range
+        void addExtras(Bill bill, long firstDay) {
+            Reservation reservation = bill.getReservation();
+            long night = reservation.getCheckOutDate().toEpochDay() - 1 - firstDay;
+            if (night < 0 || night >= other[0].length - 1 || reservation.getRoom() == null) {
+                return;
+            }
+            long extras = extrasCents(bill);
+            int type = reservation.getRoom().getType().ordinal();
+            other[type][(int) night] += extras;
+            other[type][(int) night + 1] -= extras;
+        }
+
+        void merge(Totals totals) {
+            for (int type = 0; type < sold.length; type++) {
+                add(sold[type], totals.sold[type]);
+                add(revenue[type], totals.revenue[type]);
+                add(other[type], totals.other[type]);
+            }
+        }
+
+        // Turn the changes into nightly totals
+        void accumulate() {
+            for (int type = 0; type < sold.length; type++) {
+                for (int night = 1; night < sold[type].length; night++) {
+                    sold[type][night] += sold[type][night - 1];
+                    revenue[type][night] += revenue[type][night - 1];
+                    other[type][night] += other[type][night - 1];
+                }
+            }
+        }
+
+        private static void add(long[] into, long[] values) {
+            for (int i = 0; i < into.length; i++) {
+                into[i] += values[i];
+            }
+        }
+    }
+}
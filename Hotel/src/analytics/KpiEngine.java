@@ -0,0 +1,292 @@
+package analytics;
+
+import event.DomainEvent;
+import event.EventBus;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import model.Bill;
+import model.Reservation;
+import model.ReservationStatus;
+import model.RoomType;
+import service.BillingService;
+import service.ReservationService;
+import service.RoomInventory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Occupancy %, ADR and RevPAR by day, week or month, per room type and for all rooms.
+ *
+ * Reports over any range of nights are computed from the reservations and bills on demand,
+ * split over date shards on the fork/join pool. The current day, week and month are also kept
+ * up to date from the reservation and billing events, so the dashboard reads them without
+ * going through the reservations.
+ *
+ * Rooms sold are the reservations that are not cancelled. Rooms available are the rooms not
+ * under maintenance now, for every night reported.
+ */
+public class KpiEngine {
+    private static KpiEngine instance;
+
+    private final ReservationService reservationService;
+    private final BillingService billingService;
+    private final RoomInventory inventory;
+
+    // Totals per room type and night of the current week and month, and what each reservation and bill added to them
+    private final Object ledgerLock = new Object();
+    private LocalDate ledgerFrom;
+    private int ledgerDays;
+    private KpiAggregation.Totals ledger;
+    private final Map<Integer, Stay> stays = new HashMap<>();
+    private final Map<Integer, Extras> extras = new HashMap<>();
+
+    // Latency of every public method
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram computeLatency = metrics.histogram("KpiEngine.compute");
+    private final LatencyHistogram getCurrentLatency = metrics.histogram("KpiEngine.getCurrent");
+    private final LatencyHistogram refreshLatency = metrics.histogram("KpiEngine.refresh");
+
+    private KpiEngine() {
+        reservationService = ReservationService.getInstance();
+        billingService = BillingService.getInstance();
+        inventory = RoomInventory.getInstance();
+
+        EventBus eventBus = EventBus.getInstance();
+        eventBus.subscribe(DomainEvent.ReservationCreated.class, event -> reservationChanged(event.reservation()));
+        eventBus.subscribe(DomainEvent.ReservationUpdated.class, event -> reservationChanged(event.reservation()));
+        eventBus.subscribe(DomainEvent.ReservationStatusChanged.class, event -> reservationChanged(event.reservation()));
+        eventBus.subscribe(DomainEvent.BillCreated.class, event -> billChanged(event.bill()));
+        eventBus.subscribe(DomainEvent.BillItemAdded.class, event -> billChanged(event.bill()));
+        eventBus.subscribe(DomainEvent.BillItemRemoved.class, event -> billChanged(event.bill()));
+        refresh();
+    }
+
+    public static synchronized KpiEngine getInstance() {
+        if (instance == null) {
+            instance = new KpiEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Compute the figures of the nights from one day up to, but not including, another.
+     *
+     * @param period how the nights are grouped; periods at the edges are cut to the range
+     * @return for each period in order, a row per room type followed by a row for all rooms
+     */
+    public List<KpiFigures> compute(LocalDate from, LocalDate to, KpiPeriod period) {
+        long start = System.nanoTime();
+        try {
+            if (!to.isAfter(from)) {
+                return new ArrayList<>();
+            }
+            List<Reservation> reservations = reservationService.getReservationsForDateRange(from, to);
+            List<Bill> bills = billingService.getAllBills();
+            KpiAggregation.Totals totals = KpiAggregation.aggregate(reservations, bills, from, to);
+            return group(totals, from, from, to, period, capacities());
+        } finally {
+            computeLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Get the figures of the day, week or month that contains today, kept up to date as
+     * reservations and bills change.
+     *
+     * @return a row per room type followed by a row for all rooms
+     */
+    public List<KpiFigures> getCurrent(KpiPeriod period) {
+        long start = System.nanoTime();
+        try {
+            LocalDate today = LocalDate.now();
+            synchronized (ledgerLock) {
+                if (!ledgerFrom.equals(ledgerStart(today))) {
+                    rebuild(today);
+                }
+                return group(ledger, ledgerFrom, period.start(today), period.end(today), period, capacities());
+            }
+        } finally {
+            getCurrentLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Recompute the current week and month from the reservations and bills, e.g. after they
+     * were imported in bulk, which publishes no events.
+     */
+    public void refresh() {
+        long start = System.nanoTime();
+        try {
+            synchronized (ledgerLock) {
+                rebuild(LocalDate.now());
+            }
+        } finally {
+            refreshLatency.recordSince(start);
+        }
+    }
+
+    private void rebuild(LocalDate today) {
+        ledgerFrom = ledgerStart(today);
+        LocalDate ledgerTo = ledgerEnd(today);
+        ledgerDays = (int) (ledgerTo.toEpochDay() - ledgerFrom.toEpochDay());
+        ledger = new KpiAggregation.Totals(ledgerDays);
+        stays.clear();
+        extras.clear();
+        for (Reservation reservation : reservationService.getReservationsForDateRange(ledgerFrom, ledgerTo)) {
+            reservationChangedLocked(reservation);
+        }
+        for (Bill bill : billingService.getAllBills()) {
+            billChangedLocked(bill);
+        }
+    }
+
+    // Replace what a reservation added to the current period with what it adds now
+    private void reservationChanged(Reservation reservation) {
+        synchronized (ledgerLock) {
+            reservationChangedLocked(reservation);
+        }
+    }
+
+    private void reservationChangedLocked(Reservation reservation) {
+        Stay previous = stays.remove(reservation.getId());
+        if (previous != null) {
+            previous.addTo(ledger, -1);
+        }
+        Stay stay = Stay.of(reservation, ledgerFrom.toEpochDay(), ledgerDays);
+        if (stay != null) {
+            stay.addTo(ledger, 1);
+            stays.put(reservation.getId(), stay);
+        }
+    }
+
+    // Replace what a bill added to the current period with what it adds now
+    private void billChanged(Bill bill) {
+        synchronized (ledgerLock) {
+            billChangedLocked(bill);
+        }
+    }
+
+    private void billChangedLocked(Bill bill) {
+        Extras previous = extras.remove(bill.getId());
+        if (previous != null) {
+            ledger.other[previous.type][previous.night] -= previous.cents;
+        }
+        Reservation reservation = bill.getReservation();
+        long night = reservation.getCheckOutDate().toEpochDay() - 1 - ledgerFrom.toEpochDay();
+        if (reservation.getRoom() != null && night >= 0 && night < ledgerDays) {
+            Extras added = new Extras(reservation.getRoom().getType().ordinal(), (int) night, KpiAggregation.extrasCents(bill));
+            ledger.other[added.type][added.night] += added.cents;
+            extras.put(bill.getId(), added);
+        }
+    }
+
+    // Get the number of rooms of each type that can be sold
+    private int[] capacities() {
+        int[] capacities = new int[RoomType.values().length];
+        for (RoomType type : RoomType.values()) {
+            capacities[type.ordinal()] = inventory.getCapacity(type);
+        }
+        return capacities;
+    }
+
+    // The ledger covers the current month and the current week, which may start or end in another month
+    private static LocalDate ledgerStart(LocalDate today) {
+        LocalDate week = KpiPeriod.WEEK.start(today);
+        LocalDate month = KpiPeriod.MONTH.start(today);
+        return week.isBefore(month) ? week : month;
+    }
+
+    private static LocalDate ledgerEnd(LocalDate today) {
+        LocalDate week = KpiPeriod.WEEK.end(today);
+        LocalDate month = KpiPeriod.MONTH.end(today);
+        return week.isAfter(month) ? week : month;
+    }
+
+    /**
+     * Group nightly totals into periods, with a row per room type and one for all rooms.
+     *
+     * @param totalsFrom the night of the first totals
+     * @param from the first night to report
+     * @param to the night after the last one to report
+     */
+    private static List<KpiFigures> group(KpiAggregation.Totals totals, LocalDate totalsFrom, LocalDate from, LocalDate to,
+                                          KpiPeriod period, int[] capacities) {
+        RoomType[] types = RoomType.values();
+        List<KpiFigures> rows = new ArrayList<>();
+        for (LocalDate periodFrom = from; periodFrom.isBefore(to); ) {
+            LocalDate periodTo = period.end(periodFrom).isBefore(to) ? period.end(periodFrom) : to;
+            int first = (int) (periodFrom.toEpochDay() - totalsFrom.toEpochDay());
+            int last = (int) (periodTo.toEpochDay() - totalsFrom.toEpochDay());
+            long allAvailable = 0;
+            long allSold = 0;
+            long allRevenue = 0;
+            long allOther = 0;
+            for (RoomType type : types) {
+                int index = type.ordinal();
+                long available = (long) capacities[index] * (last - first);
+                long sold = 0;
+                long revenue = 0;
+                long other = 0;
+                for (int night = first; night < last; night++) {
+                    sold += totals.sold[index][night];
+                    revenue += totals.revenue[index][night];
+                    other += totals.other[index][night];
+                }
+                rows.add(new KpiFigures(periodFrom, periodTo, type, available, sold, BigDecimal.valueOf(revenue, 2),
+                        BigDecimal.valueOf(other, 2)));
+                allAvailable += available;
+                allSold += sold;
+                allRevenue += revenue;
+                allOther += other;
+            }
+            rows.add(new KpiFigures(periodFrom, periodTo, null, allAvailable, allSold, BigDecimal.valueOf(allRevenue, 2),
+                    BigDecimal.valueOf(allOther, 2)));
+            periodFrom = periodTo;
+        }
+        return rows;
+    }
+
+    /**
+     * The nights of a reservation within the ledger and the revenue of each, with the
+     * remainder of its price on its first night.
+     */
+    private record Stay(int type, int from, int to, long nightly, int firstNight, long remainder) {
+        static Stay of(Reservation reservation, long ledgerFrom, int days) {
+            if (reservation.getStatus() == ReservationStatus.CANCELLED || reservation.getRoom() == null) {
+                return null;
+            }
+            long checkIn = reservation.getCheckInDate().toEpochDay() - ledgerFrom;
+            long nights = reservation.getCheckOutDate().toEpochDay() - ledgerFrom - checkIn;
+            int from = (int) Math.max(0, checkIn);
+            int to = (int) Math.min(days, checkIn + nights);
+            if (nights <= 0 || from >= to) {
+                return null;
+            }
+            long cents = KpiAggregation.toCents(reservation.getTotalPrice());
+            long nightly = cents / nights;
+            return new Stay(reservation.getRoom().getType().ordinal(), from, to, nightly,
+                    checkIn >= 0 ? (int) checkIn : -1, cents - nightly * nights);
+        }
+
+        void addTo(KpiAggregation.Totals totals, int sign) {
+            for (int night = from; night < to; night++) {
+                totals.sold[type][night] += sign;
+                totals.revenue[type][night] += sign * nightly;
+            }
+            if (firstNight >= 0) {
+                totals.revenue[type][firstNight] += sign * remainder;
+            }
+        }
+    }
+
+    /**
+     * The extras of a bill, on the last night of its stay.
+     */
+    private record Extras(int type, int night, long cents) {
+    }
+}
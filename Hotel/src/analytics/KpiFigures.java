@@ -0,0 +1,41 @@
+package analytics;
+
+import model.RoomType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.LocalDate;
+
+/**
+ * Occupancy and revenue of a room type, or of all rooms, over the nights of a period.
+ *
+ * @param from the first night
+ * @param to the night after the last one
+ * @param type the room type, or null for all rooms
+ * @param availableRoomNights rooms that could be sold, summed over the nights
+ * @param soldRoomNights rooms booked, summed over the nights
+ * @param roomRevenue the price of the nights booked, each stay's price spread evenly over its nights
+ * @param otherRevenue extras billed, counted on the last night of the stay
+ */
+public record KpiFigures(LocalDate from, LocalDate to, RoomType type, long availableRoomNights, long soldRoomNights,
+                         BigDecimal roomRevenue, BigDecimal otherRevenue) {
+
+    // Get the share of available room nights sold, from 0 to 1; above 1 when overbooked
+    public double occupancy() {
+        return availableRoomNights == 0 ? 0 : (double) soldRoomNights / availableRoomNights;
+    }
+
+    // Get the average daily rate: room revenue per room night sold
+    public BigDecimal adr() {
+        return perNight(roomRevenue, soldRoomNights);
+    }
+
+    // Get the revenue per available room: room revenue per room night that could be sold
+    public BigDecimal revPar() {
+        return perNight(roomRevenue, availableRoomNights);
+    }
+
+    private static BigDecimal perNight(BigDecimal revenue, long nights) {
+        return nights == 0 ? BigDecimal.ZERO.setScale(2) : revenue.divide(BigDecimal.valueOf(nights), 2, RoundingMode.HALF_UP);
+    }
+}
@@ -0,0 +1,30 @@
+package analytics;
+
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * The periods KPIs are reported by. Weeks start on Monday.
+ */
+public enum KpiPeriod {
+    DAY, WEEK, MONTH;
+
+    // Get the first day of the period containing a day
+    public LocalDate start(LocalDate day) {
+        return switch (this) {
+            case DAY -> day;
+            case WEEK -> day.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+            case MONTH -> day.withDayOfMonth(1);
+        };
+    }
+
+    // Get the day after the last day of the period containing a day
+    public LocalDate end(LocalDate day) {
+        return switch (this) {
+            case DAY -> day.plusDays(1);
+            case WEEK -> start(day).plusWeeks(1);
+            case MONTH -> start(day).plusMonths(1);
+        };
+    }
+}
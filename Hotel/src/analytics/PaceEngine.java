@@ -0,0 +1,409 @@
+package analytics;
+
+import event.DomainEvent;
+import event.EventBus;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import model.Reservation;
+import model.ReservationStatus;
+import model.RoomType;
+import pricing.OccupancyForecast;
+import service.ReservationService;
+import service.RoomInventory;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Booking pace and occupancy forecast per room type and night.
+ *
+ * For every night from a year back to a year ahead, the engine counts the rooms of each type
+ * booked at each number of days before that night, net of cancellations, in one matrix per
+ * type. Bookings made 180 days or more ahead share the last column. The rooms on the books for
+ * a night as of N days before it are the sum of the columns from N on. The matrix follows the
+ * reservation events, each change replacing what the reservation added before.
+ *
+ * A background job rebuilds the matrix and fits the model: for each room type, day of the week
+ * and number of days before arrival, the average number of rooms booked after that point over
+ * the past 52 weeks (additive pickup). The forecast for a coming night is the rooms on the
+ * books now plus the pickup expected at its lead time, up to the rooms of that type. Queries
+ * read the live matrix and the fitted model, a few array reads each.
+ *
+ * Reservations without a creation time are left out.
+ */
+public class PaceEngine implements OccupancyForecast {
+    // Columns of days before arrival, the last one holding everything booked earlier
+    public static final int LEAD_DAYS = 181;
+    private static final int HISTORY_DAYS = 364;
+    private static final int HORIZON_DAYS = 365;
+
+    private static PaceEngine instance;
+
+    private final ReservationService reservationService;
+    private final RoomInventory inventory;
+    private final ScheduledExecutorService worker;
+    private ScheduledFuture<?> fitTask;
+
+    // Rooms booked per room type, night and days before it, net of cancellations, and rooms on the books per night
+    private final Object lock = new Object();
+    private LocalDate today;
+    private long firstDay;
+    private int[][] pace;
+    private int[][] booked;
+    // What each reservation added, packed, by reservation ID
+    private long[] contributions = new long[0];
+    private volatile Model model;
+
+    // Latency of every public method
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram fitLatency = metrics.histogram("PaceEngine.fit");
+    private final LatencyHistogram getPaceLatency = metrics.histogram("PaceEngine.getPace");
+    private final LatencyHistogram getForecastLatency = metrics.histogram("PaceEngine.getForecast");
+    private final LatencyHistogram getForecastOccupancyLatency = metrics.histogram("PaceEngine.getForecastOccupancy");
+    private final LatencyHistogram getExpectedPickupLatency = metrics.histogram("PaceEngine.getExpectedPickup");
+
+    private PaceEngine() {
+        reservationService = ReservationService.getInstance();
+        inventory = RoomInventory.getInstance();
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "forecast");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        EventBus eventBus = EventBus.getInstance();
+        eventBus.subscribe(DomainEvent.ReservationCreated.class, event -> reservationChanged(event.reservation()));
+        eventBus.subscribe(DomainEvent.ReservationUpdated.class, event -> reservationChanged(event.reservation()));
+        eventBus.subscribe(DomainEvent.ReservationStatusChanged.class, event -> reservationChanged(event.reservation()));
+    }
+
+    public static synchronized PaceEngine getInstance() {
+        if (instance == null) {
+            instance = new PaceEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Fit the forecast now, then again on a background thread at the given period.
+     */
+    public synchronized void start(Duration period) {
+        stop();
+        fit();
+        fitTask = worker.scheduleAtFixedRate(this::fit, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Stop refitting; the last forecast stays available
+    public synchronized void stop() {
+        if (fitTask != null) {
+            fitTask.cancel(false);
+            fitTask = null;
+        }
+    }
+
+    // Check whether the forecast is refitted in the background
+    public synchronized boolean isRunning() {
+        return fitTask != null;
+    }
+
+    // Rebuild the pace matrix from the reservations and fit the forecast as of today
+    public void fit() {
+        fit(LocalDate.now());
+    }
+
+    /**
+     * Rebuild the pace matrix from the reservations and fit the forecast as of the given day.
+     * Forecasts are then given for the year from that day on.
+     */
+    public void fit(LocalDate today) {
+        long start = System.nanoTime();
+        try {
+            synchronized (lock) {
+                rebuild(today);
+                model = fitModel();
+            }
+        } finally {
+            fitLatency.recordSince(start);
+        }
+    }
+
+    // Get the day the forecast was fitted for, or null if it never was
+    public LocalDate getFittedFor() {
+        Model current = model;
+        return current == null ? null : current.today();
+    }
+
+    /**
+     * Get the booking pace of a night: the rooms of a type on the books as of each number of
+     * days before it, up to the last column for 180 days or more.
+     *
+     * @return the rooms by days before the night, or an empty array outside the nights followed
+     */
+    public int[] getPace(RoomType type, LocalDate night) {
+        long start = System.nanoTime();
+        try {
+            synchronized (lock) {
+                int index = nightIndex(night);
+                if (index < 0) {
+                    return new int[0];
+                }
+                int[] onTheBooks = new int[LEAD_DAYS];
+                int rooms = 0;
+                for (int lead = LEAD_DAYS - 1; lead >= 0; lead--) {
+                    rooms += pace[type.ordinal()][index * LEAD_DAYS + lead];
+                    onTheBooks[lead] = rooms;
+                }
+                return onTheBooks;
+            }
+        } finally {
+            getPaceLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Get the number of rooms of a type expected to be sold for a night.
+     *
+     * @return the rooms expected, or -1 if the night is not in the year forecast or nothing was fitted
+     */
+    public double getForecast(RoomType type, LocalDate night) {
+        long start = System.nanoTime();
+        try {
+            Model current = model;
+            synchronized (lock) {
+                int index = nightIndex(night);
+                if (current == null || index < HISTORY_DAYS) {
+                    return -1;
+                }
+                return forecast(current, type, index, inventory.getCapacity(type));
+            }
+        } finally {
+            getForecastLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Get the average share of rooms expected to be sold over some nights.
+     *
+     * @param type the room type, or null for all rooms
+     * @return the share from 0 to 1, or -1 if a night is not in the year forecast or nothing was fitted
+     */
+    public double getForecastOccupancy(RoomType type, LocalDate from, int nights) {
+        long start = System.nanoTime();
+        try {
+            Model current = model;
+            synchronized (lock) {
+                int first = nightIndex(from);
+                if (current == null || nights <= 0 || first < HISTORY_DAYS || first + nights > pace[0].length / LEAD_DAYS) {
+                    return -1;
+                }
+                double sold = 0;
+                long available = 0;
+                for (RoomType roomType : type == null ? RoomType.values() : new RoomType[] {type}) {
+                    int capacity = inventory.getCapacity(roomType);
+                    for (int night = first; night < first + nights; night++) {
+                        sold += forecast(current, roomType, night, capacity);
+                    }
+                    available += (long) capacity * nights;
+                }
+                return available == 0 ? -1 : Math.min(1, sold / available);
+            }
+        } finally {
+            getForecastOccupancyLatency.recordSince(start);
+        }
+    }
+
+    @Override
+    public double[] getExpectedPickup(RoomType type, LocalDate first, int nights) {
+        long start = System.nanoTime();
+        try {
+            double[] pickup = new double[nights];
+            Model current = model;
+            if (current == null) {
+                return pickup;
+            }
+            long lead = first.toEpochDay() - current.today().toEpochDay();
+            for (int night = 0; night < nights; night++) {
+                if (lead + night >= 0) {
+                    pickup[night] = current.pickup(type, first.plusDays(night), lead + night);
+                }
+            }
+            return pickup;
+        } finally {
+            getExpectedPickupLatency.recordSince(start);
+        }
+    }
+
+    // Rooms on the books plus the pickup expected, at most the capacity unless already above it
+    private double forecast(Model current, RoomType type, int index, int capacity) {
+        int rooms = booked[type.ordinal()][index];
+        double pickup = current.pickup(type, LocalDate.ofEpochDay(firstDay + index), index - HISTORY_DAYS);
+        return Math.max(rooms, Math.min(capacity, rooms + pickup));
+    }
+
+    // Index of a night in the matrix, or -1 if not followed
+    private int nightIndex(LocalDate night) {
+        if (pace == null) {
+            return -1;
+        }
+        long index = night.toEpochDay() - firstDay;
+        return index >= 0 && index < pace[0].length / LEAD_DAYS ? (int) index : -1;
+    }
+
+    private void rebuild(LocalDate day) {
+        today = day;
+        firstDay = day.toEpochDay() - HISTORY_DAYS;
+        int days = HISTORY_DAYS + HORIZON_DAYS;
+        pace = new int[RoomType.values().length][days * LEAD_DAYS];
+        booked = new int[RoomType.values().length][days];
+        Arrays.fill(contributions, 0);
+        for (Reservation reservation : reservationService.getReservationsForDateRange(day.minusDays(HISTORY_DAYS),
+                day.plusDays(HORIZON_DAYS))) {
+            reservationChangedLocked(reservation);
+        }
+    }
+
+    /**
+     * Average the rooms booked after each number of days before arrival over the past nights,
+     * per room type and day of the week.
+     */
+    private Model fitModel() {
+        double[][][] pickup = new double[RoomType.values().length][7][LEAD_DAYS];
+        int[] samples = new int[7];
+        for (int night = 0; night < HISTORY_DAYS; night++) {
+            int dayOfWeek = LocalDate.ofEpochDay(firstDay + night).getDayOfWeek().ordinal();
+            samples[dayOfWeek]++;
+            for (int type = 0; type < pickup.length; type++) {
+                int later = 0;
+                for (int lead = 0; lead < LEAD_DAYS; lead++) {
+                    pickup[type][dayOfWeek][lead] += later;
+                    later += pace[type][night * LEAD_DAYS + lead];
+                }
+            }
+        }
+        for (double[][] byDay : pickup) {
+            for (int dayOfWeek = 0; dayOfWeek < 7; dayOfWeek++) {
+                for (int lead = 0; lead < LEAD_DAYS; lead++) {
+                    byDay[dayOfWeek][lead] /= Math.max(1, samples[dayOfWeek]);
+                }
+            }
+        }
+        return new Model(today, pickup);
+    }
+
+    // Replace what a reservation added to the matrix with what it adds now
+    private void reservationChanged(Reservation reservation) {
+        synchronized (lock) {
+            if (pace != null) {
+                reservationChangedLocked(reservation);
+            }
+        }
+    }
+
+    private void reservationChangedLocked(Reservation reservation) {
+        int id = reservation.getId();
+        if (id >= contributions.length) {
+            contributions = Arrays.copyOf(contributions, Math.max(id + 1, contributions.length * 3 / 2));
+        }
+        long previous = contributions[id];
+        long current = Booking.pack(reservation);
+        if (previous != current) {
+            add(previous, -1);
+            add(current, 1);
+            contributions[id] = current;
+        }
+    }
+
+    // Add or remove the nights of a packed booking that the matrix follows
+    private void add(long packed, int sign) {
+        if (packed == 0) {
+            return;
+        }
+        int[] typePace = pace[Booking.type(packed)];
+        int[] typeBooked = booked[Booking.type(packed)];
+        long checkIn = Booking.checkIn(packed);
+        int from = (int) Math.max(0, checkIn - firstDay);
+        int to = (int) Math.min(typeBooked.length, checkIn + Booking.nights(packed) - firstDay);
+        for (int night = from; night < to; night++) {
+            long sinceCheckIn = firstDay + night - checkIn;
+            typePace[night * LEAD_DAYS + lead(sinceCheckIn + Booking.bookedLead(packed))] += sign;
+            typeBooked[night] += sign;
+            if (Booking.isCancelled(packed)) {
+                typePace[night * LEAD_DAYS + lead(sinceCheckIn + Booking.cancelledLead(packed))] -= sign;
+                typeBooked[night] -= sign;
+            }
+        }
+    }
+
+    private static int lead(long days) {
+        return (int) Math.max(0, Math.min(LEAD_DAYS - 1, days));
+    }
+
+    /**
+     * Rooms of each type expected to be booked after each number of days before arrival, by day
+     * of the week, as fitted on the given day.
+     */
+    private record Model(LocalDate today, double[][][] pickup) {
+        double pickup(RoomType type, LocalDate night, long lead) {
+            return pickup[type.ordinal()][night.getDayOfWeek().ordinal()][lead(lead)];
+        }
+    }
+
+    /**
+     * A reservation as the matrix sees it, packed into a long so that one can be kept per
+     * reservation: a set bit, the room type, the check-in day, the nights, the days it was
+     * booked before check-in and, if cancelled, the days it was cancelled before check-in
+     * (negative when after). Zero stands for a reservation that adds nothing.
+     */
+    private static final class Booking {
+        private static final long SET = 1L << 60;
+        private static final int MAX_LEAD = 2047;
+
+        static long pack(Reservation reservation) {
+            LocalDateTime createdAt = reservation.getCreatedAt();
+            if (createdAt == null || reservation.getRoom() == null || reservation.getNights() <= 0) {
+                return 0;
+            }
+            long checkIn = reservation.getCheckInDate().toEpochDay();
+            long bookedLead = Math.max(0, Math.min(MAX_LEAD, checkIn - createdAt.toLocalDate().toEpochDay()));
+            long cancelled = 0;
+            if (reservation.getStatus() == ReservationStatus.CANCELLED) {
+                LocalDateTime cancelledAt = reservation.getModifiedAt() == null ? createdAt : reservation.getModifiedAt();
+                // Not before it was booked
+                long cancelledLead = Math.max(-MAX_LEAD, Math.min(bookedLead, checkIn - cancelledAt.toLocalDate().toEpochDay()));
+                cancelled = cancelledLead + MAX_LEAD + 1;
+            }
+            return SET | (long) reservation.getRoom().getType().ordinal() << 57 | checkIn << 36
+                    | Math.min(4095, reservation.getNights()) << 24 | bookedLead << 12 | cancelled;
+        }
+
+        static int type(long packed) {
+            return (int) (packed >>> 57 & 0x7);
+        }
+
+        static long checkIn(long packed) {
+            return packed >>> 36 & 0x1FFFFF;
+        }
+
+        static long nights(long packed) {
+            return packed >>> 24 & 0xFFF;
+        }
+
+        static long bookedLead(long packed) {
+            return packed >>> 12 & 0xFFF;
+        }
+
+        static boolean isCancelled(long packed) {
+            return (packed & 0xFFF) != 0;
+        }
+
+        static long cancelledLead(long packed) {
+            return (packed & 0xFFF) - MAX_LEAD - 1;
+        }
+    }
+}
@@ -0,0 +1,224 @@
+package api;
+
+import data.GeneratorConfig;
+import data.ServiceDataSink;
+import data.SyntheticDataGenerator;
+import metrics.LatencyHistogram;
+import metrics.LatencySnapshot;
+import model.Guest;
+import model.Room;
+import model.RoomType;
+import service.GuestService;
+import service.RoomService;
+import util.ThreadPools;
+
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Load test for the {@link HotelApiServer}: starts the server on localhost and lets a number of
+ * clients send requests back to back for a while, then reports requests per second and the
+ * latency percentiles seen by the clients, per kind of request.
+ *
+ * Each client asks for availability most of the time (70%), looks up a reservation it made
+ * (20%), or books a room and cancels it again (10%). Bookings refused because the room was
+ * taken are counted as refused, not as errors.
+ */
+public class ApiLoadGenerator {
+    private final int clients;
+    private final Duration duration;
+    private final long seed;
+    private final LocalDate firstDay;
+    private final List<Integer> roomNumbers;
+    private final List<Integer> guestIds;
+
+    private final LatencyHistogram availabilityLatency = new LatencyHistogram("GET /api/availability");
+    private final LatencyHistogram lookupLatency = new LatencyHistogram("GET /api/reservations/{id}");
+    private final LatencyHistogram bookingLatency = new LatencyHistogram("POST /api/reservations");
+    private final LatencyHistogram cancelLatency = new LatencyHistogram("POST /api/reservations/{id}/cancel");
+    private final LongAdder refused = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    /**
+     * Create a load test that books the given rooms for the guests currently in the service.
+     *
+     * @param firstDay first check-in day used; stays start within 180 days of it
+     */
+    public ApiLoadGenerator(List<Room> rooms, int clients, Duration duration, long seed, LocalDate firstDay) {
+        if (clients <= 0) {
+            throw new IllegalArgumentException("The number of clients must be positive");
+        }
+        this.clients = clients;
+        this.duration = duration;
+        this.seed = seed;
+        this.firstDay = firstDay;
+        this.roomNumbers = rooms.stream().map(Room::getRoomNumber).toList();
+        this.guestIds = GuestService.getInstance().getAllGuests().stream().map(Guest::getId).toList();
+    }
+
+    /**
+     * Start a server on a free port of localhost, run the clients against it and stop it.
+     */
+    public Report run() throws IOException, InterruptedException {
+        HotelApiServer server = new HotelApiServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        ExecutorService executor = ThreadPools.newThreadPerTaskExecutor("api-load-client");
+        try {
+            URI base = URI.create("http://localhost:" + server.getPort());
+            HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).executor(executor).build();
+            long start = System.nanoTime();
+            long deadline = start + duration.toNanos();
+            SplittableRandom seeds = new SplittableRandom(seed);
+            List<Runnable> agents = new ArrayList<>();
+            for (int i = 0; i < clients; i++) {
+                SplittableRandom random = seeds.split();
+                agents.add(() -> runClient(client, base, random, deadline));
+            }
+            ExecutorService agentThreads = ThreadPools.newThreadPerTaskExecutor("api-load-agent");
+            agents.forEach(agentThreads::execute);
+            agentThreads.shutdown();
+            agentThreads.awaitTermination(duration.toMillis() + 60_000, TimeUnit.MILLISECONDS);
+            long elapsedNanos = System.nanoTime() - start;
+            return new Report(elapsedNanos, List.of(availabilityLatency.snapshot(), lookupLatency.snapshot(),
+                    bookingLatency.snapshot(), cancelLatency.snapshot()), refused.sum(), errors.sum());
+        } finally {
+            server.stop(0);
+            executor.shutdown();
+        }
+    }
+
+    // Send requests until the deadline, waiting for each answer before the next request
+    private void runClient(HttpClient client, URI base, SplittableRandom random, long deadline) {
+        ConcurrentLinkedQueue<Integer> booked = new ConcurrentLinkedQueue<>();
+        RoomType[] types = RoomType.values();
+        while (System.nanoTime() < deadline) {
+            LocalDate checkIn = firstDay.plusDays(random.nextInt(180));
+            LocalDate checkOut = checkIn.plusDays(1 + random.nextInt(5));
+            int choice = random.nextInt(100);
+            if (choice < 70) {
+                String type = random.nextBoolean() ? "" : "&type=" + types[random.nextInt(types.length)].name();
+                send(client, availabilityLatency, HttpRequest.newBuilder(base.resolve(
+                        "/api/availability?checkIn=" + checkIn + "&checkOut=" + checkOut + type)).GET());
+            } else if (choice < 90 && !booked.isEmpty()) {
+                send(client, lookupLatency, HttpRequest.newBuilder(base.resolve("/api/reservations/" + booked.peek())).GET());
+            } else {
+                int roomNumber = roomNumbers.get(random.nextInt(roomNumbers.size()));
+                int guestId = guestIds.get(random.nextInt(guestIds.size()));
+                String form = "guestId=" + guestId + "&roomNumber=" + roomNumber + "&checkIn=" + checkIn
+                        + "&checkOut=" + checkOut;
+                HttpResponse<String> response = send(client, bookingLatency, HttpRequest.newBuilder(base.resolve("/api/reservations"))
+                        .header("Content-Type", "application/x-www-form-urlencoded")
+                        .POST(HttpRequest.BodyPublishers.ofString(form)));
+                if (response != null && response.statusCode() == 201) {
+                    int id = parseId(response.body());
+                    send(client, cancelLatency, HttpRequest.newBuilder(base.resolve("/api/reservations/" + id + "/cancel"))
+                            .POST(HttpRequest.BodyPublishers.noBody()));
+                    booked.add(id);
+                    if (booked.size() > 16) {
+                        booked.poll();
+                    }
+                }
+            }
+        }
+    }
+
+    // Send a request and record its latency; returns null if it failed
+    private HttpResponse<String> send(HttpClient client, LatencyHistogram latency, HttpRequest.Builder request) {
+        long start = System.nanoTime();
+        try {
+            HttpResponse<String> response = client.send(request.build(), HttpResponse.BodyHandlers.ofString());
+            latency.recordSince(start);
+            if (response.statusCode() == 409) {
+                refused.increment();
+            } else if (response.statusCode() >= 400) {
+                errors.increment();
+            }
+            return response;
+        } catch (IOException e) {
+            errors.increment();
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    // Read the "id" of a reservation from its JSON, which starts with it
+    private static int parseId(String json) {
+        int from = json.indexOf(':') + 1;
+        int to = json.indexOf(',', from);
+        return Integer.parseInt(json.substring(from, to).trim());
+    }
+
+    /**
+     * Outcome of a load test.
+     *
+     * @param elapsedNanos how long the clients ran
+     * @param latencies client-side latency per kind of request
+     * @param refused bookings refused because the room was taken
+     * @param errors failed requests and error responses other than refused bookings
+     */
+    public record Report(long elapsedNanos, List<LatencySnapshot> latencies, long refused, long errors) {
+
+        // Get the number of requests answered
+        public long getRequests() {
+            return latencies.stream().mapToLong(LatencySnapshot::count).sum();
+        }
+
+        // Get the requests answered per second
+        public double getThroughput() {
+            return getRequests() * 1e9 / elapsedNanos;
+        }
+
+        public String format() {
+            StringBuilder text = new StringBuilder();
+            text.append(String.format("%,d requests in %.1f s: %,.0f requests/s, %,d refused, %,d errors%n",
+                    getRequests(), elapsedNanos / 1e9, getThroughput(), refused, errors));
+            text.append(String.format("%-50s %12s %10s %10s %10s %10s %10s%n",
+                    "Request", "Count", "Mean", "p50", "p99", "p99.9", "Max"));
+            for (LatencySnapshot latency : latencies) {
+                text.append(latency).append(System.lineSeparator());
+            }
+            return text.toString();
+        }
+    }
+
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(1);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        LocalDate firstDay = LocalDate.now();
+        if (options.containsKey("data")) {
+            GeneratorConfig dataConfig = GeneratorConfig.parse(options.get("data")).withSeed(seed);
+            System.out.println("Generated " + new SyntheticDataGenerator(dataConfig).generate(new ServiceDataSink()));
+            firstDay = dataConfig.today();
+        }
+        ApiLoadGenerator generator = new ApiLoadGenerator(RoomService.getInstance().getAllRooms(),
+                Integer.parseInt(options.getOrDefault("clients", "64")),
+                Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "10"))), seed, firstDay);
+        System.out.println("Running on " + (ThreadPools.hasVirtualThreads() ? "virtual" : "platform") + " threads");
+        System.out.print(generator.run().format());
+    }
+}
@@ -0,0 +1,465 @@
+package api;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import service.BillingService;
+import service.GuestService;
+import service.RateCalendar;
+import service.ReservationService;
+import service.RoomService;
+import util.ThreadPools;
+
+import java.io.BufferedWriter;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+
+/**
+ * Embedded HTTP server with a JSON API over the services, for the booking website and the
+ * lobby kiosks. Every request runs on its own thread, a virtual one when the JVM has them.
+ *
+ * Parameters come from the query string or from a form-encoded body; dates are ISO dates
+ * such as 2025-03-01. Responses are JSON, and errors are {"error": "..."} with status 400 for
+ * bad parameters, 404 for unknown guests, rooms or reservations and 409 for conflicts.
+ *
+ * <pre>
+ * GET  /api/availability?checkIn=&amp;checkOut=[&amp;type=]     free rooms with the price of the stay
+ * POST /api/guests                                         register a guest
+ * GET  /api/guests/{id}
+ * POST /api/reservations?guestId=&amp;roomNumber=&amp;checkIn=&amp;checkOut=
+ * POST /api/reservations?guestId=&amp;type=&amp;checkIn=&amp;checkOut=      any room of the type, assigned by the hotel
+ * GET  /api/reservations/{id}
+ * POST /api/reservations/{id}/check-in, /check-out, /cancel
+ * GET  /api/reservations/{id}/folio                        the bill with its items and total
+ * POST /api/reservations/{id}/folio                        create the bill after check-out
+ * POST /api/reservations/{id}/folio/items?description=&amp;amount=
+ * </pre>
+ */
+public class HotelApiServer {
+    static {
+        // The JDK server writes headers and body separately; without TCP_NODELAY, Nagle's algorithm
+        // and delayed ACKs hold every response back by about 40 ms. Read once, when the server loads.
+        if (System.getProperty("sun.net.httpserver.nodelay") == null) {
+            System.setProperty("sun.net.httpserver.nodelay", "true");
+        }
+    }
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final GuestService guestService;
+    private final RoomService roomService;
+    private final ReservationService reservationService;
+    private final BillingService billingService;
+    private final RateCalendar rateCalendar;
+
+    // Latency of every endpoint, and requests answered with an error
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram availabilityLatency = metrics.histogram("HotelApiServer.availability");
+    private final LatencyHistogram guestsLatency = metrics.histogram("HotelApiServer.guests");
+    private final LatencyHistogram reservationsLatency = metrics.histogram("HotelApiServer.reservations");
+    private final Counter clientErrors = metrics.counter("HotelApiServer.clientErrors");
+    private final Counter serverErrors = metrics.counter("HotelApiServer.serverErrors");
+
+    /**
+     * Create a server; it only accepts requests once started.
+     *
+     * @param address where to listen, e.g. port 8080 on all interfaces; port 0 picks a free port
+     */
+    public HotelApiServer(InetSocketAddress address) throws IOException {
+        server = HttpServer.create(address, 0);
+        executor = ThreadPools.newThreadPerTaskExecutor("http");
+        server.setExecutor(executor);
+        guestService = GuestService.getInstance();
+        roomService = RoomService.getInstance();
+        reservationService = ReservationService.getInstance();
+        billingService = BillingService.getInstance();
+        rateCalendar = RateCalendar.getInstance();
+
+        server.createContext("/api/availability", exchange -> handle(exchange, availabilityLatency, this::availability));
+        server.createContext("/api/guests", exchange -> handle(exchange, guestsLatency, this::guests));
+        server.createContext("/api/reservations", exchange -> handle(exchange, reservationsLatency, this::reservations));
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    // Stop accepting requests, giving running ones up to the given number of seconds to finish
+    public void stop(int delaySeconds) {
+        server.stop(delaySeconds);
+        executor.shutdown();
+    }
+
+    // Get the port the server listens on
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    private void availability(Request request, JsonWriter json) throws IOException {
+        request.requireMethod("GET");
+        LocalDate checkIn = request.date("checkIn");
+        LocalDate checkOut = request.date("checkOut");
+        if (!checkOut.isAfter(checkIn)) {
+            throw new ApiException(400, "checkOut must be after checkIn");
+        }
+        String type = request.optional("type");
+        List<Room> rooms = type == null
+                ? reservationService.getAvailableRoomsForDates(checkIn, checkOut)
+                : reservationService.getAvailableRoomsByTypeForDates(request.roomType(type), checkIn, checkOut);
+
+        request.status(200);
+        json.beginObject();
+        json.name("checkIn").value(checkIn);
+        json.name("checkOut").value(checkOut);
+        json.name("rooms").beginArray();
+        for (Room room : rooms) {
+            json.beginObject();
+            writeRoomFields(json, room);
+            json.name("total").value(rateCalendar.quote(room, checkIn, checkOut));
+            json.endObject();
+        }
+        json.endArray();
+        json.endObject();
+    }
+
+    private void guests(Request request, JsonWriter json) throws IOException {
+        if (request.path.length == 2) {
+            request.requireMethod("POST");
+            Guest guest = guestService.addGuest(new Guest(request.required("firstName"), request.required("lastName"),
+                    request.required("idNumber"), request.optional("phone"), request.optional("email"),
+                    request.optional("address")));
+            request.status(201);
+            writeGuest(json, guest);
+        } else if (request.path.length == 3) {
+            request.requireMethod("GET");
+            Guest guest = guestService.getGuestById(request.id(2));
+            if (guest == null) {
+                throw new ApiException(404, "Unknown guest");
+            }
+            request.status(200);
+            writeGuest(json, guest);
+        } else {
+            throw new ApiException(404, "Unknown path");
+        }
+    }
+
+    private void reservations(Request request, JsonWriter json) throws IOException {
+        if (request.path.length == 2) {
+            createReservation(request, json);
+            return;
+        }
+        int reservationId = request.id(2);
+        Reservation reservation = reservationService.getReservationById(reservationId);
+        if (reservation == null) {
+            throw new ApiException(404, "Unknown reservation");
+        }
+        String action = request.path.length >= 4 ? request.path[3] : "";
+        if (request.path.length > 4 && !action.equals("folio")) {
+            throw new ApiException(404, "Unknown path");
+        }
+        switch (action) {
+            case "" -> request.requireMethod("GET");
+            case "check-in" -> {
+                request.requireMethod("POST");
+                requireDone(reservationService.checkIn(reservationId), "Only confirmed reservations can check in");
+            }
+            case "check-out" -> {
+                request.requireMethod("POST");
+                requireDone(reservationService.checkOut(reservationId), "Only checked-in reservations can check out");
+            }
+            case "cancel" -> {
+                request.requireMethod("POST");
+                requireDone(reservationService.cancelIfConfirmed(reservationId),
+                        "Only confirmed reservations can be cancelled");
+            }
+            case "folio" -> {
+                folio(request, json, reservationService.getReservationById(reservationId));
+                return;
+            }
+            default -> throw new ApiException(404, "Unknown path");
+        }
+        request.status(200);
+        writeReservation(json, reservationService.getReservationById(reservationId));
+    }
+
+    private void createReservation(Request request, JsonWriter json) throws IOException {
+        request.requireMethod("POST");
+        Guest guest = guestService.getGuestById(request.integer("guestId"));
+        String type = request.optional("type");
+        Room room = type == null ? roomService.getRoomByNumber(request.integer("roomNumber")) : null;
+        LocalDate checkIn = request.date("checkIn");
+        LocalDate checkOut = request.date("checkOut");
+        if (guest == null || (type == null && room == null)) {
+            throw new ApiException(404, guest == null ? "Unknown guest" : "Unknown room");
+        }
+        if (!checkOut.isAfter(checkIn)) {
+            throw new ApiException(400, "checkOut must be after checkIn");
+        }
+        Reservation reservation;
+        if (type == null) {
+            reservation = reservationService.createReservation(guest, room, checkIn, checkOut);
+            if (reservation == null) {
+                throw new ApiException(409, "Room " + room.getRoomNumber() + " is not available");
+            }
+        } else {
+            RoomType roomType = request.roomType(type);
+            reservation = reservationService.createReservationByType(guest, roomType, checkIn, checkOut);
+            if (reservation == null) {
+                throw new ApiException(409, "No " + roomType.name().toLowerCase() + " room is available");
+            }
+        }
+        request.status(201);
+        writeReservation(json, reservation);
+    }
+
+    private void folio(Request request, JsonWriter json, Reservation reservation) throws IOException {
+        Bill bill = billingService.getBillByReservation(reservation);
+        if (request.path.length == 4 && request.method.equals("POST")) {
+            bill = billingService.createBill(reservation);
+            if (bill == null) {
+                throw new ApiException(409, "Only checked-out reservations can be billed");
+            }
+            request.status(201);
+        } else if (request.path.length == 5 && request.path[4].equals("items")) {
+            request.requireMethod("POST");
+            if (bill == null) {
+                throw new ApiException(404, "The reservation has no folio");
+            }
+            BigDecimal amount = request.amount("amount");
+            billingService.addItemToBill(bill.getId(), request.required("description"), amount);
+            request.status(201);
+        } else if (request.path.length == 4) {
+            request.requireMethod("GET");
+            if (bill == null) {
+                throw new ApiException(404, "The reservation has no folio");
+            }
+            request.status(200);
+        } else {
+            throw new ApiException(404, "Unknown path");
+        }
+        writeBill(json, bill);
+    }
+
+    private static void requireDone(boolean done, String message) {
+        if (!done) {
+            throw new ApiException(409, message);
+        }
+    }
+
+    private static void writeRoomFields(JsonWriter json, Room room) throws IOException {
+        json.name("roomNumber").value(room.getRoomNumber());
+        json.name("floor").value(room.getFloor());
+        json.name("type").value(room.getType().name());
+        json.name("capacity").value(room.getCapacity());
+        json.name("pricePerNight").value(room.getPricePerNight());
+    }
+
+    private static void writeGuest(JsonWriter json, Guest guest) throws IOException {
+        json.beginObject();
+        json.name("id").value(guest.getId());
+        json.name("firstName").value(guest.getFirstName());
+        json.name("lastName").value(guest.getLastName());
+        json.name("idNumber").value(guest.getIdNumber());
+        json.name("phone").value(guest.getPhone());
+        json.name("email").value(guest.getEmail());
+        json.endObject();
+    }
+
+    private static void writeReservation(JsonWriter json, Reservation reservation) throws IOException {
+        json.beginObject();
+        json.name("id").value(reservation.getId());
+        json.name("guestId").value(reservation.getGuest().getId());
+        json.name("roomNumber").value(reservation.getRoom().getRoomNumber());
+        json.name("checkIn").value(reservation.getCheckInDate());
+        json.name("checkOut").value(reservation.getCheckOutDate());
+        json.name("status").value(reservation.getStatus().name());
+        json.name("totalPrice").value(reservation.getTotalPrice());
+        json.endObject();
+    }
+
+    private static void writeBill(JsonWriter json, Bill bill) throws IOException {
+        json.beginObject();
+        json.name("id").value(bill.getId());
+        json.name("reservationId").value(bill.getReservation().getId());
+        json.name("paid").value(bill.isPaid());
+        json.name("items").beginArray();
+        for (Bill.BillItem item : bill.getItems()) {
+            json.beginObject();
+            json.name("description").value(item.getDescription());
+            json.name("amount").value(item.getAmount());
+            json.endObject();
+        }
+        json.endArray();
+        json.name("total").value(bill.calculateTotal());
+        json.endObject();
+    }
+
+    // Run an endpoint, turning exceptions into error responses
+    private void handle(HttpExchange exchange, LatencyHistogram latency, Endpoint endpoint) throws IOException {
+        long start = System.nanoTime();
+        try (exchange) {
+            // The response is encoded into a buffer first, so that an error can still replace it
+            ByteArrayOutputStream body = new ByteArrayOutputStream(1024);
+            int status;
+            try {
+                Request request = new Request(exchange);
+                JsonWriter json = new JsonWriter(writerFor(body));
+                endpoint.handle(request, json);
+                json.flush();
+                status = request.status;
+            } catch (ApiException e) {
+                clientErrors.increment();
+                status = writeError(body, e.status, e.getMessage());
+            } catch (IllegalArgumentException | DateTimeParseException e) {
+                clientErrors.increment();
+                status = writeError(body, 400, e.getMessage());
+            } catch (RuntimeException e) {
+                serverErrors.increment();
+                status = writeError(body, 500, "Internal error");
+            }
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            exchange.sendResponseHeaders(status, body.size());
+            body.writeTo(exchange.getResponseBody());
+        } finally {
+            latency.recordSince(start);
+        }
+    }
+
+    private static int writeError(ByteArrayOutputStream body, int status, String message) throws IOException {
+        body.reset();
+        JsonWriter json = new JsonWriter(writerFor(body));
+        json.beginObject().name("error").value(message).endObject();
+        json.flush();
+        return status;
+    }
+
+    private static Writer writerFor(ByteArrayOutputStream body) {
+        return new BufferedWriter(new OutputStreamWriter(body, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * A request handler: it sets the status and writes its response with the given encoder.
+     */
+    private interface Endpoint {
+        void handle(Request request, JsonWriter json) throws IOException;
+    }
+
+    /**
+     * The method, path segments and parameters of a request.
+     */
+    private static final class Request {
+        final HttpExchange exchange;
+        final String method;
+        // Segments of the path without the leading slash, e.g. ["api", "reservations", "12"]
+        final String[] path;
+        final Map<String, String> parameters;
+        int status = 200;
+
+        Request(HttpExchange exchange) throws IOException {
+            this.exchange = exchange;
+            this.method = exchange.getRequestMethod();
+            String rawPath = exchange.getRequestURI().getPath();
+            this.path = (rawPath.endsWith("/") ? rawPath.substring(1, rawPath.length() - 1) : rawPath.substring(1)).split("/");
+            this.parameters = new HashMap<>();
+            parse(exchange.getRequestURI().getRawQuery());
+            String contentType = exchange.getRequestHeaders().getFirst("Content-Type");
+            if (contentType != null && contentType.startsWith("application/x-www-form-urlencoded")) {
+                try (InputStream in = exchange.getRequestBody()) {
+                    parse(new String(in.readAllBytes(), StandardCharsets.UTF_8));
+                }
+            }
+        }
+
+        void requireMethod(String expected) {
+            if (!method.equals(expected)) {
+                throw new ApiException(405, "Use " + expected);
+            }
+        }
+
+        void status(int status) {
+            this.status = status;
+        }
+
+        String optional(String name) {
+            String value = parameters.get(name);
+            return value == null || value.isEmpty() ? null : value;
+        }
+
+        String required(String name) {
+            String value = optional(name);
+            if (value == null) {
+                throw new ApiException(400, "Missing parameter " + name);
+            }
+            return value;
+        }
+
+        int integer(String name) {
+            return Integer.parseInt(required(name));
+        }
+
+        LocalDate date(String name) {
+            return LocalDate.parse(required(name));
+        }
+
+        BigDecimal amount(String name) {
+            return new BigDecimal(required(name));
+        }
+
+        RoomType roomType(String name) {
+            return RoomType.valueOf(name.toUpperCase());
+        }
+
+        // Parse the ID in a path segment
+        int id(int segment) {
+            try {
+                return Integer.parseInt(path[segment]);
+            } catch (NumberFormatException e) {
+                throw new ApiException(404, "Unknown path");
+            }
+        }
+
+        private void parse(String encoded) {
+            if (encoded == null || encoded.isEmpty()) {
+                return;
+            }
+            for (String pair : encoded.split("&")) {
+                int equals = pair.indexOf('=');
+                String name = equals < 0 ? pair : pair.substring(0, equals);
+                String value = equals < 0 ? "" : pair.substring(equals + 1);
+                parameters.put(URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8));
+            }
+        }
+    }
+
+    /**
+     * An error to answer with the given status.
+     */
+    private static final class ApiException extends RuntimeException {
+        final int status;
+
+        ApiException(int status, String message) {
+            super(message);
+            this.status = status;
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package api;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.Arrays;
+
+/**
+ * Streaming JSON encoder: names and values are written to the underlying writer as they come,
+ * with the commas and colons in between, without building a document in memory or using
+ * reflection. Callers write each field of their objects explicitly.
+ */
+public class JsonWriter implements Closeable, Flushable {
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Writer out;
+    // For each open object or array, whether it is an object and whether it has an entry yet
+    private boolean[] objects = new boolean[8];
+    private boolean[] started = new boolean[8];
+    private int depth;
+    // A name was written and its value is next
+    private boolean afterName;
+
+    public JsonWriter(Writer out) {
+        this.out = out;
+    }
+
+    public JsonWriter beginObject() throws IOException {
+        beforeValue();
+        out.write('{');
+        push(true);
+        return this;
+    }
+
+    public JsonWriter endObject() throws IOException {
+        pop(true);
+        out.write('}');
+        return this;
+    }
+
+    public JsonWriter beginArray() throws IOException {
+        beforeValue();
+        out.write('[');
+        push(false);
+        return this;
+    }
+
+    public JsonWriter endArray() throws IOException {
+        pop(false);
+        out.write(']');
+        return this;
+    }
+
+    // Write the name of the next field of the current object
+    public JsonWriter name(String name) throws IOException {
+        if (depth == 0 || !objects[depth - 1] || afterName) {
+            throw new IllegalStateException("A name is only allowed inside an object, before a value");
+        }
+        if (started[depth - 1]) {
+            out.write(',');
+        }
+        started[depth - 1] = true;
+        writeString(name);
+        out.write(':');
+        afterName = true;
+        return this;
+    }
+
+    public JsonWriter value(String value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        writeString(value);
+        return this;
+    }
+
+    public JsonWriter value(long value) throws IOException {
+        beforeValue();
+        out.write(Long.toString(value));
+        return this;
+    }
+
+    public JsonWriter value(boolean value) throws IOException {
+        beforeValue();
+        out.write(value ? "true" : "false");
+        return this;
+    }
+
+    // Write an amount as a JSON number, keeping its scale, e.g. 120.50
+    public JsonWriter value(BigDecimal value) throws IOException {
+        if (value == null) {
+            return nullValue();
+        }
+        beforeValue();
+        out.write(value.toPlainString());
+        return this;
+    }
+
+    // Write a date as an ISO string, e.g. "2025-03-01"
+    public JsonWriter value(LocalDate value) throws IOException {
+        return value(value == null ? null : value.toString());
+    }
+
+    public JsonWriter nullValue() throws IOException {
+        beforeValue();
+        out.write("null");
+        return this;
+    }
+
+    @Override
+    public void flush() throws IOException {
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (depth > 0) {
+            throw new IllegalStateException("Unclosed object or array");
+        }
+        out.close();
+    }
+
+    // Write the comma before a value in an array, or check that a name came before a value in an object
+    private void beforeValue() throws IOException {
+        if (depth == 0) {
+            return;
+        }
+        if (objects[depth - 1]) {
+            if (!afterName) {
+                throw new IllegalStateException("A value inside an object needs a name first");
+            }
+            afterName = false;
+        } else {
+            if (started[depth - 1]) {
+                out.write(',');
+            }
+            started[depth - 1] = true;
+        }
+    }
+
+    private void push(boolean object) {
+        if (depth == objects.length) {
+            objects = Arrays.copyOf(objects, depth * 2);
+            started = Arrays.copyOf(started, depth * 2);
+        }
+        objects[depth] = object;
+        started[depth] = false;
+        depth++;
+    }
+
+    private void pop(boolean object) {
+        if (depth == 0 || objects[depth - 1] != object || afterName) {
+            throw new IllegalStateException("Nothing to close, or a name without a value");
+        }
+        depth--;
+    }
+
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        int length = value.length();
+        int from = 0;
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c >= 0x20 && c != '"' && c != '\\') {
+                continue;
+            }
+            // Copy the plain run before the character, then its escape
+            out.write(value, from, i - from);
+            from = i + 1;
+            switch (c) {
+                case '"' -> out.write("\\\"");
+                case '\\' -> out.write("\\\\");
+                case '\n' -> out.write("\\n");
+                case '\r' -> out.write("\\r");
+                case '\t' -> out.write("\\t");
+                default -> {
+                    out.write("\\u00");
+                    out.write(HEX[c >> 4]);
+                    out.write(HEX[c & 0xF]);
+                }
+            }
+        }
+        out.write(value, from, length - from);
+        out.write('"');
+    }
+}
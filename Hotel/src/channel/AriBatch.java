@@ -0,0 +1,13 @@
+package channel;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Updates pushed to the channels together.
+ *
+ * @param sequence numbers the batches of a publisher from 1, so a channel can spot a missing one
+ * @param created when the batch was built
+ */
+public record AriBatch(long sequence, Instant created, List<AriUpdate> updates) {
+}
@@ -0,0 +1,401 @@
+package channel;
+
+import event.DomainEvent;
+import event.EventBus;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import service.RateCalendar;
+import service.RoomInventory;
+import service.RoomService;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Pushes availability, rates and inventory (ARI) of each room type to the booking channels
+ * whenever bookings or rooms change.
+ *
+ * The publisher follows the reservation and room events and notes which nights of which room
+ * type changed. The first change starts a time window; when it ends, the figures of all the
+ * nights noted meanwhile are read once and sent as one batch, so a burst of bookings for the
+ * same nights is a single update. Only nights whose figures differ from what was last sent
+ * are included, and consecutive nights with the same figures are sent as one range.
+ *
+ * Rates set for a room type in the rate calendar, by hand or by the pricing engine, are noted
+ * the same way. On start, and then once a day, the whole horizon is checked again, which
+ * sends the night that enters the horizon.
+ */
+public class AriPublisher {
+    private static final int MAX_BATCH_SIZE = 500;
+    // Marks a night never sent
+    private static final int NOT_SENT = -1;
+
+    private static AriPublisher instance;
+
+    private final EventBus eventBus;
+    private final RoomInventory inventory;
+    private final RateCalendar rateCalendar;
+    private final RoomService roomService;
+    private final ScheduledExecutorService worker;
+    private final List<EventBus.Subscription> subscriptions;
+    private final RateCalendar.Listener rateListener = this::markChanged;
+
+    // Settings while running; the sink is null when stopped
+    private volatile AriSink sink;
+    private volatile long windowMillis;
+    private volatile int horizonDays;
+    // Epoch day of the first bit of the pending sets and first entry of the sent figures
+    private volatile long baseDay;
+    private ScheduledFuture<?> dailyTask;
+    private long sequence;
+
+    // Nights waiting to be pushed per room type, one bit per night from baseDay
+    private final Object pendingLock = new Object();
+    private final BitSet[] pending;
+    private boolean pushScheduled;
+
+    // Figures last sent per room type and night from baseDay
+    private final int[][] sentAvailable;
+    private final BigDecimal[][] sentRates;
+
+    // Nights noted as changed, how many were already pending or had not really changed, and what was sent
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram pushLatency = metrics.histogram("AriPublisher.push");
+    private final Counter nightsChanged = metrics.counter("AriPublisher.nightsChanged");
+    private final Counter coalesced = metrics.counter("AriPublisher.coalesced");
+    private final Counter unchanged = metrics.counter("AriPublisher.unchanged");
+    private final Counter updatesSent = metrics.counter("AriPublisher.updates");
+    private final Counter batchesSent = metrics.counter("AriPublisher.batches");
+    private final Counter failures = metrics.counter("AriPublisher.failures");
+
+    private AriPublisher() {
+        eventBus = EventBus.getInstance();
+        inventory = RoomInventory.getInstance();
+        rateCalendar = RateCalendar.getInstance();
+        roomService = RoomService.getInstance();
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "ari-publisher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        subscriptions = new ArrayList<>();
+        int types = RoomType.values().length;
+        pending = new BitSet[types];
+        sentAvailable = new int[types][];
+        sentRates = new BigDecimal[types][];
+    }
+
+    public static synchronized AriPublisher getInstance() {
+        if (instance == null) {
+            instance = new AriPublisher();
+        }
+        return instance;
+    }
+
+    /**
+     * Start publishing: send the figures of every night of the horizon now, then follow the
+     * changes. Starting again restarts with the new settings and sends everything again.
+     *
+     * @param window how long changes are collected before they are pushed
+     * @param horizonDays the number of nights from today that the channels sell
+     */
+    public synchronized void start(AriSink sink, Duration window, int horizonDays) {
+        if (horizonDays <= 0) {
+            throw new IllegalArgumentException("The horizon must be at least one night");
+        }
+        stop();
+        this.windowMillis = window.toMillis();
+        this.horizonDays = horizonDays;
+        this.baseDay = LocalDate.now().toEpochDay();
+        this.sequence = 0;
+        synchronized (pendingLock) {
+            for (int i = 0; i < pending.length; i++) {
+                pending[i] = new BitSet(horizonDays);
+                sentAvailable[i] = new int[0];
+                sentRates[i] = new BigDecimal[0];
+            }
+            pushScheduled = false;
+        }
+        this.sink = sink;
+
+        subscriptions.add(eventBus.subscribe(DomainEvent.ReservationCreated.class,
+                event -> reservationChanged(event.reservation())));
+        subscriptions.add(eventBus.subscribe(DomainEvent.ReservationStatusChanged.class, event -> {
+            // Only cancelling releases nights; a stay that is checked out keeps them
+            if (event.reservation().getStatus() == ReservationStatus.CANCELLED
+                    || event.oldStatus() == ReservationStatus.CANCELLED) {
+                reservationChanged(event.reservation());
+            }
+        }));
+        subscriptions.add(eventBus.subscribe(DomainEvent.ReservationUpdated.class, event -> {
+            if (event.previous() == event.reservation()) {
+                // Changed in place, so the previous room and dates are unknown
+                markAllChanged();
+            } else {
+                reservationChanged(event.previous());
+                reservationChanged(event.reservation());
+            }
+        }));
+        subscriptions.add(eventBus.subscribe(DomainEvent.RoomAdded.class, event -> roomTypeChanged(event.room().getType())));
+        subscriptions.add(eventBus.subscribe(DomainEvent.RoomDeleted.class, event -> roomTypeChanged(event.room().getType())));
+        // The room may have changed type, and the previous one is unknown
+        subscriptions.add(eventBus.subscribe(DomainEvent.RoomUpdated.class, event -> markAllChanged()));
+        subscriptions.add(eventBus.subscribe(DomainEvent.RoomStatusChanged.class, event -> {
+            if (event.room().getStatus() == RoomStatus.MAINTENANCE || event.oldStatus() == RoomStatus.MAINTENANCE) {
+                roomTypeChanged(event.room().getType());
+            }
+        }));
+
+        rateCalendar.addListener(rateListener);
+
+        dailyTask = worker.scheduleAtFixedRate(this::markAllChanged, 1, 1, TimeUnit.DAYS);
+        markAllChanged();
+        push();
+    }
+
+    // Stop publishing after pushing the changes still pending
+    public synchronized void stop() {
+        if (sink == null) {
+            return;
+        }
+        subscriptions.forEach(EventBus.Subscription::unsubscribe);
+        subscriptions.clear();
+        rateCalendar.removeListener(rateListener);
+        dailyTask.cancel(false);
+        push();
+        sink = null;
+    }
+
+    // Check whether the publisher is running
+    public boolean isRunning() {
+        return sink != null;
+    }
+
+    // Get the number of nights waiting to be pushed, over all room types
+    public int getPendingNights() {
+        synchronized (pendingLock) {
+            int nights = 0;
+            for (BitSet set : pending) {
+                nights += set == null ? 0 : set.cardinality();
+            }
+            return nights;
+        }
+    }
+
+    /**
+     * Note that the figures of a room type changed for the nights from one day up to, but not
+     * including, another, e.g. after setting rates. They are pushed when the current window ends.
+     */
+    public void markChanged(RoomType type, LocalDate from, LocalDate to) {
+        if (sink == null) {
+            return;
+        }
+        long today = LocalDate.now().toEpochDay();
+        long first = Math.max(from.toEpochDay(), today);
+        long end = Math.min(to.toEpochDay(), today + horizonDays);
+        if (first >= end) {
+            return;
+        }
+        int already = addPending(type, first, end);
+        nightsChanged.add(end - first);
+        coalesced.add(already);
+    }
+
+    /**
+     * Push the nights noted so far now, on the calling thread, without waiting for the window to end.
+     *
+     * @return the number of updates sent
+     */
+    public synchronized int push() {
+        AriSink target = sink;
+        if (target == null) {
+            return 0;
+        }
+        long start = System.nanoTime();
+        try {
+            BitSet[] nights = new BitSet[pending.length];
+            synchronized (pendingLock) {
+                for (int i = 0; i < pending.length; i++) {
+                    nights[i] = pending[i];
+                    pending[i] = new BitSet(horizonDays);
+                }
+            }
+            List<AriUpdate> updates = new ArrayList<>();
+            BigDecimal[] roomPrices = null;
+            for (RoomType type : RoomType.values()) {
+                if (nights[type.ordinal()].isEmpty()) {
+                    continue;
+                }
+                if (roomPrices == null) {
+                    roomPrices = lowestRoomPrices();
+                }
+                collectUpdates(type, nights[type.ordinal()], roomPrices[type.ordinal()], updates);
+            }
+
+            int sent = 0;
+            for (int from = 0; from < updates.size(); from += MAX_BATCH_SIZE) {
+                List<AriUpdate> batch = List.copyOf(updates.subList(from, Math.min(updates.size(), from + MAX_BATCH_SIZE)));
+                try {
+                    target.send(new AriBatch(sequence + 1, Instant.now(), batch));
+                } catch (IOException | RuntimeException e) {
+                    // Send these nights and the ones after them again at the next push
+                    failures.increment();
+                    for (AriUpdate update : updates.subList(from, updates.size())) {
+                        addPending(update.type(), update.from().toEpochDay(), update.to().toEpochDay());
+                    }
+                    break;
+                }
+                sequence++;
+                batchesSent.increment();
+                updatesSent.add(batch.size());
+                batch.forEach(this::recordSent);
+                sent += batch.size();
+            }
+            return sent;
+        } finally {
+            pushLatency.recordSince(start);
+        }
+    }
+
+    // Compare the current figures of the given nights with the ones sent, and add the differences as ranges
+    private void collectUpdates(RoomType type, BitSet nights, BigDecimal roomPrice, List<AriUpdate> updates) {
+        long today = LocalDate.now().toEpochDay();
+        int firstBit = (int) (today - baseDay);
+        int endBit = firstBit + horizonDays;
+        int[] sentNights = sentAvailable[type.ordinal()];
+        BigDecimal[] sentNightRates = sentRates[type.ordinal()];
+        for (int from = nights.nextSetBit(firstBit); from >= 0 && from < endBit; from = nights.nextSetBit(from)) {
+            int to = Math.min(endBit, nights.nextClearBit(from));
+            LocalDate firstNight = LocalDate.ofEpochDay(baseDay + from);
+            int count = to - from;
+            int[] remaining = inventory.getBookableByNight(type, firstNight, count);
+            BigDecimal[] rates = rateCalendar.getTypeRates(type, firstNight, count);
+
+            AriUpdate open = null;
+            for (int night = 0; night < count; night++) {
+                int bit = from + night;
+                int available = Math.max(0, remaining[night]);
+                BigDecimal rate = rates[night] != null ? rates[night] : roomPrice;
+                boolean wasSent = bit < sentNights.length && sentNights[bit] != NOT_SENT;
+                if (wasSent && sentNights[bit] == available && equal(sentNightRates[bit], rate)) {
+                    unchanged.increment();
+                    open = null;
+                    continue;
+                }
+                if (open != null && open.available() == available && equal(open.rate(), rate)) {
+                    open = new AriUpdate(type, open.from(), open.to().plusDays(1), available, rate);
+                    updates.set(updates.size() - 1, open);
+                } else {
+                    open = new AriUpdate(type, firstNight.plusDays(night), firstNight.plusDays(night + 1), available, rate);
+                    updates.add(open);
+                }
+            }
+            from = to;
+        }
+    }
+
+    // Remember the figures sent for the nights of an update
+    private void recordSent(AriUpdate update) {
+        int type = update.type().ordinal();
+        int from = (int) (update.from().toEpochDay() - baseDay);
+        int to = (int) (update.to().toEpochDay() - baseDay);
+        if (sentAvailable[type].length < to) {
+            int length = Math.max(to, sentAvailable[type].length * 2);
+            int oldLength = sentAvailable[type].length;
+            sentAvailable[type] = Arrays.copyOf(sentAvailable[type], length);
+            Arrays.fill(sentAvailable[type], oldLength, length, NOT_SENT);
+            sentRates[type] = Arrays.copyOf(sentRates[type], length);
+        }
+        Arrays.fill(sentAvailable[type], from, to, update.available());
+        Arrays.fill(sentRates[type], from, to, update.rate());
+    }
+
+    /**
+     * Add nights [from, to), as epoch days, to the pending set of a room type and start the
+     * window if none is running.
+     *
+     * @return the number of those nights that were already pending
+     */
+    private int addPending(RoomType type, long from, long to) {
+        int fromBit = (int) (from - baseDay);
+        int toBit = (int) (to - baseDay);
+        int already;
+        boolean schedule;
+        synchronized (pendingLock) {
+            BitSet nights = pending[type.ordinal()];
+            already = nights.get(fromBit, toBit).cardinality();
+            nights.set(fromBit, toBit);
+            schedule = !pushScheduled;
+            pushScheduled = true;
+        }
+        if (schedule) {
+            worker.schedule(this::endWindow, windowMillis, TimeUnit.MILLISECONDS);
+        }
+        return already;
+    }
+
+    private void endWindow() {
+        synchronized (pendingLock) {
+            pushScheduled = false;
+        }
+        try {
+            push();
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void reservationChanged(Reservation reservation) {
+        if (reservation.getRoom() != null) {
+            // The room is held on the check-in and check-out days, which a stay over the night before or
+            // the check-out night would need too
+            markChanged(reservation.getRoom().getType(), reservation.getCheckInDate().minusDays(1),
+                    reservation.getCheckOutDate().plusDays(1));
+        }
+    }
+
+    // A room of the type was added, removed or taken in or out of maintenance: every night changes
+    private void roomTypeChanged(RoomType type) {
+        LocalDate today = LocalDate.now();
+        markChanged(type, today, today.plusDays(horizonDays));
+    }
+
+    private void markAllChanged() {
+        for (RoomType type : RoomType.values()) {
+            roomTypeChanged(type);
+        }
+    }
+
+    // Get the lowest price per night of the rooms of each type, which applies to nights without a type rate
+    private BigDecimal[] lowestRoomPrices() {
+        BigDecimal[] prices = new BigDecimal[RoomType.values().length];
+        for (Room room : roomService.getAllRooms()) {
+            int type = room.getType().ordinal();
+            if (prices[type] == null || room.getPricePerNight().compareTo(prices[type]) < 0) {
+                prices[type] = room.getPricePerNight();
+            }
+        }
+        return prices;
+    }
+
+    private static boolean equal(BigDecimal a, BigDecimal b) {
+        return a == null ? b == null : b != null && a.compareTo(b) == 0;
+    }
+}
@@ -0,0 +1,13 @@
+package channel;
+
+import java.io.IOException;
+
+/**
+ * Where the {@link AriPublisher} sends its batches, e.g. a channel manager's connection.
+ */
+public interface AriSink {
+    /**
+     * Deliver a batch. A batch that fails is built again, with the latest figures, at the next push.
+     */
+    void send(AriBatch batch) throws IOException;
+}
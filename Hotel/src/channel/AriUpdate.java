@@ -0,0 +1,17 @@
+package channel;
+
+import model.RoomType;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * Availability and rate of a room type for a range of consecutive nights that share them.
+ *
+ * @param from the first night
+ * @param to the night after the last one
+ * @param available rooms of the type that can still be sold each night, 0 when sold out
+ * @param rate the price per night
+ */
+public record AriUpdate(RoomType type, LocalDate from, LocalDate to, int available, BigDecimal rate) {
+}
@@ -0,0 +1,46 @@
+package channel;
+
+import api.JsonWriter;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends every batch to a file as one line of JSON, for a channel manager that picks the
+ * file up or for checking what would have been sent.
+ */
+public class FileAriSink implements AriSink {
+    private final Path file;
+
+    public FileAriSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void send(AriBatch batch) throws IOException {
+        try (Writer out = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            JsonWriter json = new JsonWriter(out);
+            json.beginObject();
+            json.name("sequence").value(batch.sequence());
+            json.name("created").value(batch.created().toString());
+            json.name("updates").beginArray();
+            for (AriUpdate update : batch.updates()) {
+                json.beginObject();
+                json.name("type").value(update.type().name());
+                json.name("from").value(update.from());
+                json.name("to").value(update.to());
+                json.name("available").value(update.available());
+                json.name("rate").value(update.rate());
+                json.endObject();
+            }
+            json.endArray();
+            json.endObject();
+            out.write(System.lineSeparator());
+        }
+    }
+}
@@ -0,0 +1,108 @@
+package data;
+
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.Room;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.stream.Collectors;
+
+/**
+ * Writes generated entities to one CSV file per entity type (rooms.csv, guests.csv,
+ * reservations.csv and bills.csv) in a directory. Entities are written in ID order, so the
+ * same generator settings always produce byte-identical files.
+ */
+public class CsvDataSink implements DataSink {
+    private final BufferedWriter roomsWriter;
+    private final BufferedWriter guestsWriter;
+    private final BufferedWriter reservationsWriter;
+    private final BufferedWriter billsWriter;
+
+    public CsvDataSink(Path directory) throws IOException {
+        Files.createDirectories(directory);
+        roomsWriter = open(directory.resolve("rooms.csv"),
+                "roomNumber,floor,type,status,pricePerNight,description");
+        guestsWriter = open(directory.resolve("guests.csv"),
+                "id,firstName,lastName,idNumber,phone,email,address");
+        reservationsWriter = open(directory.resolve("reservations.csv"),
+                "id,guestId,roomNumber,checkInDate,checkOutDate,status,totalPrice,createdAt,modifiedAt");
+        billsWriter = open(directory.resolve("bills.csv"),
+                "id,reservationId,issueDate,paid,items");
+    }
+
+    private static BufferedWriter open(Path file, String header) throws IOException {
+        BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8);
+        writer.write(header);
+        writer.newLine();
+        return writer;
+    }
+
+    @Override
+    public void acceptRoom(Room room) {
+        write(roomsWriter, room.getRoomNumber(), room.getFloor(), room.getType().name(), room.getStatus().name(),
+                room.getPricePerNight(), room.getDescription());
+    }
+
+    @Override
+    public void acceptGuest(Guest guest) {
+        write(guestsWriter, guest.getId(), guest.getFirstName(), guest.getLastName(), guest.getIdNumber(),
+                guest.getPhone(), guest.getEmail(), guest.getAddress());
+    }
+
+    @Override
+    public void acceptReservation(Reservation reservation) {
+        write(reservationsWriter, reservation.getId(), reservation.getGuest().getId(),
+                reservation.getRoom().getRoomNumber(), reservation.getCheckInDate(), reservation.getCheckOutDate(),
+                reservation.getStatus().name(), reservation.getTotalPrice(), reservation.getCreatedAt(),
+                reservation.getModifiedAt());
+    }
+
+    @Override
+    public void acceptBill(Bill bill) {
+        // Items are written as description:amount pairs separated by semicolons
+        String items = bill.getItems().stream()
+                .map(item -> item.getDescription() + ":" + item.getAmount())
+                .collect(Collectors.joining(";"));
+        write(billsWriter, bill.getId(), bill.getReservation().getId(), bill.getIssueDate(), bill.isPaid(), items);
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return true;
+    }
+
+    @Override
+    public void close() throws IOException {
+        roomsWriter.close();
+        guestsWriter.close();
+        reservationsWriter.close();
+        billsWriter.close();
+    }
+
+    private static void write(BufferedWriter writer, Object... values) {
+        try {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    writer.write(',');
+                }
+                writer.write(escape(String.valueOf(values[i])));
+            }
+            writer.newLine();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String escape(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+}
@@ -0,0 +1,34 @@
+package data;
+
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.Room;
+
+import java.io.IOException;
+
+/**
+ * Receives the entities produced by the {@link SyntheticDataGenerator}.
+ * All rooms are delivered before the guests, and all guests before the reservations and bills.
+ * Unless {@link #isOrdered()} returns true, entities of one kind may be delivered from several
+ * threads at once.
+ */
+public interface DataSink {
+
+    void acceptRoom(Room room);
+
+    void acceptGuest(Guest guest);
+
+    void acceptReservation(Reservation reservation);
+
+    void acceptBill(Bill bill);
+
+    // Whether entities must be delivered one at a time, in ID order
+    default boolean isOrdered() {
+        return false;
+    }
+
+    // Called once after the last entity
+    default void close() throws IOException {
+    }
+}
@@ -0,0 +1,78 @@
+package data;
+
+import java.time.LocalDate;
+
+/**
+ * Settings for the {@link SyntheticDataGenerator}. The same settings always produce the same data.
+ *
+ * @param seed seed for all random choices
+ * @param properties number of hotels; room numbers start at {@code property * 100000}
+ * @param roomsPerProperty number of rooms in each hotel
+ * @param guests number of guests
+ * @param reservations total number of reservations, including cancelled ones
+ * @param firstDay first day of the generated calendar
+ * @param days length of the generated calendar in days
+ * @param today reservations before this day are checked out, those spanning it are checked in
+ * @param cancellationRate minimum share of reservations that are cancelled
+ * @param billRate share of checked-out reservations that have a bill
+ */
+public record GeneratorConfig(long seed, int properties, int roomsPerProperty, int guests, int reservations,
+                              LocalDate firstDay, int days, LocalDate today, double cancellationRate,
+                              double billRate) {
+    public static final long DEFAULT_SEED = 42;
+
+    private static final LocalDate FIRST_DAY = LocalDate.of(2020, 1, 1);
+    private static final int FIVE_YEARS = 5 * 365;
+
+    public GeneratorConfig {
+        if (properties <= 0 || roomsPerProperty <= 0 || guests <= 0 || reservations < 0 || days <= 0) {
+            throw new IllegalArgumentException("Properties, rooms, guests and days must be positive");
+        }
+        if (cancellationRate < 0 || cancellationRate > 1 || billRate < 0 || billRate > 1) {
+            throw new IllegalArgumentException("Rates must be between 0 and 1");
+        }
+    }
+
+    /**
+     * Production scale: 4 properties of 5,000 rooms, 2M guests and 10M reservations over five years.
+     */
+    public static GeneratorConfig production() {
+        return new GeneratorConfig(DEFAULT_SEED, 4, 5_000, 2_000_000, 10_000_000, FIRST_DAY, FIVE_YEARS,
+                FIRST_DAY.plusDays(FIVE_YEARS * 9L / 10), 0.15, 0.5);
+    }
+
+    /**
+     * A data set with the given number of reservations over five years: one room per 450
+     * reservations (at least 20), spread over one property per 5,000 rooms, and one guest per 5 reservations.
+     */
+    public static GeneratorConfig forReservations(int reservations) {
+        int rooms = Math.max(20, reservations / 450);
+        int properties = Math.max(1, (rooms + 4_999) / 5_000);
+        return new GeneratorConfig(DEFAULT_SEED, properties, (rooms + properties - 1) / properties,
+                Math.max(10, reservations / 5), reservations, FIRST_DAY, FIVE_YEARS,
+                FIRST_DAY.plusDays(FIVE_YEARS * 9L / 10), 0.15, 0.5);
+    }
+
+    /**
+     * Parse a preset name ("small", "medium", "production") or a number of reservations.
+     */
+    public static GeneratorConfig parse(String preset) {
+        return switch (preset.toLowerCase()) {
+            case "small" -> forReservations(10_000);
+            case "medium" -> forReservations(1_000_000);
+            case "production" -> production();
+            default -> forReservations(Integer.parseInt(preset.replace("_", "")));
+        };
+    }
+
+    // Copy these settings with a different seed
+    public GeneratorConfig withSeed(long seed) {
+        return new GeneratorConfig(seed, properties, roomsPerProperty, guests, reservations, firstDay, days,
+                today, cancellationRate, billRate);
+    }
+
+    // Get the total number of rooms
+    public int rooms() {
+        return properties * roomsPerProperty;
+    }
+}
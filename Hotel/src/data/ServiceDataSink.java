@@ -0,0 +1,49 @@
+package data;
+
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import service.BillingService;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomService;
+
+/**
+ * Imports generated entities straight into the services, from several threads at once.
+ * Existing entities with the same ID or room number are replaced. No events are published,
+ * so open panels must reload afterwards.
+ */
+public class ServiceDataSink implements DataSink {
+    private final RoomService roomService;
+    private final GuestService guestService;
+    private final ReservationService reservationService;
+    private final BillingService billingService;
+
+    public ServiceDataSink() {
+        roomService = RoomService.getInstance();
+        guestService = GuestService.getInstance();
+        reservationService = ReservationService.getInstance();
+        billingService = BillingService.getInstance();
+    }
+
+    @Override
+    public void acceptRoom(Room room) {
+        roomService.importRoom(room);
+    }
+
+    @Override
+    public void acceptGuest(Guest guest) {
+        guestService.importGuest(guest);
+    }
+
+    @Override
+    public void acceptReservation(Reservation reservation) {
+        reservationService.importReservation(reservation);
+    }
+
+    @Override
+    public void acceptBill(Bill bill) {
+        billingService.importBill(bill);
+    }
+}
@@ -0,0 +1,409 @@
+package data;
+
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Generates a reproducible hotel data set and streams it into a {@link DataSink}.
+ *
+ * Every room gets a calendar of non-overlapping stays whose density follows the season
+ * (summer and year-end peaks, busier weekends). Cancelled reservations are added on top, so
+ * they may overlap anything. Stay lengths are mostly short, with longer stays in high season,
+ * and a small share of guests accounts for many reservations.
+ *
+ * Work is split by room and by chunks of guests and cancellations, and every piece draws from
+ * its own random stream derived from the seed. The data is therefore the same however many
+ * threads generate it.
+ */
+public class SyntheticDataGenerator {
+    private static final int CHUNK_SIZE = 50_000;
+    private static final int ROOMS_PER_FLOOR = 99;
+
+    // Random streams, so that e.g. counting stays does not shift the draws for guests
+    private static final int STREAM_ROOMS = 1;
+    private static final int STREAM_GUESTS = 2;
+    private static final int STREAM_STAYS = 3;
+    private static final int STREAM_STAY_DETAILS = 4;
+    private static final int STREAM_CANCELLATIONS = 5;
+    private static final int STREAM_BOOKING_TIMES = 6;
+    private static final int STREAM_CANCELLATION_TIMES = 7;
+
+    // Cumulative distribution of stay lengths of 1 to 14 nights
+    private static final double[] NIGHTS_CDF = {0.24, 0.47, 0.63, 0.73, 0.80, 0.85, 0.91, 0.93, 0.95, 0.96,
+            0.97, 0.98, 0.99, 1.00};
+
+    private static final String[] FIRST_NAMES = {"John", "Jane", "Maria", "Carlos", "Ana", "Luis", "Sofia",
+            "Pedro", "Lucia", "Diego", "Elena", "Jorge", "Carmen", "Pablo", "Laura", "Miguel", "Isabel", "Javier",
+            "Paula", "Andres", "Marta", "Daniel", "Rosa", "Fernando", "Julia", "Ricardo", "Clara", "Hugo",
+            "Valeria", "Mateo", "Camila", "Sergio"};
+    private static final String[] LAST_NAMES = {"Smith", "Garcia", "Lopez", "Martinez", "Rodriguez", "Perez",
+            "Gomez", "Sanchez", "Diaz", "Torres", "Ramirez", "Flores", "Rivera", "Castro", "Vargas", "Rojas",
+            "Morales", "Ortiz", "Silva", "Mendoza", "Herrera", "Medina", "Aguilar", "Romero", "Navarro", "Ruiz",
+            "Jimenez", "Alvarez", "Moreno", "Munoz", "Suarez", "Delgado"};
+    private static final String[] STREETS = {"Main St", "Oak Ave", "Pine Rd", "Maple Dr", "Cedar Ln", "Elm St",
+            "Lake View", "Hill Rd", "Park Ave", "River Rd"};
+    private static final String[] EXTRAS = {"Minibar", "Restaurant", "Laundry", "Spa", "Parking"};
+
+    private final GeneratorConfig config;
+    private final double[] demand;
+    private final double maxDemand;
+
+    public SyntheticDataGenerator(GeneratorConfig config) {
+        this.config = config;
+        this.demand = new double[config.days()];
+        double max = 0;
+        for (int day = 0; day < demand.length; day++) {
+            demand[day] = demand(config.firstDay().plusDays(day));
+            max = Math.max(max, demand[day]);
+        }
+        this.maxDemand = max;
+    }
+
+    /**
+     * Generate the data set into the sink and close it.
+     *
+     * @return counts of what was generated
+     */
+    public Summary generate(DataSink sink) throws IOException {
+        long start = System.nanoTime();
+        try {
+            // Find how densely to fill the calendars, then number the stays room by room
+            int activeTarget = (int) Math.round(config.reservations() * (1 - config.cancellationRate()));
+            double scale = findScale(activeTarget);
+            int roomCount = config.rooms();
+            int[] staysPerRoom = IntStream.range(0, roomCount).parallel()
+                    .map(roomIndex -> countStays(roomIndex, scale))
+                    .toArray();
+            int[] firstStayId = new int[roomCount + 1];
+            for (int roomIndex = 0; roomIndex < roomCount; roomIndex++) {
+                firstStayId[roomIndex + 1] = firstStayId[roomIndex] + staysPerRoom[roomIndex];
+            }
+            int activeCount = firstStayId[roomCount];
+            int cancelledCount = config.reservations() - activeCount;
+
+            Room[] rooms = new Room[roomCount];
+            emit(sink, roomCount, roomIndex -> {
+                rooms[roomIndex] = createRoom(roomIndex, scale);
+                return Stream.of(rooms[roomIndex]);
+            }, room -> sink.acceptRoom((Room) room));
+
+            Guest[] guests = new Guest[config.guests()];
+            emit(sink, chunks(guests.length), chunk -> {
+                SplittableRandom random = random(STREAM_GUESTS, chunk);
+                int from = chunk * CHUNK_SIZE;
+                int to = Math.min(guests.length, from + CHUNK_SIZE);
+                for (int i = from; i < to; i++) {
+                    guests[i] = createGuest(i, random);
+                }
+                return Arrays.stream(guests, from, to);
+            }, guest -> sink.acceptGuest((Guest) guest));
+
+            AtomicInteger bills = new AtomicInteger();
+            emit(sink, roomCount, roomIndex -> createStays(roomIndex, scale, firstStayId[roomIndex] + 1,
+                    rooms[roomIndex], guests).stream(), entity -> {
+                if (entity instanceof Bill bill) {
+                    sink.acceptBill(bill);
+                    bills.incrementAndGet();
+                } else {
+                    sink.acceptReservation((Reservation) entity);
+                }
+            });
+
+            emit(sink, chunks(cancelledCount), chunk -> createCancellations(chunk, activeCount, cancelledCount,
+                    rooms, guests).stream(), reservation -> sink.acceptReservation((Reservation) reservation));
+
+            return new Summary(roomCount, guests.length, activeCount, cancelledCount, bills.get(),
+                    (System.nanoTime() - start) / 1_000_000);
+        } finally {
+            sink.close();
+        }
+    }
+
+    // Produce the entities of each piece of work in parallel and pass them to the sink
+    private static void emit(DataSink sink, int pieces, IntFunction<Stream<?>> piece,
+                             Consumer<Object> consumer) {
+        Stream<Stream<?>> results = IntStream.range(0, pieces).parallel().mapToObj(piece);
+        if (sink.isOrdered()) {
+            results.forEachOrdered(entities -> entities.forEach(consumer));
+        } else {
+            results.forEach(entities -> entities.forEach(consumer));
+        }
+    }
+
+    private Room createRoom(int roomIndex, double scale) {
+        SplittableRandom random = random(STREAM_ROOMS, roomIndex);
+        int property = 1 + roomIndex / config.roomsPerProperty();
+        int indexInProperty = roomIndex % config.roomsPerProperty();
+        int floor = 1 + indexInProperty / ROOMS_PER_FLOOR;
+        int roomNumber = property * 100_000 + floor * 100 + 1 + indexInProperty % ROOMS_PER_FLOOR;
+
+        double typeDraw = random.nextDouble();
+        RoomType type = typeDraw < 0.5 ? RoomType.SIMPLE : typeDraw < 0.85 ? RoomType.DOUBLE : RoomType.SUITE;
+        int basePrice = switch (type) {
+            case SIMPLE -> 80;
+            case DOUBLE -> 130;
+            case SUITE -> 250;
+        };
+        BigDecimal price = BigDecimal.valueOf(basePrice + 5L * random.nextInt(basePrice / 5));
+        RoomStatus status = isOccupiedToday(roomIndex, scale) ? RoomStatus.OCCUPIED : RoomStatus.AVAILABLE;
+        return new Room(roomNumber, floor, type, status, price, "Property " + property);
+    }
+
+    // Check whether one of the room's stays spans today, which makes it checked in
+    private boolean isOccupiedToday(int roomIndex, double scale) {
+        int today = (int) (config.today().toEpochDay() - config.firstDay().toEpochDay());
+        boolean[] occupied = new boolean[1];
+        walkStays(roomIndex, scale, (day, nights) -> occupied[0] |= day <= today && today <= day + nights);
+        return occupied[0];
+    }
+
+    private static Guest createGuest(int index, SplittableRandom random) {
+        int id = index + 1;
+        String firstName = FIRST_NAMES[random.nextInt(FIRST_NAMES.length)];
+        String lastName = LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+        return new Guest(id, firstName, lastName, String.valueOf(10_000_000L + id),
+                "555-" + (1000 + random.nextInt(9000)),
+                (firstName + "." + lastName + id + "@example.com").toLowerCase(),
+                (1 + random.nextInt(999)) + " " + STREETS[random.nextInt(STREETS.length)]);
+    }
+
+    /**
+     * Walk through a room's calendar. On each free day a stay starts with a probability that
+     * grows with the day's demand; a stay blocks its nights plus the check-out day, because a
+     * reservation that checks in on another's check-out day counts as overlapping.
+     */
+    private void walkStays(int roomIndex, double scale, StayVisitor visitor) {
+        SplittableRandom random = random(STREAM_STAYS, roomIndex);
+        int day = 0;
+        while (day < demand.length) {
+            if (random.nextDouble() < scale * demand[day]) {
+                int nights = nights(random, demand[day]);
+                if (day + nights >= demand.length) {
+                    return;
+                }
+                visitor.visit(day, nights);
+                day += nights + 1;
+            } else {
+                day++;
+            }
+        }
+    }
+
+    private int countStays(int roomIndex, double scale) {
+        int[] count = new int[1];
+        walkStays(roomIndex, scale, (day, nights) -> count[0]++);
+        return count[0];
+    }
+
+    // Find the largest calendar density that produces at most the target number of stays
+    private double findScale(int target) {
+        double low = 0;
+        double high = 1 / maxDemand * 4;
+        if (countAllStays(high) <= target) {
+            return high;
+        }
+        for (int i = 0; i < 20; i++) {
+            double middle = (low + high) / 2;
+            if (countAllStays(middle) <= target) {
+                low = middle;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private long countAllStays(double scale) {
+        return IntStream.range(0, config.rooms()).parallel()
+                .mapToLong(roomIndex -> countStays(roomIndex, scale))
+                .sum();
+    }
+
+    private List<Object> createStays(int roomIndex, double scale, int firstId, Room room, Guest[] guests) {
+        SplittableRandom random = random(STREAM_STAY_DETAILS, roomIndex);
+        SplittableRandom times = random(STREAM_BOOKING_TIMES, roomIndex);
+        List<Object> entities = new ArrayList<>();
+        int[] nextId = {firstId};
+        walkStays(roomIndex, scale, (day, nights) -> {
+            LocalDate checkIn = config.firstDay().plusDays(day);
+            LocalDate checkOut = checkIn.plusDays(nights);
+            ReservationStatus status = checkOut.isBefore(config.today()) ? ReservationStatus.CHECKED_OUT
+                    : checkIn.isAfter(config.today()) ? ReservationStatus.CONFIRMED : ReservationStatus.CHECKED_IN;
+            Reservation reservation = createReservation(nextId[0]++, guests[guestIndex(random, guests.length)],
+                    room, checkIn, checkOut, status, times);
+            entities.add(reservation);
+            if (status == ReservationStatus.CHECKED_OUT && random.nextDouble() < config.billRate()) {
+                entities.add(createBill(reservation, random));
+            }
+        });
+        return entities;
+    }
+
+    private List<Reservation> createCancellations(int chunk, int activeCount, int cancelledCount,
+                                                  Room[] rooms, Guest[] guests) {
+        SplittableRandom random = random(STREAM_CANCELLATIONS, chunk);
+        SplittableRandom times = random(STREAM_CANCELLATION_TIMES, chunk);
+        int end = Math.min(cancelledCount, (chunk + 1) * CHUNK_SIZE);
+        List<Reservation> reservations = new ArrayList<>(end - chunk * CHUNK_SIZE);
+        for (int i = chunk * CHUNK_SIZE; i < end; i++) {
+            // Pick the day in proportion to its demand
+            int day;
+            do {
+                day = random.nextInt(demand.length);
+            } while (random.nextDouble() * maxDemand > demand[day]);
+            int nights = nights(random, demand[day]);
+            LocalDate checkIn = config.firstDay().plusDays(day);
+            reservations.add(createReservation(activeCount + i + 1, guests[guestIndex(random, guests.length)],
+                    rooms[random.nextInt(rooms.length)], checkIn, checkIn.plusDays(nights),
+                    ReservationStatus.CANCELLED, times));
+        }
+        return reservations;
+    }
+
+    private Reservation createReservation(int id, Guest guest, Room room, LocalDate checkIn, LocalDate checkOut,
+                                          ReservationStatus status, SplittableRandom times) {
+        long nights = checkOut.toEpochDay() - checkIn.toEpochDay();
+        LocalDateTime createdAt = bookingTime(times, checkIn);
+        LocalDateTime modifiedAt = switch (status) {
+            case CHECKED_IN -> checkIn.atTime(15, 0);
+            case CHECKED_OUT -> checkOut.atTime(11, 0);
+            case CANCELLED -> cancellationTime(times, createdAt, checkIn);
+            default -> createdAt;
+        };
+        return new Reservation(id, guest, room, checkIn, checkOut, status,
+                room.getPricePerNight().multiply(BigDecimal.valueOf(nights)), "", createdAt, modifiedAt);
+    }
+
+    // Stays are booked further ahead in high season; stays after today were all booked by today
+    private LocalDateTime bookingTime(SplittableRandom random, LocalDate checkIn) {
+        double meanLeadDays = 10 + 30 * demand(checkIn);
+        long leadDays = Math.min(365, (long) (-Math.log(1 - random.nextDouble()) * meanLeadDays));
+        LocalDate booked = checkIn.minusDays(leadDays);
+        if (booked.isAfter(config.today())) {
+            booked = config.today();
+        }
+        return booked.atTime(8 + random.nextInt(14), random.nextInt(60));
+    }
+
+    // Cancellations come between booking and arrival, and by today
+    private LocalDateTime cancellationTime(SplittableRandom random, LocalDateTime createdAt, LocalDate checkIn) {
+        LocalDate last = checkIn.isAfter(config.today()) ? config.today() : checkIn;
+        long days = Math.max(0, last.toEpochDay() - createdAt.toLocalDate().toEpochDay());
+        return createdAt.plusDays(random.nextLong(days + 1));
+    }
+
+    // Bills have the ID of their reservation
+    private Bill createBill(Reservation reservation, SplittableRandom random) {
+        Bill bill = new Bill(reservation.getId(), reservation, reservation.getCheckOutDate().atTime(11, 0),
+                reservation.getCheckOutDate().isBefore(config.today().minusDays(30)) || random.nextBoolean());
+        int extras = random.nextInt(4);
+        for (int i = 0; i < extras; i++) {
+            bill.addItem(new Bill.BillItem(EXTRAS[random.nextInt(EXTRAS.length)],
+                    BigDecimal.valueOf(5 + random.nextInt(95))));
+        }
+        return bill;
+    }
+
+    // Stay length in nights; high season brings more long stays
+    private static int nights(SplittableRandom random, double dayDemand) {
+        double draw = random.nextDouble();
+        int nights = 1;
+        while (draw > NIGHTS_CDF[nights - 1]) {
+            nights++;
+        }
+        if (dayDemand > 1.25 && random.nextDouble() < 0.25) {
+            nights += 2 + random.nextInt(5);
+        }
+        return nights;
+    }
+
+    // Skewed towards low indexes, so some guests come back often
+    private static int guestIndex(SplittableRandom random, int guests) {
+        double draw = random.nextDouble();
+        return (int) (guests * draw * draw);
+    }
+
+    // Relative demand for a day: summer and year-end peaks, busier weekends
+    static double demand(LocalDate date) {
+        double demand = 1 + 0.35 * Math.cos(2 * Math.PI * (date.getDayOfYear() - 196) / 365.0);
+        DayOfWeek dayOfWeek = date.getDayOfWeek();
+        if (dayOfWeek == DayOfWeek.FRIDAY || dayOfWeek == DayOfWeek.SATURDAY) {
+            demand += 0.25;
+        }
+        if ((date.getMonthValue() == 12 && date.getDayOfMonth() >= 20)
+                || (date.getMonthValue() == 1 && date.getDayOfMonth() <= 3)) {
+            demand += 0.4;
+        }
+        return demand;
+    }
+
+    private SplittableRandom random(int stream, long index) {
+        // SplitMix64 finalizer over seed, stream and index
+        long z = config.seed() * 0x9E3779B97F4A7C15L + stream * 0xBF58476D1CE4E5B9L + index * 0x94D049BB133111EBL;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return new SplittableRandom(z ^ (z >>> 31));
+    }
+
+    private static int chunks(int count) {
+        return (count + CHUNK_SIZE - 1) / CHUNK_SIZE;
+    }
+
+    private interface StayVisitor {
+        void visit(int day, int nights);
+    }
+
+    /**
+     * What a run of the generator produced.
+     */
+    public record Summary(int rooms, int guests, int activeReservations, int cancelledReservations, int bills,
+                          long elapsedMillis) {
+        public int reservations() {
+            return activeReservations + cancelledReservations;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%,d rooms, %,d guests, %,d reservations (%,d cancelled), %,d bills in %,d ms",
+                    rooms, guests, reservations(), cancelledReservations, bills, elapsedMillis);
+        }
+    }
+
+    /**
+     * Generate a data set to CSV files.
+     * Usage: {@code SyntheticDataGenerator <small|medium|production|reservations> <output directory> [seed]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("Usage: SyntheticDataGenerator <small|medium|production|reservations> <output directory> [seed]");
+            System.exit(1);
+        }
+        GeneratorConfig config = GeneratorConfig.parse(args[0]);
+        if (args.length > 2) {
+            config = config.withSeed(Long.parseLong(args[2]));
+        }
+        Summary summary = new SyntheticDataGenerator(config).generate(new CsvDataSink(Path.of(args[1])));
+        System.out.println("Generated " + summary);
+    }
+}
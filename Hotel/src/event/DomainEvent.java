@@ -0,0 +1,48 @@
+package event;
+
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+
+/**
+ * A change to the hotel's data, published by the services on the {@link EventBus}.
+ * Events carry the changed entity so listeners can apply the change without reloading.
+ */
+public interface DomainEvent {
+
+    // Guest events
+    record GuestAdded(Guest guest) implements DomainEvent { }
+
+    record GuestUpdated(Guest guest) implements DomainEvent { }
+
+    record GuestDeleted(Guest guest) implements DomainEvent { }
+
+    // Room events
+    record RoomAdded(Room room) implements DomainEvent { }
+
+    record RoomUpdated(Room room) implements DomainEvent { }
+
+    record RoomDeleted(Room room) implements DomainEvent { }
+
+    record RoomStatusChanged(Room room, RoomStatus oldStatus) implements DomainEvent { }
+
+    // Reservation events
+    record ReservationCreated(Reservation reservation) implements DomainEvent { }
+
+    // previous is the reservation replaced, or the same object when it was changed in place
+    record ReservationUpdated(Reservation reservation, Reservation previous) implements DomainEvent { }
+
+    record ReservationStatusChanged(Reservation reservation, ReservationStatus oldStatus) implements DomainEvent { }
+
+    // Billing events
+    record BillCreated(Bill bill) implements DomainEvent { }
+
+    record BillItemAdded(Bill bill, Bill.BillItem item) implements DomainEvent { }
+
+    record BillItemRemoved(Bill bill, Bill.BillItem item) implements DomainEvent { }
+
+    record BillPaid(Bill bill) implements DomainEvent { }
+}
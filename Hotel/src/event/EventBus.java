@@ -0,0 +1,153 @@
+package event;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * In-process bus for {@link DomainEvent}s.
+ * Publishing never runs listeners on the caller's thread: typed listeners are called in
+ * publish order on a single dispatcher thread, and EDT listeners receive all events
+ * published during one frame as a single batch.
+ */
+public class EventBus {
+    // One frame at 60 Hz
+    static final long FRAME_MILLIS = 16;
+
+    private static EventBus instance;
+
+    private final List<TypedListener<?>> listeners;
+    private final List<Consumer<List<DomainEvent>>> edtListeners;
+    private final ConcurrentLinkedQueue<DomainEvent> edtQueue;
+    private final AtomicBoolean edtFlushScheduled;
+    private final ScheduledExecutorService dispatcher;
+
+    // Create a bus with no listeners
+    public EventBus() {
+        listeners = new CopyOnWriteArrayList<>();
+        edtListeners = new CopyOnWriteArrayList<>();
+        edtQueue = new ConcurrentLinkedQueue<>();
+        edtFlushScheduled = new AtomicBoolean(false);
+        dispatcher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "event-bus");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized EventBus getInstance() {
+        if (instance == null) {
+            instance = new EventBus();
+        }
+        return instance;
+    }
+
+    /**
+     * Subscribe to events of the given type. The listener is called on the dispatcher thread.
+     *
+     * @param type the event type, e.g. {@code DomainEvent.GuestAdded.class}
+     * @param listener called once per matching event, in publish order
+     * @return a subscription that can be used to unsubscribe
+     */
+    public <E extends DomainEvent> Subscription subscribe(Class<E> type, Consumer<? super E> listener) {
+        TypedListener<E> typedListener = new TypedListener<>(type, listener);
+        listeners.add(typedListener);
+        return () -> listeners.remove(typedListener);
+    }
+
+    /**
+     * Subscribe to all events on the Event Dispatch Thread.
+     * Events published within the same frame are delivered together, in publish order.
+     *
+     * @param listener called on the EDT with each batch of events
+     * @return a subscription that can be used to unsubscribe
+     */
+    public Subscription subscribeOnEdt(Consumer<List<DomainEvent>> listener) {
+        edtListeners.add(listener);
+        return () -> edtListeners.remove(listener);
+    }
+
+    // Publish an event to all listeners; events published after shutdown are dropped
+    public void publish(DomainEvent event) {
+        try {
+            if (!listeners.isEmpty()) {
+                dispatcher.execute(() -> deliver(event));
+            }
+            if (!edtListeners.isEmpty()) {
+                edtQueue.add(event);
+                if (edtFlushScheduled.compareAndSet(false, true)) {
+                    dispatcher.schedule(() -> SwingUtilities.invokeLater(this::flushToEdt), FRAME_MILLIS, TimeUnit.MILLISECONDS);
+                }
+            }
+        } catch (RejectedExecutionException e) {
+            // The bus was shut down
+        }
+    }
+
+    // Stop the dispatcher thread once the events already published have been delivered
+    public void shutdown() {
+        dispatcher.shutdown();
+    }
+
+    private void deliver(DomainEvent event) {
+        for (TypedListener<?> listener : listeners) {
+            try {
+                listener.accept(event);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void flushToEdt() {
+        edtFlushScheduled.set(false);
+        List<DomainEvent> batch = new ArrayList<>();
+        DomainEvent event;
+        while ((event = edtQueue.poll()) != null) {
+            batch.add(event);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        List<DomainEvent> events = Collections.unmodifiableList(batch);
+        for (Consumer<List<DomainEvent>> listener : edtListeners) {
+            try {
+                listener.accept(events);
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    /**
+     * Handle returned by the subscribe methods.
+     */
+    public interface Subscription {
+        void unsubscribe();
+    }
+
+    private static class TypedListener<E extends DomainEvent> {
+        private final Class<E> type;
+        private final Consumer<? super E> listener;
+
+        TypedListener(Class<E> type, Consumer<? super E> listener) {
+            this.type = type;
+            this.listener = listener;
+        }
+
+        void accept(DomainEvent event) {
+            if (type.isInstance(event)) {
+                listener.accept(type.cast(event));
+            }
+        }
+    }
+}
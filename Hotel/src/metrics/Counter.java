@@ -0,0 +1,41 @@
+package metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free counter. Threads increment separate cells under contention, so counting from
+ * many threads at once stays cheap; reading sums the cells.
+ */
+public class Counter {
+    private final String name;
+    private final LongAdder value;
+
+    Counter(String name) {
+        this.name = name;
+        this.value = new LongAdder();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Add one
+    public void increment() {
+        value.increment();
+    }
+
+    // Add the given amount
+    public void add(long amount) {
+        value.add(amount);
+    }
+
+    // Get the current total
+    public long get() {
+        return value.sum();
+    }
+
+    // Set the total back to zero
+    public void reset() {
+        value.reset();
+    }
+}
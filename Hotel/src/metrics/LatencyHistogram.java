@@ -0,0 +1,135 @@
+package metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Lock-free latency histogram with log-linear buckets, in the style of HdrHistogram.
+ * Every power of two is split into {@value #SUB_BUCKETS} equal buckets, so a recorded value is
+ * known to within about 3% whatever its magnitude. Recording is a bucket index calculation and
+ * one atomic increment; snapshots may be taken while other threads keep recording.
+ *
+ * Calls of the same operation tend to land in the same bucket, so the counts are striped by
+ * thread to keep threads on different cores from fighting over one cache line.
+ */
+public class LatencyHistogram {
+    static final int SUB_BUCKET_BITS = 5;
+    static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    // Values below SUB_BUCKETS get one bucket each, then SUB_BUCKETS per power of two up to 2^40 ns (18 minutes)
+    static final int MAX_EXPONENT = 40;
+    static final int BUCKET_COUNT = (MAX_EXPONENT - SUB_BUCKET_BITS + 1) * SUB_BUCKETS;
+    private static final long MAX_TRACKED = (1L << MAX_EXPONENT) - 1;
+    private static final int STRIPES = Math.min(8, Integer.highestOneBit(Runtime.getRuntime().availableProcessors()));
+
+    private final String name;
+    private final AtomicLongArray buckets;
+    private final AtomicLong max;
+
+    // Create a histogram outside the registry, e.g. for a one-off measurement
+    public LatencyHistogram(String name) {
+        this.name = name;
+        this.buckets = new AtomicLongArray(STRIPES * BUCKET_COUNT);
+        this.max = new AtomicLong();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    // Record the time elapsed since a System.nanoTime() reading
+    public void recordSince(long startNanos) {
+        record(System.nanoTime() - startNanos);
+    }
+
+    // Record a latency in nanoseconds
+    public void record(long nanos) {
+        if (nanos < 0) {
+            nanos = 0;
+        }
+        int stripe = (int) Thread.currentThread().getId() & (STRIPES - 1);
+        buckets.getAndIncrement(stripe * BUCKET_COUNT + bucketIndex(Math.min(nanos, MAX_TRACKED)));
+        // Only contend on the maximum when it actually changes
+        long currentMax = max.get();
+        while (nanos > currentMax && !max.compareAndSet(currentMax, nanos)) {
+            currentMax = max.get();
+        }
+    }
+
+    /**
+     * Take a snapshot of the recorded latencies. Percentiles are reported as the upper bound
+     * of the bucket they fall in, capped at the maximum recorded value. Latencies beyond
+     * 18 minutes are counted in the last bucket, but the maximum is exact.
+     */
+    public LatencySnapshot snapshot() {
+        long[] counts = new long[BUCKET_COUNT];
+        long count = 0;
+        double total = 0;
+        for (int i = 0; i < STRIPES * BUCKET_COUNT; i++) {
+            counts[i % BUCKET_COUNT] += buckets.get(i);
+        }
+        for (int i = 0; i < BUCKET_COUNT; i++) {
+            if (counts[i] != 0) {
+                count += counts[i];
+                total += (double) counts[i] * midpoint(i);
+            }
+        }
+        long maxNanos = max.get();
+        return new LatencySnapshot(name, count, count == 0 ? 0 : total / count,
+                valueAt(counts, count, 0.50, maxNanos), valueAt(counts, count, 0.99, maxNanos),
+                valueAt(counts, count, 0.999, maxNanos), maxNanos);
+    }
+
+    // Clear all recorded values
+    public void reset() {
+        for (int i = 0; i < STRIPES * BUCKET_COUNT; i++) {
+            buckets.set(i, 0);
+        }
+        max.set(0);
+    }
+
+    private static long valueAt(long[] counts, long count, double percentile, long maxNanos) {
+        if (count == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(percentile * count));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(upperBound(i), maxNanos);
+            }
+        }
+        return maxNanos;
+    }
+
+    static int bucketIndex(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value);
+        int shift = exponent - SUB_BUCKET_BITS;
+        return (shift + 1) * SUB_BUCKETS + (int) ((value >>> shift) & (SUB_BUCKETS - 1));
+    }
+
+    // Smallest value that falls in the bucket
+    static long lowerBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return (long) (SUB_BUCKETS + index % SUB_BUCKETS) << shift;
+    }
+
+    // Largest value that falls in the bucket
+    static long upperBound(int index) {
+        if (index < SUB_BUCKETS) {
+            return index;
+        }
+        int shift = index / SUB_BUCKETS - 1;
+        return lowerBound(index) + (1L << shift) - 1;
+    }
+
+    private static double midpoint(int index) {
+        return (lowerBound(index) + (double) upperBound(index)) / 2;
+    }
+}
@@ -0,0 +1,36 @@
+package metrics;
+
+/**
+ * Latencies recorded by a {@link LatencyHistogram} at one point in time. All times are in nanoseconds.
+ *
+ * @param name the operation, e.g. {@code ReservationService.createReservation}
+ * @param count number of recorded calls
+ * @param meanNanos mean latency
+ * @param p50Nanos median latency
+ * @param p99Nanos 99th percentile latency
+ * @param p999Nanos 99.9th percentile latency
+ * @param maxNanos highest recorded latency
+ */
+public record LatencySnapshot(String name, long count, double meanNanos, long p50Nanos, long p99Nanos,
+                              long p999Nanos, long maxNanos) {
+
+    // Format a latency in the most readable unit
+    public static String formatNanos(double nanos) {
+        if (nanos < 1_000) {
+            return String.format("%.0f ns", nanos);
+        }
+        if (nanos < 1_000_000) {
+            return String.format("%.1f us", nanos / 1_000);
+        }
+        if (nanos < 1_000_000_000) {
+            return String.format("%.1f ms", nanos / 1_000_000);
+        }
+        return String.format("%.2f s", nanos / 1_000_000_000);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%-50s %,12d %10s %10s %10s %10s %10s", name, count, formatNanos(meanNanos),
+                formatNanos(p50Nanos), formatNanos(p99Nanos), formatNanos(p999Nanos), formatNanos(maxNanos));
+    }
+}
@@ -0,0 +1,144 @@
+package metrics;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Application-wide registry of named latency histograms and counters.
+ * Services look their metrics up once and keep them in fields, so recording a call never
+ * touches the registry itself.
+ */
+public class MetricsRegistry {
+    private static MetricsRegistry instance;
+
+    private final Map<String, LatencyHistogram> histograms;
+    private final Map<String, Counter> counters;
+    private final ScheduledExecutorService scheduler;
+    private ScheduledFuture<?> dumpTask;
+
+    private MetricsRegistry() {
+        histograms = new ConcurrentHashMap<>();
+        counters = new ConcurrentHashMap<>();
+        scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "metrics-dump");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public static synchronized MetricsRegistry getInstance() {
+        if (instance == null) {
+            instance = new MetricsRegistry();
+        }
+        return instance;
+    }
+
+    // Get or create the latency histogram with the given name
+    public LatencyHistogram histogram(String name) {
+        return histograms.computeIfAbsent(name, LatencyHistogram::new);
+    }
+
+    // Get or create the counter with the given name
+    public Counter counter(String name) {
+        return counters.computeIfAbsent(name, Counter::new);
+    }
+
+    // Take a snapshot of every histogram, sorted by name
+    public List<LatencySnapshot> getLatencySnapshots() {
+        List<LatencySnapshot> snapshots = new ArrayList<>();
+        for (LatencyHistogram histogram : histograms.values()) {
+            snapshots.add(histogram.snapshot());
+        }
+        snapshots.sort(Comparator.comparing(LatencySnapshot::name));
+        return snapshots;
+    }
+
+    // Get the current value of every counter, sorted by name
+    public Map<String, Long> getCounterValues() {
+        Map<String, Long> values = new TreeMap<>();
+        for (Counter counter : counters.values()) {
+            values.put(counter.getName(), counter.get());
+        }
+        return values;
+    }
+
+    // Clear all histograms and counters
+    public void reset() {
+        histograms.values().forEach(LatencyHistogram::reset);
+        counters.values().forEach(Counter::reset);
+    }
+
+    /**
+     * Format all metrics as a table, one line per histogram followed by one line per counter.
+     * Operations that were never called are left out.
+     */
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%-50s %12s %10s %10s %10s %10s %10s%n", "operation", "count", "mean", "p50",
+                "p99", "p99.9", "max"));
+        for (LatencySnapshot snapshot : getLatencySnapshots()) {
+            if (snapshot.count() > 0) {
+                builder.append(snapshot).append(System.lineSeparator());
+            }
+        }
+        for (Map.Entry<String, Long> counter : getCounterValues().entrySet()) {
+            builder.append(String.format("%-50s %12s%n", counter.getKey(), String.format("%,d", counter.getValue())));
+        }
+        return builder.toString();
+    }
+
+    // Append the current metrics to a file, with a timestamp header
+    public void dumpTo(Path file) throws IOException {
+        Path parent = file.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        try (BufferedWriter writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND)) {
+            writer.write("# " + LocalDateTime.now().format(DateTimeFormatter.ISO_LOCAL_DATE_TIME));
+            writer.newLine();
+            writer.write(format());
+            writer.newLine();
+        }
+    }
+
+    /**
+     * Append the metrics to a file at a fixed rate, replacing any dump that was already scheduled.
+     * A failed write is reported on the console and retried at the next period.
+     */
+    public synchronized void startPeriodicDump(Path file, Duration period) {
+        stopPeriodicDump();
+        dumpTask = scheduler.scheduleAtFixedRate(() -> {
+            try {
+                dumpTo(file);
+            } catch (IOException e) {
+                System.err.println("Could not write metrics to " + file + ": " + e.getMessage());
+            }
+        }, period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    // Stop the periodic dump, if any
+    public synchronized void stopPeriodicDump() {
+        if (dumpTask != null) {
+            dumpTask.cancel(false);
+            dumpTask = null;
+        }
+    }
+}
@@ -2,8 +2,8 @@ package model;
 
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
  * Represents a bill/invoice for a guest's stay.
@@ -20,7 +20,7 @@ public class Bill {
         this.reservation = reservation;
         this.issueDate = LocalDateTime.now();
         this.paid = false;
-        this.items = new ArrayList<>();
+        this.items = new CopyOnWriteArrayList<>();
         
         // Add the room charge as the first item
         addItem(new BillItem("Room Charge", reservation.getTotalPrice()));
@@ -32,7 +32,7 @@ public class Bill {
         this.reservation = reservation;
         this.issueDate = issueDate;
         this.paid = paid;
-        this.items = new ArrayList<>();
+        this.items = new CopyOnWriteArrayList<>();
         
         // Add the room charge as the first item
         addItem(new BillItem("Room Charge", reservation.getTotalPrice()));
@@ -62,6 +62,27 @@ public class Guest {
         return firstName + " " + lastName;
     }
     
+    /**
+     * Check whether the guest matches a search term: the first or last name contains it,
+     * or the ID number starts with it. The term must already be in lower case.
+     * A guest that matches a term also matches every prefix of it, so results for a longer
+     * term can be found by filtering the results for a shorter one.
+     */
+    public boolean matchesSearch(String lowerCaseTerm) {
+        return matchesName(lowerCaseTerm)
+                || (idNumber != null && idNumber.toLowerCase().startsWith(lowerCaseTerm));
+    }
+    
+    /**
+     * Check whether the first or last name contains a search term, which must already be in
+     * lower case. A missing name never matches, but every guest matches an empty term.
+     */
+    public boolean matchesName(String lowerCaseTerm) {
+        return lowerCaseTerm.isEmpty()
+                || (firstName != null && firstName.toLowerCase().contains(lowerCaseTerm))
+                || (lastName != null && lastName.toLowerCase().contains(lowerCaseTerm));
+    }
+    
     public String getIdNumber() {
         return idNumber;
     }
@@ -2,6 +2,7 @@ package model;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.time.temporal.ChronoUnit;
 
 /**
@@ -16,6 +17,11 @@ public class Reservation {
     private ReservationStatus status;
     private BigDecimal totalPrice;
     private String notes;
+    // When the reservation was booked and last changed; null when not recorded
+    private LocalDateTime createdAt;
+    private LocalDateTime modifiedAt;
+    // Booked by room type, so the hotel may move it to another room of the type until check-in
+    private boolean roomFlexible;
     
     // For new reservations (ID will be assigned later)
     public Reservation(Guest guest, Room room, LocalDate checkInDate, LocalDate checkOutDate) {
@@ -26,6 +32,8 @@ public class Reservation {
         this.status = ReservationStatus.CONFIRMED;
         this.totalPrice = calculateTotalPrice();
         this.notes = "";
+        this.createdAt = LocalDateTime.now();
+        this.modifiedAt = createdAt;
     }
     
     // For existing reservations with ID
@@ -41,6 +49,15 @@ public class Reservation {
         this.notes = notes;
     }
     
+    // For existing reservations with ID and the times they were booked and last changed
+    public Reservation(int id, Guest guest, Room room, LocalDate checkInDate, LocalDate checkOutDate,
+                      ReservationStatus status, BigDecimal totalPrice, String notes,
+                      LocalDateTime createdAt, LocalDateTime modifiedAt) {
+        this(id, guest, room, checkInDate, checkOutDate, status, totalPrice, notes);
+        this.createdAt = createdAt;
+        this.modifiedAt = modifiedAt;
+    }
+    
     // Calculate the total price based on the room price and the number of nights
     public BigDecimal calculateTotalPrice() {
         long nights = ChronoUnit.DAYS.between(checkInDate, checkOutDate);
@@ -125,6 +142,30 @@ public class Reservation {
         this.notes = notes;
     }
     
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+    
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+    
+    public LocalDateTime getModifiedAt() {
+        return modifiedAt;
+    }
+    
+    public void setModifiedAt(LocalDateTime modifiedAt) {
+        this.modifiedAt = modifiedAt;
+    }
+    
+    public boolean isRoomFlexible() {
+        return roomFlexible;
+    }
+    
+    public void setRoomFlexible(boolean roomFlexible) {
+        this.roomFlexible = roomFlexible;
+    }
+    
     @Override
     public String toString() {
         return "Reservation #" + id + " - " + guest.getFullName() + " - " + room.toString() + 
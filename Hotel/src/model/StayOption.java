@@ -0,0 +1,51 @@
+package model;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+
+/**
+ * A stay that can still be booked, as offered by a flexible-date search: the dates, the
+ * cheapest free room for them and how many rooms are free in total.
+ */
+public final class StayOption {
+    private final Room room;
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+    private final BigDecimal totalPrice;
+    private final int availableRooms;
+
+    public StayOption(Room room, LocalDate checkInDate, LocalDate checkOutDate, BigDecimal totalPrice,
+                      int availableRooms) {
+        this.room = room;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.totalPrice = totalPrice;
+        this.availableRooms = availableRooms;
+    }
+
+    public Room getRoom() {
+        return room;
+    }
+
+    public LocalDate getCheckInDate() {
+        return checkInDate;
+    }
+
+    public LocalDate getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    public BigDecimal getTotalPrice() {
+        return totalPrice;
+    }
+
+    // Get the number of matching rooms free for these dates
+    public int getAvailableRooms() {
+        return availableRooms;
+    }
+
+    @Override
+    public String toString() {
+        return checkInDate + " - " + checkOutDate + ": " + room.getRoomNumber() + " (" + totalPrice + ")";
+    }
+}
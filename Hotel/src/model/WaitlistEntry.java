@@ -0,0 +1,96 @@
+package model;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+/**
+ * A request for a room type and dates that could not be booked when it was made, waiting for
+ * a room to come free. Requests with a higher priority are served first, then the oldest.
+ */
+public class WaitlistEntry {
+
+    /**
+     * Where a request stands.
+     */
+    public enum Status {
+        WAITING,
+        BOOKED,
+        WITHDRAWN,
+        EXPIRED
+    }
+
+    private final int id;
+    private final Guest guest;
+    private final RoomType type;
+    private final LocalDate checkInDate;
+    private final LocalDate checkOutDate;
+    private final int priority;
+    private final LocalDateTime requestedAt;
+    private volatile Status status;
+    private volatile Reservation reservation;
+
+    public WaitlistEntry(int id, Guest guest, RoomType type, LocalDate checkInDate, LocalDate checkOutDate,
+                         int priority) {
+        this.id = id;
+        this.guest = guest;
+        this.type = type;
+        this.checkInDate = checkInDate;
+        this.checkOutDate = checkOutDate;
+        this.priority = priority;
+        this.requestedAt = LocalDateTime.now();
+        this.status = Status.WAITING;
+    }
+
+    // Mark the request as booked with the given reservation
+    public void book(Reservation reservation) {
+        this.reservation = reservation;
+        this.status = Status.BOOKED;
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public Guest getGuest() {
+        return guest;
+    }
+
+    public RoomType getType() {
+        return type;
+    }
+
+    public LocalDate getCheckInDate() {
+        return checkInDate;
+    }
+
+    public LocalDate getCheckOutDate() {
+        return checkOutDate;
+    }
+
+    public int getPriority() {
+        return priority;
+    }
+
+    public LocalDateTime getRequestedAt() {
+        return requestedAt;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    // Get the reservation made for the request, or null while it waits
+    public Reservation getReservation() {
+        return reservation;
+    }
+
+    @Override
+    public String toString() {
+        return "Waitlist #" + id + " - " + guest.getFullName() + " - " + type + " - " + checkInDate + " to "
+                + checkOutDate;
+    }
+}
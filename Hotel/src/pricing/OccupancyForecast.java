@@ -0,0 +1,19 @@
+package pricing;
+
+import model.RoomType;
+
+import java.time.LocalDate;
+
+/**
+ * Rooms still expected to be booked for coming nights on top of those sold so far, so that the
+ * {@link PricingEngine} can price a night on the occupancy it is expected to reach.
+ */
+public interface OccupancyForecast {
+
+    /**
+     * Get the rooms of a type still expected to be booked for each night from a day on.
+     *
+     * @return one figure per night, 0 where no more bookings are expected or nothing is known
+     */
+    double[] getExpectedPickup(RoomType type, LocalDate first, int nights);
+}
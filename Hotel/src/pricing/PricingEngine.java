@@ -0,0 +1,225 @@
+package pricing;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import model.RoomType;
+import service.RateCalendar;
+import service.RoomInventory;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Sets the nightly rates of each room type in the {@link RateCalendar} from occupancy and lead
+ * time, following {@link PricingRules}.
+ *
+ * The engine listens to the {@link RoomInventory}: every booking, cancellation or room change
+ * marks the nights it touched, and a background thread reprices only those nights. Quotes read
+ * the resulting rates from the calendar and never evaluate the rules. Because lead times change
+ * every day, the whole horizon is repriced once a day as well. With an {@link OccupancyForecast},
+ * nights are priced on the occupancy they are expected to reach rather than the rooms sold so far.
+ */
+public class PricingEngine implements RoomInventory.Listener {
+    private static PricingEngine instance;
+
+    private final RoomInventory inventory;
+    private final RateCalendar rateCalendar;
+    private final ScheduledExecutorService worker;
+    private final AtomicBoolean repriceScheduled;
+    private volatile PricingRules rules;
+    private volatile OccupancyForecast forecast;
+    private ScheduledFuture<?> dailyTask;
+
+    // Nights waiting to be repriced per room type, as epoch days [from, to); from > to when none
+    private final Object pendingLock = new Object();
+    private final long[] pendingFrom;
+    private final long[] pendingTo;
+
+    // Time to reprice a range of nights, and the number of nights repriced
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram recomputeLatency = metrics.histogram("PricingEngine.recompute");
+    private final Counter nightsRepriced = metrics.counter("PricingEngine.nightsRepriced");
+
+    private PricingEngine() {
+        inventory = RoomInventory.getInstance();
+        rateCalendar = RateCalendar.getInstance();
+        worker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "pricing");
+            thread.setDaemon(true);
+            return thread;
+        });
+        repriceScheduled = new AtomicBoolean(false);
+        pendingFrom = new long[RoomType.values().length];
+        pendingTo = new long[RoomType.values().length];
+        clearPending();
+    }
+
+    public static synchronized PricingEngine getInstance() {
+        if (instance == null) {
+            instance = new PricingEngine();
+        }
+        return instance;
+    }
+
+    /**
+     * Start pricing with the given rules: reprice the whole horizon now, then follow occupancy
+     * changes and reprice everything again every day.
+     */
+    public synchronized void start(PricingRules rules) {
+        boolean running = this.rules != null;
+        this.rules = rules;
+        if (!running) {
+            inventory.addListener(this);
+            dailyTask = worker.scheduleAtFixedRate(this::repriceAll, 1, 1, TimeUnit.DAYS);
+        }
+        repriceAll();
+    }
+
+    // Stop following occupancy; the rates set so far stay in the calendar
+    public synchronized void stop() {
+        if (rules == null) {
+            return;
+        }
+        inventory.removeListener(this);
+        dailyTask.cancel(false);
+        rules = null;
+        synchronized (pendingLock) {
+            clearPending();
+        }
+    }
+
+    // Check whether the engine is pricing
+    public boolean isRunning() {
+        return rules != null;
+    }
+
+    /**
+     * Price nights on the occupancy they are expected to reach, counting the rooms the forecast
+     * still expects to be booked, or on the rooms sold so far if null.
+     */
+    public void setForecast(OccupancyForecast forecast) {
+        this.forecast = forecast;
+    }
+
+    // Get the forecast in use, or null if none
+    public OccupancyForecast getForecast() {
+        return forecast;
+    }
+
+    // Get the rules in use, or null if stopped
+    public PricingRules getRules() {
+        return rules;
+    }
+
+    @Override
+    public void occupancyChanged(RoomType type, LocalDate from, LocalDate to) {
+        if (rules == null) {
+            return;
+        }
+        synchronized (pendingLock) {
+            int index = type.ordinal();
+            pendingFrom[index] = Math.min(pendingFrom[index], from.toEpochDay());
+            pendingTo[index] = Math.max(pendingTo[index], to.toEpochDay());
+        }
+        if (repriceScheduled.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                repriceScheduled.set(false);
+                repricePending();
+            });
+        }
+    }
+
+    /**
+     * Reprice the nights whose occupancy changed since the last call, on the calling thread.
+     * The background thread does this on its own; calling it makes sure it is done.
+     */
+    public synchronized void repricePending() {
+        PricingRules current = rules;
+        if (current == null) {
+            return;
+        }
+        for (RoomType type : RoomType.values()) {
+            long from;
+            long to;
+            synchronized (pendingLock) {
+                from = pendingFrom[type.ordinal()];
+                to = pendingTo[type.ordinal()];
+                pendingFrom[type.ordinal()] = Long.MAX_VALUE;
+                pendingTo[type.ordinal()] = Long.MIN_VALUE;
+            }
+            if (from < to) {
+                recompute(current, type, LocalDate.ofEpochDay(from), LocalDate.ofEpochDay(to));
+            }
+        }
+    }
+
+    /**
+     * Reprice the nights of a room type from one day up to, but not including, another.
+     * Only nights from today to the end of the horizon are priced.
+     *
+     * @return the number of nights repriced
+     */
+    public int recompute(RoomType type, LocalDate from, LocalDate to) {
+        PricingRules current = rules;
+        return current == null ? 0 : recompute(current, type, from, to);
+    }
+
+    private int recompute(PricingRules rules, RoomType type, LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        try {
+            LocalDate today = LocalDate.now();
+            LocalDate first = from.isBefore(today) ? today : from;
+            LocalDate horizon = today.plusDays(rules.horizonDays());
+            LocalDate end = to.isAfter(horizon) ? horizon : to;
+            int nights = (int) ChronoUnit.DAYS.between(first, end);
+            if (nights <= 0 || !rules.baseRates().containsKey(type)) {
+                return 0;
+            }
+
+            int capacity = inventory.getCapacity(type);
+            int[] remaining = inventory.getRemainingByNight(type, first, nights);
+            OccupancyForecast currentForecast = forecast;
+            double[] pickup = currentForecast == null ? new double[nights]
+                    : currentForecast.getExpectedPickup(type, first, nights);
+            long leadDays = ChronoUnit.DAYS.between(today, first);
+            List<BigDecimal> rates = new ArrayList<>(nights);
+            for (int night = 0; night < nights; night++) {
+                double occupancy = capacity == 0 ? 1 : (capacity - remaining[night] + pickup[night]) / capacity;
+                rates.add(BigDecimal.valueOf(rules.rateCents(type, occupancy, leadDays + night), 2));
+            }
+            rateCalendar.setRates(type, first, rates);
+            nightsRepriced.add(nights);
+            return nights;
+        } finally {
+            recomputeLatency.recordSince(start);
+        }
+    }
+
+    // Reprice every priced night of every room type
+    private synchronized void repriceAll() {
+        PricingRules current = rules;
+        if (current == null) {
+            return;
+        }
+        LocalDate today = LocalDate.now();
+        for (RoomType type : RoomType.values()) {
+            recompute(current, type, today, today.plusDays(current.horizonDays()));
+        }
+    }
+
+    private void clearPending() {
+        for (int i = 0; i < pendingFrom.length; i++) {
+            pendingFrom[i] = Long.MAX_VALUE;
+            pendingTo[i] = Long.MIN_VALUE;
+        }
+    }
+}
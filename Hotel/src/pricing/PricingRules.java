@@ -0,0 +1,96 @@
+package pricing;
+
+import model.Room;
+import model.RoomType;
+
+import java.math.BigDecimal;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Rules of the {@link PricingEngine}: the sell rate of a room type for a night is its base
+ * rate times a factor for the occupancy of that night and a factor for how far ahead it is,
+ * kept between a floor and a ceiling.
+ *
+ * @param baseRates base rate per room type; types without one are not priced by the engine
+ * @param occupancySteps factors by share of rooms sold, from 0 to 1
+ * @param leadTimeSteps factors by number of days until the night
+ * @param floor lowest factor applied to the base rate
+ * @param ceiling highest factor applied to the base rate
+ * @param horizonDays number of nights from today that are priced
+ */
+public record PricingRules(Map<RoomType, BigDecimal> baseRates, List<Step> occupancySteps, List<Step> leadTimeSteps,
+                           double floor, double ceiling, int horizonDays) {
+
+    /**
+     * A factor that applies from a threshold on, up to the threshold of the next step.
+     */
+    public record Step(double threshold, double factor) {
+    }
+
+    public PricingRules {
+        if (floor <= 0 || ceiling < floor || horizonDays <= 0) {
+            throw new IllegalArgumentException("Floor, ceiling and horizon must be positive, with the floor below the ceiling");
+        }
+        baseRates = new EnumMap<>(baseRates);
+        occupancySteps = occupancySteps.stream().sorted(Comparator.comparingDouble(Step::threshold)).toList();
+        leadTimeSteps = leadTimeSteps.stream().sorted(Comparator.comparingDouble(Step::threshold)).toList();
+    }
+
+    /**
+     * Rates that rise as the hotel fills up, with a premium for the last few days and a
+     * discount for bookings more than two months ahead.
+     */
+    public static PricingRules defaults(Map<RoomType, BigDecimal> baseRates) {
+        return new PricingRules(baseRates,
+                List.of(new Step(0.5, 1.10), new Step(0.7, 1.25), new Step(0.85, 1.45), new Step(0.95, 1.75)),
+                List.of(new Step(0, 1.10), new Step(3, 1.0), new Step(60, 0.95)),
+                0.8, 2.5, 365);
+    }
+
+    // Get the lowest price per night of each room type, as base rates
+    public static Map<RoomType, BigDecimal> lowestRoomPrices(Collection<Room> rooms) {
+        Map<RoomType, BigDecimal> prices = new EnumMap<>(RoomType.class);
+        for (Room room : rooms) {
+            prices.merge(room.getType(), room.getPricePerNight(), BigDecimal::min);
+        }
+        return prices;
+    }
+
+    // Copy these rules with a different horizon
+    public PricingRules withHorizon(int horizonDays) {
+        return new PricingRules(baseRates, occupancySteps, leadTimeSteps, floor, ceiling, horizonDays);
+    }
+
+    /**
+     * Compute the sell rate of a night in cents.
+     *
+     * @param occupancy share of the rooms sold
+     * @param leadDays days from today until the night
+     * @return the rate, or -1 if the type has no base rate
+     */
+    public long rateCents(RoomType type, double occupancy, long leadDays) {
+        BigDecimal baseRate = baseRates.get(type);
+        if (baseRate == null) {
+            return -1;
+        }
+        double factor = factor(occupancySteps, occupancy) * factor(leadTimeSteps, leadDays);
+        factor = Math.max(floor, Math.min(ceiling, factor));
+        return Math.round(baseRate.doubleValue() * 100 * factor);
+    }
+
+    // Factor of the last step whose threshold the value reaches, or 1 below the first step
+    private static double factor(List<Step> steps, double value) {
+        double factor = 1;
+        for (Step step : steps) {
+            if (value < step.threshold()) {
+                break;
+            }
+            factor = step.factor();
+        }
+        return factor;
+    }
+}
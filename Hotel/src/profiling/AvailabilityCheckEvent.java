@@ -0,0 +1,52 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+import java.time.LocalDate;
+
+/**
+ * Flight Recorder event for checking whether one room is free for a date span.
+ */
+@Name("hotel.AvailabilityCheck")
+@Label("Availability Check")
+@Category({"Hotel", "Reservations"})
+@Description("Check whether a room is free for a date span")
+@Threshold("1 ms")
+public class AvailabilityCheckEvent extends Event {
+    @Label("Room Number")
+    public int roomNumber;
+
+    @Label("Check-in Date")
+    public String checkInDate;
+
+    @Label("Check-out Date")
+    public String checkOutDate;
+
+    @Label("Nights")
+    public int nights;
+
+    @Label("Reservations Scanned")
+    public int scanned;
+
+    @Label("Available")
+    public boolean available;
+
+    // Fill in the fields and commit, if the event is being recorded
+    public void finish(int roomNumber, LocalDate checkInDate, LocalDate checkOutDate, int scanned,
+                       boolean available) {
+        if (shouldCommit()) {
+            this.roomNumber = roomNumber;
+            this.checkInDate = String.valueOf(checkInDate);
+            this.checkOutDate = String.valueOf(checkOutDate);
+            this.nights = Events.nights(checkInDate, checkOutDate);
+            this.scanned = scanned;
+            this.available = available;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,53 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+import model.RoomType;
+
+import java.time.LocalDate;
+
+/**
+ * Flight Recorder event for listing the rooms that are free for a date span.
+ */
+@Name("hotel.AvailableRooms")
+@Label("Available Rooms Query")
+@Category({"Hotel", "Reservations"})
+@Description("List the rooms that are free for a date span, optionally of one type")
+@Threshold("1 ms")
+public class AvailableRoomsEvent extends Event {
+    @Label("Room Type")
+    public String roomType;
+
+    @Label("Check-in Date")
+    public String checkInDate;
+
+    @Label("Check-out Date")
+    public String checkOutDate;
+
+    @Label("Nights")
+    public int nights;
+
+    @Label("Reservations Scanned")
+    public int scanned;
+
+    @Label("Result Size")
+    public int resultSize;
+
+    // Fill in the fields and commit, if the event is being recorded
+    public void finish(RoomType roomType, LocalDate checkInDate, LocalDate checkOutDate, int scanned,
+                       int resultSize) {
+        if (shouldCommit()) {
+            this.roomType = roomType == null ? null : roomType.name();
+            this.checkInDate = String.valueOf(checkInDate);
+            this.checkOutDate = String.valueOf(checkOutDate);
+            this.nights = Events.nights(checkInDate, checkOutDate);
+            this.scanned = scanned;
+            this.resultSize = resultSize;
+            commit();
+        }
+    }
+}
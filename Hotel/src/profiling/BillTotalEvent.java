@@ -0,0 +1,34 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for calculating the total of a bill.
+ */
+@Name("hotel.BillTotal")
+@Label("Bill Total")
+@Category({"Hotel", "Billing"})
+@Description("Calculation of the total amount of a bill")
+@Threshold("1 ms")
+public class BillTotalEvent extends Event {
+    @Label("Bill ID")
+    public int billId;
+
+    @Label("Items")
+    @Description("Number of extra items on the bill, or -1 if the bill does not exist")
+    public int itemCount;
+
+    // Fill in the fields and commit, if the event is being recorded
+    public void finish(int billId, int itemCount) {
+        if (shouldCommit()) {
+            this.billId = billId;
+            this.itemCount = itemCount;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+import java.time.LocalDate;
+
+/**
+ * Flight Recorder event for an attempt to book a room, including its availability check.
+ */
+@Name("hotel.Booking")
+@Label("Booking")
+@Category({"Hotel", "Reservations"})
+@Description("Creation of a reservation, including the availability check")
+public class BookingEvent extends Event {
+    @Label("Room Number")
+    public int roomNumber;
+
+    @Label("Guest ID")
+    public int guestId;
+
+    @Label("Check-in Date")
+    public String checkInDate;
+
+    @Label("Check-out Date")
+    public String checkOutDate;
+
+    @Label("Nights")
+    public int nights;
+
+    @Label("Reservations Scanned")
+    public int scanned;
+
+    @Label("Reservation ID")
+    @Description("ID of the new reservation, or 0 if the room was not available")
+    public int reservationId;
+
+    // Fill in the fields and commit, if the event is being recorded
+    public void finish(int roomNumber, int guestId, LocalDate checkInDate, LocalDate checkOutDate, int scanned,
+                       int reservationId) {
+        if (shouldCommit()) {
+            this.roomNumber = roomNumber;
+            this.guestId = guestId;
+            this.checkInDate = String.valueOf(checkInDate);
+            this.checkOutDate = String.valueOf(checkOutDate);
+            this.nights = Events.nights(checkInDate, checkOutDate);
+            this.scanned = scanned;
+            this.reservationId = reservationId;
+            commit();
+        }
+    }
+}
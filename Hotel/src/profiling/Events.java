@@ -0,0 +1,20 @@
+package profiling;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Helpers shared by the Flight Recorder events.
+ */
+final class Events {
+    private Events() {
+    }
+
+    // Number of nights in a date span, or 0 if a date is missing
+    static int nights(LocalDate checkInDate, LocalDate checkOutDate) {
+        if (checkInDate == null || checkOutDate == null) {
+            return 0;
+        }
+        return (int) ChronoUnit.DAYS.between(checkInDate, checkOutDate);
+    }
+}
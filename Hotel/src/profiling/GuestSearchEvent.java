@@ -0,0 +1,43 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+
+/**
+ * Flight Recorder event for a guest search. Only the length of the search term is recorded,
+ * so recordings never contain guest names or ID numbers.
+ */
+@Name("hotel.GuestSearch")
+@Label("Guest Search")
+@Category({"Hotel", "Guests"})
+@Description("Search for guests by name, ID number or both")
+@Threshold("1 ms")
+public class GuestSearchEvent extends Event {
+    @Label("Search Type")
+    @Description("name, idNumber or any")
+    public String searchType;
+
+    @Label("Term Length")
+    public int termLength;
+
+    @Label("Guests Scanned")
+    public int scanned;
+
+    @Label("Result Size")
+    public int resultSize;
+
+    // Fill in the fields and commit, if the event is being recorded
+    public void finish(String searchType, String term, int scanned, int resultSize) {
+        if (shouldCommit()) {
+            this.searchType = searchType;
+            this.termLength = term == null ? 0 : term.length();
+            this.scanned = scanned;
+            this.resultSize = resultSize;
+            commit();
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package profiling;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Threshold;
+import jdk.jfr.Timespan;
+
+/**
+ * Flight Recorder event for a panel load, from the request on the EDT until the result is
+ * shown. The query time is the part spent in the service call on a worker thread; the rest is
+ * queueing and updating the table.
+ */
+@Name("hotel.PanelLoad")
+@Label("Panel Load")
+@Category({"Hotel", "User Interface"})
+@Description("Loading data into a panel, from request to display")
+@Threshold("10 ms")
+public class PanelLoadEvent extends Event {
+    @Label("Load")
+    @Description("What was loaded, e.g. rooms or check-in")
+    public String load;
+
+    @Label("Query Time")
+    @Timespan(Timespan.NANOSECONDS)
+    public long queryTime;
+
+    @Label("Rows")
+    @Description("Number of rows loaded, or -1 if the result is not a collection")
+    public int rows;
+
+    @Label("Cancelled")
+    @Description("Whether a newer load of the same data replaced this one")
+    public boolean cancelled;
+
+    @Label("Failed")
+    public boolean failed;
+}
@@ -0,0 +1,86 @@
+package service;
+
+import model.Bill;
+import model.Reservation;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous facade over the {@link BillingService}.
+ */
+public class AsyncBillingService extends AsyncFacade {
+    private static AsyncBillingService instance;
+
+    private final BillingService billingService;
+
+    /**
+     * Create a facade running calls on the given executor.
+     *
+     * @param timeout time after which calls fail, or null for no limit
+     */
+    public AsyncBillingService(Executor executor, Duration timeout) {
+        super(executor, timeout);
+        this.billingService = BillingService.getInstance();
+    }
+
+    public static synchronized AsyncBillingService getInstance() {
+        if (instance == null) {
+            instance = new AsyncBillingService(defaultExecutor(), null);
+        }
+        return instance;
+    }
+
+    // Copy this facade with a different timeout
+    public AsyncBillingService withTimeout(Duration timeout) {
+        return new AsyncBillingService(getExecutor(), timeout);
+    }
+
+    // Create a bill for a reservation
+    public CompletableFuture<Bill> createBill(Reservation reservation) {
+        return supply(() -> billingService.createBill(reservation));
+    }
+
+    // Add an item to a bill
+    public CompletableFuture<Boolean> addItemToBill(int billId, String description, BigDecimal amount) {
+        return supply(() -> billingService.addItemToBill(billId, description, amount));
+    }
+
+    // Remove an item from a bill
+    public CompletableFuture<Boolean> removeItemFromBill(int billId, Bill.BillItem item) {
+        return supply(() -> billingService.removeItemFromBill(billId, item));
+    }
+
+    // Mark a bill as paid
+    public CompletableFuture<Boolean> markBillAsPaid(int billId) {
+        return supply(() -> billingService.markBillAsPaid(billId));
+    }
+
+    // Get a bill by ID
+    public CompletableFuture<Bill> getBillById(int billId) {
+        return supply(() -> billingService.getBillById(billId));
+    }
+
+    // Get the bill of a reservation
+    public CompletableFuture<Bill> getBillByReservation(Reservation reservation) {
+        return supply(() -> billingService.getBillByReservation(reservation));
+    }
+
+    // Get all bills
+    public CompletableFuture<List<Bill>> getAllBills() {
+        return supply(billingService::getAllBills);
+    }
+
+    // Get bills by paid status
+    public CompletableFuture<List<Bill>> getBillsByPaidStatus(boolean paid) {
+        return supply(() -> billingService.getBillsByPaidStatus(paid));
+    }
+
+    // Calculate the total of a bill
+    public CompletableFuture<BigDecimal> calculateTotal(int billId) {
+        return supply(() -> billingService.calculateTotal(billId));
+    }
+}
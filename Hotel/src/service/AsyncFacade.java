@@ -0,0 +1,58 @@
+package service;
+
+import util.ThreadPools;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Base of the asynchronous service facades: each call runs the synchronous service method on
+ * an executor and returns a {@link CompletableFuture} for its result.
+ *
+ * By default every call gets its own thread, a virtual one when the JVM has them, so many
+ * independent queries can run in parallel. With a timeout, futures that are not done in time
+ * complete with a {@link java.util.concurrent.TimeoutException}. Cancelling a future, or a
+ * timeout, stops a call that has not started yet and any steps composed after it; a call that
+ * is already running finishes in the background and its result is dropped.
+ */
+public abstract class AsyncFacade {
+    private static Executor defaultExecutor;
+
+    private final Executor executor;
+    private final Duration timeout;
+
+    AsyncFacade(Executor executor, Duration timeout) {
+        if (timeout != null && (timeout.isNegative() || timeout.isZero())) {
+            throw new IllegalArgumentException("The timeout must be positive");
+        }
+        this.executor = executor;
+        this.timeout = timeout;
+    }
+
+    // Get the executor shared by the default facades
+    static synchronized Executor defaultExecutor() {
+        if (defaultExecutor == null) {
+            defaultExecutor = ThreadPools.newThreadPerTaskExecutor("async-service");
+        }
+        return defaultExecutor;
+    }
+
+    // Get the executor the calls run on
+    public Executor getExecutor() {
+        return executor;
+    }
+
+    // Get the time after which calls fail, or null if they can take as long as they need
+    public Duration getTimeout() {
+        return timeout;
+    }
+
+    // Run a service call on the executor
+    <T> CompletableFuture<T> supply(Supplier<T> call) {
+        CompletableFuture<T> future = CompletableFuture.supplyAsync(call, executor);
+        return timeout == null ? future : future.orTimeout(timeout.toNanos(), TimeUnit.NANOSECONDS);
+    }
+}
@@ -0,0 +1,79 @@
+package service;
+
+import model.Guest;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous facade over the {@link GuestService}.
+ */
+public class AsyncGuestService extends AsyncFacade {
+    private static AsyncGuestService instance;
+
+    private final GuestService guestService;
+
+    /**
+     * Create a facade running calls on the given executor.
+     *
+     * @param timeout time after which calls fail, or null for no limit
+     */
+    public AsyncGuestService(Executor executor, Duration timeout) {
+        super(executor, timeout);
+        this.guestService = GuestService.getInstance();
+    }
+
+    public static synchronized AsyncGuestService getInstance() {
+        if (instance == null) {
+            instance = new AsyncGuestService(defaultExecutor(), null);
+        }
+        return instance;
+    }
+
+    // Copy this facade with a different timeout
+    public AsyncGuestService withTimeout(Duration timeout) {
+        return new AsyncGuestService(getExecutor(), timeout);
+    }
+
+    // Add a guest
+    public CompletableFuture<Guest> addGuest(Guest guest) {
+        return supply(() -> guestService.addGuest(guest));
+    }
+
+    // Update a guest
+    public CompletableFuture<Guest> updateGuest(Guest guest) {
+        return supply(() -> guestService.updateGuest(guest));
+    }
+
+    // Delete a guest
+    public CompletableFuture<Boolean> deleteGuest(int guestId) {
+        return supply(() -> guestService.deleteGuest(guestId));
+    }
+
+    // Get a guest by ID
+    public CompletableFuture<Guest> getGuestById(int guestId) {
+        return supply(() -> guestService.getGuestById(guestId));
+    }
+
+    // Get all guests
+    public CompletableFuture<List<Guest>> getAllGuests() {
+        return supply(guestService::getAllGuests);
+    }
+
+    // Search guests by name
+    public CompletableFuture<List<Guest>> searchGuestsByName(String name) {
+        return supply(() -> guestService.searchGuestsByName(name));
+    }
+
+    // Search guests by name or ID number prefix
+    public CompletableFuture<List<Guest>> searchGuests(String searchTerm) {
+        return supply(() -> guestService.searchGuests(searchTerm));
+    }
+
+    // Find a guest by ID number
+    public CompletableFuture<Guest> searchGuestByIdNumber(String idNumber) {
+        return supply(() -> guestService.searchGuestByIdNumber(idNumber));
+    }
+}
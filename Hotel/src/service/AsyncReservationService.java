@@ -0,0 +1,155 @@
+package service;
+
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomType;
+import model.StayOption;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous facade over the {@link ReservationService}, with {@link #walkIn} as an example
+ * of steps composed into one pipeline.
+ */
+public class AsyncReservationService extends AsyncFacade {
+    private static AsyncReservationService instance;
+
+    private final ReservationService reservationService;
+    private final AsyncGuestService guests;
+
+    /**
+     * Create a facade running calls on the given executor.
+     *
+     * @param timeout time after which each call fails, or null for no limit
+     */
+    public AsyncReservationService(Executor executor, Duration timeout) {
+        super(executor, timeout);
+        this.reservationService = ReservationService.getInstance();
+        this.guests = new AsyncGuestService(executor, timeout);
+    }
+
+    public static synchronized AsyncReservationService getInstance() {
+        if (instance == null) {
+            instance = new AsyncReservationService(defaultExecutor(), null);
+        }
+        return instance;
+    }
+
+    // Copy this facade with a different timeout
+    public AsyncReservationService withTimeout(Duration timeout) {
+        return new AsyncReservationService(getExecutor(), timeout);
+    }
+
+    // Create a reservation; the result is null if the room is taken
+    public CompletableFuture<Reservation> createReservation(Guest guest, Room room, LocalDate checkInDate,
+                                                           LocalDate checkOutDate) {
+        return supply(() -> reservationService.createReservation(guest, room, checkInDate, checkOutDate));
+    }
+
+    // Update a reservation
+    public CompletableFuture<Reservation> updateReservation(Reservation reservation) {
+        return supply(() -> reservationService.updateReservation(reservation));
+    }
+
+    // Cancel a reservation
+    public CompletableFuture<Boolean> cancelReservation(int reservationId) {
+        return supply(() -> reservationService.cancelReservation(reservationId));
+    }
+
+    // Check-in a reservation
+    public CompletableFuture<Boolean> checkIn(int reservationId) {
+        return supply(() -> reservationService.checkIn(reservationId));
+    }
+
+    // Check-out a reservation
+    public CompletableFuture<Boolean> checkOut(int reservationId) {
+        return supply(() -> reservationService.checkOut(reservationId));
+    }
+
+    /**
+     * Register a new guest, book a room for them from today and check them in, each step
+     * starting when the previous one is done. Fails with an IllegalStateException if the room
+     * is taken or cannot be checked in; the steps done by then are kept.
+     */
+    public CompletableFuture<Reservation> walkIn(Guest guest, Room room, LocalDate checkOutDate) {
+        return guests.addGuest(guest)
+                .thenCompose(added -> createReservation(added, room, LocalDate.now(), checkOutDate))
+                .thenCompose(reservation -> {
+                    if (reservation == null) {
+                        return CompletableFuture.failedFuture(
+                                new IllegalStateException("Room " + room.getRoomNumber() + " is not available"));
+                    }
+                    return checkIn(reservation.getId()).thenApply(checkedIn -> {
+                        if (!checkedIn) {
+                            throw new IllegalStateException("Reservation " + reservation.getId() + " cannot be checked in");
+                        }
+                        return reservation;
+                    });
+                });
+    }
+
+    // Get a reservation by ID
+    public CompletableFuture<Reservation> getReservationById(int reservationId) {
+        return supply(() -> reservationService.getReservationById(reservationId));
+    }
+
+    // Get all reservations
+    public CompletableFuture<List<Reservation>> getAllReservations() {
+        return supply(reservationService::getAllReservations);
+    }
+
+    // Get reservations by guest
+    public CompletableFuture<List<Reservation>> getReservationsByGuest(Guest guest) {
+        return supply(() -> reservationService.getReservationsByGuest(guest));
+    }
+
+    // Get reservations of any of the given guests
+    public CompletableFuture<List<Reservation>> getReservationsByGuestIds(Set<Integer> guestIds) {
+        return supply(() -> reservationService.getReservationsByGuestIds(guestIds));
+    }
+
+    // Get reservations by room
+    public CompletableFuture<List<Reservation>> getReservationsByRoom(Room room) {
+        return supply(() -> reservationService.getReservationsByRoom(room));
+    }
+
+    // Get reservations by status
+    public CompletableFuture<List<Reservation>> getReservationsByStatus(ReservationStatus status) {
+        return supply(() -> reservationService.getReservationsByStatus(status));
+    }
+
+    // Get reservations overlapping a date range
+    public CompletableFuture<List<Reservation>> getReservationsForDateRange(LocalDate startDate, LocalDate endDate) {
+        return supply(() -> reservationService.getReservationsForDateRange(startDate, endDate));
+    }
+
+    // Check if a room is available for the given dates
+    public CompletableFuture<Boolean> isRoomAvailable(int roomNumber, LocalDate checkInDate, LocalDate checkOutDate) {
+        return supply(() -> reservationService.isRoomAvailable(roomNumber, checkInDate, checkOutDate));
+    }
+
+    // Get available rooms for the given dates
+    public CompletableFuture<List<Room>> getAvailableRoomsForDates(LocalDate checkInDate, LocalDate checkOutDate) {
+        return supply(() -> reservationService.getAvailableRoomsForDates(checkInDate, checkOutDate));
+    }
+
+    // Get available rooms of a type for the given dates
+    public CompletableFuture<List<Room>> getAvailableRoomsByTypeForDates(RoomType type, LocalDate checkInDate,
+                                                                         LocalDate checkOutDate) {
+        return supply(() -> reservationService.getAvailableRoomsByTypeForDates(type, checkInDate, checkOutDate));
+    }
+
+    // Find the cheapest stays of a number of nights within a period
+    public CompletableFuture<List<StayOption>> findFlexibleStays(LocalDate earliestCheckIn, LocalDate latestCheckOut,
+                                                                 int nights, RoomType type, int guests, int limit) {
+        return supply(() -> reservationService.findFlexibleStays(earliestCheckIn, latestCheckOut, nights, type,
+                guests, limit));
+    }
+}
@@ -0,0 +1,91 @@
+package service;
+
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * Asynchronous facade over the {@link RoomService}.
+ */
+public class AsyncRoomService extends AsyncFacade {
+    private static AsyncRoomService instance;
+
+    private final RoomService roomService;
+
+    /**
+     * Create a facade running calls on the given executor.
+     *
+     * @param timeout time after which calls fail, or null for no limit
+     */
+    public AsyncRoomService(Executor executor, Duration timeout) {
+        super(executor, timeout);
+        this.roomService = RoomService.getInstance();
+    }
+
+    public static synchronized AsyncRoomService getInstance() {
+        if (instance == null) {
+            instance = new AsyncRoomService(defaultExecutor(), null);
+        }
+        return instance;
+    }
+
+    // Copy this facade with a different timeout
+    public AsyncRoomService withTimeout(Duration timeout) {
+        return new AsyncRoomService(getExecutor(), timeout);
+    }
+
+    // Add a room
+    public CompletableFuture<Room> addRoom(Room room) {
+        return supply(() -> roomService.addRoom(room));
+    }
+
+    // Update a room
+    public CompletableFuture<Room> updateRoom(Room room) {
+        return supply(() -> roomService.updateRoom(room));
+    }
+
+    // Delete a room
+    public CompletableFuture<Boolean> deleteRoom(int roomNumber) {
+        return supply(() -> roomService.deleteRoom(roomNumber));
+    }
+
+    // Change room status
+    public CompletableFuture<Boolean> changeRoomStatus(int roomNumber, RoomStatus status) {
+        return supply(() -> roomService.changeRoomStatus(roomNumber, status));
+    }
+
+    // Get a room by number
+    public CompletableFuture<Room> getRoomByNumber(int roomNumber) {
+        return supply(() -> roomService.getRoomByNumber(roomNumber));
+    }
+
+    // Get all rooms
+    public CompletableFuture<List<Room>> getAllRooms() {
+        return supply(roomService::getAllRooms);
+    }
+
+    // Get rooms by status
+    public CompletableFuture<List<Room>> getRoomsByStatus(RoomStatus status) {
+        return supply(() -> roomService.getRoomsByStatus(status));
+    }
+
+    // Get rooms by type
+    public CompletableFuture<List<Room>> getRoomsByType(RoomType type) {
+        return supply(() -> roomService.getRoomsByType(type));
+    }
+
+    // Get available rooms
+    public CompletableFuture<List<Room>> getAvailableRooms() {
+        return supply(roomService::getAvailableRooms);
+    }
+
+    // Get available rooms by type
+    public CompletableFuture<List<Room>> getAvailableRoomsByType(RoomType type) {
+        return supply(() -> roomService.getAvailableRoomsByType(type));
+    }
+}
@@ -0,0 +1,151 @@
+package service;
+
+import metrics.Counter;
+import metrics.MetricsRegistry;
+import model.Room;
+import model.RoomType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Bounded cache of available-room queries, keyed by dates and room type, that drops the least
+ * recently used query when full.
+ *
+ * Entries are only dropped when a change can affect them: a booking or cancellation drops the
+ * queries of its room type whose dates overlap the stay, and a room change drops the queries of
+ * that room's type. Queries for all types are affected by every change.
+ */
+public class AvailabilityCache {
+    static final int CAPACITY = 1024;
+
+    private static AvailabilityCache instance;
+
+    private final int capacity;
+    private final LinkedHashMap<Key, List<Room>> entries;
+    // Incremented by every invalidation, so that results computed meanwhile are not cached
+    private long generation;
+
+    // Hits, misses, and entries dropped because the cache was full or because of a change
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final Counter hits = metrics.counter("AvailabilityCache.hits");
+    private final Counter misses = metrics.counter("AvailabilityCache.misses");
+    private final Counter evictions = metrics.counter("AvailabilityCache.evictions");
+    private final Counter invalidations = metrics.counter("AvailabilityCache.invalidations");
+
+    AvailabilityCache(int capacity) {
+        this.capacity = capacity;
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Room>> eldest) {
+                if (size() > AvailabilityCache.this.capacity) {
+                    evictions.increment();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    public static synchronized AvailabilityCache getInstance() {
+        if (instance == null) {
+            instance = new AvailabilityCache(CAPACITY);
+        }
+        return instance;
+    }
+
+    /**
+     * Get the available rooms for a query, computing and caching them on a miss.
+     *
+     * @param type the room type, or null for all types
+     * @param loader computes the available rooms
+     * @return a copy of the available rooms that the caller may change
+     */
+    List<Room> get(RoomType type, LocalDate checkInDate, LocalDate checkOutDate, Supplier<List<Room>> loader) {
+        Key key = new Key(type, checkInDate, checkOutDate);
+        long loadedGeneration;
+        synchronized (this) {
+            List<Room> rooms = entries.get(key);
+            if (rooms != null) {
+                hits.increment();
+                return new ArrayList<>(rooms);
+            }
+            loadedGeneration = generation;
+        }
+        misses.increment();
+
+        List<Room> rooms = loader.get();
+        synchronized (this) {
+            if (generation == loadedGeneration) {
+                entries.put(key, List.copyOf(rooms));
+            }
+        }
+        return rooms;
+    }
+
+    // Drop the queries of a room type whose dates overlap a stay
+    synchronized void invalidate(RoomType type, LocalDate checkInDate, LocalDate checkOutDate) {
+        generation++;
+        for (Iterator<Key> iterator = entries.keySet().iterator(); iterator.hasNext(); ) {
+            Key key = iterator.next();
+            if (key.includes(type) && key.overlaps(checkInDate, checkOutDate)) {
+                iterator.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    // Drop all queries of a room type
+    synchronized void invalidate(RoomType type) {
+        generation++;
+        for (Iterator<Key> iterator = entries.keySet().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().includes(type)) {
+                iterator.remove();
+                invalidations.increment();
+            }
+        }
+    }
+
+    // Drop all queries
+    public synchronized void clear() {
+        generation++;
+        invalidations.add(entries.size());
+        entries.clear();
+    }
+
+    // Get the number of cached queries
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    // Get the number of queries answered from the cache
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    // Get the number of queries that had to be computed
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    // Get the number of queries dropped to make room for newer ones
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private record Key(RoomType type, LocalDate checkInDate, LocalDate checkOutDate) {
+        boolean includes(RoomType roomType) {
+            return type == null || type == roomType;
+        }
+
+        // Same rule as Reservation.overlaps
+        boolean overlaps(LocalDate startDate, LocalDate endDate) {
+            return !checkOutDate.isBefore(startDate) && !checkInDate.isAfter(endDate);
+        }
+    }
+}
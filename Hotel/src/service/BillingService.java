@@ -1,14 +1,20 @@
 package service;
 
+import event.DomainEvent;
+import event.EventBus;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import model.Bill;
 import model.Reservation;
 import model.ReservationStatus;
+import profiling.BillTotalEvent;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -17,11 +23,33 @@ import java.util.stream.Collectors;
 public class BillingService {
     private static BillingService instance;
     private final Map<Integer, Bill> bills;
-    private int nextId;
+    private final AtomicInteger nextId;
+    private final EventBus eventBus;
+    private final StateWriter writer;
+
+    // Latency of every public method
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram createBillLatency = metrics.histogram("BillingService.createBill");
+    private final LatencyHistogram importBillLatency = metrics.histogram("BillingService.importBill");
+    private final LatencyHistogram addItemToBillLatency = metrics.histogram("BillingService.addItemToBill");
+    private final LatencyHistogram removeItemFromBillLatency = metrics.histogram("BillingService.removeItemFromBill");
+    private final LatencyHistogram markBillAsPaidLatency = metrics.histogram("BillingService.markBillAsPaid");
+    private final LatencyHistogram getBillByIdLatency = metrics.histogram("BillingService.getBillById");
+    private final LatencyHistogram getBillByReservationLatency = metrics.histogram("BillingService.getBillByReservation");
+    private final LatencyHistogram getAllBillsLatency = metrics.histogram("BillingService.getAllBills");
+    private final LatencyHistogram getBillsByPaidStatusLatency = metrics.histogram("BillingService.getBillsByPaidStatus");
+    private final LatencyHistogram calculateTotalLatency = metrics.histogram("BillingService.calculateTotal");
     
     private BillingService() {
-        bills = new HashMap<>();
-        nextId = 1;
+        this(StateWriter.getInstance(), EventBus.getInstance());
+    }
+    
+    // Create a service with no bills over the given writer and bus
+    BillingService(StateWriter writer, EventBus eventBus) {
+        bills = new ConcurrentHashMap<>();
+        nextId = new AtomicInteger(1);
+        this.writer = writer;
+        this.eventBus = eventBus;
     }
     
     public static synchronized BillingService getInstance() {
@@ -33,84 +61,164 @@ public class BillingService {
     
     // Create a bill for a reservation
     public Bill createBill(Reservation reservation) {
-        // Check if the reservation is checked out
-        if (reservation.getStatus() != ReservationStatus.CHECKED_OUT) {
-            return null;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                // Check if the reservation is checked out
+                if (reservation.getStatus() != ReservationStatus.CHECKED_OUT) {
+                    return null;
+                }
+    
+                // Check if a bill already exists for this reservation
+                Bill existingBill = getBillByReservation(reservation);
+                if (existingBill != null) {
+                    return existingBill;
+                }
+    
+                Bill bill = new Bill(reservation);
+                bill.setId(nextId.getAndIncrement());
+                bills.put(bill.getId(), bill);
+                eventBus.publish(new DomainEvent.BillCreated(bill));
+                return bill;
+            });
+        } finally {
+            createBillLatency.recordSince(start);
         }
-        
-        // Check if a bill already exists for this reservation
-        Bill existingBill = getBillByReservation(reservation);
-        if (existingBill != null) {
-            return existingBill;
+    }
+    
+    /**
+     * Add an existing bill, keeping its ID and skipping the checks done by createBill.
+     * Used for bulk loading; no event is published, so open panels must reload afterwards.
+     */
+    public Bill importBill(Bill bill) {
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                bills.put(bill.getId(), bill);
+                nextId.accumulateAndGet(bill.getId() + 1, Math::max);
+                return bill;
+            });
+        } finally {
+            importBillLatency.recordSince(start);
         }
-        
-        Bill bill = new Bill(reservation);
-        bill.setId(nextId++);
-        bills.put(bill.getId(), bill);
-        return bill;
     }
     
     // Add an item to a bill
     public boolean addItemToBill(int billId, String description, BigDecimal amount) {
-        Bill bill = getBillById(billId);
-        if (bill != null) {
-            bill.addItem(new Bill.BillItem(description, amount));
-            return true;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Bill bill = getBillById(billId);
+                if (bill != null) {
+                    Bill.BillItem item = new Bill.BillItem(description, amount);
+                    bill.addItem(item);
+                    eventBus.publish(new DomainEvent.BillItemAdded(bill, item));
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            addItemToBillLatency.recordSince(start);
         }
-        return false;
     }
     
     // Remove an item from a bill
     public boolean removeItemFromBill(int billId, Bill.BillItem item) {
-        Bill bill = getBillById(billId);
-        if (bill != null) {
-            bill.removeItem(item);
-            return true;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Bill bill = getBillById(billId);
+                if (bill != null) {
+                    bill.removeItem(item);
+                    eventBus.publish(new DomainEvent.BillItemRemoved(bill, item));
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            removeItemFromBillLatency.recordSince(start);
         }
-        return false;
     }
     
     // Mark a bill as paid
     public boolean markBillAsPaid(int billId) {
-        Bill bill = getBillById(billId);
-        if (bill != null) {
-            bill.setPaid(true);
-            return true;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Bill bill = getBillById(billId);
+                if (bill != null) {
+                    bill.setPaid(true);
+                    eventBus.publish(new DomainEvent.BillPaid(bill));
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            markBillAsPaidLatency.recordSince(start);
         }
-        return false;
     }
     
     // Get a bill by ID
     public Bill getBillById(int billId) {
-        return bills.get(billId);
+        long start = System.nanoTime();
+        try {
+            return bills.get(billId);
+        } finally {
+            getBillByIdLatency.recordSince(start);
+        }
     }
     
     // Get a bill by reservation
     public Bill getBillByReservation(Reservation reservation) {
-        return bills.values().stream()
-                .filter(bill -> bill.getReservation().getId() == reservation.getId())
-                .findFirst()
-                .orElse(null);
+        long start = System.nanoTime();
+        try {
+            return bills.values().stream()
+                    .filter(bill -> bill.getReservation().getId() == reservation.getId())
+                    .findFirst()
+                    .orElse(null);
+        } finally {
+            getBillByReservationLatency.recordSince(start);
+        }
     }
     
     // Get all bills
     public List<Bill> getAllBills() {
-        return new ArrayList<>(bills.values());
+        long start = System.nanoTime();
+        try {
+            return new ArrayList<>(bills.values());
+        } finally {
+            getAllBillsLatency.recordSince(start);
+        }
     }
     
     // Get bills by paid status
     public List<Bill> getBillsByPaidStatus(boolean paid) {
-        return bills.values().stream()
-                .filter(bill -> bill.isPaid() == paid)
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return bills.values().stream()
+                    .filter(bill -> bill.isPaid() == paid)
+                    .collect(Collectors.toList());
+        } finally {
+            getBillsByPaidStatusLatency.recordSince(start);
+        }
     }
     
     // Calculate total for a bill
     public BigDecimal calculateTotal(int billId) {
-        Bill bill = getBillById(billId);
-        if (bill != null) {
-            return bill.calculateTotal();
+        long start = System.nanoTime();
+        BillTotalEvent event = new BillTotalEvent();
+        event.begin();
+        int itemCount = -1;
+        try {
+            Bill bill = getBillById(billId);
+            if (bill != null) {
+                itemCount = bill.getItems().size();
+                return bill.calculateTotal();
+            }
+            return BigDecimal.ZERO;
+        } finally {
+            event.finish(billId, itemCount);
+            calculateTotalLatency.recordSince(start);
         }
-        return BigDecimal.ZERO;
     }
 }
\ No newline at end of file
@@ -0,0 +1,221 @@
+package service;
+
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Supplier;
+
+/**
+ * Applies commands one at a time, in the order they were submitted, on a single writer thread.
+ *
+ * Commands are placed in a ring buffer of slots allocated once. A caller claims the next
+ * sequence number, fills the slot it maps to and waits until the writer has applied it; the
+ * slot is reused once that caller has read the result. Neither side takes a lock: the
+ * writer spins briefly and then parks when there is nothing to do, and so do waiting callers.
+ * Commands submitted from the writer thread itself run straight away, so a command may call
+ * code that submits further commands.
+ */
+public class CommandPipeline implements AutoCloseable {
+    // Iterations spent spinning before parking, for the writer and for waiting callers; spinning
+    // on a single processor only delays the thread being waited for
+    private static final int SPINS = Runtime.getRuntime().availableProcessors() > 1 ? 200 : 0;
+    // Longest time the idle writer parks before checking again
+    private static final long IDLE_PARK_NANOS = 1_000_000;
+
+    private final Slot[] slots;
+    private final int mask;
+    private final Thread writer;
+    private final AtomicLong claimed;
+    private volatile long applied;
+    private volatile boolean writerParked;
+    private volatile boolean running;
+    private volatile boolean terminated;
+
+    /**
+     * Create a pipeline and start its writer thread.
+     *
+     * @param capacity number of slots, rounded up to a power of two
+     * @param threadName name of the writer thread
+     */
+    public CommandPipeline(int capacity, String threadName) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("The capacity must be positive");
+        }
+        int size = Integer.highestOneBit(Math.max(1, capacity - 1)) << 1;
+        slots = new Slot[size];
+        for (int i = 0; i < size; i++) {
+            slots[i] = new Slot(i - size);
+        }
+        mask = size - 1;
+        claimed = new AtomicLong(-1);
+        applied = -1;
+        running = true;
+        writer = new Thread(this::applyCommands, threadName);
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    // Get the number of slots
+    public int getCapacity() {
+        return slots.length;
+    }
+
+    // Get the number of commands applied so far
+    public long getAppliedCount() {
+        return applied + 1;
+    }
+
+    // Check whether the current thread is the writer
+    public boolean isWriterThread() {
+        return Thread.currentThread() == writer;
+    }
+
+    /**
+     * Apply a command on the writer thread and wait for it.
+     *
+     * @return the command's result
+     * @throws RejectedExecutionException if the pipeline is closed
+     */
+    @SuppressWarnings("unchecked")
+    public <T> T execute(Supplier<T> command) {
+        if (isWriterThread()) {
+            return command.get();
+        }
+        if (!running) {
+            throw new RejectedExecutionException("The command pipeline is closed");
+        }
+        // A caller racing with close may claim a sequence after the writer has stopped; the
+        // writer sets terminated once it applies nothing more, and such callers are rejected
+        long sequence = claimed.incrementAndGet();
+        Slot slot = slots[(int) (sequence & mask)];
+        // Wait for the caller one lap behind to release the slot
+        for (int spins = 0; slot.released != sequence - slots.length; spins++) {
+            if (terminated) {
+                throw new RejectedExecutionException("The command pipeline is closed");
+            }
+            idle(spins);
+        }
+        slot.command = command;
+        slot.waiter = Thread.currentThread();
+        slot.submitted = sequence;
+        if (writerParked) {
+            LockSupport.unpark(writer);
+        }
+
+        // The writer unparks the caller once the command is applied
+        for (int spins = 0; slot.completed != sequence; spins++) {
+            if (terminated) {
+                // The writer may have applied the command just before stopping
+                if (slot.completed == sequence) {
+                    break;
+                }
+                throw new RejectedExecutionException("The command pipeline is closed");
+            }
+            if (spins < SPINS) {
+                Thread.onSpinWait();
+            } else {
+                LockSupport.park(this);
+            }
+        }
+        Object result = slot.result;
+        Throwable error = slot.error;
+        slot.result = null;
+        slot.error = null;
+        slot.released = sequence;
+        if (error instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        }
+        if (error instanceof Error e) {
+            throw e;
+        }
+        return (T) result;
+    }
+
+    /**
+     * Stop the writer once every command submitted so far has been applied.
+     * Commands submitted afterwards are rejected.
+     */
+    @Override
+    public void close() {
+        if (!running) {
+            return;
+        }
+        execute(() -> {
+            running = false;
+            return null;
+        });
+    }
+
+    private void applyCommands() {
+        long next = 0;
+        int spins = 0;
+        // After closing, still apply the commands claimed before
+        while (running || next <= claimed.get()) {
+            Slot slot = slots[(int) (next & mask)];
+            if (slot.submitted != next) {
+                if (spins++ < SPINS) {
+                    Thread.onSpinWait();
+                } else {
+                    writerParked = true;
+                    if (slot.submitted != next) {
+                        LockSupport.parkNanos(this, IDLE_PARK_NANOS);
+                    }
+                    writerParked = false;
+                }
+                continue;
+            }
+            spins = 0;
+
+            try {
+                slot.result = slot.command.get();
+            } catch (Throwable t) {
+                slot.error = t;
+            }
+            Thread waiter = slot.waiter;
+            slot.command = null;
+            slot.waiter = null;
+            applied = next;
+            slot.completed = next;
+            LockSupport.unpark(waiter);
+            next++;
+        }
+
+        // Wake callers that submitted after the last check of claimed, so they see terminated
+        terminated = true;
+        for (Slot slot : slots) {
+            if (slot.submitted >= next) {
+                Thread waiter = slot.waiter;
+                if (waiter != null) {
+                    LockSupport.unpark(waiter);
+                }
+            }
+        }
+    }
+
+    // Spin for a while, then park briefly until the slot is released
+    private static void idle(int spins) {
+        if (spins < SPINS) {
+            Thread.onSpinWait();
+        } else {
+            LockSupport.parkNanos(1_000);
+        }
+    }
+
+    /**
+     * One entry of the ring buffer. The sequence fields say which command the slot holds and
+     * how far it got; the other fields are only touched by whoever the sequences hand them to.
+     */
+    private static final class Slot {
+        Supplier<?> command;
+        Thread waiter;
+        Object result;
+        Throwable error;
+        volatile long submitted = -1;
+        volatile long completed = -1;
+        volatile long released;
+
+        Slot(long released) {
+            this.released = released;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package service;
+
+/**
+ * How the services apply changes to their state, set through the {@link StateWriter}.
+ */
+public enum ExecutionMode {
+    // Each change runs on the caller's thread, as soon as it is called
+    DIRECT,
+    // Each change runs on the caller's thread while holding one lock shared by all services
+    LOCKED,
+    // Each change is queued in a ring buffer and applied by a single writer thread
+    PIPELINE
+}
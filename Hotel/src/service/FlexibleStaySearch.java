@@ -0,0 +1,190 @@
+package service;
+
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.StayOption;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Finds the cheapest stays of a fixed length within a period.
+ *
+ * Every candidate room is checked against all start days in one pass over its bookings: the
+ * days it is booked are marked, and a sliding window of the stay length counts them. Rooms are
+ * split across the common fork/join pool, and each task keeps the cheapest room per start day,
+ * so merging two halves is a comparison per day. The rates of the period are copied once
+ * before forking, so the tasks price stays without contending for the rate calendar.
+ */
+final class FlexibleStaySearch extends RecursiveTask<FlexibleStaySearch.Cheapest> {
+    private static final int ROOMS_PER_TASK = 64;
+
+    private final Room[] rooms;
+    private final int from;
+    private final int to;
+    private final Map<Integer, List<Reservation>> bookingsByRoom;
+    private final RateCalendar.Snapshot rates;
+    private final LocalDate firstDay;
+    private final int days;
+    private final int nights;
+
+    private FlexibleStaySearch(Room[] rooms, int from, int to, Map<Integer, List<Reservation>> bookingsByRoom,
+                               RateCalendar.Snapshot rates, LocalDate firstDay, int days, int nights) {
+        this.rooms = rooms;
+        this.from = from;
+        this.to = to;
+        this.bookingsByRoom = bookingsByRoom;
+        this.rates = rates;
+        this.firstDay = firstDay;
+        this.days = days;
+        this.nights = nights;
+    }
+
+    /**
+     * Find the cheapest stays, at most one per check-in day.
+     *
+     * @param rooms the rooms that may be offered
+     * @param bookings reservations overlapping the period; cancelled ones are ignored
+     * @param rateCalendar prices the stays
+     * @param earliestCheckIn the first day a stay may start
+     * @param latestCheckOut the last day a stay may end
+     * @param nights the length of the stay
+     * @param limit the maximum number of stays to return
+     * @return the stays, cheapest first and earliest first for equal prices
+     */
+    static List<StayOption> search(List<Room> rooms, List<Reservation> bookings, RateCalendar rateCalendar,
+                                   LocalDate earliestCheckIn, LocalDate latestCheckOut, int nights, int limit) {
+        int days = (int) ChronoUnit.DAYS.between(earliestCheckIn, latestCheckOut) + 1;
+        if (rooms.isEmpty() || days <= nights || limit <= 0) {
+            return new ArrayList<>();
+        }
+        Map<Integer, List<Reservation>> bookingsByRoom = new HashMap<>();
+        for (Reservation reservation : bookings) {
+            if (reservation.getStatus() != ReservationStatus.CANCELLED) {
+                bookingsByRoom.computeIfAbsent(reservation.getRoom().getRoomNumber(), number -> new ArrayList<>())
+                        .add(reservation);
+            }
+        }
+
+        Room[] candidates = rooms.toArray(new Room[0]);
+        RateCalendar.Snapshot rates = rateCalendar.snapshot(rooms, earliestCheckIn, latestCheckOut);
+        Cheapest cheapest = ForkJoinPool.commonPool().invoke(
+                new FlexibleStaySearch(candidates, 0, candidates.length, bookingsByRoom, rates, earliestCheckIn,
+                        days, nights));
+
+        List<Integer> starts = new ArrayList<>();
+        for (int start = 0; start < cheapest.rooms.length; start++) {
+            if (cheapest.rooms[start] != null) {
+                starts.add(start);
+            }
+        }
+        starts.sort(Comparator.<Integer, BigDecimal>comparing(start -> cheapest.prices[start])
+                .thenComparing(Comparator.naturalOrder()));
+
+        List<StayOption> options = new ArrayList<>();
+        for (int start : starts.subList(0, Math.min(limit, starts.size()))) {
+            LocalDate checkIn = earliestCheckIn.plusDays(start);
+            options.add(new StayOption(cheapest.rooms[start], checkIn, checkIn.plusDays(nights),
+                    cheapest.prices[start], cheapest.freeRooms[start]));
+        }
+        return options;
+    }
+
+    @Override
+    protected Cheapest compute() {
+        if (to - from <= ROOMS_PER_TASK) {
+            Cheapest cheapest = new Cheapest(days - nights);
+            boolean[] booked = new boolean[days];
+            for (int i = from; i < to; i++) {
+                searchRoom(rooms[i], booked, cheapest);
+            }
+            return cheapest;
+        }
+        int middle = (from + to) >>> 1;
+        FlexibleStaySearch left = new FlexibleStaySearch(rooms, from, middle, bookingsByRoom, rates, firstDay,
+                days, nights);
+        FlexibleStaySearch right = new FlexibleStaySearch(rooms, middle, to, bookingsByRoom, rates, firstDay,
+                days, nights);
+        left.fork();
+        Cheapest cheapest = right.compute();
+        cheapest.merge(left.join());
+        return cheapest;
+    }
+
+    // Offer the room for every start day on which it is free for the whole stay
+    private void searchRoom(Room room, boolean[] booked, Cheapest cheapest) {
+        Arrays.fill(booked, false);
+        for (Reservation reservation : bookingsByRoom.getOrDefault(room.getRoomNumber(), List.of())) {
+            // A stay may not start or end on a day the room is booked, as in Reservation.overlaps
+            int first = (int) Math.max(0, ChronoUnit.DAYS.between(firstDay, reservation.getCheckInDate()));
+            int last = (int) Math.min(days - 1, ChronoUnit.DAYS.between(firstDay, reservation.getCheckOutDate()));
+            for (int day = first; day <= last; day++) {
+                booked[day] = true;
+            }
+        }
+
+        // Number of booked days from the check-in day to the check-out day of the stay starting at start
+        int bookedDays = 0;
+        for (int day = 0; day < nights; day++) {
+            bookedDays += booked[day] ? 1 : 0;
+        }
+        for (int start = 0; start < days - nights; start++) {
+            bookedDays += booked[start + nights] ? 1 : 0;
+            if (bookedDays == 0) {
+                LocalDate checkIn = firstDay.plusDays(start);
+                cheapest.offer(start, room, rates.quote(room, checkIn, checkIn.plusDays(nights)));
+            }
+            bookedDays -= booked[start] ? 1 : 0;
+        }
+    }
+
+    /**
+     * The cheapest room and the number of free rooms for each start day.
+     */
+    static final class Cheapest {
+        private final Room[] rooms;
+        private final BigDecimal[] prices;
+        private final int[] freeRooms;
+
+        Cheapest(int starts) {
+            rooms = new Room[starts];
+            prices = new BigDecimal[starts];
+            freeRooms = new int[starts];
+        }
+
+        void offer(int start, Room room, BigDecimal price) {
+            freeRooms[start]++;
+            if (rooms[start] == null || isCheaper(price, room, prices[start], rooms[start])) {
+                rooms[start] = room;
+                prices[start] = price;
+            }
+        }
+
+        void merge(Cheapest other) {
+            for (int start = 0; start < rooms.length; start++) {
+                freeRooms[start] += other.freeRooms[start];
+                if (other.rooms[start] != null && (rooms[start] == null
+                        || isCheaper(other.prices[start], other.rooms[start], prices[start], rooms[start]))) {
+                    rooms[start] = other.rooms[start];
+                    prices[start] = other.prices[start];
+                }
+            }
+        }
+
+        // Lower price first, then lower room number, so the result does not depend on how the rooms were split
+        private static boolean isCheaper(BigDecimal price, Room room, BigDecimal otherPrice, Room otherRoom) {
+            int comparison = price.compareTo(otherPrice);
+            return comparison < 0 || (comparison == 0 && room.getRoomNumber() < otherRoom.getRoomNumber());
+        }
+    }
+}
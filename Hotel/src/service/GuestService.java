@@ -1,11 +1,17 @@
 package service;
 
+import event.DomainEvent;
+import event.EventBus;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import model.Guest;
+import profiling.GuestSearchEvent;
 
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -14,11 +20,26 @@ import java.util.stream.Collectors;
 public class GuestService {
     private static GuestService instance;
     private final Map<Integer, Guest> guests;
-    private int nextId;
+    private final AtomicInteger nextId;
+    private final EventBus eventBus;
+    private final StateWriter writer = StateWriter.getInstance();
+
+    // Latency of every public method
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram addGuestLatency = metrics.histogram("GuestService.addGuest");
+    private final LatencyHistogram importGuestLatency = metrics.histogram("GuestService.importGuest");
+    private final LatencyHistogram updateGuestLatency = metrics.histogram("GuestService.updateGuest");
+    private final LatencyHistogram deleteGuestLatency = metrics.histogram("GuestService.deleteGuest");
+    private final LatencyHistogram getGuestByIdLatency = metrics.histogram("GuestService.getGuestById");
+    private final LatencyHistogram getAllGuestsLatency = metrics.histogram("GuestService.getAllGuests");
+    private final LatencyHistogram searchGuestsByNameLatency = metrics.histogram("GuestService.searchGuestsByName");
+    private final LatencyHistogram searchGuestsLatency = metrics.histogram("GuestService.searchGuests");
+    private final LatencyHistogram searchGuestByIdNumberLatency = metrics.histogram("GuestService.searchGuestByIdNumber");
     
     private GuestService() {
-        guests = new HashMap<>();
-        nextId = 1;
+        guests = new ConcurrentHashMap<>();
+        nextId = new AtomicInteger(1);
+        eventBus = EventBus.getInstance();
         
         // Add some sample guests
         addGuest(new Guest("John", "Doe", "123456789", "555-1234", "john.doe@example.com", "123 Main St"));
@@ -34,50 +55,143 @@ public class GuestService {
     
     // Add a guest
     public Guest addGuest(Guest guest) {
-        guest.setId(nextId++);
-        guests.put(guest.getId(), guest);
-        return guest;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                guest.setId(nextId.getAndIncrement());
+                guests.put(guest.getId(), guest);
+                eventBus.publish(new DomainEvent.GuestAdded(guest));
+                return guest;
+            });
+        } finally {
+            addGuestLatency.recordSince(start);
+        }
+    }
+    
+    /**
+     * Add an existing guest, keeping its ID. Used for bulk loading; no event is published,
+     * so open panels must reload afterwards.
+     */
+    public Guest importGuest(Guest guest) {
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                guests.put(guest.getId(), guest);
+                nextId.accumulateAndGet(guest.getId() + 1, Math::max);
+                return guest;
+            });
+        } finally {
+            importGuestLatency.recordSince(start);
+        }
     }
     
     // Update a guest
     public Guest updateGuest(Guest guest) {
-        if (guests.containsKey(guest.getId())) {
-            guests.put(guest.getId(), guest);
-            return guest;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                if (guests.containsKey(guest.getId())) {
+                    guests.put(guest.getId(), guest);
+                    eventBus.publish(new DomainEvent.GuestUpdated(guest));
+                    return guest;
+                }
+                return null;
+            });
+        } finally {
+            updateGuestLatency.recordSince(start);
         }
-        return null;
     }
     
     // Delete a guest
     public boolean deleteGuest(int guestId) {
-        return guests.remove(guestId) != null;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Guest guest = guests.remove(guestId);
+                if (guest != null) {
+                    eventBus.publish(new DomainEvent.GuestDeleted(guest));
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            deleteGuestLatency.recordSince(start);
+        }
     }
     
     // Get a guest by ID
     public Guest getGuestById(int guestId) {
-        return guests.get(guestId);
+        long start = System.nanoTime();
+        try {
+            return guests.get(guestId);
+        } finally {
+            getGuestByIdLatency.recordSince(start);
+        }
     }
     
     // Get all guests
     public List<Guest> getAllGuests() {
-        return new ArrayList<>(guests.values());
+        long start = System.nanoTime();
+        try {
+            return new ArrayList<>(guests.values());
+        } finally {
+            getAllGuestsLatency.recordSince(start);
+        }
     }
     
     // Search guests by name
     public List<Guest> searchGuestsByName(String name) {
-        String searchTerm = name.toLowerCase();
-        return guests.values().stream()
-                .filter(guest -> 
-                    guest.getFirstName().toLowerCase().contains(searchTerm) || 
-                    guest.getLastName().toLowerCase().contains(searchTerm))
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        GuestSearchEvent event = new GuestSearchEvent();
+        event.begin();
+        int resultSize = 0;
+        try {
+            String searchTerm = name.toLowerCase();
+            List<Guest> result = guests.values().stream()
+                    .filter(guest -> guest.matchesName(searchTerm))
+                    .collect(Collectors.toList());
+            resultSize = result.size();
+            return result;
+        } finally {
+            event.finish("name", name, guests.size(), resultSize);
+            searchGuestsByNameLatency.recordSince(start);
+        }
+    }
+    
+    // Search guests by name or ID number prefix
+    public List<Guest> searchGuests(String searchTerm) {
+        long start = System.nanoTime();
+        GuestSearchEvent event = new GuestSearchEvent();
+        event.begin();
+        int resultSize = 0;
+        try {
+            String lowerCaseTerm = searchTerm.toLowerCase();
+            List<Guest> result = guests.values().stream()
+                    .filter(guest -> guest.matchesSearch(lowerCaseTerm))
+                    .collect(Collectors.toList());
+            resultSize = result.size();
+            return result;
+        } finally {
+            event.finish("any", searchTerm, guests.size(), resultSize);
+            searchGuestsLatency.recordSince(start);
+        }
     }
     
     // Search guests by ID number
     public Guest searchGuestByIdNumber(String idNumber) {
-        return guests.values().stream()
-                .filter(guest -> guest.getIdNumber().equals(idNumber))
-                .findFirst()
-                .orElse(null);
+        long start = System.nanoTime();
+        GuestSearchEvent event = new GuestSearchEvent();
+        event.begin();
+        Guest result = null;
+        try {
+            result = guests.values().stream()
+                    .filter(guest -> guest.getIdNumber().equals(idNumber))
+                    .findFirst()
+                    .orElse(null);
+            return result;
+        } finally {
+            event.finish("idNumber", idNumber, guests.size(), result == null ? 0 : 1);
+            searchGuestByIdNumberLatency.recordSince(start);
+        }
     }
 }
\ No newline at end of file
@@ -0,0 +1,153 @@
+package service;
+
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * The hotels of a chain, each a {@link Property} with its own rooms, reservations and bills.
+ *
+ * Queries that span the chain, such as a guest's history or the rooms free at every hotel, run
+ * on all properties at once on the common fork/join pool and merge the results, so each one
+ * only goes through the data of a single property. The first property is the hotel served by
+ * the singletons and cannot be removed.
+ */
+public class HotelChain {
+    /**
+     * A reservation and the property it was made at.
+     */
+    public record PropertyReservation(Property property, Reservation reservation) {
+    }
+
+    /**
+     * The rooms free at a property.
+     */
+    public record PropertyRooms(Property property, List<Room> rooms) {
+    }
+
+    private static HotelChain instance;
+
+    private final List<Property> properties;
+    private final AtomicInteger nextId;
+
+    // Latency of every public method
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram addPropertyLatency = metrics.histogram("HotelChain.addProperty");
+    private final LatencyHistogram removePropertyLatency = metrics.histogram("HotelChain.removeProperty");
+    private final LatencyHistogram getGuestHistoryLatency = metrics.histogram("HotelChain.getGuestHistory");
+    private final LatencyHistogram getChainAvailabilityLatency = metrics.histogram("HotelChain.getChainAvailability");
+
+    private HotelChain() {
+        properties = new CopyOnWriteArrayList<>();
+        nextId = new AtomicInteger(1);
+        properties.add(Property.ofSingletons(nextId.getAndIncrement(), "Main"));
+    }
+
+    public static synchronized HotelChain getInstance() {
+        if (instance == null) {
+            instance = new HotelChain();
+        }
+        return instance;
+    }
+
+    // Open a property with no rooms yet
+    public Property addProperty(String name) {
+        long start = System.nanoTime();
+        try {
+            Property property = Property.create(nextId.getAndIncrement(), name);
+            properties.add(property);
+            return property;
+        } finally {
+            addPropertyLatency.recordSince(start);
+        }
+    }
+
+    // Remove a property from the chain and stop the threads of its services
+    public boolean removeProperty(int propertyId) {
+        long start = System.nanoTime();
+        try {
+            if (propertyId == getMainProperty().getId()) {
+                throw new IllegalArgumentException("The main property cannot be removed");
+            }
+            Property property = getProperty(propertyId);
+            if (property == null || !properties.remove(property)) {
+                return false;
+            }
+            property.close();
+            return true;
+        } finally {
+            removePropertyLatency.recordSince(start);
+        }
+    }
+
+    // Get the property served by the singletons
+    public Property getMainProperty() {
+        return properties.get(0);
+    }
+
+    // Get a property by ID, or null if there is none
+    public Property getProperty(int propertyId) {
+        return properties.stream().filter(property -> property.getId() == propertyId).findFirst().orElse(null);
+    }
+
+    // Get all properties, the main one first
+    public List<Property> getProperties() {
+        return List.copyOf(properties);
+    }
+
+    // Get the reservations of a guest at every property, by check-in date
+    public List<PropertyReservation> getGuestHistory(Guest guest) {
+        long start = System.nanoTime();
+        try {
+            return fanOut(property -> property.getReservationService().getReservationsByGuest(guest).stream()
+                    .map(reservation -> new PropertyReservation(property, reservation))
+                    .collect(Collectors.toList()))
+                    .stream()
+                    .flatMap(List::stream)
+                    .sorted(Comparator.comparing((PropertyReservation stay) -> stay.reservation().getCheckInDate())
+                            .thenComparing(stay -> stay.property().getId())
+                            .thenComparing(stay -> stay.reservation().getId()))
+                    .collect(Collectors.toList());
+        } finally {
+            getGuestHistoryLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Get the rooms free for the given dates at every property that has any.
+     *
+     * @param type the room type, or null for rooms of any type
+     * @return one entry per property with free rooms, in the order of {@link #getProperties()}
+     */
+    public List<PropertyRooms> getChainAvailability(RoomType type, LocalDate checkInDate, LocalDate checkOutDate) {
+        long start = System.nanoTime();
+        try {
+            return fanOut(property -> {
+                ReservationService reservations = property.getReservationService();
+                return new PropertyRooms(property, type == null
+                        ? reservations.getAvailableRoomsForDates(checkInDate, checkOutDate)
+                        : reservations.getAvailableRoomsByTypeForDates(type, checkInDate, checkOutDate));
+            }).stream()
+                    .filter(free -> !free.rooms().isEmpty())
+                    .collect(Collectors.toList());
+        } finally {
+            getChainAvailabilityLatency.recordSince(start);
+        }
+    }
+
+    // Run a query on every property in parallel, and return the results in property order
+    private <T> List<T> fanOut(Function<Property, T> query) {
+        return getProperties().parallelStream().map(query).collect(Collectors.toList());
+    }
+}
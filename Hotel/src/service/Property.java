@@ -0,0 +1,103 @@
+package service;
+
+import event.EventBus;
+
+/**
+ * One hotel of a {@link HotelChain}, with its own rooms, reservations and bills.
+ *
+ * Each property is a shard: its services have a state writer, event bus, inventory,
+ * availability cache and rate calendar of their own, so a booking at one hotel never waits for
+ * another and its scans only go through its own reservations. Guests are shared by the chain.
+ * The first property is the one served by the singletons, such as {@link RoomService#getInstance()}.
+ * The constructors and {@code create()} factories of those services exist to build the other
+ * properties; everything else uses the singletons.
+ */
+public class Property {
+    private final int id;
+    private final String name;
+    private final StateWriter writer;
+    private final EventBus eventBus;
+    private final RoomInventory inventory;
+    private final RoomService roomService;
+    private final ReservationService reservationService;
+    private final BillingService billingService;
+
+    private Property(int id, String name, StateWriter writer, EventBus eventBus, RoomInventory inventory,
+                     RoomService roomService, ReservationService reservationService, BillingService billingService) {
+        this.id = id;
+        this.name = name;
+        this.writer = writer;
+        this.eventBus = eventBus;
+        this.inventory = inventory;
+        this.roomService = roomService;
+        this.reservationService = reservationService;
+        this.billingService = billingService;
+    }
+
+    // Wrap the singleton services as a property
+    static Property ofSingletons(int id, String name) {
+        return new Property(id, name, StateWriter.getInstance(), EventBus.getInstance(), RoomInventory.getInstance(),
+                RoomService.getInstance(), ReservationService.getInstance(), BillingService.getInstance());
+    }
+
+    // Create a property with no rooms and services of its own, writing in the same mode as the singletons
+    static Property create(int id, String name) {
+        StateWriter writer = new StateWriter();
+        writer.setMode(StateWriter.getInstance().getMode());
+        EventBus eventBus = new EventBus();
+        RoomInventory inventory = RoomInventory.create();
+        AvailabilityCache availabilityCache = new AvailabilityCache(AvailabilityCache.CAPACITY);
+        RateCalendar rateCalendar = RateCalendar.create();
+        RoomService roomService = new RoomService(writer, eventBus, inventory, availabilityCache, rateCalendar);
+        ReservationService reservationService = new ReservationService(writer, eventBus, roomService, inventory,
+                availabilityCache, rateCalendar);
+        return new Property(id, name, writer, eventBus, inventory, roomService, reservationService,
+                new BillingService(writer, eventBus));
+    }
+
+    public int getId() {
+        return id;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public StateWriter getWriter() {
+        return writer;
+    }
+
+    public EventBus getEventBus() {
+        return eventBus;
+    }
+
+    public RoomInventory getInventory() {
+        return inventory;
+    }
+
+    public RoomService getRoomService() {
+        return roomService;
+    }
+
+    public ReservationService getReservationService() {
+        return reservationService;
+    }
+
+    public BillingService getBillingService() {
+        return billingService;
+    }
+
+    /**
+     * Stop the threads of a property's own services: the event bus dispatcher, and the state
+     * writer's pipeline by going back to the DIRECT mode. The property must not be used afterwards.
+     */
+    void close() {
+        writer.setMode(ExecutionMode.DIRECT);
+        eventBus.shutdown();
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
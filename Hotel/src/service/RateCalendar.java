@@ -0,0 +1,453 @@
+package service;
+
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import model.Room;
+import model.RoomType;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.LongUnaryOperator;
+
+/**
+ * Nightly rates per room type, with overrides for single rooms, e.g. for seasons and weekends.
+ * A night without a rate costs the room's own price per night.
+ *
+ * Rates are kept in cents in one array per room type, next to running totals, so the price
+ * of any stay is the difference of two totals whatever its length. Changing the rates of a
+ * range of nights only recomputes the totals from the first changed night on.
+ *
+ * Rates apply to new quotes only; reservations keep the price they were booked at.
+ */
+public class RateCalendar {
+    // The shared calendar covers a year back and ten years ahead
+    private static final int PAST_DAYS = 365;
+    private static final int DAYS = 4096;
+    // Marks a night whose rate stays as it is
+    private static final long KEEP = Long.MIN_VALUE;
+
+    private static RateCalendar instance;
+
+    private final LocalDate firstDay;
+    private final int days;
+    private final DailyRates[] typeRates;
+    private final Map<Integer, RoomRates> roomRates;
+    private final List<Listener> listeners;
+
+    // Latency of every public method
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram quoteLatency = metrics.histogram("RateCalendar.quote");
+    private final LatencyHistogram setRatesLatency = metrics.histogram("RateCalendar.setRates");
+    private final LatencyHistogram setRoomRateLatency = metrics.histogram("RateCalendar.setRoomRate");
+    private final LatencyHistogram getTypeRatesLatency = metrics.histogram("RateCalendar.getTypeRates");
+
+    private RateCalendar(LocalDate firstDay, int days) {
+        this.firstDay = firstDay;
+        this.days = days;
+        this.typeRates = new DailyRates[RoomType.values().length];
+        for (int i = 0; i < typeRates.length; i++) {
+            typeRates[i] = new DailyRates(days);
+        }
+        this.roomRates = new HashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    public static synchronized RateCalendar getInstance() {
+        if (instance == null) {
+            instance = create();
+        }
+        return instance;
+    }
+
+    // Create an empty calendar over the usual window
+    static RateCalendar create() {
+        return new RateCalendar(LocalDate.now().minusDays(PAST_DAYS), DAYS);
+    }
+
+    // Get the first night that can have a rate
+    public LocalDate getFirstDay() {
+        return firstDay;
+    }
+
+    // Get the night after the last one that can have a rate
+    public LocalDate getEndDay() {
+        return firstDay.plusDays(days);
+    }
+
+    /**
+     * Get the price of a stay in a room: the rate of each night from check-in up to check-out.
+     *
+     * @return the total, or zero if check-out is not after check-in
+     */
+    public BigDecimal quote(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        long start = System.nanoTime();
+        try {
+            long from = ChronoUnit.DAYS.between(firstDay, checkInDate);
+            long to = ChronoUnit.DAYS.between(firstDay, checkOutDate);
+            if (to <= from) {
+                return BigDecimal.ZERO.setScale(2);
+            }
+            long baseCents = toCents(room.getPricePerNight());
+            int windowFrom = (int) Math.min(days, Math.max(0, from));
+            int windowTo = (int) Math.min(days, Math.max(0, to));
+            // Nights outside the calendar cost the room's own price
+            long total = (to - from - (windowTo - windowFrom)) * baseCents;
+            if (windowFrom < windowTo) {
+                synchronized (this) {
+                    total += ratesFor(room).total(windowFrom, windowTo, baseCents);
+                }
+            }
+            return BigDecimal.valueOf(total, 2);
+        } finally {
+            quoteLatency.recordSince(start);
+        }
+    }
+
+    // Get the price of one night in a room
+    public BigDecimal getNightlyRate(Room room, LocalDate night) {
+        return quote(room, night, night.plusDays(1));
+    }
+
+    /**
+     * Get the rates of a room type for consecutive nights, without the overrides of single rooms.
+     *
+     * @return the price of each night, null where the rooms keep their own price
+     */
+    public BigDecimal[] getTypeRates(RoomType type, LocalDate firstNight, int nights) {
+        long start = System.nanoTime();
+        try {
+            BigDecimal[] rates = new BigDecimal[nights];
+            long offset = ChronoUnit.DAYS.between(firstDay, firstNight);
+            synchronized (this) {
+                long[] cents = typeRates[type.ordinal()].cents;
+                for (int night = 0; night < nights; night++) {
+                    long day = offset + night;
+                    if (day >= 0 && day < days && cents[(int) day] != DailyRates.UNSET) {
+                        rates[night] = BigDecimal.valueOf(cents[(int) day], 2);
+                    }
+                }
+            }
+            return rates;
+        } finally {
+            getTypeRatesLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Set the rate of a room type for the nights from one day up to, but not including, another.
+     *
+     * @param rate the price per night, or null to go back to each room's own price
+     */
+    public void setRate(RoomType type, LocalDate from, LocalDate to, BigDecimal rate) {
+        long start = System.nanoTime();
+        try {
+            long cents = rate == null ? DailyRates.UNSET : toCents(rate);
+            update(type, from, to, night -> cents);
+        } finally {
+            setRatesLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Set the rates of a room type for consecutive nights.
+     *
+     * @param from the first night
+     * @param rates the price of each night; null entries go back to each room's own price
+     */
+    public void setRates(RoomType type, LocalDate from, List<BigDecimal> rates) {
+        long start = System.nanoTime();
+        try {
+            long[] cents = rates.stream().mapToLong(rate -> rate == null ? DailyRates.UNSET : toCents(rate)).toArray();
+            update(type, from, from.plusDays(rates.size()), night -> cents[(int) night]);
+        } finally {
+            setRatesLatency.recordSince(start);
+        }
+    }
+
+    // Set the rate of a room type for the Friday and Saturday nights from one day up to, but not including, another
+    public void setWeekendRate(RoomType type, LocalDate from, LocalDate to, BigDecimal rate) {
+        long start = System.nanoTime();
+        try {
+            long cents = toCents(rate);
+            update(type, from, to, night -> {
+                DayOfWeek day = from.plusDays(night).getDayOfWeek();
+                return day == DayOfWeek.FRIDAY || day == DayOfWeek.SATURDAY ? cents : KEEP;
+            });
+        } finally {
+            setRatesLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Set the rate of a single room for the nights from one day up to, but not including,
+     * another. It takes precedence over the rate of the room type.
+     *
+     * @param rate the price per night, or null to go back to the rate of the room type
+     */
+    public void setRoomRate(Room room, LocalDate from, LocalDate to, BigDecimal rate) {
+        long start = System.nanoTime();
+        try {
+            long cents = rate == null ? DailyRates.UNSET : toCents(rate);
+            int fromDay = clamp(from);
+            int toDay = clamp(to);
+            if (fromDay >= toDay) {
+                return;
+            }
+            synchronized (this) {
+                RoomRates rates = roomRates.computeIfAbsent(room.getRoomNumber(),
+                        number -> new RoomRates(room.getType(), typeRates[room.getType().ordinal()]));
+                Arrays.fill(rates.overrides, fromDay, toDay, cents);
+                rates.merge(typeRates[rates.type.ordinal()], fromDay, toDay);
+            }
+        } finally {
+            setRoomRateLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Receives the nights whose room type rates changed.
+     * Listeners are called after the calendar is unlocked, on the thread that set the rates.
+     */
+    public interface Listener {
+        /**
+         * Called after the rates of a room type were set or cleared.
+         *
+         * @param from the first night that changed
+         * @param to the night after the last one that changed
+         */
+        void ratesChanged(RoomType type, LocalDate from, LocalDate to);
+    }
+
+    // Add a listener for rate changes
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    // Remove a listener added before
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    /**
+     * Copy the rates that apply to some rooms over a period, so that many stays within it can
+     * be priced from several threads without taking the calendar's lock for each.
+     *
+     * @param from the first night to copy
+     * @param to the night after the last one to copy
+     */
+    Snapshot snapshot(Collection<Room> rooms, LocalDate from, LocalDate to) {
+        int windowFrom = clamp(from);
+        int windowTo = Math.max(windowFrom, clamp(to));
+        Map<RoomType, Totals> types = new EnumMap<>(RoomType.class);
+        Map<Integer, Totals> overrides = new HashMap<>();
+        synchronized (this) {
+            for (Room room : rooms) {
+                DailyRates rates = ratesFor(room);
+                if (rates == typeRates[room.getType().ordinal()]) {
+                    types.computeIfAbsent(room.getType(), type -> rates.copy(windowFrom, windowTo));
+                } else {
+                    overrides.put(room.getRoomNumber(), rates.copy(windowFrom, windowTo));
+                }
+            }
+        }
+        return new Snapshot(firstDay, days, windowFrom, windowTo, types, overrides);
+    }
+
+    // Remove all rates of a single room
+    public synchronized void clearRoomRates(int roomNumber) {
+        roomRates.remove(roomNumber);
+    }
+
+    /**
+     * Change the rates of a room type and of the rooms overriding it.
+     *
+     * @param rateOfNight the new rate in cents for each night, counted from {@code from}
+     */
+    private void update(RoomType type, LocalDate from, LocalDate to, LongUnaryOperator rateOfNight) {
+        long offset = ChronoUnit.DAYS.between(firstDay, from);
+        int fromDay = clamp(from);
+        int toDay = clamp(to);
+        if (fromDay >= toDay) {
+            return;
+        }
+        synchronized (this) {
+            DailyRates rates = typeRates[type.ordinal()];
+            for (int day = fromDay; day < toDay; day++) {
+                long cents = rateOfNight.applyAsLong(day - offset);
+                if (cents != KEEP) {
+                    rates.cents[day] = cents;
+                }
+            }
+            rates.rebuild(fromDay);
+            for (RoomRates room : roomRates.values()) {
+                if (room.type == type) {
+                    room.merge(rates, fromDay, toDay);
+                }
+            }
+        }
+        for (Listener listener : listeners) {
+            listener.ratesChanged(type, firstDay.plusDays(fromDay), firstDay.plusDays(toDay));
+        }
+    }
+
+    // Get the rates that apply to a room
+    private DailyRates ratesFor(Room room) {
+        RoomRates rates = roomRates.get(room.getRoomNumber());
+        if (rates == null) {
+            return typeRates[room.getType().ordinal()];
+        }
+        if (rates.type != room.getType()) {
+            // The room changed type since its rates were set
+            rates.type = room.getType();
+            rates.merge(typeRates[rates.type.ordinal()], 0, days);
+        }
+        return rates.effective;
+    }
+
+    private int clamp(LocalDate date) {
+        return (int) Math.min(days, Math.max(0, ChronoUnit.DAYS.between(firstDay, date)));
+    }
+
+    private static long toCents(BigDecimal amount) {
+        return amount.movePointRight(2).setScale(0, RoundingMode.HALF_UP).longValueExact();
+    }
+
+    /**
+     * Nightly rates in cents with running totals.
+     */
+    private static final class DailyRates {
+        static final long UNSET = -1;
+
+        final long[] cents;
+        // Sum of the rates set, and number of nights without a rate, before each night
+        private final long[] setTotals;
+        private final int[] unsetCounts;
+
+        DailyRates(int days) {
+            cents = new long[days];
+            Arrays.fill(cents, UNSET);
+            setTotals = new long[days + 1];
+            unsetCounts = new int[days + 1];
+            rebuild(0);
+        }
+
+        // Recompute the running totals from a night on, after rates were changed there or later
+        void rebuild(int from) {
+            for (int day = from; day < cents.length; day++) {
+                boolean unset = cents[day] == UNSET;
+                setTotals[day + 1] = setTotals[day] + (unset ? 0 : cents[day]);
+                unsetCounts[day + 1] = unsetCounts[day] + (unset ? 1 : 0);
+            }
+        }
+
+        // Total of the nights [from, to), where nights without a rate cost baseCents
+        long total(int from, int to, long baseCents) {
+            return setTotals[to] - setTotals[from] + (long) (unsetCounts[to] - unsetCounts[from]) * baseCents;
+        }
+
+        // Copy the running totals of the nights [from, to)
+        Totals copy(int from, int to) {
+            return new Totals(Arrays.copyOfRange(setTotals, from, to + 1), Arrays.copyOfRange(unsetCounts, from, to + 1));
+        }
+    }
+
+    /**
+     * Running totals copied out of a DailyRates, counted from the first night of a snapshot.
+     */
+    private record Totals(long[] setTotals, int[] unsetCounts) {
+        long total(int from, int to, long baseCents) {
+            return setTotals[to] - setTotals[from] + (long) (unsetCounts[to] - unsetCounts[from]) * baseCents;
+        }
+    }
+
+    /**
+     * The rates of some rooms over a period, as they were when the snapshot was taken.
+     * It is never changed, so it may be read from any thread without locking.
+     */
+    static final class Snapshot {
+        private final LocalDate firstDay;
+        private final int days;
+        private final int windowFrom;
+        private final int windowTo;
+        private final Map<RoomType, Totals> types;
+        private final Map<Integer, Totals> overrides;
+
+        private Snapshot(LocalDate firstDay, int days, int windowFrom, int windowTo, Map<RoomType, Totals> types,
+                         Map<Integer, Totals> overrides) {
+            this.firstDay = firstDay;
+            this.days = days;
+            this.windowFrom = windowFrom;
+            this.windowTo = windowTo;
+            this.types = types;
+            this.overrides = overrides;
+        }
+
+        /**
+         * Get the price of a stay in one of the rooms, as RateCalendar.quote would have.
+         *
+         * @throws IllegalArgumentException if the stay has nights in the calendar that were not copied
+         */
+        BigDecimal quote(Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+            long from = ChronoUnit.DAYS.between(firstDay, checkInDate);
+            long to = ChronoUnit.DAYS.between(firstDay, checkOutDate);
+            if (to <= from) {
+                return BigDecimal.ZERO.setScale(2);
+            }
+            long baseCents = toCents(room.getPricePerNight());
+            int nightsFrom = (int) Math.min(days, Math.max(0, from));
+            int nightsTo = (int) Math.min(days, Math.max(0, to));
+            // Nights outside the calendar cost the room's own price
+            long total = (to - from - (nightsTo - nightsFrom)) * baseCents;
+            if (nightsFrom < nightsTo) {
+                if (nightsFrom < windowFrom || nightsTo > windowTo) {
+                    throw new IllegalArgumentException("The stay is outside the period of the snapshot");
+                }
+                Totals totals = overrides.get(room.getRoomNumber());
+                if (totals == null) {
+                    totals = types.get(room.getType());
+                }
+                if (totals == null) {
+                    throw new IllegalArgumentException("Room " + room.getRoomNumber() + " is not in the snapshot");
+                }
+                total += totals.total(nightsFrom - windowFrom, nightsTo - windowFrom, baseCents);
+            }
+            return BigDecimal.valueOf(total, 2);
+        }
+    }
+
+    /**
+     * The overrides of a single room, and the rates that result from them and its room type.
+     */
+    private static final class RoomRates {
+        RoomType type;
+        final long[] overrides;
+        final DailyRates effective;
+
+        RoomRates(RoomType type, DailyRates typeRates) {
+            int days = typeRates.cents.length;
+            this.type = type;
+            this.overrides = new long[days];
+            Arrays.fill(overrides, DailyRates.UNSET);
+            this.effective = new DailyRates(days);
+            merge(typeRates, 0, days);
+        }
+
+        // Recompute the rates of the nights [from, to) after the overrides or the type rates changed
+        void merge(DailyRates typeRates, int from, int to) {
+            for (int day = from; day < to; day++) {
+                effective.cents[day] = overrides[day] != DailyRates.UNSET ? overrides[day] : typeRates.cents[day];
+            }
+            effective.rebuild(from);
+        }
+    }
+}
@@ -0,0 +1,349 @@
+package service;
+
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomType;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.ref.SoftReference;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.IntFunction;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/**
+ * Cold storage for reservations that are finished with: an append-only list of immutable
+ * segments, each holding up to {@value #SEGMENT_SIZE} reservations in a compact deflated
+ * encoding. Guests and rooms are stored by ID and looked up again when a segment is read.
+ *
+ * Every segment keeps its ID and date range and which statuses it holds, so most queries
+ * skip most segments without reading them. A segment is only decompressed when a query
+ * needs it, and the decoded reservations are kept softly so the garbage collector can drop
+ * them again under memory pressure.
+ *
+ * Segments are never rewritten. A reservation that is changed again is taken back into the
+ * hot map, which then hides its archived copy; if it is archived a second time, only the
+ * newest copy counts.
+ */
+public class ReservationArchive {
+    static final int SEGMENT_SIZE = 65_536;
+
+    private final IntFunction<Guest> guestLookup;
+    private final IntFunction<Room> roomLookup;
+    private final List<Segment> segments;
+    // For reservations that left the archive: the segment holding their current copy, or -1 while none does
+    private final Map<Integer, Integer> currentSegment;
+
+    ReservationArchive(IntFunction<Guest> guestLookup, IntFunction<Room> roomLookup) {
+        this.guestLookup = guestLookup;
+        this.roomLookup = roomLookup;
+        this.segments = new CopyOnWriteArrayList<>();
+        this.currentSegment = new ConcurrentHashMap<>();
+    }
+
+    // Get the number of archived reservations, including copies hidden by newer ones
+    public long size() {
+        long size = 0;
+        for (Segment segment : segments) {
+            size += segment.count;
+        }
+        return size;
+    }
+
+    // Get the number of segments
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    // Get the number of segments whose reservations are currently decoded in memory
+    public int getLoadedSegmentCount() {
+        int loaded = 0;
+        for (Segment segment : segments) {
+            if (segment.isLoaded()) {
+                loaded++;
+            }
+        }
+        return loaded;
+    }
+
+    // Get the total size of the compressed segments in bytes
+    public long getCompressedBytes() {
+        long bytes = 0;
+        for (Segment segment : segments) {
+            bytes += segment.payload.length;
+        }
+        return bytes;
+    }
+
+    /**
+     * Append reservations to the archive, in new segments.
+     * The caller must still remove them from the hot map afterwards.
+     */
+    synchronized void append(List<Reservation> reservations) {
+        List<Reservation> sorted = new ArrayList<>(reservations);
+        sorted.sort(Comparator.comparingInt(Reservation::getId));
+        for (int from = 0; from < sorted.size(); from += SEGMENT_SIZE) {
+            List<Reservation> batch = sorted.subList(from, Math.min(sorted.size(), from + SEGMENT_SIZE));
+            int index = segments.size();
+            segments.add(new Segment(batch));
+            for (Reservation reservation : batch) {
+                currentSegment.replace(reservation.getId(), index);
+            }
+        }
+    }
+
+    // Hide the archived copy of a reservation, because the hot map holds a newer one
+    void supersede(int reservationId) {
+        for (Segment segment : segments) {
+            if (segment.mayContainId(reservationId)) {
+                currentSegment.put(reservationId, -1);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Find the current archived copy of a reservation.
+     *
+     * @return the reservation, or null if it is not in the archive or a newer copy exists
+     */
+    Reservation findById(int reservationId) {
+        Integer current = currentSegment.get(reservationId);
+        if (current != null) {
+            return current < 0 ? null : find(segments.get(current), reservationId);
+        }
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            Segment segment = segments.get(i);
+            if (segment.mayContainId(reservationId)) {
+                Reservation reservation = find(segment, reservationId);
+                if (reservation != null) {
+                    return reservation;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Find the current archived reservations that match a filter.
+     *
+     * @param segmentFilter skips segments that cannot hold a match, without reading them
+     * @param hidden reservation IDs whose archived copy is hidden, e.g. because they are in the hot map
+     * @param filter the reservations to return
+     */
+    List<Reservation> find(Predicate<Segment> segmentFilter, IntPredicate hidden, Predicate<Reservation> filter) {
+        List<Reservation> result = new ArrayList<>();
+        List<Segment> snapshot = new ArrayList<>(segments);
+        for (int i = 0; i < snapshot.size(); i++) {
+            Segment segment = snapshot.get(i);
+            if (!segmentFilter.test(segment)) {
+                continue;
+            }
+            for (Reservation reservation : segment.load(guestLookup, roomLookup)) {
+                if (isCurrent(reservation.getId(), i) && !hidden.test(reservation.getId()) && filter.test(reservation)) {
+                    result.add(reservation);
+                }
+            }
+        }
+        return result;
+    }
+
+    private Reservation find(Segment segment, int reservationId) {
+        List<Reservation> reservations = segment.load(guestLookup, roomLookup);
+        // Reservations are sorted by ID within a segment
+        int low = 0;
+        int high = reservations.size() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int id = reservations.get(middle).getId();
+            if (id < reservationId) {
+                low = middle + 1;
+            } else if (id > reservationId) {
+                high = middle - 1;
+            } else {
+                return reservations.get(middle);
+            }
+        }
+        return null;
+    }
+
+    private boolean isCurrent(int reservationId, int segmentIndex) {
+        Integer current = currentSegment.get(reservationId);
+        return current == null || current == segmentIndex;
+    }
+
+    /**
+     * An immutable block of archived reservations with a summary of what it holds.
+     */
+    static final class Segment {
+        private final int count;
+        private final int minId;
+        private final int maxId;
+        private final long firstCheckIn;
+        private final long lastCheckOut;
+        private final int statuses;
+        private final byte[] payload;
+        private volatile SoftReference<List<Reservation>> loaded;
+
+        private Segment(List<Reservation> reservations) {
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            long first = Long.MAX_VALUE;
+            long last = Long.MIN_VALUE;
+            int statusMask = 0;
+            for (Reservation reservation : reservations) {
+                min = Math.min(min, reservation.getId());
+                max = Math.max(max, reservation.getId());
+                first = Math.min(first, reservation.getCheckInDate().toEpochDay());
+                last = Math.max(last, reservation.getCheckOutDate().toEpochDay());
+                statusMask |= 1 << reservation.getStatus().ordinal();
+            }
+            this.count = reservations.size();
+            this.minId = min;
+            this.maxId = max;
+            this.firstCheckIn = first;
+            this.lastCheckOut = last;
+            this.statuses = statusMask;
+            this.payload = encode(reservations);
+            this.loaded = new SoftReference<>(null);
+        }
+
+        // Check whether the segment may hold the reservation with the given ID
+        boolean mayContainId(int reservationId) {
+            return reservationId >= minId && reservationId <= maxId;
+        }
+
+        // Check whether the segment may hold a reservation overlapping the dates, as in Reservation.overlaps
+        boolean mayOverlap(LocalDate startDate, LocalDate endDate) {
+            return lastCheckOut >= startDate.toEpochDay() && firstCheckIn <= endDate.toEpochDay();
+        }
+
+        // Check whether the segment holds any reservation with the given status
+        boolean mayContainStatus(ReservationStatus status) {
+            return (statuses & (1 << status.ordinal())) != 0;
+        }
+
+        boolean isLoaded() {
+            return loaded.get() != null;
+        }
+
+        // Get the reservations of this segment, decoding them if they are not in memory
+        List<Reservation> load(IntFunction<Guest> guestLookup, IntFunction<Room> roomLookup) {
+            List<Reservation> reservations = loaded.get();
+            if (reservations == null) {
+                reservations = decode(payload, count, guestLookup, roomLookup);
+                loaded = new SoftReference<>(reservations);
+            }
+            return reservations;
+        }
+
+        private static byte[] encode(List<Reservation> reservations) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+            try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(bytes, deflater))) {
+                for (Reservation reservation : reservations) {
+                    out.writeInt(reservation.getId());
+                    out.writeInt(reservation.getGuest().getId());
+                    out.writeInt(reservation.getRoom().getRoomNumber());
+                    out.writeByte(reservation.getRoom().getType().ordinal());
+                    out.writeInt((int) reservation.getCheckInDate().toEpochDay());
+                    out.writeInt((int) reservation.getNights());
+                    out.writeByte(reservation.getStatus().ordinal());
+                    out.writeBoolean(reservation.isRoomFlexible());
+                    writeString(out, reservation.getTotalPrice() == null ? "" : reservation.getTotalPrice().toPlainString());
+                    writeString(out, reservation.getNotes() == null ? "" : reservation.getNotes());
+                    writeTime(out, reservation.getCreatedAt());
+                    writeTime(out, reservation.getModifiedAt());
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                deflater.end();
+            }
+            return bytes.toByteArray();
+        }
+
+        private static List<Reservation> decode(byte[] payload, int count, IntFunction<Guest> guestLookup,
+                                                IntFunction<Room> roomLookup) {
+            List<Reservation> reservations = new ArrayList<>(count);
+            try (DataInputStream in = new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(payload)))) {
+                RoomType[] types = RoomType.values();
+                ReservationStatus[] statuses = ReservationStatus.values();
+                for (int i = 0; i < count; i++) {
+                    int id = in.readInt();
+                    int guestId = in.readInt();
+                    int roomNumber = in.readInt();
+                    RoomType type = types[in.readByte()];
+                    LocalDate checkIn = LocalDate.ofEpochDay(in.readInt());
+                    LocalDate checkOut = checkIn.plusDays(in.readInt());
+                    ReservationStatus status = statuses[in.readByte()];
+                    boolean roomFlexible = in.readBoolean();
+                    String price = readString(in);
+                    String notes = readString(in);
+                    LocalDateTime createdAt = readTime(in);
+                    LocalDateTime modifiedAt = readTime(in);
+
+                    // Guests and rooms deleted since are replaced by placeholders with the same ID
+                    Guest guest = guestLookup.apply(guestId);
+                    if (guest == null) {
+                        guest = new Guest(guestId, "", "", "", "", "", "");
+                    }
+                    Room room = roomLookup.apply(roomNumber);
+                    if (room == null) {
+                        room = new Room(roomNumber, 0, type, BigDecimal.ZERO);
+                    }
+                    Reservation reservation = new Reservation(id, guest, room, checkIn, checkOut, status,
+                            price.isEmpty() ? null : new BigDecimal(price), notes, createdAt, modifiedAt);
+                    reservation.setRoomFlexible(roomFlexible);
+                    reservations.add(reservation);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return reservations;
+        }
+
+        // Strings are stored as their UTF-8 length and bytes, as writeUTF cannot take notes over 64 KB
+        private static void writeString(DataOutputStream out, String value) throws IOException {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.writeInt(bytes.length);
+            out.write(bytes);
+        }
+
+        private static String readString(DataInputStream in) throws IOException {
+            byte[] bytes = new byte[in.readInt()];
+            in.readFully(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        // Times are stored as seconds since the epoch, with Long.MIN_VALUE when not recorded
+        private static void writeTime(DataOutputStream out, LocalDateTime time) throws IOException {
+            out.writeLong(time == null ? Long.MIN_VALUE : time.toEpochSecond(ZoneOffset.UTC));
+        }
+
+        private static LocalDateTime readTime(DataInputStream in) throws IOException {
+            long seconds = in.readLong();
+            return seconds == Long.MIN_VALUE ? null : LocalDateTime.ofEpochSecond(seconds, 0, ZoneOffset.UTC);
+        }
+    }
+}
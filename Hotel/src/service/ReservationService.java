@@ -1,28 +1,108 @@
 package service;
 
+import event.DomainEvent;
+import event.EventBus;
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import model.*;
+import profiling.AvailabilityCheckEvent;
+import profiling.AvailableRoomsEvent;
+import profiling.BookingEvent;
 
+import java.time.Duration;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * Service class for managing reservations.
+ * Current reservations are kept in memory; cancelled and long checked-out ones are moved to a
+ * {@link ReservationArchive} by {@link #archiveHistoric}. Queries return both, and changing an
+ * archived reservation brings it back.
+ *
+ * Reservations booked by room type with {@link #createReservationByType} may be moved to another
+ * room of the type until check-in; {@link #reassignRooms} moves them so that the free nights are
+ * left in fewer, longer runs that can still be sold.
  */
 public class ReservationService {
+    // Notes of a reservation made on a room that was already taken
+    public static final String OVERBOOKED_NOTE = "Overbooked";
+    // Days around a stay booked by room type within which other stays may be moved to make room for it
+    public static final int ROOM_ASSIGNMENT_MARGIN_DAYS = 14;
+
     private static ReservationService instance;
     private final Map<Integer, Reservation> reservations;
-    private int nextId;
+    private final ReservationArchive archive;
+    private final RoomInventory inventory;
+    private final AvailabilityCache availabilityCache;
+    private final RateCalendar rateCalendar;
+    private final AtomicInteger nextId;
+    private ScheduledExecutorService archiver;
+    private ScheduledFuture<?> archiveTask;
     
     private final RoomService roomService;
+    private final EventBus eventBus;
+    private final StateWriter writer;
+
+    // Latency of every public method, and reservations refused because the room was taken
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final Counter bookingConflicts = metrics.counter("ReservationService.bookingConflicts");
+    private final LatencyHistogram createReservationLatency = metrics.histogram("ReservationService.createReservation");
+    private final LatencyHistogram createOverbookedReservationLatency = metrics.histogram("ReservationService.createOverbookedReservation");
+    private final LatencyHistogram createReservationByTypeLatency = metrics.histogram("ReservationService.createReservationByType");
+    private final LatencyHistogram reassignRoomsLatency = metrics.histogram("ReservationService.reassignRooms");
+    private final LatencyHistogram getBookableNightsLatency = metrics.histogram("ReservationService.getBookableNights");
+    private final Counter roomMoves = metrics.counter("ReservationService.roomMoves");
+    private final LatencyHistogram importReservationLatency = metrics.histogram("ReservationService.importReservation");
+    private final LatencyHistogram updateReservationLatency = metrics.histogram("ReservationService.updateReservation");
+    private final LatencyHistogram cancelReservationLatency = metrics.histogram("ReservationService.cancelReservation");
+    private final LatencyHistogram cancelIfConfirmedLatency = metrics.histogram("ReservationService.cancelIfConfirmed");
+    private final LatencyHistogram checkInLatency = metrics.histogram("ReservationService.checkIn");
+    private final LatencyHistogram checkOutLatency = metrics.histogram("ReservationService.checkOut");
+    private final LatencyHistogram getReservationByIdLatency = metrics.histogram("ReservationService.getReservationById");
+    private final LatencyHistogram getAllReservationsLatency = metrics.histogram("ReservationService.getAllReservations");
+    private final LatencyHistogram getReservationsByGuestLatency = metrics.histogram("ReservationService.getReservationsByGuest");
+    private final LatencyHistogram getReservationsByGuestIdsLatency = metrics.histogram("ReservationService.getReservationsByGuestIds");
+    private final LatencyHistogram getReservationsByRoomLatency = metrics.histogram("ReservationService.getReservationsByRoom");
+    private final LatencyHistogram getReservationsByStatusLatency = metrics.histogram("ReservationService.getReservationsByStatus");
+    private final LatencyHistogram getReservationsForDateRangeLatency = metrics.histogram("ReservationService.getReservationsForDateRange");
+    private final LatencyHistogram isRoomAvailableLatency = metrics.histogram("ReservationService.isRoomAvailable");
+    private final LatencyHistogram getAvailableRoomsForDatesLatency = metrics.histogram("ReservationService.getAvailableRoomsForDates");
+    private final LatencyHistogram getAvailableRoomsByTypeForDatesLatency = metrics.histogram("ReservationService.getAvailableRoomsByTypeForDates");
+    private final LatencyHistogram findFlexibleStaysLatency = metrics.histogram("ReservationService.findFlexibleStays");
+    private final LatencyHistogram archiveHistoricLatency = metrics.histogram("ReservationService.archiveHistoric");
     
     private ReservationService() {
-        reservations = new HashMap<>();
-        nextId = 1;
-        roomService = RoomService.getInstance();
+        this(StateWriter.getInstance(), EventBus.getInstance(), RoomService.getInstance(), RoomInventory.getInstance(),
+                AvailabilityCache.getInstance(), RateCalendar.getInstance());
+    }
+    
+    // Create a service with no reservations over the rooms and state of a property; guests are shared by all
+    ReservationService(StateWriter writer, EventBus eventBus, RoomService roomService, RoomInventory inventory,
+                       AvailabilityCache availabilityCache, RateCalendar rateCalendar) {
+        reservations = new ConcurrentHashMap<>();
+        archive = new ReservationArchive(guestId -> GuestService.getInstance().getGuestById(guestId),
+                roomService::getRoomByNumber);
+        nextId = new AtomicInteger(1);
+        this.writer = writer;
+        this.eventBus = eventBus;
+        this.roomService = roomService;
+        this.inventory = inventory;
+        this.availabilityCache = availabilityCache;
+        this.rateCalendar = rateCalendar;
     }
     
     public static synchronized ReservationService getInstance() {
@@ -34,131 +114,593 @@ public class ReservationService {
     
     // Create a reservation
     public Reservation createReservation(Guest guest, Room room, LocalDate checkInDate, LocalDate checkOutDate) {
-        // Check if the room is available for the given dates
-        if (!isRoomAvailable(room.getRoomNumber(), checkInDate, checkOutDate)) {
-            return null;
+        long start = System.nanoTime();
+        try {
+            return book(guest, room, checkInDate, checkOutDate, false);
+        } finally {
+            createReservationLatency.recordSince(start);
         }
-        
-        Reservation reservation = new Reservation(guest, room, checkInDate, checkOutDate);
-        reservation.setId(nextId++);
+    }
+    
+    /**
+     * Create a reservation on a room even if it is taken on some of its nights, as when a room
+     * type is overbooked. The guest is given another room, or walked, on arrival.
+     */
+    public Reservation createOverbookedReservation(Guest guest, Room room, LocalDate checkInDate, LocalDate checkOutDate) {
+        long start = System.nanoTime();
+        try {
+            return book(guest, room, checkInDate, checkOutDate, true);
+        } finally {
+            createOverbookedReservationLatency.recordSince(start);
+        }
+    }
+    
+    private Reservation book(Guest guest, Room room, LocalDate checkInDate, LocalDate checkOutDate, boolean overbook) {
+        BookingEvent event = new BookingEvent();
+        event.begin();
+        Reservation created = null;
+        try {
+            created = writer.write(() -> {
+                // Check if the room is available for the given dates
+                if (!overbook && !isRoomAvailable(room.getRoomNumber(), checkInDate, checkOutDate)) {
+                    bookingConflicts.increment();
+                    return null;
+                }
+                Reservation reservation = new Reservation(guest, room, checkInDate, checkOutDate);
+                if (overbook) {
+                    reservation.setNotes(OVERBOOKED_NOTE);
+                }
+                return add(reservation);
+            });
+            return created;
+        } finally {
+            event.finish(room.getRoomNumber(), guest.getId(), checkInDate, checkOutDate, reservations.size(),
+                    created == null ? 0 : created.getId());
+        }
+    }
+    
+    /**
+     * Create a reservation for a room type rather than a room. The guest is given the room that
+     * leaves the fewest free nights stranded around the stay; if no room is free for the whole
+     * stay, other reservations booked by type nearby are moved to make one free.
+     * The reservation may itself be moved to another room of the type until check-in.
+     *
+     * @return the reservation, or null if the stays cannot be fitted in the rooms of the type
+     */
+    public Reservation createReservationByType(Guest guest, RoomType type, LocalDate checkInDate, LocalDate checkOutDate) {
+        long start = System.nanoTime();
+        BookingEvent event = new BookingEvent();
+        event.begin();
+        Reservation created = null;
+        try {
+            if (!checkInDate.isBefore(checkOutDate)) {
+                throw new IllegalArgumentException("Check-in date must be before check-out date");
+            }
+            created = writer.write(() -> {
+                LocalDate from = checkInDate.minusDays(ROOM_ASSIGNMENT_MARGIN_DAYS);
+                LocalDate to = checkOutDate.plusDays(ROOM_ASSIGNMENT_MARGIN_DAYS);
+                List<Room> rooms = sellableRooms(type);
+                List<Reservation> bookings = bookingsOfType(type, from, to);
+                Room room = RoomAssignment.bestFit(rooms, bookings, from, to, checkInDate, checkOutDate);
+                if (room == null) {
+                    RoomAssignment.Plan plan = RoomAssignment.repack(rooms, bookings, movable(LocalDate.now()),
+                            from, to, checkInDate, checkOutDate);
+                    if (plan == null) {
+                        bookingConflicts.increment();
+                        return null;
+                    }
+                    move(plan.moves());
+                    room = plan.room();
+                }
+                Reservation reservation = new Reservation(guest, room, checkInDate, checkOutDate);
+                reservation.setRoomFlexible(true);
+                return add(reservation);
+            });
+            return created;
+        } finally {
+            event.finish(created == null ? 0 : created.getRoom().getRoomNumber(), guest.getId(), checkInDate,
+                    checkOutDate, reservations.size(), created == null ? 0 : created.getId());
+            createReservationByTypeLatency.recordSince(start);
+        }
+    }
+    
+    /**
+     * Move the reservations booked by room type that start within a period, and have not started
+     * yet, one at a time to other rooms of the type where that leaves the free nights in fewer,
+     * longer runs. Reservations reaching beyond the period keep their rooms.
+     *
+     * @return the number of reservations moved
+     */
+    public int reassignRooms(RoomType type, LocalDate from, LocalDate to) {
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                RoomAssignment.Plan plan = RoomAssignment.improve(sellableRooms(type), bookingsOfType(type, from, to),
+                        movable(LocalDate.now()), from, to);
+                move(plan.moves());
+                return plan.moves().size();
+            });
+        } finally {
+            reassignRoomsLatency.recordSince(start);
+        }
+    }
+    
+    /**
+     * Count the free room-nights of a type within a period that could still be sold to a stay
+     * of a given number of nights, i.e. that lie in a run of free days long enough for it.
+     */
+    public int getBookableNights(RoomType type, LocalDate from, LocalDate to, int nights) {
+        long start = System.nanoTime();
+        try {
+            return RoomAssignment.bookableNights(sellableRooms(type), bookingsOfType(type, from, to), from, to, nights);
+        } finally {
+            getBookableNightsLatency.recordSince(start);
+        }
+    }
+    
+    // Give a new reservation its ID and price, and add it
+    private Reservation add(Reservation reservation) {
+        reservation.setId(nextId.getAndIncrement());
+        reservation.setTotalPrice(rateCalendar.quote(reservation.getRoom(), reservation.getCheckInDate(),
+                reservation.getCheckOutDate()));
         reservations.put(reservation.getId(), reservation);
+        inventory.updateReservation(reservation);
+        availabilityCache.invalidate(reservation.getRoom().getType(), reservation.getCheckInDate(),
+                reservation.getCheckOutDate());
+        eventBus.publish(new DomainEvent.ReservationCreated(reservation));
         return reservation;
     }
     
+    // Get the rooms of a type that can be let, i.e. that are not under maintenance
+    private List<Room> sellableRooms(RoomType type) {
+        List<Room> rooms = roomService.getRoomsByType(type);
+        rooms.removeIf(room -> room.getStatus() == RoomStatus.MAINTENANCE);
+        return rooms;
+    }
+    
+    // Get the reservations of a room type overlapping a period, leaving out cancelled ones
+    private List<Reservation> bookingsOfType(RoomType type, LocalDate from, LocalDate to) {
+        List<Reservation> bookings = getReservationsForDateRange(from, to);
+        bookings.removeIf(reservation -> reservation.getRoom().getType() != type
+                || reservation.getStatus() == ReservationStatus.CANCELLED);
+        return bookings;
+    }
+    
+    // Reservations booked by room type that have not started may be moved to another room
+    private static Predicate<Reservation> movable(LocalDate today) {
+        return reservation -> reservation.isRoomFlexible() && reservation.getStatus() == ReservationStatus.CONFIRMED
+                && reservation.getCheckInDate().isAfter(today);
+    }
+    
+    // Move reservations to other rooms of their type, keeping their prices
+    private void move(Map<Reservation, Room> moves) {
+        for (Map.Entry<Reservation, Room> move : moves.entrySet()) {
+            Reservation previous = move.getKey();
+            Reservation moved = new Reservation(previous.getId(), previous.getGuest(), move.getValue(),
+                    previous.getCheckInDate(), previous.getCheckOutDate(), previous.getStatus(),
+                    previous.getTotalPrice(), previous.getNotes(), previous.getCreatedAt(), previous.getModifiedAt());
+            moved.setRoomFlexible(true);
+            updateReservation(moved);
+            roomMoves.increment();
+        }
+    }
+    
+    /**
+     * Add an existing reservation, keeping its ID and status and skipping the availability check.
+     * Used for bulk loading; no event is published, so open panels must reload afterwards.
+     */
+    public Reservation importReservation(Reservation reservation) {
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                reservations.put(reservation.getId(), reservation);
+                archive.supersede(reservation.getId());
+                inventory.updateReservation(reservation);
+                availabilityCache.invalidate(reservation.getRoom().getType(), reservation.getCheckInDate(),
+                        reservation.getCheckOutDate());
+                nextId.accumulateAndGet(reservation.getId() + 1, Math::max);
+                return reservation;
+            });
+        } finally {
+            importReservationLatency.recordSince(start);
+        }
+    }
+    
     // Update a reservation
     public Reservation updateReservation(Reservation reservation) {
-        if (reservations.containsKey(reservation.getId())) {
-            reservations.put(reservation.getId(), reservation);
-            return reservation;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Reservation previous = findForUpdate(reservation.getId());
+                if (previous != null) {
+                    if (reservation.getCreatedAt() == null) {
+                        reservation.setCreatedAt(previous.getCreatedAt());
+                    }
+                    reservation.setModifiedAt(LocalDateTime.now());
+                    reservations.put(reservation.getId(), reservation);
+                    inventory.updateReservation(reservation);
+                    if (previous == reservation) {
+                        // Changed in place, so the previous room and dates are unknown
+                        availabilityCache.clear();
+                    } else {
+                        availabilityCache.invalidate(previous.getRoom().getType(), previous.getCheckInDate(),
+                                previous.getCheckOutDate());
+                        availabilityCache.invalidate(reservation.getRoom().getType(), reservation.getCheckInDate(),
+                                reservation.getCheckOutDate());
+                    }
+                    eventBus.publish(new DomainEvent.ReservationUpdated(reservation, previous));
+                    return reservation;
+                }
+                return null;
+            });
+        } finally {
+            updateReservationLatency.recordSince(start);
         }
-        return null;
     }
     
     // Cancel a reservation
     public boolean cancelReservation(int reservationId) {
-        Reservation reservation = getReservationById(reservationId);
-        if (reservation != null) {
-            reservation.setStatus(ReservationStatus.CANCELLED);
-            return true;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Reservation reservation = findForUpdate(reservationId);
+                if (reservation != null) {
+                    changeStatus(reservation, ReservationStatus.CANCELLED);
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            cancelReservationLatency.recordSince(start);
+        }
+    }
+    
+    // Cancel a reservation only if it is still confirmed, checking and cancelling as one change
+    public boolean cancelIfConfirmed(int reservationId) {
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Reservation reservation = findForUpdate(reservationId);
+                if (reservation != null && reservation.getStatus() == ReservationStatus.CONFIRMED) {
+                    changeStatus(reservation, ReservationStatus.CANCELLED);
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            cancelIfConfirmedLatency.recordSince(start);
         }
-        return false;
     }
     
     // Check-in a reservation
     public boolean checkIn(int reservationId) {
-        Reservation reservation = getReservationById(reservationId);
-        if (reservation != null && reservation.getStatus() == ReservationStatus.CONFIRMED) {
-            reservation.setStatus(ReservationStatus.CHECKED_IN);
-            roomService.changeRoomStatus(reservation.getRoom().getRoomNumber(), RoomStatus.OCCUPIED);
-            return true;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Reservation reservation = findForUpdate(reservationId);
+                if (reservation != null && reservation.getStatus() == ReservationStatus.CONFIRMED) {
+                    changeStatus(reservation, ReservationStatus.CHECKED_IN);
+                    roomService.changeRoomStatus(reservation.getRoom().getRoomNumber(), RoomStatus.OCCUPIED);
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            checkInLatency.recordSince(start);
         }
-        return false;
     }
     
     // Check-out a reservation
     public boolean checkOut(int reservationId) {
-        Reservation reservation = getReservationById(reservationId);
-        if (reservation != null && reservation.getStatus() == ReservationStatus.CHECKED_IN) {
-            reservation.setStatus(ReservationStatus.CHECKED_OUT);
-            roomService.changeRoomStatus(reservation.getRoom().getRoomNumber(), RoomStatus.CLEANING);
-            return true;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Reservation reservation = findForUpdate(reservationId);
+                if (reservation != null && reservation.getStatus() == ReservationStatus.CHECKED_IN) {
+                    changeStatus(reservation, ReservationStatus.CHECKED_OUT);
+                    roomService.changeRoomStatus(reservation.getRoom().getRoomNumber(), RoomStatus.CLEANING);
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            checkOutLatency.recordSince(start);
+        }
+    }
+    
+    // Change the status of a reservation and publish the change
+    private void changeStatus(Reservation reservation, ReservationStatus status) {
+        ReservationStatus oldStatus = reservation.getStatus();
+        reservation.setStatus(status);
+        reservation.setModifiedAt(LocalDateTime.now());
+        inventory.updateReservation(reservation);
+        if ((oldStatus == ReservationStatus.CANCELLED) != (status == ReservationStatus.CANCELLED)) {
+            availabilityCache.invalidate(reservation.getRoom().getType(), reservation.getCheckInDate(),
+                    reservation.getCheckOutDate());
         }
-        return false;
+        eventBus.publish(new DomainEvent.ReservationStatusChanged(reservation, oldStatus));
+    }
+    
+    // Find a reservation that is about to change, bringing it back from the archive if needed
+    private Reservation findForUpdate(int reservationId) {
+        Reservation reservation = reservations.get(reservationId);
+        if (reservation == null) {
+            Reservation archived = archive.findById(reservationId);
+            if (archived == null) {
+                return null;
+            }
+            reservation = reservations.computeIfAbsent(reservationId, id -> {
+                archive.supersede(id);
+                inventory.rememberReservation(archived);
+                return archived;
+            });
+        }
+        return reservation;
     }
     
     // Get a reservation by ID
     public Reservation getReservationById(int reservationId) {
-        return reservations.get(reservationId);
+        long start = System.nanoTime();
+        try {
+            Reservation reservation = reservations.get(reservationId);
+            return reservation != null ? reservation : archive.findById(reservationId);
+        } finally {
+            getReservationByIdLatency.recordSince(start);
+        }
     }
     
     // Get all reservations
     public List<Reservation> getAllReservations() {
-        return new ArrayList<>(reservations.values());
+        long start = System.nanoTime();
+        try {
+            return find(segment -> true, reservation -> true);
+        } finally {
+            getAllReservationsLatency.recordSince(start);
+        }
     }
     
     // Get reservations by guest
     public List<Reservation> getReservationsByGuest(Guest guest) {
-        return reservations.values().stream()
-                .filter(reservation -> reservation.getGuest().getId() == guest.getId())
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return find(segment -> true, reservation -> reservation.getGuest().getId() == guest.getId());
+        } finally {
+            getReservationsByGuestLatency.recordSince(start);
+        }
+    }
+    
+    // Get reservations of any of the given guests
+    public List<Reservation> getReservationsByGuestIds(Set<Integer> guestIds) {
+        long start = System.nanoTime();
+        try {
+            return find(segment -> true, reservation -> guestIds.contains(reservation.getGuest().getId()));
+        } finally {
+            getReservationsByGuestIdsLatency.recordSince(start);
+        }
     }
     
     // Get reservations by room
     public List<Reservation> getReservationsByRoom(Room room) {
-        return reservations.values().stream()
-                .filter(reservation -> reservation.getRoom().getRoomNumber() == room.getRoomNumber())
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return find(segment -> true, reservation -> reservation.getRoom().getRoomNumber() == room.getRoomNumber());
+        } finally {
+            getReservationsByRoomLatency.recordSince(start);
+        }
     }
     
     // Get reservations by status
     public List<Reservation> getReservationsByStatus(ReservationStatus status) {
-        return reservations.values().stream()
-                .filter(reservation -> reservation.getStatus() == status)
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return find(segment -> segment.mayContainStatus(status), reservation -> reservation.getStatus() == status);
+        } finally {
+            getReservationsByStatusLatency.recordSince(start);
+        }
     }
     
     // Get reservations for a date range
     public List<Reservation> getReservationsForDateRange(LocalDate startDate, LocalDate endDate) {
-        return reservations.values().stream()
-                .filter(reservation -> reservation.overlaps(startDate, endDate))
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return find(segment -> segment.mayOverlap(startDate, endDate),
+                    reservation -> reservation.overlaps(startDate, endDate));
+        } finally {
+            getReservationsForDateRangeLatency.recordSince(start);
+        }
+    }
+    
+    // Find the reservations matching a filter, in memory and in the archive segments the segment filter lets through
+    private List<Reservation> find(Predicate<ReservationArchive.Segment> segmentFilter, Predicate<Reservation> filter) {
+        List<Reservation> result = reservations.values().stream()
+                .filter(filter)
+                .collect(Collectors.toCollection(ArrayList::new));
+        if (archive.getSegmentCount() > 0) {
+            result.addAll(archive.find(segmentFilter, reservations::containsKey, filter));
+        }
+        return result;
+    }
+    
+    /**
+     * Move finished reservations to the archive: all cancelled ones, and checked-out ones that
+     * left more than retentionDays before today.
+     *
+     * @return the number of reservations archived
+     */
+    public synchronized int archiveHistoric(LocalDate today, int retentionDays) {
+        long start = System.nanoTime();
+        try {
+            LocalDate checkedOutBefore = today.minusDays(retentionDays);
+            List<Reservation> finished = new ArrayList<>();
+            List<ReservationStatus> archivedStatuses = new ArrayList<>();
+            for (Reservation reservation : reservations.values()) {
+                ReservationStatus status = reservation.getStatus();
+                if (status == ReservationStatus.CANCELLED
+                        || (status == ReservationStatus.CHECKED_OUT && reservation.getCheckOutDate().isBefore(checkedOutBefore))) {
+                    finished.add(reservation);
+                    archivedStatuses.add(status);
+                }
+            }
+            if (finished.isEmpty()) {
+                return 0;
+            }
+        
+            // Segments are written before the reservations leave the map, so queries always find them
+            archive.append(finished);
+            for (int i = 0; i < finished.size(); i++) {
+                Reservation reservation = finished.get(i);
+                boolean removed = reservations.remove(reservation.getId(), reservation);
+                if (removed) {
+                    inventory.forgetReservation(reservation.getId());
+                }
+                if (!removed || reservation.getStatus() != archivedStatuses.get(i)) {
+                    // Changed while it was being archived: the copy in memory is the current one
+                    if (removed) {
+                        reservations.putIfAbsent(reservation.getId(), reservation);
+                        inventory.rememberReservation(reservation);
+                    }
+                    archive.supersede(reservation.getId());
+                }
+            }
+            return finished.size();
+        } finally {
+            archiveHistoricLatency.recordSince(start);
+        }
+    }
+    
+    // Archive finished reservations periodically, on a background thread
+    public synchronized void startArchiving(int retentionDays, Duration period) {
+        stopArchiving();
+        if (archiver == null) {
+            archiver = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "reservation-archiver");
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        archiveTask = archiver.scheduleWithFixedDelay(() -> archiveHistoric(LocalDate.now(), retentionDays),
+                0, period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+    
+    // Stop archiving periodically, if it was started
+    public synchronized void stopArchiving() {
+        if (archiveTask != null) {
+            archiveTask.cancel(false);
+            archiveTask = null;
+        }
+    }
+    
+    // Get the archive of finished reservations
+    public ReservationArchive getArchive() {
+        return archive;
+    }
+    
+    // Get the number of reservations held in memory, outside the archive
+    public int getActiveReservationCount() {
+        return reservations.size();
     }
     
     // Check if a room is available for the given dates
     public boolean isRoomAvailable(int roomNumber, LocalDate checkInDate, LocalDate checkOutDate) {
-        Room room = roomService.getRoomByNumber(roomNumber);
-        if (room == null || room.getStatus() != RoomStatus.AVAILABLE) {
-            return false;
-        }
+        long start = System.nanoTime();
+        AvailabilityCheckEvent event = new AvailabilityCheckEvent();
+        event.begin();
+        boolean available = false;
+        int scanned = 0;
+        try {
+            Room room = roomService.getRoomByNumber(roomNumber);
+            if (room == null || room.getStatus() != RoomStatus.AVAILABLE) {
+                return false;
+            }
         
-        // Check if there are any overlapping reservations
-        List<Reservation> overlappingReservations = getReservationsForDateRange(checkInDate, checkOutDate);
-        return overlappingReservations.stream()
-                .noneMatch(reservation -> 
-                    reservation.getRoom().getRoomNumber() == roomNumber && 
-                    reservation.getStatus() != ReservationStatus.CANCELLED);
+            // Check if there are any overlapping reservations
+            List<Reservation> overlappingReservations = getReservationsForDateRange(checkInDate, checkOutDate);
+            scanned = overlappingReservations.size();
+            available = overlappingReservations.stream()
+                    .noneMatch(reservation -> 
+                        reservation.getRoom().getRoomNumber() == roomNumber && 
+                        reservation.getStatus() != ReservationStatus.CANCELLED);
+            return available;
+        } finally {
+            event.finish(roomNumber, checkInDate, checkOutDate, scanned, available);
+            isRoomAvailableLatency.recordSince(start);
+        }
     }
     
     // Get available rooms for the given dates
     public List<Room> getAvailableRoomsForDates(LocalDate checkInDate, LocalDate checkOutDate) {
-        List<Room> availableRooms = roomService.getAvailableRooms();
-        List<Reservation> overlappingReservations = getReservationsForDateRange(checkInDate, checkOutDate);
-        
-        // Remove rooms that have overlapping reservations
-        for (Reservation reservation : overlappingReservations) {
-            if (reservation.getStatus() != ReservationStatus.CANCELLED) {
-                availableRooms.removeIf(room -> room.getRoomNumber() == reservation.getRoom().getRoomNumber());
-            }
+        long start = System.nanoTime();
+        AvailableRoomsEvent event = new AvailableRoomsEvent();
+        event.begin();
+        int scanned = reservations.size();
+        int resultSize = 0;
+        try {
+            List<Room> availableRooms = availabilityCache.get(null, checkInDate, checkOutDate,
+                    () -> withoutBookedRooms(roomService.getAvailableRooms(), checkInDate, checkOutDate));
+            resultSize = availableRooms.size();
+            return availableRooms;
+        } finally {
+            event.finish(null, checkInDate, checkOutDate, scanned, resultSize);
+            getAvailableRoomsForDatesLatency.recordSince(start);
         }
-        
-        return availableRooms;
     }
     
     // Get available rooms by type for the given dates
     public List<Room> getAvailableRoomsByTypeForDates(RoomType type, LocalDate checkInDate, LocalDate checkOutDate) {
-        List<Room> availableRooms = getAvailableRoomsForDates(checkInDate, checkOutDate);
-        return availableRooms.stream()
-                .filter(room -> room.getType() == type)
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        AvailableRoomsEvent event = new AvailableRoomsEvent();
+        event.begin();
+        int scanned = reservations.size();
+        int resultSize = 0;
+        try {
+            List<Room> availableRooms = availabilityCache.get(type, checkInDate, checkOutDate,
+                    () -> withoutBookedRooms(roomService.getAvailableRoomsByType(type), checkInDate, checkOutDate));
+            resultSize = availableRooms.size();
+            return availableRooms;
+        } finally {
+            event.finish(type, checkInDate, checkOutDate, scanned, resultSize);
+            getAvailableRoomsByTypeForDatesLatency.recordSince(start);
+        }
+    }
+    
+    /**
+     * Find the cheapest stays of a given length within a period, e.g. "any 3 nights in March".
+     *
+     * @param earliestCheckIn the first day the stay may start
+     * @param latestCheckOut the last day the stay may end
+     * @param nights the length of the stay
+     * @param type the room type, or null for any type
+     * @param guests the number of guests, which the room type must hold
+     * @param limit the maximum number of stays to return
+     * @return at most one stay per check-in day, with its cheapest free room; cheapest first, then earliest
+     */
+    public List<StayOption> findFlexibleStays(LocalDate earliestCheckIn, LocalDate latestCheckOut, int nights,
+                                              RoomType type, int guests, int limit) {
+        long start = System.nanoTime();
+        try {
+            if (nights <= 0 || guests <= 0) {
+                throw new IllegalArgumentException("The number of nights and guests must be positive");
+            }
+            List<Room> rooms = (type == null ? roomService.getAvailableRooms() : roomService.getAvailableRoomsByType(type))
+                    .stream()
+                    .filter(room -> room.getType().getCapacity() >= guests)
+                    .collect(Collectors.toList());
+            return FlexibleStaySearch.search(rooms, getReservationsForDateRange(earliestCheckIn, latestCheckOut),
+                    rateCalendar, earliestCheckIn, latestCheckOut, nights, limit);
+        } finally {
+            findFlexibleStaysLatency.recordSince(start);
+        }
+    }
+    
+    // Remove the rooms with reservations overlapping the given dates
+    private List<Room> withoutBookedRooms(List<Room> rooms, LocalDate checkInDate, LocalDate checkOutDate) {
+        Set<Integer> bookedRooms = new HashSet<>();
+        for (Reservation reservation : getReservationsForDateRange(checkInDate, checkOutDate)) {
+            if (reservation.getStatus() != ReservationStatus.CANCELLED) {
+                bookedRooms.add(reservation.getRoom().getRoomNumber());
+            }
+        }
+        rooms.removeIf(room -> bookedRooms.contains(room.getRoomNumber()));
+        return rooms;
     }
 }
\ No newline at end of file
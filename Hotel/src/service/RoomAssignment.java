@@ -0,0 +1,342 @@
+package service;
+
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * Assigns the rooms of one type to the stays booked on them within a window of days, so that
+ * the free nights left are gathered into as few and as long runs as possible.
+ *
+ * A stay takes its room from its check-in day to its check-out day, both included, as a room is
+ * not let on the day another guest leaves it. The free days between two stays of a room can hold
+ * a new stay of up to (next check-in - previous check-out - 2) nights, the window's edges counting
+ * as a check-out the day before it and a check-in the day after it. An assignment is scored by the
+ * sum of the squares of these lengths, which grows as the free nights come together.
+ *
+ * To make room for a new stay, all the stays that may move are placed again in order of check-in,
+ * each on the room where it lowers the score the least. This is the greedy colouring of an
+ * interval graph: without stays fixed to their rooms, it never needs more rooms than there are
+ * stays on the busiest day. To improve an assignment, stays are moved one at a time, and only
+ * when the move raises the score, so that few guests change rooms.
+ */
+final class RoomAssignment {
+    private final Room[] rooms;
+    private final Map<Integer, Integer> roomIndex;
+    private final LocalDate from;
+    private final int days;
+    // Per room, the first and last day of each run of days taken, as days from the start of the window
+    private final List<TreeMap<Integer, Integer>> taken;
+
+    private RoomAssignment(Room[] rooms, LocalDate from, LocalDate to) {
+        this.rooms = rooms;
+        this.roomIndex = new HashMap<>();
+        for (int i = 0; i < rooms.length; i++) {
+            roomIndex.put(rooms[i].getRoomNumber(), i);
+        }
+        this.from = from;
+        this.days = (int) (to.toEpochDay() - from.toEpochDay());
+        this.taken = new ArrayList<>();
+        for (int i = 0; i < rooms.length; i++) {
+            taken.add(new TreeMap<>());
+        }
+    }
+
+    /**
+     * A change of rooms that makes the stays fit better.
+     *
+     * @param moves the stays to move and the rooms they go to
+     * @param room the room for the new stay, or null when none was asked for
+     * @param scoreBefore the score of the rooms as they are
+     * @param scoreAfter the score once the stays are moved and the new one booked
+     */
+    record Plan(Map<Reservation, Room> moves, Room room, long scoreBefore, long scoreAfter) {
+    }
+
+    /**
+     * Choose the room for a new stay that leaves the free nights around it least broken up,
+     * without moving any other stay.
+     *
+     * @param rooms the rooms of the type that may be let
+     * @param bookings the reservations of the type overlapping the window; cancelled ones are ignored
+     * @param from the first day of the window
+     * @param to the last day of the window
+     * @return the room, or null if no room is free for the whole stay
+     */
+    static Room bestFit(List<Room> rooms, List<Reservation> bookings, LocalDate from, LocalDate to,
+                        LocalDate checkInDate, LocalDate checkOutDate) {
+        RoomAssignment assignment = new RoomAssignment(sorted(rooms), from, to);
+        for (Reservation reservation : bookings) {
+            assignment.occupy(reservation);
+        }
+        int room = assignment.bestRoom(assignment.day(checkInDate), assignment.day(checkOutDate), -1);
+        return room < 0 ? null : assignment.rooms[room];
+    }
+
+    /**
+     * Assign the rooms again to the stays that may move and, if asked, to a new stay.
+     * Stays that may not move, or that reach beyond the window, keep their rooms.
+     *
+     * @param rooms the rooms of the type that may be let
+     * @param bookings the reservations of the type overlapping the window; cancelled ones are ignored
+     * @param movable tells which reservations may be moved to another room
+     * @param from the first day of the window
+     * @param to the last day of the window
+     * @param checkInDate the check-in date of a new stay, or null for none
+     * @param checkOutDate the check-out date of the new stay
+     * @return the plan, or null if the stays could not all be placed
+     */
+    static Plan repack(List<Room> rooms, List<Reservation> bookings, Predicate<Reservation> movable,
+                       LocalDate from, LocalDate to, LocalDate checkInDate, LocalDate checkOutDate) {
+        Room[] sortedRooms = sorted(rooms);
+        RoomAssignment current = new RoomAssignment(sortedRooms, from, to);
+        RoomAssignment repacked = new RoomAssignment(sortedRooms, from, to);
+        List<Reservation> moving = new ArrayList<>();
+        for (Reservation reservation : bookings) {
+            if (reservation.getStatus() == ReservationStatus.CANCELLED) {
+                continue;
+            }
+            current.occupy(reservation);
+            int checkIn = repacked.day(reservation.getCheckInDate());
+            int checkOut = repacked.day(reservation.getCheckOutDate());
+            if (movable.test(reservation) && checkIn >= 0 && checkOut <= repacked.days) {
+                moving.add(reservation);
+            } else {
+                repacked.occupy(reservation);
+            }
+        }
+
+        moving.sort(Comparator.comparing(Reservation::getCheckInDate)
+                .thenComparing(Reservation::getCheckOutDate, Comparator.reverseOrder())
+                .thenComparingInt(Reservation::getId));
+        Map<Reservation, Room> moves = new LinkedHashMap<>();
+        Room newRoom = null;
+        boolean newPlaced = checkInDate == null;
+        for (Reservation reservation : moving) {
+            if (!newPlaced && !checkInDate.isAfter(reservation.getCheckInDate())) {
+                newRoom = repacked.placeNew(checkInDate, checkOutDate);
+                if (newRoom == null) {
+                    return null;
+                }
+                newPlaced = true;
+            }
+            int checkIn = repacked.day(reservation.getCheckInDate());
+            int checkOut = repacked.day(reservation.getCheckOutDate());
+            Integer currentRoom = repacked.roomIndex.get(reservation.getRoom().getRoomNumber());
+            int room = repacked.bestRoom(checkIn, checkOut, currentRoom == null ? -1 : currentRoom);
+            if (room < 0) {
+                return null;
+            }
+            repacked.place(room, checkIn, checkOut);
+            if (currentRoom == null || room != currentRoom) {
+                moves.put(reservation, repacked.rooms[room]);
+            }
+        }
+        if (!newPlaced) {
+            newRoom = repacked.placeNew(checkInDate, checkOutDate);
+            if (newRoom == null) {
+                return null;
+            }
+        }
+        return new Plan(moves, newRoom, current.score(), repacked.score());
+    }
+
+    /**
+     * Move the stays that may move, one at a time, to the room where they fit best, as long as
+     * each move raises the score. Stays that reach beyond the window keep their rooms.
+     *
+     * @param rooms the rooms of the type that may be let
+     * @param bookings the reservations of the type overlapping the window; cancelled ones are ignored
+     * @param movable tells which reservations may be moved to another room
+     * @param from the first day of the window
+     * @param to the last day of the window
+     * @return the plan, with no moves if no single move helps
+     */
+    static Plan improve(List<Room> rooms, List<Reservation> bookings, Predicate<Reservation> movable,
+                        LocalDate from, LocalDate to) {
+        RoomAssignment assignment = new RoomAssignment(sorted(rooms), from, to);
+        List<Reservation> moving = new ArrayList<>();
+        for (Reservation reservation : bookings) {
+            if (reservation.getStatus() == ReservationStatus.CANCELLED) {
+                continue;
+            }
+            int checkIn = assignment.day(reservation.getCheckInDate());
+            int checkOut = assignment.day(reservation.getCheckOutDate());
+            if (movable.test(reservation) && checkIn >= 0 && checkOut <= assignment.days) {
+                moving.add(reservation);
+            } else {
+                assignment.occupy(reservation);
+            }
+        }
+        // Stays that may move are placed where they are; those overlapping others stay put
+        Map<Reservation, Integer> placed = new LinkedHashMap<>();
+        moving.sort(Comparator.comparing(Reservation::getCheckInDate).thenComparingInt(Reservation::getId));
+        for (Reservation reservation : moving) {
+            Integer room = assignment.roomIndex.get(reservation.getRoom().getRoomNumber());
+            int checkIn = assignment.day(reservation.getCheckInDate());
+            int checkOut = assignment.day(reservation.getCheckOutDate());
+            if (room != null && assignment.fits(room, checkIn, checkOut)) {
+                assignment.place(room, checkIn, checkOut);
+                placed.put(reservation, room);
+            } else {
+                assignment.occupy(reservation);
+            }
+        }
+        long scoreBefore = assignment.score();
+
+        Map<Reservation, Room> moves = new LinkedHashMap<>();
+        for (Map.Entry<Reservation, Integer> stay : placed.entrySet()) {
+            int room = stay.getValue();
+            int checkIn = assignment.day(stay.getKey().getCheckInDate());
+            int checkOut = assignment.day(stay.getKey().getCheckOutDate());
+            assignment.taken.get(room).remove(checkIn);
+            long stayingChange = assignment.change(room, checkIn, checkOut);
+            int best = assignment.bestRoom(checkIn, checkOut, room);
+            if (assignment.change(best, checkIn, checkOut) > stayingChange) {
+                room = best;
+                if (room == assignment.roomIndex.get(stay.getKey().getRoom().getRoomNumber())) {
+                    moves.remove(stay.getKey());
+                } else {
+                    moves.put(stay.getKey(), assignment.rooms[room]);
+                }
+                stay.setValue(room);
+            }
+            assignment.place(room, checkIn, checkOut);
+        }
+        return new Plan(moves, null, scoreBefore, assignment.score());
+    }
+
+    /**
+     * Count the free room-nights in the window that could still be sold to a stay of a given
+     * length, i.e. that lie in a run of free days long enough for it.
+     */
+    static int bookableNights(List<Room> rooms, List<Reservation> bookings, LocalDate from, LocalDate to, int nights) {
+        RoomAssignment assignment = new RoomAssignment(sorted(rooms), from, to);
+        for (Reservation reservation : bookings) {
+            assignment.occupy(reservation);
+        }
+        int bookable = 0;
+        for (int room = 0; room < assignment.rooms.length; room++) {
+            for (int run : assignment.runs(room)) {
+                if (run >= nights) {
+                    bookable += run;
+                }
+            }
+        }
+        return bookable;
+    }
+
+    private static Room[] sorted(List<Room> rooms) {
+        return rooms.stream().sorted(Comparator.comparingInt(Room::getRoomNumber)).toArray(Room[]::new);
+    }
+
+    private int day(LocalDate date) {
+        return (int) Math.max(-1, Math.min(days + 1, date.toEpochDay() - from.toEpochDay()));
+    }
+
+    // Count a reservation on its room as it is, even where it overlaps another one
+    private void occupy(Reservation reservation) {
+        Integer room = reservation.getStatus() == ReservationStatus.CANCELLED ? null
+                : roomIndex.get(reservation.getRoom().getRoomNumber());
+        if (room == null) {
+            return;
+        }
+        int checkIn = day(reservation.getCheckInDate());
+        int checkOut = day(reservation.getCheckOutDate());
+        TreeMap<Integer, Integer> runs = taken.get(room);
+        Map.Entry<Integer, Integer> overlapping = runs.floorEntry(checkOut);
+        while (overlapping != null && overlapping.getValue() >= checkIn) {
+            runs.remove(overlapping.getKey());
+            checkIn = Math.min(checkIn, overlapping.getKey());
+            checkOut = Math.max(checkOut, overlapping.getValue());
+            overlapping = runs.floorEntry(checkOut);
+        }
+        runs.put(checkIn, checkOut);
+    }
+
+    // Place a new stay on its best room
+    private Room placeNew(LocalDate checkInDate, LocalDate checkOutDate) {
+        int checkIn = day(checkInDate);
+        int checkOut = day(checkOutDate);
+        int room = bestRoom(checkIn, checkOut, -1);
+        if (room < 0) {
+            return null;
+        }
+        place(room, checkIn, checkOut);
+        return rooms[room];
+    }
+
+    private void place(int room, int checkIn, int checkOut) {
+        taken.get(room).put(checkIn, checkOut);
+    }
+
+    // Find the free room where a stay lowers the score the least, preferring the given one on ties; -1 if none is free
+    private int bestRoom(int checkIn, int checkOut, int preferred) {
+        int best = -1;
+        long bestChange = Long.MIN_VALUE;
+        for (int room = 0; room < rooms.length; room++) {
+            if (!fits(room, checkIn, checkOut)) {
+                continue;
+            }
+            long change = change(room, checkIn, checkOut);
+            if (change > bestChange || (change == bestChange && room == preferred)) {
+                best = room;
+                bestChange = change;
+            }
+        }
+        return best;
+    }
+
+    // Check whether a room is free from a check-in day to a check-out day
+    private boolean fits(int room, int checkIn, int checkOut) {
+        Map.Entry<Integer, Integer> before = taken.get(room).floorEntry(checkOut);
+        return before == null || before.getValue() < checkIn;
+    }
+
+    // Get the change in score from placing a stay on a room where it fits
+    private long change(int room, int checkIn, int checkOut) {
+        TreeMap<Integer, Integer> runs = taken.get(room);
+        Map.Entry<Integer, Integer> before = runs.floorEntry(checkOut);
+        int previousCheckOut = before == null ? -1 : before.getValue();
+        Integer nextCheckIn = runs.higherKey(checkOut);
+        int next = nextCheckIn == null ? days + 1 : nextCheckIn;
+        return square(checkIn - previousCheckOut - 2) + square(next - checkOut - 2)
+                - square(next - previousCheckOut - 2);
+    }
+
+    private long score() {
+        long score = 0;
+        for (int room = 0; room < rooms.length; room++) {
+            for (int run : runs(room)) {
+                score += square(run);
+            }
+        }
+        return score;
+    }
+
+    // Get the length of the longest stay that fits in each run of free days of a room
+    private List<Integer> runs(int room) {
+        List<Integer> runs = new ArrayList<>();
+        int previousCheckOut = -1;
+        for (Map.Entry<Integer, Integer> run : taken.get(room).entrySet()) {
+            runs.add(Math.max(0, run.getKey() - previousCheckOut - 2));
+            previousCheckOut = run.getValue();
+        }
+        runs.add(Math.max(0, days + 1 - previousCheckOut - 2));
+        return runs;
+    }
+
+    private static long square(int nights) {
+        return nights > 0 ? (long) nights * nights : 0;
+    }
+}
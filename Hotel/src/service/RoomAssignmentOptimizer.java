@@ -0,0 +1,158 @@
+package service;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import model.RoomType;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Keeps the rooms of reservations booked by room type packed as bookings come and go.
+ *
+ * The optimizer listens to the {@link RoomInventory}: every booking, cancellation or room change
+ * marks the nights it touched, and a background thread calls
+ * {@link ReservationService#reassignRooms} on those nights only, with a margin of
+ * {@link ReservationService#ROOM_ASSIGNMENT_MARGIN_DAYS} days on each side. Nearby changes are
+ * merged into one window, and long ones are split into windows of {@link #WINDOW_DAYS} days.
+ */
+public class RoomAssignmentOptimizer implements RoomInventory.Listener {
+    public static final int WINDOW_DAYS = 60;
+
+    private static RoomAssignmentOptimizer instance;
+
+    private final ReservationService reservationService;
+    private final RoomInventory inventory;
+    private final ExecutorService worker;
+    private final AtomicBoolean optimizeScheduled;
+    private volatile boolean running;
+
+    // Nights changed per room type, as disjoint epoch day ranges [from, to) by first day
+    private final Object pendingLock = new Object();
+    private final List<TreeMap<Long, Long>> pending;
+
+    // Time to optimize the changed nights, and the windows optimized and reservations moved
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram optimizePendingLatency = metrics.histogram("RoomAssignmentOptimizer.optimizePending");
+    private final Counter windowsOptimized = metrics.counter("RoomAssignmentOptimizer.windows");
+    private final Counter reservationsMoved = metrics.counter("RoomAssignmentOptimizer.moves");
+
+    private RoomAssignmentOptimizer() {
+        reservationService = ReservationService.getInstance();
+        inventory = RoomInventory.getInstance();
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "room-assignment");
+            thread.setDaemon(true);
+            return thread;
+        });
+        optimizeScheduled = new AtomicBoolean(false);
+        pending = new ArrayList<>();
+        for (int i = 0; i < RoomType.values().length; i++) {
+            pending.add(new TreeMap<>());
+        }
+    }
+
+    public static synchronized RoomAssignmentOptimizer getInstance() {
+        if (instance == null) {
+            instance = new RoomAssignmentOptimizer();
+        }
+        return instance;
+    }
+
+    // Start following occupancy changes
+    public synchronized void start() {
+        if (!running) {
+            running = true;
+            inventory.addListener(this);
+        }
+    }
+
+    // Stop following occupancy changes; rooms already assigned stay as they are
+    public synchronized void stop() {
+        if (!running) {
+            return;
+        }
+        running = false;
+        inventory.removeListener(this);
+        synchronized (pendingLock) {
+            pending.forEach(TreeMap::clear);
+        }
+    }
+
+    // Check whether the optimizer is following occupancy changes
+    public boolean isRunning() {
+        return running;
+    }
+
+    @Override
+    public void occupancyChanged(RoomType type, LocalDate from, LocalDate to) {
+        if (!running) {
+            return;
+        }
+        // Only stays that have not started are moved
+        long first = Math.max(from.toEpochDay(), LocalDate.now().toEpochDay() + 1);
+        long end = to.toEpochDay();
+        if (first >= end) {
+            return;
+        }
+        synchronized (pendingLock) {
+            TreeMap<Long, Long> ranges = pending.get(type.ordinal());
+            // Merge with the ranges it overlaps or comes within a margin of
+            long margin = 2L * ReservationService.ROOM_ASSIGNMENT_MARGIN_DAYS;
+            Map.Entry<Long, Long> near = ranges.floorEntry(end + margin);
+            while (near != null && near.getValue() + margin >= first) {
+                ranges.remove(near.getKey());
+                first = Math.min(first, near.getKey());
+                end = Math.max(end, near.getValue());
+                near = ranges.floorEntry(end + margin);
+            }
+            ranges.put(first, end);
+        }
+        if (optimizeScheduled.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                optimizeScheduled.set(false);
+                optimizePending();
+            });
+        }
+    }
+
+    /**
+     * Reassign the rooms around the nights changed since the last call, on the calling thread.
+     * The background thread does this on its own; calling it makes sure it is done.
+     *
+     * @return the number of reservations moved
+     */
+    public synchronized int optimizePending() {
+        long start = System.nanoTime();
+        try {
+            int moved = 0;
+            for (RoomType type : RoomType.values()) {
+                List<Map.Entry<Long, Long>> ranges;
+                synchronized (pendingLock) {
+                    ranges = new ArrayList<>(pending.get(type.ordinal()).entrySet());
+                    pending.get(type.ordinal()).clear();
+                }
+                for (Map.Entry<Long, Long> range : ranges) {
+                    for (long from = range.getKey(); from < range.getValue(); from += WINDOW_DAYS) {
+                        long to = Math.min(range.getValue(), from + WINDOW_DAYS);
+                        moved += reservationService.reassignRooms(type,
+                                LocalDate.ofEpochDay(from - ReservationService.ROOM_ASSIGNMENT_MARGIN_DAYS),
+                                LocalDate.ofEpochDay(to + ReservationService.ROOM_ASSIGNMENT_MARGIN_DAYS));
+                        windowsOptimized.increment();
+                    }
+                }
+            }
+            reservationsMoved.add(moved);
+            return moved;
+        } finally {
+            optimizePendingLatency.recordSince(start);
+        }
+    }
+}
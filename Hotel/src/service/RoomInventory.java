@@ -0,0 +1,414 @@
+package service;
+
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+/**
+ * Inventory matrix of room type by night: how many rooms of each type exist and how many of
+ * them are sold each night, kept up to date by the room and reservation services.
+ *
+ * A reservation sells every night from its check-in day up to the day before check-out,
+ * unless it is cancelled. Rooms under maintenance are not sellable. As in
+ * {@link Reservation#overlaps}, a booking also holds its room on the check-out day, so a stay
+ * can only be sold in a room that is free from its check-in day through its check-out day.
+ * Each room type has a segment tree over the nights with the number sold, for occupancy, and
+ * one over the days with the number of rooms held, for what can still be sold; either is
+ * queried for a stay in O(log days), and a booking updates both in O(log days) as well.
+ *
+ * Only nights within the window given at construction are tracked; stays are cut off at its edges.
+ */
+public class RoomInventory {
+    // The shared inventory covers a year back and ten years ahead
+    private static final int PAST_DAYS = 365;
+    private static final int DAYS = 4096;
+
+    private static RoomInventory instance;
+
+    private final LocalDate firstDay;
+    private final int days;
+    private final SoldTree[] sold;
+    private final SoldTree[] held;
+    private final int[] capacity;
+    // What each room and reservation currently contributes, so that changes can be undone
+    private final Map<Integer, RoomType> sellableRooms;
+    private final Map<Integer, Stay> stays;
+    private final List<Listener> listeners;
+
+    // Latency of every public method
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram getSellableLatency = metrics.histogram("RoomInventory.getSellable");
+    private final LatencyHistogram getRemainingLatency = metrics.histogram("RoomInventory.getRemaining");
+    private final LatencyHistogram getRemainingByNightLatency = metrics.histogram("RoomInventory.getRemainingByNight");
+    private final LatencyHistogram getBookableByNightLatency = metrics.histogram("RoomInventory.getBookableByNight");
+
+    /**
+     * Create an empty inventory.
+     *
+     * @param firstDay the first night tracked
+     * @param days the number of nights tracked
+     */
+    public RoomInventory(LocalDate firstDay, int days) {
+        if (days <= 0) {
+            throw new IllegalArgumentException("The number of days must be positive");
+        }
+        this.firstDay = firstDay;
+        this.days = days;
+        this.sold = new SoldTree[RoomType.values().length];
+        this.held = new SoldTree[RoomType.values().length];
+        for (int i = 0; i < sold.length; i++) {
+            sold[i] = new SoldTree(days);
+            held[i] = new SoldTree(days);
+        }
+        this.capacity = new int[RoomType.values().length];
+        this.sellableRooms = new HashMap<>();
+        this.stays = new HashMap<>();
+        this.listeners = new CopyOnWriteArrayList<>();
+    }
+
+    public static synchronized RoomInventory getInstance() {
+        if (instance == null) {
+            instance = create();
+        }
+        return instance;
+    }
+
+    // Create an empty inventory over the usual window
+    static RoomInventory create() {
+        return new RoomInventory(LocalDate.now().minusDays(PAST_DAYS), DAYS);
+    }
+
+    // Get the first night tracked
+    public LocalDate getFirstDay() {
+        return firstDay;
+    }
+
+    // Get the night after the last one tracked
+    public LocalDate getEndDay() {
+        return firstDay.plusDays(days);
+    }
+
+    // Get the number of rooms of a type that can be sold, i.e. that are not under maintenance
+    public synchronized int getCapacity(RoomType type) {
+        return capacity[type.ordinal()];
+    }
+
+    // Get the number of rooms of a type sold for a night
+    public synchronized int getSold(RoomType type, LocalDate night) {
+        int day = toDay(night);
+        return day < 0 || day >= days ? 0 : sold[type.ordinal()].max(day, day + 1);
+    }
+
+    /**
+     * Get the number of rooms of a type that are free from the check-in day through the
+     * check-out day of a stay, so that the stay can be booked in them.
+     * Different rooms may be free on different days; which room the guest gets is decided later.
+     *
+     * @return the number of rooms that can still be sold, 0 if overbooked
+     */
+    public int getSellable(RoomType type, LocalDate checkInDate, LocalDate checkOutDate) {
+        long start = System.nanoTime();
+        try {
+            return Math.max(0, remaining(type, checkInDate, checkOutDate));
+        } finally {
+            getSellableLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Get the fewest rooms of a type free on any day from the check-in day through the
+     * check-out day of a stay.
+     *
+     * @return the rooms free on every day, negative when a day is overbooked
+     */
+    public int getRemaining(RoomType type, LocalDate checkInDate, LocalDate checkOutDate) {
+        long start = System.nanoTime();
+        try {
+            return remaining(type, checkInDate, checkOutDate);
+        } finally {
+            getRemainingLatency.recordSince(start);
+        }
+    }
+
+    private int remaining(RoomType type, LocalDate checkInDate, LocalDate checkOutDate) {
+        int from = Math.max(0, toDay(checkInDate));
+        int to = Math.min(days, toDay(checkOutDate) + 1);
+        synchronized (this) {
+            int maxHeld = from < to ? held[type.ordinal()].max(from, to) : 0;
+            return capacity[type.ordinal()] - maxHeld;
+        }
+    }
+
+    /**
+     * Get the number of rooms of a type in which a stay can include each of a number of
+     * nights, i.e. that are free on the day of the night and the day after.
+     * A stay can be booked when every one of its nights has a room, as for getRemaining.
+     *
+     * @param firstNight the first night
+     * @param nights the number of nights; days outside the window are taken as fully free
+     * @return the bookable rooms per night, negative when overbooked
+     */
+    public int[] getBookableByNight(RoomType type, LocalDate firstNight, int nights) {
+        long start = System.nanoTime();
+        try {
+            int[] bookable = new int[nights];
+            int offset = toDay(firstNight);
+            int from = Math.max(0, offset);
+            synchronized (this) {
+                int[] heldByDay = held[type.ordinal()].values(from, Math.min(days, offset + nights + 1));
+                for (int i = 0; i < nights; i++) {
+                    int maxHeld = Math.max(heldOn(heldByDay, offset + i - from),
+                            heldOn(heldByDay, offset + i + 1 - from));
+                    bookable[i] = capacity[type.ordinal()] - maxHeld;
+                }
+            }
+            return bookable;
+        } finally {
+            getBookableByNightLatency.recordSince(start);
+        }
+    }
+
+    private static int heldOn(int[] heldByDay, int index) {
+        return index < 0 || index >= heldByDay.length ? 0 : heldByDay[index];
+    }
+
+    /**
+     * Get the number of rooms of a type not sold on each of a number of nights, for occupancy.
+     *
+     * @param firstNight the first night
+     * @param nights the number of nights; nights outside the window are reported as fully free
+     * @return the free rooms per night, negative when overbooked
+     */
+    public int[] getRemainingByNight(RoomType type, LocalDate firstNight, int nights) {
+        long start = System.nanoTime();
+        try {
+            int[] remaining = new int[nights];
+            int offset = toDay(firstNight);
+            synchronized (this) {
+                int[] soldByDay = sold[type.ordinal()].values(Math.max(0, offset), Math.min(days, offset + nights));
+                for (int i = 0; i < nights; i++) {
+                    int day = offset + i;
+                    int soldOnDay = day < 0 || day >= days ? 0 : soldByDay[day - Math.max(0, offset)];
+                    remaining[i] = capacity[type.ordinal()] - soldOnDay;
+                }
+            }
+            return remaining;
+        } finally {
+            getRemainingByNightLatency.recordSince(start);
+        }
+    }
+
+    /**
+     * Receives the nights whose occupancy, or whether they can be booked, changed.
+     * Listeners are called while the inventory is locked, so they must return quickly and
+     * must not call back into the inventory.
+     */
+    public interface Listener {
+        /**
+         * Called after rooms of a type were sold or released, or the number of rooms changed.
+         * A stay changes the nights from the one before its check-in day through its check-out
+         * day, since stays ending on its check-in day or starting on its check-out day share a day with it.
+         *
+         * @param from the first night that changed
+         * @param to the night after the last one that changed
+         */
+        void occupancyChanged(RoomType type, LocalDate from, LocalDate to);
+    }
+
+    // Add a listener for occupancy changes
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    // Remove a listener added before
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    // Count a room as it is now, after it was added or changed
+    synchronized void updateRoom(Room room) {
+        RoomType type = room.getStatus() == RoomStatus.MAINTENANCE ? null : room.getType();
+        RoomType previous = type == null ? sellableRooms.remove(room.getRoomNumber())
+                : sellableRooms.put(room.getRoomNumber(), type);
+        if (previous == type) {
+            return;
+        }
+        if (previous != null) {
+            capacity[previous.ordinal()]--;
+            notifyListeners(previous, 0, days);
+        }
+        if (type != null) {
+            capacity[type.ordinal()]++;
+            notifyListeners(type, 0, days);
+        }
+    }
+
+    // Stop counting a deleted room
+    synchronized void removeRoom(int roomNumber) {
+        RoomType previous = sellableRooms.remove(roomNumber);
+        if (previous != null) {
+            capacity[previous.ordinal()]--;
+            notifyListeners(previous, 0, days);
+        }
+    }
+
+    // Count a reservation as it is now, after it was created or changed
+    synchronized void updateReservation(Reservation reservation) {
+        Stay stay = Stay.of(reservation);
+        Stay previous = stay == null ? stays.remove(reservation.getId()) : stays.put(reservation.getId(), stay);
+        if (stay != null && stay.equals(previous)) {
+            return;
+        }
+        if (previous != null) {
+            sell(previous, -1);
+        }
+        if (stay != null) {
+            sell(stay, 1);
+        }
+    }
+
+    // Keep counting a reservation, but stop remembering it so that it can no longer change
+    synchronized void forgetReservation(int reservationId) {
+        stays.remove(reservationId);
+    }
+
+    // Remember a reservation that was forgotten but is still counted, so that it can change again
+    synchronized void rememberReservation(Reservation reservation) {
+        Stay stay = Stay.of(reservation);
+        if (stay != null) {
+            stays.putIfAbsent(reservation.getId(), stay);
+        }
+    }
+
+    private void sell(Stay stay, int rooms) {
+        int checkIn = toDay(stay.checkIn());
+        int checkOut = toDay(stay.checkOut());
+        int from = Math.max(0, checkIn);
+        int to = Math.min(days, checkOut);
+        if (from < to) {
+            sold[stay.type().ordinal()].add(from, to, rooms);
+        }
+        // The room is held on the check-out day as well
+        int heldTo = Math.min(days, checkOut + 1);
+        if (from < heldTo && checkIn < checkOut) {
+            held[stay.type().ordinal()].add(from, heldTo, rooms);
+            notifyListeners(stay.type(), Math.max(0, checkIn - 1), heldTo);
+        }
+    }
+
+    private void notifyListeners(RoomType type, int from, int to) {
+        for (Listener listener : listeners) {
+            listener.occupancyChanged(type, firstDay.plusDays(from), firstDay.plusDays(to));
+        }
+    }
+
+    private int toDay(LocalDate date) {
+        return (int) Math.max(Integer.MIN_VALUE / 2, Math.min(Integer.MAX_VALUE / 2,
+                ChronoUnit.DAYS.between(firstDay, date)));
+    }
+
+    /**
+     * The nights a reservation sells, for one room of a type.
+     */
+    private record Stay(RoomType type, LocalDate checkIn, LocalDate checkOut) {
+        static Stay of(Reservation reservation) {
+            if (reservation.getStatus() == ReservationStatus.CANCELLED || reservation.getRoom() == null) {
+                return null;
+            }
+            return new Stay(reservation.getRoom().getType(), reservation.getCheckInDate(), reservation.getCheckOutDate());
+        }
+    }
+
+    /**
+     * Segment tree over days with range add and range maximum.
+     * A node holds the maximum of its range including its own pending add, which applies to
+     * the whole range; adds are never pushed down to the children.
+     */
+    private static final class SoldTree {
+        private final int size;
+        private final int[] max;
+        private final int[] add;
+
+        SoldTree(int days) {
+            size = Integer.highestOneBit(Math.max(1, days - 1)) << 1;
+            max = new int[2 * size];
+            add = new int[2 * size];
+        }
+
+        // Add a value to days [from, to)
+        void add(int from, int to, int value) {
+            add(1, 0, size, from, to, value);
+        }
+
+        // Get the maximum over days [from, to)
+        int max(int from, int to) {
+            return max(1, 0, size, from, to);
+        }
+
+        // Get the value of each day in [from, to)
+        int[] values(int from, int to) {
+            int[] values = new int[Math.max(0, to - from)];
+            if (from < to) {
+                collect(1, 0, size, from, to, 0, values);
+            }
+            return values;
+        }
+
+        private void add(int node, int low, int high, int from, int to, int value) {
+            if (from <= low && high <= to) {
+                max[node] += value;
+                add[node] += value;
+                return;
+            }
+            int middle = (low + high) >>> 1;
+            if (from < middle) {
+                add(2 * node, low, middle, from, to, value);
+            }
+            if (to > middle) {
+                add(2 * node + 1, middle, high, from, to, value);
+            }
+            max[node] = add[node] + Math.max(max[2 * node], max[2 * node + 1]);
+        }
+
+        private int max(int node, int low, int high, int from, int to) {
+            if (from <= low && high <= to) {
+                return max[node];
+            }
+            int middle = (low + high) >>> 1;
+            int result = Integer.MIN_VALUE;
+            if (from < middle) {
+                result = max(2 * node, low, middle, from, to);
+            }
+            if (to > middle) {
+                result = Math.max(result, max(2 * node + 1, middle, high, from, to));
+            }
+            return add[node] + result;
+        }
+
+        private void collect(int node, int low, int high, int from, int to, int pending, int[] values) {
+            if (high - low == 1) {
+                values[low - from] = pending + max[node];
+                return;
+            }
+            pending += add[node];
+            int middle = (low + high) >>> 1;
+            if (from < middle) {
+                collect(2 * node, low, middle, from, to, pending, values);
+            }
+            if (to > middle) {
+                collect(2 * node + 1, middle, high, from, to, pending, values);
+            }
+        }
+    }
+}
@@ -1,14 +1,19 @@
 package service;
 
+import event.DomainEvent;
+import event.EventBus;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
 import model.Room;
 import model.RoomStatus;
 import model.RoomType;
 
 import java.math.BigDecimal;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Collectors;
 
 /**
@@ -17,11 +22,30 @@ import java.util.stream.Collectors;
 public class RoomService {
     private static RoomService instance;
     private final Map<Integer, Room> rooms;
-    private int nextId;
+    private final AtomicInteger nextId;
+    private final EventBus eventBus;
+    private final StateWriter writer;
+    private final RoomInventory inventory;
+    private final AvailabilityCache availabilityCache;
+    private final RateCalendar rateCalendar;
+
+    // Latency of every public method
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram addRoomLatency = metrics.histogram("RoomService.addRoom");
+    private final LatencyHistogram importRoomLatency = metrics.histogram("RoomService.importRoom");
+    private final LatencyHistogram updateRoomLatency = metrics.histogram("RoomService.updateRoom");
+    private final LatencyHistogram deleteRoomLatency = metrics.histogram("RoomService.deleteRoom");
+    private final LatencyHistogram getRoomByNumberLatency = metrics.histogram("RoomService.getRoomByNumber");
+    private final LatencyHistogram getAllRoomsLatency = metrics.histogram("RoomService.getAllRooms");
+    private final LatencyHistogram getRoomsByStatusLatency = metrics.histogram("RoomService.getRoomsByStatus");
+    private final LatencyHistogram getRoomsByTypeLatency = metrics.histogram("RoomService.getRoomsByType");
+    private final LatencyHistogram getAvailableRoomsLatency = metrics.histogram("RoomService.getAvailableRooms");
+    private final LatencyHistogram getAvailableRoomsByTypeLatency = metrics.histogram("RoomService.getAvailableRoomsByType");
+    private final LatencyHistogram changeRoomStatusLatency = metrics.histogram("RoomService.changeRoomStatus");
     
     private RoomService() {
-        rooms = new HashMap<>();
-        nextId = 1;
+        this(StateWriter.getInstance(), EventBus.getInstance(), RoomInventory.getInstance(),
+                AvailabilityCache.getInstance(), RateCalendar.getInstance());
         
         // Add some sample rooms
         addRoom(new Room(101, 1, RoomType.SIMPLE, new BigDecimal("100.00")));
@@ -31,6 +55,18 @@ public class RoomService {
         addRoom(new Room(202, 2, RoomType.SUITE, new BigDecimal("250.00")));
     }
     
+    // Create a service with no rooms over the given state
+    RoomService(StateWriter writer, EventBus eventBus, RoomInventory inventory, AvailabilityCache availabilityCache,
+                RateCalendar rateCalendar) {
+        rooms = new ConcurrentHashMap<>();
+        nextId = new AtomicInteger(1);
+        this.writer = writer;
+        this.eventBus = eventBus;
+        this.inventory = inventory;
+        this.availabilityCache = availabilityCache;
+        this.rateCalendar = rateCalendar;
+    }
+    
     public static synchronized RoomService getInstance() {
         if (instance == null) {
             instance = new RoomService();
@@ -40,67 +76,177 @@ public class RoomService {
     
     // Add a room
     public Room addRoom(Room room) {
-        rooms.put(room.getRoomNumber(), room);
-        return room;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Room previous = rooms.put(room.getRoomNumber(), room);
+                inventory.updateRoom(room);
+                invalidateReplaced(previous, room);
+                eventBus.publish(new DomainEvent.RoomAdded(room));
+                return room;
+            });
+        } finally {
+            addRoomLatency.recordSince(start);
+        }
+    }
+    
+    /**
+     * Add a room without publishing an event. Used for bulk loading, so open panels must
+     * reload afterwards.
+     */
+    public Room importRoom(Room room) {
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Room previous = rooms.put(room.getRoomNumber(), room);
+                inventory.updateRoom(room);
+                invalidateReplaced(previous, room);
+                return room;
+            });
+        } finally {
+            importRoomLatency.recordSince(start);
+        }
     }
     
     // Update a room
     public Room updateRoom(Room room) {
-        if (rooms.containsKey(room.getRoomNumber())) {
-            rooms.put(room.getRoomNumber(), room);
-            return room;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Room previous = rooms.get(room.getRoomNumber());
+                if (previous != null) {
+                    rooms.put(room.getRoomNumber(), room);
+                    inventory.updateRoom(room);
+                    invalidateReplaced(previous, room);
+                    eventBus.publish(new DomainEvent.RoomUpdated(room));
+                    return room;
+                }
+                return null;
+            });
+        } finally {
+            updateRoomLatency.recordSince(start);
+        }
+    }
+    
+    // Drop the cached queries a room may be in, before and after it replaced the room with its number
+    private void invalidateReplaced(Room previous, Room room) {
+        if (previous == room) {
+            // Changed in place, so the previous type is unknown
+            availabilityCache.clear();
+            return;
+        }
+        if (previous != null && previous.getType() != room.getType()) {
+            availabilityCache.invalidate(previous.getType());
         }
-        return null;
+        availabilityCache.invalidate(room.getType());
     }
     
     // Delete a room
     public boolean deleteRoom(int roomNumber) {
-        return rooms.remove(roomNumber) != null;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Room room = rooms.remove(roomNumber);
+                if (room != null) {
+                    inventory.removeRoom(roomNumber);
+                    rateCalendar.clearRoomRates(roomNumber);
+                    availabilityCache.invalidate(room.getType());
+                    eventBus.publish(new DomainEvent.RoomDeleted(room));
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            deleteRoomLatency.recordSince(start);
+        }
     }
     
     // Get a room by number
     public Room getRoomByNumber(int roomNumber) {
-        return rooms.get(roomNumber);
+        long start = System.nanoTime();
+        try {
+            return rooms.get(roomNumber);
+        } finally {
+            getRoomByNumberLatency.recordSince(start);
+        }
     }
     
     // Get all rooms
     public List<Room> getAllRooms() {
-        return new ArrayList<>(rooms.values());
+        long start = System.nanoTime();
+        try {
+            return new ArrayList<>(rooms.values());
+        } finally {
+            getAllRoomsLatency.recordSince(start);
+        }
     }
     
     // Get rooms by status
     public List<Room> getRoomsByStatus(RoomStatus status) {
-        return rooms.values().stream()
-                .filter(room -> room.getStatus() == status)
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return rooms.values().stream()
+                    .filter(room -> room.getStatus() == status)
+                    .collect(Collectors.toList());
+        } finally {
+            getRoomsByStatusLatency.recordSince(start);
+        }
     }
     
     // Get rooms by type
     public List<Room> getRoomsByType(RoomType type) {
-        return rooms.values().stream()
-                .filter(room -> room.getType() == type)
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return rooms.values().stream()
+                    .filter(room -> room.getType() == type)
+                    .collect(Collectors.toList());
+        } finally {
+            getRoomsByTypeLatency.recordSince(start);
+        }
     }
     
     // Get available rooms
     public List<Room> getAvailableRooms() {
-        return getRoomsByStatus(RoomStatus.AVAILABLE);
+        long start = System.nanoTime();
+        try {
+            return getRoomsByStatus(RoomStatus.AVAILABLE);
+        } finally {
+            getAvailableRoomsLatency.recordSince(start);
+        }
     }
     
     // Get available rooms by type
     public List<Room> getAvailableRoomsByType(RoomType type) {
-        return rooms.values().stream()
-                .filter(room -> room.getStatus() == RoomStatus.AVAILABLE && room.getType() == type)
-                .collect(Collectors.toList());
+        long start = System.nanoTime();
+        try {
+            return rooms.values().stream()
+                    .filter(room -> room.getStatus() == RoomStatus.AVAILABLE && room.getType() == type)
+                    .collect(Collectors.toList());
+        } finally {
+            getAvailableRoomsByTypeLatency.recordSince(start);
+        }
     }
     
     // Change room status
     public boolean changeRoomStatus(int roomNumber, RoomStatus status) {
-        Room room = getRoomByNumber(roomNumber);
-        if (room != null) {
-            room.setStatus(status);
-            return true;
+        long start = System.nanoTime();
+        try {
+            return writer.write(() -> {
+                Room room = getRoomByNumber(roomNumber);
+                if (room != null) {
+                    RoomStatus oldStatus = room.getStatus();
+                    room.setStatus(status);
+                    inventory.updateRoom(room);
+                    if (oldStatus != status) {
+                        availabilityCache.invalidate(room.getType());
+                    }
+                    eventBus.publish(new DomainEvent.RoomStatusChanged(room, oldStatus));
+                    return true;
+                }
+                return false;
+            });
+        } finally {
+            changeRoomStatusLatency.recordSince(start);
         }
-        return false;
     }
 }
\ No newline at end of file
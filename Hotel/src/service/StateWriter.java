@@ -0,0 +1,99 @@
+package service;
+
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+/**
+ * Runs every change the services make to their state, in the current {@link ExecutionMode}.
+ *
+ * In the LOCKED and PIPELINE modes changes never overlap, across all services, so a check
+ * followed by a change (e.g. "is the room free? then book it") cannot be interleaved with
+ * another booking. One lock or one writer for all services means a change may call into
+ * another service, as check-in does with the room status, without any lock ordering to get
+ * wrong. Reads take no lock in any mode: they read the services' concurrent maps, which every
+ * caller sees updated once its change has returned.
+ */
+public class StateWriter {
+    // Slots of the ring buffer in PIPELINE mode
+    private static final int PIPELINE_CAPACITY = 1024;
+
+    private static StateWriter instance;
+
+    private final ReentrantLock lock;
+    private volatile ExecutionMode mode;
+    private volatile CommandPipeline pipeline;
+
+    // Time from calling a change until it returns, including any wait for the lock or the writer
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram writeLatency = metrics.histogram("StateWriter.write");
+
+    // Create a writer in the DIRECT mode
+    StateWriter() {
+        lock = new ReentrantLock();
+        mode = ExecutionMode.DIRECT;
+    }
+
+    public static synchronized StateWriter getInstance() {
+        if (instance == null) {
+            instance = new StateWriter();
+        }
+        return instance;
+    }
+
+    // Get the current mode
+    public ExecutionMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Switch to another mode. Changes already running finish in the old mode; the switch is
+     * meant for startup and benchmarks, while no other thread is changing anything.
+     */
+    public synchronized void setMode(ExecutionMode mode) {
+        if (mode == this.mode) {
+            return;
+        }
+        CommandPipeline previous = pipeline;
+        if (mode == ExecutionMode.PIPELINE) {
+            pipeline = new CommandPipeline(PIPELINE_CAPACITY, "state-writer");
+        }
+        this.mode = mode;
+        if (previous != null && mode != ExecutionMode.PIPELINE) {
+            pipeline = null;
+            previous.close();
+        }
+    }
+
+    /**
+     * Run a change to the services' state.
+     *
+     * @return the change's result
+     */
+    public <T> T write(Supplier<T> change) {
+        long start = System.nanoTime();
+        try {
+            switch (mode) {
+                case LOCKED -> {
+                    lock.lock();
+                    try {
+                        return change.get();
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+                case PIPELINE -> {
+                    CommandPipeline current = pipeline;
+                    return current != null ? current.execute(change) : change.get();
+                }
+                default -> {
+                    return change.get();
+                }
+            }
+        } finally {
+            writeLatency.recordSince(start);
+        }
+    }
+}
@@ -0,0 +1,394 @@
+package service;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import model.WaitlistEntry;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Waitlist of booking requests by room type and dates, with an overbooking allowance per room
+ * type.
+ *
+ * A request is booked at once on a free room of its type. Failing that, if the type has an
+ * allowance, it is booked on the room of that type taken on the fewest of its nights, as long
+ * as no night ends up more rooms oversold than the allowance. Otherwise the request waits.
+ *
+ * The service listens to the {@link RoomInventory}. When rooms of a type are released, e.g. by
+ * a cancellation, a background thread takes the waiting requests of that type whose stay
+ * overlaps the nights released, highest priority and then oldest first. The inventory's segment
+ * tree tells in O(log days) whether each can fit before a room is looked for, and requests for
+ * other types or dates are not looked at.
+ */
+public class WaitlistService implements RoomInventory.Listener {
+    private static final Comparator<WaitlistEntry> PRIORITY_ORDER = Comparator
+            .comparingInt(WaitlistEntry::getPriority).reversed()
+            .thenComparingInt(WaitlistEntry::getId);
+
+    private static WaitlistService instance;
+
+    private final ReservationService reservationService;
+    private final RoomService roomService;
+    private final RoomInventory inventory;
+    private final StateWriter writer = StateWriter.getInstance();
+    private final ExecutorService worker;
+    private final AtomicBoolean promotionScheduled;
+    private final AtomicInteger nextId;
+
+    // Every request by ID, and the waiting ones per room type by check-in day
+    private final Map<Integer, WaitlistEntry> entries;
+    private final Object lock = new Object();
+    private final List<TreeMap<LocalDate, List<WaitlistEntry>>> waiting;
+    private final AtomicIntegerArray waitingCounts;
+    private final int[] overbookingAllowance;
+
+    // Nights released per room type as epoch days [from, to), from > to when none, and when the first was released
+    private final Object pendingLock = new Object();
+    private final long[] pendingFrom;
+    private final long[] pendingTo;
+    private final long[] pendingSince;
+
+    // Latency of every public method, time from a release to the booking of a waiting request, and outcomes
+    private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+    private final LatencyHistogram requestLatency = metrics.histogram("WaitlistService.request");
+    private final LatencyHistogram withdrawLatency = metrics.histogram("WaitlistService.withdraw");
+    private final LatencyHistogram getEntryLatency = metrics.histogram("WaitlistService.getEntry");
+    private final LatencyHistogram getWaitingLatency = metrics.histogram("WaitlistService.getWaiting");
+    private final LatencyHistogram promotePendingLatency = metrics.histogram("WaitlistService.promotePending");
+    private final LatencyHistogram promotionLatency = metrics.histogram("WaitlistService.promotion");
+    private final Counter promoted = metrics.counter("WaitlistService.promoted");
+    private final Counter overbooked = metrics.counter("WaitlistService.overbooked");
+    private final Counter candidatesChecked = metrics.counter("WaitlistService.candidatesChecked");
+
+    private WaitlistService() {
+        reservationService = ReservationService.getInstance();
+        roomService = RoomService.getInstance();
+        inventory = RoomInventory.getInstance();
+        worker = Executors.newSingleThreadExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "waitlist");
+            thread.setDaemon(true);
+            return thread;
+        });
+        promotionScheduled = new AtomicBoolean(false);
+        nextId = new AtomicInteger(1);
+        entries = new ConcurrentHashMap<>();
+        waiting = new ArrayList<>();
+        for (int i = 0; i < RoomType.values().length; i++) {
+            waiting.add(new TreeMap<>());
+        }
+        waitingCounts = new AtomicIntegerArray(RoomType.values().length);
+        overbookingAllowance = new int[RoomType.values().length];
+        pendingFrom = new long[RoomType.values().length];
+        pendingTo = new long[RoomType.values().length];
+        pendingSince = new long[RoomType.values().length];
+        clearPending();
+        inventory.addListener(this);
+    }
+
+    public static synchronized WaitlistService getInstance() {
+        if (instance == null) {
+            instance = new WaitlistService();
+        }
+        return instance;
+    }
+
+    /**
+     * Ask for a room of a type for some dates: booked now if possible, else put on the waitlist.
+     *
+     * @param priority requests with a higher priority are served first
+     * @return the request, booked or waiting
+     */
+    public WaitlistEntry request(Guest guest, RoomType type, LocalDate checkInDate, LocalDate checkOutDate, int priority) {
+        long start = System.nanoTime();
+        try {
+            if (!checkInDate.isBefore(checkOutDate)) {
+                throw new IllegalArgumentException("Check-in date must be before check-out date");
+            }
+            // Requests already waiting come first for any rooms just released
+            promotePending();
+            WaitlistEntry entry = new WaitlistEntry(nextId.getAndIncrement(), guest, type, checkInDate, checkOutDate,
+                    priority);
+            entries.put(entry.getId(), entry);
+            writer.write(() -> {
+                synchronized (lock) {
+                    Reservation reservation = place(entry);
+                    if (reservation != null) {
+                        entry.book(reservation);
+                    } else {
+                        waiting.get(type.ordinal()).computeIfAbsent(checkInDate, day -> new ArrayList<>()).add(entry);
+                        waitingCounts.incrementAndGet(type.ordinal());
+                    }
+                    return null;
+                }
+            });
+            return entry;
+        } finally {
+            requestLatency.recordSince(start);
+        }
+    }
+
+    // Take a request off the waitlist
+    public boolean withdraw(int entryId) {
+        long start = System.nanoTime();
+        try {
+            WaitlistEntry entry = entries.get(entryId);
+            if (entry == null) {
+                return false;
+            }
+            return writer.write(() -> {
+                synchronized (lock) {
+                    if (entry.getStatus() != WaitlistEntry.Status.WAITING) {
+                        return false;
+                    }
+                    remove(entry, WaitlistEntry.Status.WITHDRAWN);
+                    return true;
+                }
+            });
+        } finally {
+            withdrawLatency.recordSince(start);
+        }
+    }
+
+    // Get a request by its ID
+    public WaitlistEntry getEntry(int entryId) {
+        long start = System.nanoTime();
+        try {
+            return entries.get(entryId);
+        } finally {
+            getEntryLatency.recordSince(start);
+        }
+    }
+
+    // Get the requests waiting for a room type, in the order they will be served
+    public List<WaitlistEntry> getWaiting(RoomType type) {
+        long start = System.nanoTime();
+        try {
+            List<WaitlistEntry> result = new ArrayList<>();
+            synchronized (lock) {
+                waiting.get(type.ordinal()).values().forEach(result::addAll);
+            }
+            result.sort(PRIORITY_ORDER);
+            return result;
+        } finally {
+            getWaitingLatency.recordSince(start);
+        }
+    }
+
+    // Get the number of rooms of a type that may be sold beyond the rooms there are
+    public int getOverbookingAllowance(RoomType type) {
+        synchronized (lock) {
+            return overbookingAllowance[type.ordinal()];
+        }
+    }
+
+    /**
+     * Allow selling up to the given number of rooms of a type beyond the rooms there are, on any
+     * night. Waiting requests are looked at again, as a larger allowance may let them in.
+     */
+    public void setOverbookingAllowance(RoomType type, int rooms) {
+        if (rooms < 0) {
+            throw new IllegalArgumentException("The overbooking allowance cannot be negative");
+        }
+        synchronized (lock) {
+            overbookingAllowance[type.ordinal()] = rooms;
+        }
+        occupancyChanged(type, inventory.getFirstDay(), inventory.getEndDay());
+    }
+
+    @Override
+    public void occupancyChanged(RoomType type, LocalDate from, LocalDate to) {
+        if (waitingCounts.get(type.ordinal()) == 0) {
+            return;
+        }
+        synchronized (pendingLock) {
+            int index = type.ordinal();
+            if (pendingFrom[index] > pendingTo[index]) {
+                pendingSince[index] = System.nanoTime();
+            }
+            pendingFrom[index] = Math.min(pendingFrom[index], from.toEpochDay());
+            pendingTo[index] = Math.max(pendingTo[index], to.toEpochDay());
+        }
+        if (promotionScheduled.compareAndSet(false, true)) {
+            worker.execute(() -> {
+                promotionScheduled.set(false);
+                promotePending();
+            });
+        }
+    }
+
+    /**
+     * Book the waiting requests that fit in the rooms released since the last call, on the
+     * calling thread. The background thread does this on its own; calling it makes sure it is done.
+     *
+     * @return the number of requests booked
+     */
+    public int promotePending() {
+        long start = System.nanoTime();
+        try {
+            int booked = 0;
+            for (RoomType type : RoomType.values()) {
+                long from;
+                long to;
+                long since;
+                synchronized (pendingLock) {
+                    int index = type.ordinal();
+                    from = pendingFrom[index];
+                    to = pendingTo[index];
+                    since = pendingSince[index];
+                    pendingFrom[index] = Long.MAX_VALUE;
+                    pendingTo[index] = Long.MIN_VALUE;
+                }
+                if (from < to) {
+                    booked += promote(type, LocalDate.ofEpochDay(from), LocalDate.ofEpochDay(to), since);
+                }
+            }
+            return booked;
+        } finally {
+            promotePendingLatency.recordSince(start);
+        }
+    }
+
+    // Book the waiting requests of a type overlapping the nights released that fit now, best first
+    private int promote(RoomType type, LocalDate from, LocalDate to, long releasedAt) {
+        List<WaitlistEntry> candidates = new ArrayList<>();
+        synchronized (lock) {
+            for (List<WaitlistEntry> sameDay : waiting.get(type.ordinal()).headMap(to, false).values()) {
+                for (WaitlistEntry entry : sameDay) {
+                    if (entry.getCheckOutDate().isAfter(from)) {
+                        candidates.add(entry);
+                    }
+                }
+            }
+        }
+        candidates.sort(PRIORITY_ORDER);
+
+        LocalDate today = LocalDate.now();
+        int booked = 0;
+        for (WaitlistEntry entry : candidates) {
+            candidatesChecked.increment();
+            Reservation reservation = writer.write(() -> {
+                synchronized (lock) {
+                    if (entry.getStatus() != WaitlistEntry.Status.WAITING) {
+                        return null;
+                    }
+                    if (entry.getCheckInDate().isBefore(today)) {
+                        remove(entry, WaitlistEntry.Status.EXPIRED);
+                        return null;
+                    }
+                    Reservation placed = place(entry);
+                    if (placed != null) {
+                        remove(entry, WaitlistEntry.Status.WAITING);
+                        entry.book(placed);
+                    }
+                    return placed;
+                }
+            });
+            if (reservation != null) {
+                booked++;
+                promoted.increment();
+                promotionLatency.recordSince(releasedAt);
+            }
+        }
+        return booked;
+    }
+
+    /**
+     * Book a request on a free room of its type or, within the overbooking allowance, on the
+     * room of its type taken on the fewest of its nights. The inventory counts a room as taken
+     * on the check-out day of its stay, as booking does, so a request is only overbooked when
+     * no room can be booked for it.
+     *
+     * @return the reservation, or null if the request does not fit
+     */
+    private Reservation place(WaitlistEntry entry) {
+        RoomType type = entry.getType();
+        LocalDate checkIn = entry.getCheckInDate();
+        LocalDate checkOut = entry.getCheckOutDate();
+        int remaining = inventory.getRemaining(type, checkIn, checkOut);
+        int allowance = overbookingAllowance[type.ordinal()];
+        if (remaining + allowance < 1) {
+            return null;
+        }
+        if (remaining >= 1) {
+            for (Room room : reservationService.getAvailableRoomsByTypeForDates(type, checkIn, checkOut)) {
+                Reservation reservation = reservationService.createReservation(entry.getGuest(), room, checkIn, checkOut);
+                if (reservation != null) {
+                    return reservation;
+                }
+            }
+            // The inventory has a room the reservations do not; wait for the next release rather than overbook
+            return null;
+        }
+        if (allowance == 0) {
+            return null;
+        }
+        Room room = leastTakenRoom(type, checkIn, checkOut);
+        if (room == null) {
+            return null;
+        }
+        overbooked.increment();
+        return reservationService.createOverbookedReservation(entry.getGuest(), room, checkIn, checkOut);
+    }
+
+    // Find the sellable room of a type booked on the fewest nights of a stay
+    private Room leastTakenRoom(RoomType type, LocalDate checkIn, LocalDate checkOut) {
+        Map<Integer, Long> takenNights = new HashMap<>();
+        for (Reservation reservation : reservationService.getReservationsForDateRange(checkIn, checkOut)) {
+            if (reservation.getStatus() != ReservationStatus.CANCELLED && reservation.getRoom().getType() == type) {
+                LocalDate first = reservation.getCheckInDate().isAfter(checkIn) ? reservation.getCheckInDate() : checkIn;
+                LocalDate end = reservation.getCheckOutDate().isBefore(checkOut) ? reservation.getCheckOutDate() : checkOut;
+                long nights = Math.max(0, end.toEpochDay() - first.toEpochDay());
+                takenNights.merge(reservation.getRoom().getRoomNumber(), nights, Long::sum);
+            }
+        }
+        Room best = null;
+        long bestNights = Long.MAX_VALUE;
+        for (Room room : roomService.getRoomsByType(type)) {
+            long nights = takenNights.getOrDefault(room.getRoomNumber(), 0L);
+            if (room.getStatus() != RoomStatus.MAINTENANCE && nights < bestNights) {
+                best = room;
+                bestNights = nights;
+            }
+        }
+        return best;
+    }
+
+    // Take a request off the waitlist, leaving it with the given status
+    private void remove(WaitlistEntry entry, WaitlistEntry.Status status) {
+        TreeMap<LocalDate, List<WaitlistEntry>> byCheckIn = waiting.get(entry.getType().ordinal());
+        List<WaitlistEntry> sameDay = byCheckIn.get(entry.getCheckInDate());
+        if (sameDay != null && sameDay.remove(entry)) {
+            waitingCounts.decrementAndGet(entry.getType().ordinal());
+            if (sameDay.isEmpty()) {
+                byCheckIn.remove(entry.getCheckInDate());
+            }
+        }
+        entry.setStatus(status);
+    }
+
+    private void clearPending() {
+        for (int i = 0; i < pendingFrom.length; i++) {
+            pendingFrom[i] = Long.MAX_VALUE;
+            pendingTo[i] = Long.MIN_VALUE;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+package simulation;
+
+/**
+ * The kinds of request the workload simulator sends to the services.
+ */
+public enum Operation {
+    // Guest search by name or ID number prefix
+    SEARCH("search"),
+    // Rooms of one type free for a date span
+    AVAILABILITY("availability"),
+    // New reservation for a random room and dates
+    BOOKING("booking"),
+    // Check-in of a reservation made during the run
+    CHECK_IN("checkin"),
+    // Check-out, billing and cleaning of a room checked in during the run
+    CHECK_OUT("checkout"),
+    // Extra charge posted to a bill created at check-out
+    CHARGE("charge");
+
+    private final String label;
+
+    Operation(String label) {
+        this.label = label;
+    }
+
+    public String getLabel() {
+        return label;
+    }
+
+    // Find an operation by its label
+    public static Operation fromLabel(String label) {
+        for (Operation operation : values()) {
+            if (operation.label.equalsIgnoreCase(label)) {
+                return operation;
+            }
+        }
+        throw new IllegalArgumentException("Unknown operation: " + label);
+    }
+}
@@ -0,0 +1,171 @@
+package simulation;
+
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomAssignmentOptimizer;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Replays the same booking requests for one room type with each way of choosing rooms, and
+ * reports how many were booked and how many free nights could still be sold afterwards.
+ *
+ * Requests come in a random order of check-in, as they do from the booking channels, until the
+ * nights asked for reach the given share of the rooms' nights. Each run cancels what it booked,
+ * so all runs start from the same rooms.
+ */
+public class RoomAssignmentSimulation {
+    // Lengths of stay for which the bookable nights left are reported
+    private static final int[] REPORTED_NIGHTS = {1, 3, 7};
+
+    /**
+     * How rooms are chosen.
+     */
+    public enum Strategy {
+        // The free room with the lowest number, as picked at the front desk
+        FIRST_FREE_ROOM,
+        // Booked by room type, placed by best fit and repacked when no room is free
+        BY_TYPE,
+        // Booked by room type, with the optimizer repacking after every booking
+        BY_TYPE_OPTIMIZED
+    }
+
+    /**
+     * The outcome of one run.
+     *
+     * @param bookable the free room-nights left that stays of 1, 3 and 7 nights could still use
+     */
+    public record Result(Strategy strategy, int requested, int booked, long nightsSold, int[] bookable,
+                         long moves) {
+
+        String format() {
+            return String.format("%-18s %8d %8d %10d %8d %8d %8d %8d%n", strategy, requested, booked, nightsSold,
+                    bookable[0], bookable[1], bookable[2], moves);
+        }
+    }
+
+    private record Request(LocalDate checkIn, LocalDate checkOut) {
+    }
+
+    private final ReservationService reservationService = ReservationService.getInstance();
+    private final RoomType type;
+    private final LocalDate firstDay;
+    private final int days;
+    private final List<Request> requests;
+    private final Guest guest;
+
+    /**
+     * Create a simulation over the rooms of a type that exist.
+     *
+     * @param firstDay the first night requests may ask for; it must be after today
+     * @param days the number of nights requests may ask for
+     * @param load the nights asked for, as a share of the nights of the rooms of the type
+     */
+    public RoomAssignmentSimulation(RoomType type, LocalDate firstDay, int days, double load, long seed) {
+        this.type = type;
+        this.firstDay = firstDay;
+        this.days = days;
+        this.guest = GuestService.getInstance().getAllGuests().get(0);
+        this.requests = new ArrayList<>();
+        int rooms = RoomService.getInstance().getRoomsByType(type).size();
+        SplittableRandom random = new SplittableRandom(seed);
+        long nights = 0;
+        while (nights < load * rooms * days) {
+            // Mostly short stays, a few of up to two weeks
+            int length = Math.min(14, 1 + (int) (-Math.log(1 - random.nextDouble()) * 2.5));
+            LocalDate checkIn = firstDay.plusDays(random.nextInt(days - length + 1));
+            requests.add(new Request(checkIn, checkIn.plusDays(length)));
+            nights += length;
+        }
+    }
+
+    // Book every request with a strategy, measure, and cancel what was booked
+    public Result run(Strategy strategy) {
+        RoomAssignmentOptimizer optimizer = RoomAssignmentOptimizer.getInstance();
+        if (strategy == Strategy.BY_TYPE_OPTIMIZED) {
+            optimizer.start();
+        }
+        List<Reservation> booked = new ArrayList<>();
+        long moves = 0;
+        try {
+            for (Request request : requests) {
+                Reservation reservation = book(strategy, request);
+                if (reservation != null) {
+                    booked.add(reservation);
+                }
+                if (strategy == Strategy.BY_TYPE_OPTIMIZED) {
+                    moves += optimizer.optimizePending();
+                }
+            }
+            long nightsSold = booked.stream().mapToLong(Reservation::getNights).sum();
+            int[] bookable = new int[REPORTED_NIGHTS.length];
+            LocalDate end = firstDay.plusDays(days);
+            for (int i = 0; i < REPORTED_NIGHTS.length; i++) {
+                bookable[i] = reservationService.getBookableNights(type, firstDay, end, REPORTED_NIGHTS[i]);
+            }
+            return new Result(strategy, requests.size(), booked.size(), nightsSold, bookable, moves);
+        } finally {
+            if (strategy == Strategy.BY_TYPE_OPTIMIZED) {
+                optimizer.stop();
+            }
+            for (Reservation reservation : booked) {
+                reservationService.cancelReservation(reservation.getId());
+            }
+        }
+    }
+
+    private Reservation book(Strategy strategy, Request request) {
+        if (strategy != Strategy.FIRST_FREE_ROOM) {
+            return reservationService.createReservationByType(guest, type, request.checkIn(), request.checkOut());
+        }
+        return reservationService.getAvailableRoomsByTypeForDates(type, request.checkIn(), request.checkOut()).stream()
+                .min(Comparator.comparingInt(Room::getRoomNumber))
+                .map(room -> reservationService.createReservation(guest, room, request.checkIn(), request.checkOut()))
+                .orElse(null);
+    }
+
+    /**
+     * Run the simulation from the command line and print a line per strategy.
+     * Options: --rooms=N rooms of the type to add, --days=N nights, --load=share of the nights
+     * asked for, --seed=N.
+     */
+    public static void main(String[] args) {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(1);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        int rooms = Integer.parseInt(options.getOrDefault("rooms", "40"));
+        int days = Integer.parseInt(options.getOrDefault("days", "120"));
+        double load = Double.parseDouble(options.getOrDefault("load", "0.9"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+
+        RoomType type = RoomType.DOUBLE;
+        for (int i = 0; i < rooms; i++) {
+            RoomService.getInstance().addRoom(new Room(5000 + i, 50 + i / 20, type, new BigDecimal("150.00")));
+        }
+        RoomAssignmentSimulation simulation = new RoomAssignmentSimulation(type, LocalDate.now().plusDays(30), days,
+                load, seed);
+        System.out.printf("%-18s %8s %8s %10s %8s %8s %8s %8s%n", "strategy", "requests", "booked", "nights",
+                "free 1+", "free 3+", "free 7+", "moves");
+        for (Strategy strategy : Strategy.values()) {
+            System.out.print(simulation.run(strategy).format());
+        }
+        System.exit(0);
+    }
+}
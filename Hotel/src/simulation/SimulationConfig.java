@@ -0,0 +1,74 @@
+package simulation;
+
+import java.time.Duration;
+import java.time.LocalDate;
+
+/**
+ * Settings for a {@link WorkloadSimulator} run.
+ *
+ * @param model how requests arrive
+ * @param concurrency closed loop: number of agents; open loop: most requests in flight before arrivals are dropped
+ * @param thinkTimeMillis closed loop: mean pause of an agent between requests
+ * @param arrivalsPerSecond open loop: mean arrival rate of requests
+ * @param duration how long to send requests
+ * @param mix relative frequency of each operation
+ * @param firstDay first day that availability queries and bookings ask for
+ * @param horizonDays number of days after the first day that queries and bookings ask for
+ * @param seed seed for all random choices
+ */
+public record SimulationConfig(ArrivalModel model, int concurrency, double thinkTimeMillis, double arrivalsPerSecond,
+                               Duration duration, WorkloadMix mix, LocalDate firstDay, int horizonDays, long seed) {
+
+    /**
+     * How requests arrive.
+     */
+    public enum ArrivalModel {
+        // A fixed number of agents, each sending its next request when the previous one is done
+        CLOSED_LOOP,
+        // Requests arrive at random at a fixed mean rate, however long earlier requests take
+        OPEN_LOOP
+    }
+
+    public SimulationConfig {
+        if (concurrency <= 0 || horizonDays <= 0 || duration.isNegative() || duration.isZero()) {
+            throw new IllegalArgumentException("Concurrency, horizon and duration must be positive");
+        }
+        if (thinkTimeMillis < 0 || (model == ArrivalModel.OPEN_LOOP && arrivalsPerSecond <= 0)) {
+            throw new IllegalArgumentException("Think time must not be negative and the arrival rate must be positive");
+        }
+    }
+
+    /**
+     * Agents that each send a request, wait for the answer, pause and repeat.
+     */
+    public static SimulationConfig closedLoop(int agents, double thinkTimeMillis, Duration duration) {
+        return new SimulationConfig(ArrivalModel.CLOSED_LOOP, agents, thinkTimeMillis, 0, duration,
+                WorkloadMix.frontDesk(), LocalDate.now(), 180, 42);
+    }
+
+    /**
+     * Requests arriving at random at the given mean rate, with at most maxInFlight being served at once.
+     */
+    public static SimulationConfig openLoop(double arrivalsPerSecond, int maxInFlight, Duration duration) {
+        return new SimulationConfig(ArrivalModel.OPEN_LOOP, maxInFlight, 0, arrivalsPerSecond, duration,
+                WorkloadMix.frontDesk(), LocalDate.now(), 180, 42);
+    }
+
+    // Copy these settings with a different workload mix
+    public SimulationConfig withMix(WorkloadMix mix) {
+        return new SimulationConfig(model, concurrency, thinkTimeMillis, arrivalsPerSecond, duration, mix, firstDay,
+                horizonDays, seed);
+    }
+
+    // Copy these settings with different dates for queries and bookings
+    public SimulationConfig withDates(LocalDate firstDay, int horizonDays) {
+        return new SimulationConfig(model, concurrency, thinkTimeMillis, arrivalsPerSecond, duration, mix, firstDay,
+                horizonDays, seed);
+    }
+
+    // Copy these settings with a different seed
+    public SimulationConfig withSeed(long seed) {
+        return new SimulationConfig(model, concurrency, thinkTimeMillis, arrivalsPerSecond, duration, mix, firstDay,
+                horizonDays, seed);
+    }
+}
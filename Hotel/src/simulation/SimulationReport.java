@@ -0,0 +1,72 @@
+package simulation;
+
+import metrics.LatencySnapshot;
+
+import java.util.List;
+
+/**
+ * Results of a {@link WorkloadSimulator} run.
+ *
+ * @param config the settings of the run
+ * @param elapsedMillis how long requests were sent for
+ * @param operations results per operation, in {@link Operation} order
+ * @param dropped open loop: arrivals turned away because too many requests were in flight
+ * @param doubleBookings pairs of overlapping active reservations for the same room after the run
+ */
+public record SimulationReport(SimulationConfig config, long elapsedMillis, List<OperationResult> operations,
+                               long dropped, int doubleBookings) {
+
+    /**
+     * Results of one operation.
+     *
+     * @param operation the operation
+     * @param latency latencies of all completed requests; in the open loop they include time spent waiting to start
+     * @param refused requests the services turned down, e.g. a booking for a room that was taken
+     * @param errors requests that threw an exception
+     */
+    public record OperationResult(Operation operation, LatencySnapshot latency, long refused, long errors) {
+    }
+
+    // Total number of completed requests
+    public long getCompleted() {
+        return operations.stream().mapToLong(result -> result.latency().count()).sum();
+    }
+
+    // Total number of requests that threw an exception
+    public long getErrors() {
+        return operations.stream().mapToLong(OperationResult::errors).sum();
+    }
+
+    // Completed requests per second
+    public double getThroughput() {
+        return elapsedMillis == 0 ? 0 : getCompleted() * 1000.0 / elapsedMillis;
+    }
+
+    // Get the results of one operation
+    public OperationResult get(Operation operation) {
+        return operations.get(operation.ordinal());
+    }
+
+    // Format the report as a table
+    public String format() {
+        StringBuilder builder = new StringBuilder();
+        builder.append(String.format("%s, concurrency %d, mix %s%n", config.model(), config.concurrency(), config.mix()));
+        builder.append(String.format("%-13s %10s %10s %10s %10s %10s %10s %10s %8s%n", "operation", "count", "ops/s",
+                "mean", "p50", "p99", "p99.9", "max", "refused"));
+        for (OperationResult result : operations) {
+            LatencySnapshot latency = result.latency();
+            if (latency.count() == 0 && result.errors() == 0) {
+                continue;
+            }
+            builder.append(String.format("%-13s %,10d %10.1f %10s %10s %10s %10s %10s %,8d%n",
+                    result.operation().getLabel(), latency.count(), latency.count() * 1000.0 / Math.max(1, elapsedMillis),
+                    LatencySnapshot.formatNanos(latency.meanNanos()), LatencySnapshot.formatNanos(latency.p50Nanos()),
+                    LatencySnapshot.formatNanos(latency.p99Nanos()), LatencySnapshot.formatNanos(latency.p999Nanos()),
+                    LatencySnapshot.formatNanos(latency.maxNanos()), result.refused()));
+        }
+        builder.append(String.format("Throughput: %,.1f requests/s over %,d ms%n", getThroughput(), elapsedMillis));
+        builder.append(String.format("Errors: %,d  Dropped: %,d  Double bookings: %,d%n", getErrors(), dropped,
+                doubleBookings));
+        return builder.toString();
+    }
+}
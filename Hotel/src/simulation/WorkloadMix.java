@@ -0,0 +1,119 @@
+package simulation;
+
+import java.util.SplittableRandom;
+
+/**
+ * Relative frequency of each {@link Operation} in a simulated workload.
+ */
+public final class WorkloadMix {
+    private final double[] cumulative;
+    private final double[] weights;
+
+    private WorkloadMix(double[] weights) {
+        double total = 0;
+        for (double weight : weights) {
+            if (weight < 0) {
+                throw new IllegalArgumentException("Weights must not be negative");
+            }
+            total += weight;
+        }
+        if (total <= 0) {
+            throw new IllegalArgumentException("At least one operation must have a weight");
+        }
+        this.weights = weights.clone();
+        this.cumulative = new double[weights.length];
+        double sum = 0;
+        for (int i = 0; i < weights.length; i++) {
+            sum += weights[i] / total;
+            cumulative[i] = sum;
+        }
+        // Guard against rounding, so that a draw just below 1 never picks an operation without weight
+        for (int i = weights.length - 1; i >= 0 && cumulative[i] > 0; i--) {
+            cumulative[i] = 1;
+            if (weights[i] > 0) {
+                break;
+            }
+        }
+    }
+
+    /**
+     * Front desk: mostly guest lookups and arrivals and departures, with walk-in bookings and charges.
+     */
+    public static WorkloadMix frontDesk() {
+        return of(25, 20, 10, 15, 15, 15);
+    }
+
+    /**
+     * Distribution channels: availability queries with a small share of them turning into bookings.
+     */
+    public static WorkloadMix channel() {
+        return of(0, 85, 15, 0, 0, 0);
+    }
+
+    /**
+     * A mix with the given weights, in {@link Operation} order: search, availability, booking,
+     * check-in, check-out and charge.
+     */
+    public static WorkloadMix of(double... weights) {
+        if (weights.length != Operation.values().length) {
+            throw new IllegalArgumentException("Expected " + Operation.values().length + " weights");
+        }
+        return new WorkloadMix(weights);
+    }
+
+    /**
+     * Parse a preset name ("frontdesk", "channel") or weights such as "search=30,booking=10".
+     * Operations that are not named get no weight.
+     */
+    public static WorkloadMix parse(String mix) {
+        return switch (mix.toLowerCase()) {
+            case "frontdesk" -> frontDesk();
+            case "channel" -> channel();
+            default -> new WorkloadMix(parseWeights(mix));
+        };
+    }
+
+    private static double[] parseWeights(String mix) {
+        double[] weights = new double[Operation.values().length];
+        for (String part : mix.split(",")) {
+            String[] pair = part.split("=");
+            if (pair.length != 2) {
+                throw new IllegalArgumentException("Expected operation=weight but got: " + part);
+            }
+            weights[Operation.fromLabel(pair[0].trim()).ordinal()] = Double.parseDouble(pair[1].trim());
+        }
+        return weights;
+    }
+
+    // Pick an operation with probability proportional to its weight
+    public Operation pick(SplittableRandom random) {
+        double value = random.nextDouble();
+        Operation[] operations = Operation.values();
+        for (int i = 0; i < cumulative.length; i++) {
+            if (value < cumulative[i]) {
+                return operations[i];
+            }
+        }
+        return operations[operations.length - 1];
+    }
+
+    // Get the share of the given operation, between 0 and 1
+    public double getShare(Operation operation) {
+        int i = operation.ordinal();
+        return cumulative[i] - (i == 0 ? 0 : cumulative[i - 1]);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder builder = new StringBuilder();
+        for (Operation operation : Operation.values()) {
+            if (weights[operation.ordinal()] > 0) {
+                if (builder.length() > 0) {
+                    builder.append(',');
+                }
+                builder.append(operation.getLabel()).append('=').append(weights[operation.ordinal()]);
+            }
+        }
+        return builder.toString();
+    }
+}
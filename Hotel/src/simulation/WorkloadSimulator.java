@@ -0,0 +1,401 @@
+package simulation;
+
+import data.GeneratorConfig;
+import data.ServiceDataSink;
+import data.SyntheticDataGenerator;
+import metrics.LatencyHistogram;
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import service.BillingService;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomService;
+import util.ThreadPools;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Sends a mix of front-desk and channel requests to the services from many threads at once
+ * and reports throughput, latency percentiles, errors and double bookings.
+ *
+ * In the closed loop a fixed number of agents each wait for their answer before sending the
+ * next request, so a slow service lowers the request rate. In the open loop requests arrive at
+ * a fixed mean rate whatever happens, and latency is measured from when a request was due,
+ * so queueing delay is included. Every request runs on its own virtual thread when the JVM has
+ * them, and on a pooled platform thread otherwise.
+ *
+ * Check-ins, check-outs and charges only touch reservations made or found in the simulated date
+ * window, so the rest of the data is left as it was.
+ */
+public class WorkloadSimulator {
+    private static final int RECENT_BILLS = 1024;
+    private static final int SEARCH_TERMS = 1024;
+    private static final int ARRIVAL_DAYS = 7;
+
+    private final SimulationConfig config;
+    private final List<Room> rooms;
+    private final List<Guest> guests;
+    private final String[] searchTerms;
+
+    private final GuestService guestService;
+    private final ReservationService reservationService;
+    private final RoomService roomService;
+    private final BillingService billingService;
+
+    private final LatencyHistogram[] latencies;
+    private final LongAdder[] refused;
+    private final LongAdder[] errors;
+    private final AtomicReference<Throwable> firstError;
+
+    // Reservations waiting to check in, guests in house, and recent bills to post charges to
+    private final ConcurrentLinkedQueue<Reservation> arrivals;
+    private final ConcurrentLinkedQueue<Reservation> inHouse;
+    private final AtomicReferenceArray<Bill> recentBills;
+    private final AtomicLong billCount;
+
+    // Simulate against all rooms
+    public WorkloadSimulator(SimulationConfig config) {
+        this(config, RoomService.getInstance().getAllRooms());
+    }
+
+    // Simulate against the given rooms only
+    public WorkloadSimulator(SimulationConfig config, List<Room> rooms) {
+        this.config = config;
+        this.rooms = new ArrayList<>(rooms);
+        this.rooms.sort(Comparator.comparingInt(Room::getRoomNumber));
+        this.guestService = GuestService.getInstance();
+        this.reservationService = ReservationService.getInstance();
+        this.roomService = RoomService.getInstance();
+        this.billingService = BillingService.getInstance();
+        this.guests = guestService.getAllGuests();
+        this.guests.sort(Comparator.comparingInt(Guest::getId));
+        if (this.rooms.isEmpty() || guests.isEmpty()) {
+            throw new IllegalStateException("The simulation needs at least one room and one guest");
+        }
+        this.searchTerms = createSearchTerms();
+
+        int operations = Operation.values().length;
+        latencies = new LatencyHistogram[operations];
+        refused = new LongAdder[operations];
+        errors = new LongAdder[operations];
+        for (Operation operation : Operation.values()) {
+            latencies[operation.ordinal()] = new LatencyHistogram(operation.getLabel());
+            refused[operation.ordinal()] = new LongAdder();
+            errors[operation.ordinal()] = new LongAdder();
+        }
+        firstError = new AtomicReference<>();
+        arrivals = new ConcurrentLinkedQueue<>();
+        inHouse = new ConcurrentLinkedQueue<>();
+        recentBills = new AtomicReferenceArray<>(RECENT_BILLS);
+        billCount = new AtomicLong();
+    }
+
+    /**
+     * Run the simulation for the configured duration and wait for requests in flight to finish.
+     */
+    public SimulationReport run() throws InterruptedException {
+        findExistingStays();
+        SplittableRandom random = new SplittableRandom(config.seed());
+        ExecutorService executor = ThreadPools.newThreadPerTaskExecutor("simulated-agent");
+        long start = System.nanoTime();
+        long deadline = start + config.duration().toNanos();
+        long dropped = 0;
+        try {
+            if (config.model() == SimulationConfig.ArrivalModel.CLOSED_LOOP) {
+                for (int agent = 0; agent < config.concurrency(); agent++) {
+                    SplittableRandom agentRandom = random.split();
+                    executor.execute(() -> runAgent(agentRandom, deadline));
+                }
+            } else {
+                dropped = runArrivals(executor, random, start, deadline);
+            }
+        } finally {
+            executor.shutdown();
+            executor.awaitTermination(config.duration().toMillis() + TimeUnit.MINUTES.toMillis(1),
+                    TimeUnit.MILLISECONDS);
+        }
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        List<SimulationReport.OperationResult> results = new ArrayList<>();
+        for (Operation operation : Operation.values()) {
+            int i = operation.ordinal();
+            results.add(new SimulationReport.OperationResult(operation, latencies[i].snapshot(), refused[i].sum(),
+                    errors[i].sum()));
+        }
+        return new SimulationReport(config, elapsedMillis, results, dropped, countDoubleBookings(simulatedReservations()));
+    }
+
+    // Get the first exception thrown by a request, or null if there was none
+    public Throwable getFirstError() {
+        return firstError.get();
+    }
+
+    /**
+     * Count reservations that overlap an earlier active reservation for the same room.
+     * A room booked three times for the same nights counts as two double bookings.
+     */
+    public static int countDoubleBookings(Collection<Reservation> reservations) {
+        Map<Integer, List<Reservation>> byRoom = new HashMap<>();
+        for (Reservation reservation : reservations) {
+            if (reservation.getStatus() != ReservationStatus.CANCELLED) {
+                byRoom.computeIfAbsent(reservation.getRoom().getRoomNumber(), k -> new ArrayList<>()).add(reservation);
+            }
+        }
+        int doubleBookings = 0;
+        for (List<Reservation> stays : byRoom.values()) {
+            stays.sort(Comparator.comparing(Reservation::getCheckInDate));
+            LocalDate lastCheckOut = null;
+            for (Reservation stay : stays) {
+                // As in Reservation.overlaps, a stay starting on the day another ends overlaps it
+                if (lastCheckOut != null && !stay.getCheckInDate().isAfter(lastCheckOut)) {
+                    doubleBookings++;
+                }
+                if (lastCheckOut == null || stay.getCheckOutDate().isAfter(lastCheckOut)) {
+                    lastCheckOut = stay.getCheckOutDate();
+                }
+            }
+        }
+        return doubleBookings;
+    }
+
+    private void runAgent(SplittableRandom random, long deadline) {
+        double meanThinkNanos = config.thinkTimeMillis() * 1_000_000;
+        while (System.nanoTime() < deadline) {
+            perform(config.mix().pick(random), random, System.nanoTime());
+            if (meanThinkNanos > 0) {
+                LockSupport.parkNanos(exponential(random, meanThinkNanos));
+            }
+        }
+    }
+
+    // Start requests at random arrival times until the deadline and return how many were dropped
+    private long runArrivals(ExecutorService executor, SplittableRandom random, long start, long deadline) {
+        Semaphore inFlight = new Semaphore(config.concurrency());
+        double meanGapNanos = 1_000_000_000 / config.arrivalsPerSecond();
+        long dropped = 0;
+        long due = start;
+        while (true) {
+            due += exponential(random, meanGapNanos);
+            if (due >= deadline) {
+                return dropped;
+            }
+            long wait = due - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            if (!inFlight.tryAcquire()) {
+                dropped++;
+                continue;
+            }
+            Operation operation = config.mix().pick(random);
+            SplittableRandom requestRandom = random.split();
+            long requestDue = due;
+            executor.execute(() -> {
+                try {
+                    perform(operation, requestRandom, requestDue);
+                } finally {
+                    inFlight.release();
+                }
+            });
+        }
+    }
+
+    private void perform(Operation operation, SplittableRandom random, long startNanos) {
+        int i = operation.ordinal();
+        try {
+            if (!execute(operation, random)) {
+                refused[i].increment();
+            }
+            latencies[i].recordSince(startNanos);
+        } catch (RuntimeException e) {
+            errors[i].increment();
+            firstError.compareAndSet(null, e);
+        }
+    }
+
+    // Send one request, returning false if the services turned it down or there was nothing to do
+    private boolean execute(Operation operation, SplittableRandom random) {
+        switch (operation) {
+            case SEARCH -> {
+                guestService.searchGuests(searchTerms[random.nextInt(searchTerms.length)]);
+                return true;
+            }
+            case AVAILABILITY -> {
+                LocalDate checkIn = randomDay(random);
+                RoomType type = RoomType.values()[random.nextInt(RoomType.values().length)];
+                return !reservationService.getAvailableRoomsByTypeForDates(type, checkIn,
+                        checkIn.plusDays(1 + random.nextInt(7))).isEmpty();
+            }
+            case BOOKING -> {
+                LocalDate checkIn = randomDay(random);
+                Reservation reservation = reservationService.createReservation(
+                        guests.get(random.nextInt(guests.size())), rooms.get(random.nextInt(rooms.size())),
+                        checkIn, checkIn.plusDays(1 + random.nextInt(7)));
+                if (reservation == null) {
+                    return false;
+                }
+                arrivals.add(reservation);
+                return true;
+            }
+            case CHECK_IN -> {
+                Reservation reservation = arrivals.poll();
+                if (reservation == null || !reservationService.checkIn(reservation.getId())) {
+                    return false;
+                }
+                inHouse.add(reservation);
+                return true;
+            }
+            case CHECK_OUT -> {
+                Reservation reservation = inHouse.poll();
+                if (reservation == null || !reservationService.checkOut(reservation.getId())) {
+                    return false;
+                }
+                Bill bill = billingService.createBill(reservation);
+                recentBills.set((int) (billCount.getAndIncrement() % RECENT_BILLS), bill);
+                // Housekeeping makes the room available again straight away
+                roomService.changeRoomStatus(reservation.getRoom().getRoomNumber(), RoomStatus.AVAILABLE);
+                return true;
+            }
+            case CHARGE -> {
+                long bills = billCount.get();
+                if (bills == 0) {
+                    return false;
+                }
+                Bill bill = recentBills.get(random.nextInt((int) Math.min(bills, RECENT_BILLS)));
+                return bill != null && billingService.addItemToBill(bill.getId(), "Minibar",
+                        BigDecimal.valueOf(5 + random.nextInt(40)));
+            }
+            default -> throw new IllegalArgumentException("Unknown operation: " + operation);
+        }
+    }
+
+    // Queue reservations in the simulated window that are due to check in or out
+    private void findExistingStays() {
+        Set<Integer> roomNumbers = roomNumbers();
+        LocalDate lastArrival = config.firstDay().plusDays(ARRIVAL_DAYS);
+        for (Reservation reservation : reservationService.getReservationsByStatus(ReservationStatus.CONFIRMED)) {
+            if (roomNumbers.contains(reservation.getRoom().getRoomNumber())
+                    && !reservation.getCheckInDate().isBefore(config.firstDay())
+                    && reservation.getCheckInDate().isBefore(lastArrival)) {
+                arrivals.add(reservation);
+            }
+        }
+        for (Reservation reservation : reservationService.getReservationsByStatus(ReservationStatus.CHECKED_IN)) {
+            if (roomNumbers.contains(reservation.getRoom().getRoomNumber())
+                    && !reservation.getCheckOutDate().isBefore(config.firstDay())) {
+                inHouse.add(reservation);
+            }
+        }
+    }
+
+    private List<Reservation> simulatedReservations() {
+        Set<Integer> roomNumbers = roomNumbers();
+        List<Reservation> reservations = new ArrayList<>();
+        for (Reservation reservation : reservationService.getAllReservations()) {
+            if (roomNumbers.contains(reservation.getRoom().getRoomNumber())) {
+                reservations.add(reservation);
+            }
+        }
+        return reservations;
+    }
+
+    private Set<Integer> roomNumbers() {
+        Set<Integer> roomNumbers = new HashSet<>();
+        for (Room room : rooms) {
+            roomNumbers.add(room.getRoomNumber());
+        }
+        return roomNumbers;
+    }
+
+    // Search for the first letters of guest names, as typed at the front desk
+    private String[] createSearchTerms() {
+        List<String> terms = new ArrayList<>();
+        int step = Math.max(1, guests.size() / SEARCH_TERMS);
+        for (int i = 0; i < guests.size() && terms.size() < SEARCH_TERMS; i += step) {
+            String lastName = guests.get(i).getLastName();
+            if (lastName != null && !lastName.isEmpty()) {
+                terms.add(lastName.substring(0, Math.min(3, lastName.length())));
+            }
+        }
+        if (terms.isEmpty()) {
+            terms.add("a");
+        }
+        return terms.toArray(new String[0]);
+    }
+
+    private LocalDate randomDay(SplittableRandom random) {
+        return config.firstDay().plusDays(random.nextInt(config.horizonDays()));
+    }
+
+    private static long exponential(SplittableRandom random, double mean) {
+        return (long) (-Math.log(1 - random.nextDouble()) * mean);
+    }
+
+    /**
+     * Run a simulation from the command line and print the report.
+     * Options: --model=closed|open, --agents=N (closed loop agents or open loop in-flight limit),
+     * --think=ms, --rate=requests per second, --duration=seconds, --mix=frontdesk|channel|search=30,booking=10,...,
+     * --data=small|medium|production|reservations to generate data first, and --seed=N.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        Map<String, String> options = new HashMap<>();
+        for (String arg : args) {
+            if (!arg.startsWith("--") || !arg.contains("=")) {
+                System.err.println("Unknown argument: " + arg);
+                System.exit(1);
+            }
+            options.put(arg.substring(2, arg.indexOf('=')), arg.substring(arg.indexOf('=') + 1));
+        }
+        long seed = Long.parseLong(options.getOrDefault("seed", "42"));
+        Duration duration = Duration.ofSeconds(Long.parseLong(options.getOrDefault("duration", "30")));
+        int agents = Integer.parseInt(options.getOrDefault("agents", "1000"));
+
+        LocalDate firstDay = LocalDate.now();
+        if (options.containsKey("data")) {
+            GeneratorConfig dataConfig = GeneratorConfig.parse(options.get("data")).withSeed(seed);
+            System.out.println("Generated " + new SyntheticDataGenerator(dataConfig).generate(new ServiceDataSink()));
+            firstDay = dataConfig.today();
+        }
+
+        SimulationConfig config = "open".equals(options.getOrDefault("model", "closed"))
+                ? SimulationConfig.openLoop(Double.parseDouble(options.getOrDefault("rate", "1000")), agents, duration)
+                : SimulationConfig.closedLoop(agents, Double.parseDouble(options.getOrDefault("think", "100")), duration);
+        config = config.withMix(WorkloadMix.parse(options.getOrDefault("mix", "frontdesk")))
+                .withDates(firstDay, 180)
+                .withSeed(seed);
+
+        System.out.println("Running on " + (ThreadPools.hasVirtualThreads() ? "virtual" : "platform") + " threads");
+        WorkloadSimulator simulator = new WorkloadSimulator(config);
+        System.out.print(simulator.run().format());
+        if (simulator.getFirstError() != null) {
+            System.out.println("First error:");
+            simulator.getFirstError().printStackTrace(System.out);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package test.benchmark;
+
+import data.GeneratorConfig;
+import data.ServiceDataSink;
+import data.SyntheticDataGenerator;
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.Room;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads a reproducible data set into the services for the benchmarks and keeps the generated
+ * entities, in ID order, so benchmarks can pick inputs from them.
+ */
+public final class BenchmarkData extends ServiceDataSink {
+    private final GeneratorConfig config;
+    private final List<Room> rooms;
+    private final List<Guest> guests;
+    private final List<Reservation> reservations;
+    private final List<Bill> bills;
+
+    private BenchmarkData(GeneratorConfig config) {
+        this.config = config;
+        rooms = new ArrayList<>(config.rooms());
+        guests = new ArrayList<>(config.guests());
+        reservations = new ArrayList<>(config.reservations());
+        bills = new ArrayList<>();
+    }
+
+    /**
+     * Generate a data set with the given number of reservations into the services.
+     */
+    public static BenchmarkData load(int reservationCount) {
+        BenchmarkData data = new BenchmarkData(GeneratorConfig.forReservations(reservationCount));
+        try {
+            SyntheticDataGenerator.Summary summary = new SyntheticDataGenerator(data.config).generate(data);
+            System.out.println("Benchmark data: " + summary);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return data;
+    }
+
+    @Override
+    public void acceptRoom(Room room) {
+        super.acceptRoom(room);
+        rooms.add(room);
+    }
+
+    @Override
+    public void acceptGuest(Guest guest) {
+        super.acceptGuest(guest);
+        guests.add(guest);
+    }
+
+    @Override
+    public void acceptReservation(Reservation reservation) {
+        super.acceptReservation(reservation);
+        reservations.add(reservation);
+    }
+
+    @Override
+    public void acceptBill(Bill bill) {
+        super.acceptBill(bill);
+        bills.add(bill);
+    }
+
+    @Override
+    public boolean isOrdered() {
+        return true;
+    }
+
+    // Get a day within the generated calendar
+    public LocalDate getDay(long index) {
+        return config.firstDay().plusDays(Math.floorMod(index, config.days()));
+    }
+
+    // Get the day the generated data takes as today
+    public LocalDate getToday() {
+        return config.today();
+    }
+
+    public List<Room> getRooms() {
+        return rooms;
+    }
+
+    public List<Guest> getGuests() {
+        return guests;
+    }
+
+    public List<Reservation> getReservations() {
+        return reservations;
+    }
+
+    public List<Bill> getBills() {
+        return bills;
+    }
+}
@@ -0,0 +1,35 @@
+package test.benchmark;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.ChainedOptionsBuilder;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Runs the service benchmarks with the GC profiler and writes the results to benchmark-results.json.
+ * Accepts the usual JMH command line options, for example:
+ * <pre>
+ *   BenchmarkRunner                                  run every benchmark at every size
+ *   BenchmarkRunner -p size=1000,100000              only the smaller data sets
+ *   BenchmarkRunner ReservationServiceBenchmark      only one benchmark class
+ * </pre>
+ */
+public class BenchmarkRunner {
+    private static final String ALL_BENCHMARKS = "test\\.benchmark\\..*Benchmark";
+
+    public static void main(String[] args) throws Exception {
+        CommandLineOptions commandLine = new CommandLineOptions(args);
+        ChainedOptionsBuilder options = new OptionsBuilder()
+                .parent(commandLine)
+                .addProfiler(GCProfiler.class);
+        if (commandLine.getIncludes().isEmpty()) {
+            options.include(ALL_BENCHMARKS);
+        }
+        if (!commandLine.getResultFormat().hasValue()) {
+            options.resultFormat(ResultFormatType.JSON).result("benchmark-results.json");
+        }
+        new Runner(options.build()).run();
+    }
+}
@@ -0,0 +1,56 @@
+package test.benchmark;
+
+import model.Bill;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.BillingService;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the BillingService totals and queries.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class BillingServiceBenchmark {
+
+    /**
+     * Walks through the bills so consecutive calls do not ask the same question.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        Bill nextBill(HotelState state) {
+            List<Bill> bills = state.data.getBills();
+            return bills.get(next++ % bills.size());
+        }
+    }
+
+    @Benchmark
+    public BigDecimal calculateTotal(HotelState state, Cursor cursor) {
+        return BillingService.getInstance().calculateTotal(cursor.nextBill(state).getId());
+    }
+
+    @Benchmark
+    public Bill getBillByReservation(HotelState state, Cursor cursor) {
+        return BillingService.getInstance().getBillByReservation(cursor.nextBill(state).getReservation());
+    }
+
+    @Benchmark
+    public List<Bill> getUnpaidBills(HotelState state) {
+        return BillingService.getInstance().getBillsByPaidStatus(false);
+    }
+}
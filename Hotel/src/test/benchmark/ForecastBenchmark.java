@@ -0,0 +1,73 @@
+package test.benchmark;
+
+import analytics.PaceEngine;
+import model.RoomType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the PaceEngine: rebuilding the pace matrix and fitting the forecast, and the
+ * queries the dashboard and the pricing engine make.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class ForecastBenchmark {
+
+    /**
+     * The forecast fitted as of the generated data's today, and a cursor over the nights ahead.
+     */
+    @State(Scope.Thread)
+    public static class Forecast {
+        LocalDate today;
+        int next;
+
+        @Setup(Level.Trial)
+        public void setUp(HotelState state) {
+            today = state.data.getToday();
+            PaceEngine.getInstance().fit(today);
+        }
+
+        LocalDate nextNight() {
+            return today.plusDays(next++ % 365);
+        }
+    }
+
+    // Rebuild the matrix from the reservations and fit the model, as the daily job does
+    @Benchmark
+    public void fit(HotelState state, Forecast forecast) {
+        PaceEngine.getInstance().fit(forecast.today);
+    }
+
+    // Forecast one night of one room type
+    @Benchmark
+    public double forecastNight(HotelState state, Forecast forecast) {
+        return PaceEngine.getInstance().getForecast(RoomType.DOUBLE, forecast.nextNight());
+    }
+
+    // Average forecast occupancy of all rooms over the next 30 nights, as the dashboard shows it
+    @Benchmark
+    public double forecastMonth(HotelState state, Forecast forecast) {
+        return PaceEngine.getInstance().getForecastOccupancy(null, forecast.today, 30);
+    }
+
+    // Pickup expected over the year the pricing engine reprices every day
+    @Benchmark
+    public double[] expectedPickupYear(HotelState state, Forecast forecast) {
+        return PaceEngine.getInstance().getExpectedPickup(RoomType.DOUBLE, forecast.today, 365);
+    }
+}
@@ -0,0 +1,64 @@
+package test.benchmark;
+
+import model.Guest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.GuestService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the GuestService searches.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class GuestServiceBenchmark {
+
+    /**
+     * Walks through search terms and guests so consecutive calls do not ask the same question.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        String nextLastName(HotelState state) {
+            return nextGuest(state).getLastName();
+        }
+
+        Guest nextGuest(HotelState state) {
+            List<Guest> guests = state.data.getGuests();
+            return guests.get(next++ % guests.size());
+        }
+    }
+
+    @Benchmark
+    public List<Guest> searchGuestsByName(HotelState state, Cursor cursor) {
+        return GuestService.getInstance().searchGuestsByName(cursor.nextLastName(state));
+    }
+
+    @Benchmark
+    public List<Guest> searchGuests(HotelState state, Cursor cursor) {
+        return GuestService.getInstance().searchGuests(cursor.nextLastName(state).substring(0, 3));
+    }
+
+    @Benchmark
+    public Guest searchGuestByIdNumber(HotelState state, Cursor cursor) {
+        return GuestService.getInstance().searchGuestByIdNumber(cursor.nextGuest(state).getIdNumber());
+    }
+
+    @Benchmark
+    public Guest getGuestById(HotelState state, Cursor cursor) {
+        return GuestService.getInstance().getGuestById(cursor.nextGuest(state).getId());
+    }
+}
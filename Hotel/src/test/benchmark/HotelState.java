@@ -0,0 +1,24 @@
+package test.benchmark;
+
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Benchmark state holding the services loaded with a data set of {@code size} reservations.
+ * JMH runs each size in a fresh JVM fork, so the service singletons only ever hold one data set.
+ */
+@State(Scope.Benchmark)
+public class HotelState {
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int size;
+
+    public BenchmarkData data;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        data = BenchmarkData.load(size);
+    }
+}
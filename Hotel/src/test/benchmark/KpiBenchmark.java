@@ -0,0 +1,63 @@
+package test.benchmark;
+
+import analytics.KpiEngine;
+import analytics.KpiFigures;
+import analytics.KpiPeriod;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the KpiEngine: reports over a range computed from the reservations, and the
+ * live figures of the current month.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class KpiBenchmark {
+
+    /**
+     * Walks through the quarters of the generated calendar so consecutive calls do not ask the same question.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        LocalDate nextQuarter(HotelState state) {
+            LocalDate day = state.data.getDay(next++ * 91L);
+            return day.withDayOfMonth(1).withMonth((day.getMonthValue() - 1) / 3 * 3 + 1);
+        }
+    }
+
+    // Report a year by month
+    @Benchmark
+    public List<KpiFigures> computeYearByMonth(HotelState state) {
+        LocalDate year = state.data.getDay(0).withDayOfYear(1).plusYears(3);
+        return KpiEngine.getInstance().compute(year, year.plusYears(1), KpiPeriod.MONTH);
+    }
+
+    // Report a quarter by day
+    @Benchmark
+    public List<KpiFigures> computeQuarterByDay(HotelState state, Cursor cursor) {
+        LocalDate quarter = cursor.nextQuarter(state);
+        return KpiEngine.getInstance().compute(quarter, quarter.plusMonths(3), KpiPeriod.DAY);
+    }
+
+    // Read the live figures of the current month, as the dashboard does every second
+    @Benchmark
+    public List<KpiFigures> currentMonth(HotelState state) {
+        return KpiEngine.getInstance().getCurrent(KpiPeriod.MONTH);
+    }
+}
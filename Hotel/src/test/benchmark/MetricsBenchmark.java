@@ -0,0 +1,69 @@
+package test.benchmark;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.MetricsRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the cost of recording metrics around a service call.
+ * Timing one call costs {@code recordSince} plus one {@code nanoTime}; the target is under 50 ns.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MetricsBenchmark {
+
+    @State(Scope.Benchmark)
+    public static class Metrics {
+        final LatencyHistogram histogram = MetricsRegistry.getInstance().histogram("MetricsBenchmark.histogram");
+        final Counter counter = MetricsRegistry.getInstance().counter("MetricsBenchmark.counter");
+    }
+
+    @Benchmark
+    public long nanoTime() {
+        return System.nanoTime();
+    }
+
+    @Benchmark
+    public void record(Metrics metrics) {
+        metrics.histogram.record(1_234);
+    }
+
+    @Benchmark
+    public void timeCall(Metrics metrics) {
+        long start = System.nanoTime();
+        metrics.histogram.recordSince(start);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void timeCallContended(Metrics metrics) {
+        long start = System.nanoTime();
+        metrics.histogram.recordSince(start);
+    }
+
+    @Benchmark
+    public void incrementCounter(Metrics metrics) {
+        metrics.counter.increment();
+    }
+
+    @Benchmark
+    @Threads(4)
+    public void incrementCounterContended(Metrics metrics) {
+        metrics.counter.increment();
+    }
+}
@@ -0,0 +1,114 @@
+package test.benchmark;
+
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import pricing.PricingEngine;
+import pricing.PricingRules;
+import service.RateCalendar;
+import service.ReservationService;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the PricingEngine: the cost of repricing after a booking, and of quoting
+ * from the rates it sets.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class PricingBenchmark {
+    private static final int HORIZON = 365;
+    private static final int FREE_ROOMS = 64;
+    private static final int FIRST_FREE_ROOM = 9_900_000;
+
+    /**
+     * Runs the engine with the default rules over the loaded data set, with a few extra free
+     * rooms to book: the generated rooms are all taken by guests who never checked out.
+     */
+    @State(Scope.Benchmark)
+    public static class Engine {
+        final List<Room> freeRooms = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void start(HotelState state) {
+            RoomType[] types = RoomType.values();
+            for (int i = 0; i < FREE_ROOMS; i++) {
+                freeRooms.add(RoomService.getInstance().addRoom(
+                        new Room(FIRST_FREE_ROOM + i, 99, types[i % types.length], new BigDecimal("100.00"))));
+            }
+            PricingEngine.getInstance().start(PricingRules.defaults(PricingRules.lowestRoomPrices(state.data.getRooms())));
+        }
+
+        @TearDown(Level.Trial)
+        public void stop() {
+            PricingEngine.getInstance().stop();
+        }
+    }
+
+    /**
+     * Walks through rooms and the nights of the horizon so consecutive calls do not ask the same question.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        Room nextRoom(HotelState state) {
+            List<Room> rooms = state.data.getRooms();
+            return rooms.get(next++ % rooms.size());
+        }
+
+        LocalDate nextDate() {
+            return LocalDate.now().plusDays(next++ * 7919L % HORIZON);
+        }
+    }
+
+    // Reprice the three nights of a stay
+    @Benchmark
+    public int recompute(HotelState state, Engine engine, Cursor cursor) {
+        LocalDate checkIn = cursor.nextDate();
+        return PricingEngine.getInstance().recompute(cursor.nextRoom(state).getType(), checkIn, checkIn.plusDays(3));
+    }
+
+    // Book a free room for three nights and cancel it, repricing after each
+    @Benchmark
+    public Reservation bookAndReprice(HotelState state, Engine engine, Cursor cursor) {
+        List<Guest> guests = state.data.getGuests();
+        LocalDate checkIn = cursor.nextDate();
+        ReservationService reservations = ReservationService.getInstance();
+        Reservation reservation = reservations.createReservation(guests.get(cursor.next++ % guests.size()),
+                engine.freeRooms.get(cursor.next++ % FREE_ROOMS), checkIn, checkIn.plusDays(3));
+        PricingEngine.getInstance().repricePending();
+        if (reservation != null) {
+            reservations.cancelReservation(reservation.getId());
+            PricingEngine.getInstance().repricePending();
+        }
+        return reservation;
+    }
+
+    @Benchmark
+    public BigDecimal quote(HotelState state, Engine engine, Cursor cursor) {
+        LocalDate checkIn = cursor.nextDate();
+        return RateCalendar.getInstance().quote(cursor.nextRoom(state), checkIn, checkIn.plusDays(3));
+    }
+}
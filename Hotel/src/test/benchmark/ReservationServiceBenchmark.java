@@ -0,0 +1,92 @@
+package test.benchmark;
+
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.StayOption;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.ReservationService;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * Benchmarks for the ReservationService availability checks and queries.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class ReservationServiceBenchmark {
+
+    /**
+     * Walks through rooms and dates so consecutive calls do not ask the same question.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        Room nextRoom(HotelState state) {
+            List<Room> rooms = state.data.getRooms();
+            return rooms.get(next++ % rooms.size());
+        }
+
+        LocalDate nextDate(HotelState state) {
+            return state.data.getDay(next++ * 7919L);
+        }
+    }
+
+    @Benchmark
+    public boolean isRoomAvailable(HotelState state, Cursor cursor) {
+        LocalDate checkIn = cursor.nextDate(state);
+        return ReservationService.getInstance()
+                .isRoomAvailable(cursor.nextRoom(state).getRoomNumber(), checkIn, checkIn.plusDays(3));
+    }
+
+    @Benchmark
+    public List<Room> getAvailableRoomsForDates(HotelState state, Cursor cursor) {
+        LocalDate checkIn = cursor.nextDate(state);
+        return ReservationService.getInstance().getAvailableRoomsForDates(checkIn, checkIn.plusDays(3));
+    }
+
+    @Benchmark
+    public List<StayOption> findFlexibleStays(HotelState state, Cursor cursor) {
+        LocalDate from = cursor.nextDate(state);
+        return ReservationService.getInstance().findFlexibleStays(from, from.plusDays(90), 3, null, 2, 10);
+    }
+
+    @Benchmark
+    public List<Reservation> getReservationsByStatus(HotelState state) {
+        return ReservationService.getInstance().getReservationsByStatus(ReservationStatus.CHECKED_IN);
+    }
+
+    @Benchmark
+    public List<Reservation> getReservationsByGuestIds(HotelState state, Cursor cursor) {
+        List<Guest> guests = state.data.getGuests();
+        int first = cursor.next++ % guests.size();
+        Set<Integer> guestIds = guests.subList(first, Math.min(first + 10, guests.size())).stream()
+                .map(Guest::getId)
+                .collect(Collectors.toSet());
+        return ReservationService.getInstance().getReservationsByGuestIds(guestIds);
+    }
+
+    @Benchmark
+    public Reservation getReservationById(HotelState state, Cursor cursor) {
+        List<Reservation> reservations = state.data.getReservations();
+        return ReservationService.getInstance()
+                .getReservationById(reservations.get(cursor.next++ % reservations.size()).getId());
+    }
+}
@@ -0,0 +1,108 @@
+package test.benchmark;
+
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.ReservationService;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for bookings by room type: placing a stay, improving the rooms of a window as the
+ * optimizer does after a booking, and counting the nights still bookable. The optimizer itself
+ * is not running, so each call measures one step.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class RoomAssignmentBenchmark {
+    private static final int HORIZON = 90;
+    private static final int FREE_ROOMS = 16;
+    private static final int FIRST_FREE_ROOM = 9_800_000;
+    private static final RoomType TYPE = RoomType.DOUBLE;
+
+    /**
+     * A few extra rooms, as the generated rooms are all taken by guests who never checked out,
+     * booked by type to about 70% over the coming months.
+     */
+    @State(Scope.Benchmark)
+    public static class Rooms {
+        @Setup(Level.Trial)
+        public void setUp(HotelState state) {
+            for (int i = 0; i < FREE_ROOMS; i++) {
+                RoomService.getInstance().addRoom(new Room(FIRST_FREE_ROOM + i, 98, TYPE, new BigDecimal("150.00")));
+            }
+            List<Guest> guests = state.data.getGuests();
+            SplittableRandom random = new SplittableRandom(42);
+            long target = FREE_ROOMS * HORIZON * 7 / 10;
+            for (long nights = 0, attempts = 0; nights < target && attempts < target; attempts++) {
+                int length = 1 + random.nextInt(5);
+                LocalDate checkIn = LocalDate.now().plusDays(1 + random.nextInt(HORIZON - length));
+                if (ReservationService.getInstance().createReservationByType(guests.get(random.nextInt(guests.size())),
+                        TYPE, checkIn, checkIn.plusDays(length)) != null) {
+                    nights += length;
+                }
+            }
+        }
+    }
+
+    /**
+     * Walks through the nights of the horizon so consecutive calls do not ask the same question.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        LocalDate nextDate() {
+            return LocalDate.now().plusDays(1 + next++ * 7919L % (HORIZON - 3));
+        }
+    }
+
+    // Book three nights by room type, repacking if needed, and cancel them
+    @Benchmark
+    public Reservation bookByType(HotelState state, Rooms rooms, Cursor cursor) {
+        List<Guest> guests = state.data.getGuests();
+        LocalDate checkIn = cursor.nextDate();
+        ReservationService reservations = ReservationService.getInstance();
+        Reservation reservation = reservations.createReservationByType(guests.get(cursor.next % guests.size()), TYPE,
+                checkIn, checkIn.plusDays(3));
+        if (reservation != null) {
+            reservations.cancelReservation(reservation.getId());
+        }
+        return reservation;
+    }
+
+    // Improve the rooms around three nights, as the optimizer does after a booking
+    @Benchmark
+    public int reassignRooms(Rooms rooms, Cursor cursor) {
+        LocalDate checkIn = cursor.nextDate();
+        return ReservationService.getInstance().reassignRooms(TYPE,
+                checkIn.minusDays(ReservationService.ROOM_ASSIGNMENT_MARGIN_DAYS),
+                checkIn.plusDays(3 + ReservationService.ROOM_ASSIGNMENT_MARGIN_DAYS));
+    }
+
+    // Count the nights of the horizon still bookable for a week's stay
+    @Benchmark
+    public int bookableNights(Rooms rooms) {
+        return ReservationService.getInstance().getBookableNights(TYPE, LocalDate.now(), LocalDate.now().plusDays(HORIZON), 7);
+    }
+}
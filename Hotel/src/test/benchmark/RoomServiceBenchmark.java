@@ -0,0 +1,61 @@
+package test.benchmark;
+
+import model.Room;
+import model.RoomType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import service.RoomService;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the RoomService queries.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+public class RoomServiceBenchmark {
+
+    /**
+     * Walks through rooms and room types so consecutive calls do not ask the same question.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        RoomType nextType() {
+            RoomType[] types = RoomType.values();
+            return types[next++ % types.length];
+        }
+
+        Room nextRoom(HotelState state) {
+            List<Room> rooms = state.data.getRooms();
+            return rooms.get(next++ % rooms.size());
+        }
+    }
+
+    @Benchmark
+    public List<Room> getAvailableRooms(HotelState state) {
+        return RoomService.getInstance().getAvailableRooms();
+    }
+
+    @Benchmark
+    public List<Room> getAvailableRoomsByType(HotelState state, Cursor cursor) {
+        return RoomService.getInstance().getAvailableRoomsByType(cursor.nextType());
+    }
+
+    @Benchmark
+    public Room getRoomByNumber(HotelState state, Cursor cursor) {
+        return RoomService.getInstance().getRoomByNumber(cursor.nextRoom(state).getRoomNumber());
+    }
+}
@@ -0,0 +1,111 @@
+package test.benchmark;
+
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import service.ExecutionMode;
+import service.ReservationService;
+import service.RoomService;
+import service.StateWriter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for the StateWriter modes: changes from four threads at once, applied under one
+ * lock or through the single-writer pipeline, against applying them directly.
+ */
+@BenchmarkMode({Mode.Throughput, Mode.AverageTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx12g")
+@Threads(4)
+public class StateWriterBenchmark {
+    private static final int FREE_ROOMS = 256;
+    private static final int FIRST_FREE_ROOM = 9_800_000;
+
+    /**
+     * The execution mode, with free rooms to book: the generated rooms are all taken by
+     * guests who never checked out.
+     */
+    @State(Scope.Benchmark)
+    public static class Writer {
+        @Param({"DIRECT", "LOCKED", "PIPELINE"})
+        public ExecutionMode mode;
+
+        final List<Room> freeRooms = new ArrayList<>();
+
+        @Setup(Level.Trial)
+        public void setUp(HotelState state) {
+            RoomType[] types = RoomType.values();
+            for (int i = 0; i < FREE_ROOMS; i++) {
+                freeRooms.add(RoomService.getInstance().addRoom(
+                        new Room(FIRST_FREE_ROOM + i, 98, types[i % types.length], new BigDecimal("100.00"))));
+            }
+            StateWriter.getInstance().setMode(mode);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            StateWriter.getInstance().setMode(ExecutionMode.DIRECT);
+        }
+    }
+
+    /**
+     * Walks through the free rooms and the coming nights so consecutive calls do not ask the same question.
+     */
+    @State(Scope.Thread)
+    public static class Cursor {
+        int next;
+
+        Room nextRoom(Writer writer) {
+            return writer.freeRooms.get(next++ % FREE_ROOMS);
+        }
+
+        LocalDate nextDate() {
+            return LocalDate.now().plusDays(next++ * 7919L % 3650);
+        }
+    }
+
+    // Change the status of a room back and forth
+    @Benchmark
+    public boolean changeRoomStatus(HotelState state, Writer writer, Cursor cursor) {
+        Room room = cursor.nextRoom(writer);
+        RoomService.getInstance().changeRoomStatus(room.getRoomNumber(), RoomStatus.CLEANING);
+        return RoomService.getInstance().changeRoomStatus(room.getRoomNumber(), RoomStatus.AVAILABLE);
+    }
+
+    // Book a free room for three nights and cancel it
+    @Benchmark
+    public Reservation bookAndCancel(HotelState state, Writer writer, Cursor cursor) {
+        List<Guest> guests = state.data.getGuests();
+        LocalDate checkIn = cursor.nextDate();
+        ReservationService reservations = ReservationService.getInstance();
+        Reservation reservation = reservations.createReservation(guests.get(cursor.next++ % guests.size()),
+                cursor.nextRoom(writer), checkIn, checkIn.plusDays(3));
+        if (reservation != null) {
+            reservations.cancelReservation(reservation.getId());
+        }
+        return reservation;
+    }
+}
@@ -0,0 +1,175 @@
+package test.functional;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import ui.PanelLoader;
+import ui.RoomsPanel;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Functional tests for background loading in the UI.
+ * These tests verify that slow service calls never block the Event Dispatch Thread for longer than one frame.
+ */
+public class EdtResponsivenessTest {
+    private static final long MAX_EDT_BLOCK_MS = 16;
+
+    private EdtProbe probe;
+
+    @Before
+    public void setUp() throws Exception {
+        probe = new EdtProbe();
+        probe.warmUp();
+    }
+
+    @After
+    public void tearDown() {
+        probe.stop();
+    }
+
+    @Test
+    public void testSlowLoadsDoNotBlockEdt() throws Exception {
+        PanelLoader loader = onEdt(() -> new PanelLoader(null));
+        List<Integer> delivered = Collections.synchronizedList(new ArrayList<>());
+        CountDownLatch lastLoaded = new CountDownLatch(1);
+
+        probe.start();
+
+        // Keep changing the "filter" while the previous load is still running
+        int loads = 10;
+        for (int i = 0; i < loads; i++) {
+            int generation = i;
+            SwingUtilities.invokeAndWait(() -> loader.load("slow", () -> {
+                Thread.sleep(150);
+                return generation;
+            }, value -> {
+                delivered.add(value);
+                lastLoaded.countDown();
+            }));
+            Thread.sleep(20);
+        }
+
+        assertTrue("The latest load should finish", lastLoaded.await(5, TimeUnit.SECONDS));
+        probe.stop();
+
+        assertEquals("Only the latest load should be delivered", List.of(loads - 1), delivered);
+        assertFalse("Loader should be idle", onEdt(loader::isLoading));
+        assertTrue("EDT blocked for " + probe.getMaxLatencyMillis() + " ms",
+                probe.getMaxLatencyMillis() <= MAX_EDT_BLOCK_MS);
+    }
+
+    @Test
+    public void testPanelFiltersDoNotBlockEdt() throws Exception {
+        RoomsPanel roomsPanel = onEdt(RoomsPanel::new);
+        JComboBox<?> statusFilter = findComponentByType(roomsPanel, JComboBox.class);
+        JTable roomsTable = findComponentByType(roomsPanel, JTable.class);
+        assertNotNull(statusFilter);
+        assertNotNull(roomsTable);
+
+        probe.start();
+
+        for (int i = 0; i < 20; i++) {
+            int index = i % statusFilter.getItemCount();
+            SwingUtilities.invokeAndWait(() -> statusFilter.setSelectedIndex(index));
+            Thread.sleep(5);
+        }
+        SwingUtilities.invokeAndWait(() -> statusFilter.setSelectedIndex(0));
+
+        // Wait for the final (unfiltered) load to reach the table
+        long deadline = System.currentTimeMillis() + 5000;
+        while (onEdt(roomsTable::getRowCount) == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        probe.stop();
+
+        assertTrue("Rooms should be loaded", onEdt(roomsTable::getRowCount) > 0);
+        assertTrue("EDT blocked for " + probe.getMaxLatencyMillis() + " ms",
+                probe.getMaxLatencyMillis() <= MAX_EDT_BLOCK_MS);
+    }
+
+    private static <T> T onEdt(java.util.concurrent.Callable<T> callable) throws Exception {
+        AtomicReference<T> result = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            try {
+                result.set(callable.call());
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        return result.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Component> T findComponentByType(Container container, Class<T> type) {
+        for (Component component : container.getComponents()) {
+            if (type.isInstance(component)) {
+                return (T) component;
+            }
+            if (component instanceof Container) {
+                T found = findComponentByType((Container) component, type);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Measures how long the EDT takes to run an empty task, every couple of milliseconds.
+     */
+    private static class EdtProbe {
+        private volatile boolean running;
+        private volatile long maxLatencyNanos;
+        private Thread thread;
+
+        void warmUp() throws Exception {
+            for (int i = 0; i < 50; i++) {
+                SwingUtilities.invokeAndWait(() -> { });
+            }
+        }
+
+        void start() {
+            running = true;
+            maxLatencyNanos = 0;
+            thread = new Thread(() -> {
+                while (running) {
+                    long start = System.nanoTime();
+                    try {
+                        SwingUtilities.invokeAndWait(() -> { });
+                        maxLatencyNanos = Math.max(maxLatencyNanos, System.nanoTime() - start);
+                        Thread.sleep(2);
+                    } catch (Exception e) {
+                        return;
+                    }
+                }
+            }, "edt-probe");
+            thread.start();
+        }
+
+        void stop() {
+            running = false;
+            if (thread != null) {
+                try {
+                    thread.join(1000);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }
+
+        long getMaxLatencyMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(maxLatencyNanos);
+        }
+    }
+}
@@ -0,0 +1,130 @@
+package test.functional;
+
+import model.Guest;
+import org.junit.Before;
+import org.junit.Test;
+import ui.EntityTableModel;
+
+import javax.swing.event.TableModelEvent;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the EntityTableModel class.
+ * These tests verify that row changes fire row-level events and that cell values come from the entities.
+ */
+public class EntityTableModelTest {
+    private EntityTableModel<Guest> tableModel;
+    private List<TableModelEvent> events;
+    private Guest john;
+    private Guest jane;
+
+    @Before
+    public void setUp() {
+        tableModel = new EntityTableModel<>(Guest::getId, List.of(
+                new EntityTableModel.Column<>("ID", Integer.class, Guest::getId),
+                new EntityTableModel.Column<>("Name", Guest::getFullName)
+        ));
+        john = new Guest(1, "John", "Doe", "123", "555-1234", "john@example.com", "Main St");
+        jane = new Guest(2, "Jane", "Smith", "456", "555-5678", "jane@example.com", "Oak Ave");
+
+        events = new ArrayList<>();
+        tableModel.addTableModelListener(events::add);
+    }
+
+    @Test
+    public void testColumns() {
+        assertEquals(2, tableModel.getColumnCount());
+        assertEquals("ID", tableModel.getColumnName(0));
+        assertEquals(Integer.class, tableModel.getColumnClass(0));
+        assertEquals(Object.class, tableModel.getColumnClass(1));
+        assertFalse("Cells should not be editable", tableModel.isCellEditable(0, 0));
+    }
+
+    @Test
+    public void testSetRows() {
+        tableModel.setRows(List.of(john, jane));
+
+        assertEquals(2, tableModel.getRowCount());
+        assertEquals(1, tableModel.getValueAt(0, 0));
+        assertEquals("Jane Smith", tableModel.getValueAt(1, 1));
+        assertSame(jane, tableModel.findByKey(2));
+
+        // A full replacement is a single data-changed event, not a structure change
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.HEADER_ROW + 1, events.get(0).getFirstRow());
+        assertEquals(Integer.MAX_VALUE, events.get(0).getLastRow());
+    }
+
+    @Test
+    public void testAddRowFiresInsert() {
+        tableModel.setRows(List.of(john));
+        events.clear();
+
+        tableModel.addRow(jane);
+
+        assertEquals(2, tableModel.getRowCount());
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.INSERT, events.get(0).getType());
+        assertEquals(1, events.get(0).getFirstRow());
+        assertEquals(1, events.get(0).getLastRow());
+    }
+
+    @Test
+    public void testUpdateRowFiresUpdateAndComputesValueLazily() {
+        tableModel.setRows(List.of(john, jane));
+        events.clear();
+
+        john.setLastName("Updated");
+        assertTrue(tableModel.updateRow(john));
+
+        assertEquals("John Updated", tableModel.getValueAt(0, 1));
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.UPDATE, events.get(0).getType());
+        assertEquals(0, events.get(0).getFirstRow());
+        assertEquals(0, events.get(0).getLastRow());
+
+        // Updating an entity that is not shown does nothing
+        Guest other = new Guest(3, "Other", "Guest", "789", "", "", "");
+        assertFalse(tableModel.updateRow(other));
+        assertEquals(1, events.size());
+    }
+
+    @Test
+    public void testUpsertRow() {
+        tableModel.setRows(List.of(john));
+        events.clear();
+
+        tableModel.upsertRow(john);
+        tableModel.upsertRow(jane);
+
+        assertEquals(2, tableModel.getRowCount());
+        assertEquals(TableModelEvent.UPDATE, events.get(0).getType());
+        assertEquals(TableModelEvent.INSERT, events.get(1).getType());
+    }
+
+    @Test
+    public void testRemoveByKeyFiresDeleteAndKeepsIndex() {
+        Guest third = new Guest(3, "Third", "Guest", "789", "", "", "");
+        tableModel.setRows(List.of(john, jane, third));
+        events.clear();
+
+        assertTrue(tableModel.removeByKey(1));
+
+        assertEquals(2, tableModel.getRowCount());
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.DELETE, events.get(0).getType());
+        assertEquals(0, events.get(0).getFirstRow());
+
+        // The remaining rows are still found by key at their new positions
+        assertFalse(tableModel.containsKey(1));
+        assertSame(jane, tableModel.findByKey(2));
+        assertSame(third, tableModel.getRow(1));
+        assertTrue(tableModel.updateRow(third));
+        assertEquals(1, events.get(1).getFirstRow());
+
+        assertFalse("Removing a missing key should return false", tableModel.removeByKey(42));
+    }
+}
@@ -0,0 +1,77 @@
+package test.functional;
+
+import org.junit.Test;
+import ui.LazyTabPanel;
+import util.StartupTimeline;
+
+import javax.swing.*;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for lazy tab construction and the startup timeline.
+ * These tests verify that tab content is built once, on demand, and that startup phases are recorded.
+ */
+public class LazyTabPanelTest {
+
+    @Test
+    public void testContentIsBuiltOnFirstUseOnly() throws Exception {
+        AtomicInteger builds = new AtomicInteger();
+        JLabel content = new JLabel("content");
+
+        SwingUtilities.invokeAndWait(() -> {
+            LazyTabPanel lazyTab = new LazyTabPanel(() -> {
+                builds.incrementAndGet();
+                return content;
+            });
+
+            assertFalse("Content should not be built up front", lazyTab.isCreated());
+            assertEquals(0, builds.get());
+            assertTrue("A loading indicator should be shown", lazyTab.getComponent(0) instanceof JPanel);
+
+            assertSame(content, lazyTab.ensureCreated());
+            assertSame(content, lazyTab.ensureCreated());
+            assertEquals("Content should be built once", 1, builds.get());
+            assertTrue(lazyTab.isCreated());
+            assertEquals(1, lazyTab.getComponentCount());
+            assertSame(content, lazyTab.getComponent(0));
+        });
+    }
+
+    @Test
+    public void testTimelineRecordsSequentialAndParallelPhases() throws Exception {
+        StartupTimeline timeline = new StartupTimeline();
+
+        Thread.sleep(20);
+        long firstPhase = timeline.mark("first");
+        Thread worker = new Thread(() -> timeline.time("background", () -> sleep(30)), "worker");
+        worker.start();
+        worker.join();
+        timeline.mark("second");
+
+        List<StartupTimeline.Phase> phases = timeline.getPhases();
+        assertEquals(3, phases.size());
+        assertEquals("first", phases.get(0).name());
+        assertTrue("First phase took " + firstPhase + " ms", firstPhase >= 19);
+        StartupTimeline.Phase background = phases.stream().filter(phase -> phase.name().equals("background"))
+                .findFirst().orElseThrow();
+        assertEquals("worker", background.thread());
+        assertTrue(background.durationMillis() >= 29);
+        assertTrue(timeline.getElapsedMillis() >= 49);
+
+        String formatted = timeline.format();
+        assertTrue(formatted.contains("first"));
+        assertTrue(formatted.contains("background"));
+        assertTrue(formatted.contains("[worker]"));
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package test.functional;
+
+import model.Guest;
+import org.junit.Test;
+import ui.EntityTableModel;
+import ui.GuestsPanel;
+import ui.SearchDebouncer;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.Assert.*;
+
+/**
+ * Functional tests for search-as-you-type.
+ * These tests verify that searches wait for typing to pause and that the guest search refines its results.
+ */
+public class SearchDebouncerTest {
+
+    @Test
+    public void testSearchRunsOnceTypingPauses() throws Exception {
+        BlockingQueue<String> searches = new LinkedBlockingQueue<>();
+        AtomicReference<JTextField> field = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            field.set(new JTextField());
+            new SearchDebouncer(field.get(), 100, searches::add);
+        });
+
+        for (String text : List.of("J", "Jo", "Joh", "John ")) {
+            SwingUtilities.invokeAndWait(() -> field.get().setText(text));
+            Thread.sleep(10);
+        }
+
+        assertEquals("John", searches.poll(2, TimeUnit.SECONDS));
+        assertNull("Only one search should run", searches.poll(200, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testEnterSearchesImmediately() throws Exception {
+        BlockingQueue<String> searches = new LinkedBlockingQueue<>();
+        AtomicReference<JTextField> field = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> {
+            field.set(new JTextField());
+            new SearchDebouncer(field.get(), 10_000, searches::add);
+            field.get().setText("Jane");
+            field.get().postActionEvent();
+        });
+
+        assertEquals("Jane", searches.poll(1, TimeUnit.SECONDS));
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    public void testGuestSearchRefinesResults() throws Exception {
+        AtomicReference<GuestsPanel> panel = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> panel.set(new GuestsPanel()));
+        JTextField searchField = findComponentByType(panel.get(), JTextField.class);
+        JTable guestsTable = findComponentByType(panel.get(), JTable.class);
+        EntityTableModel<Guest> tableModel = (EntityTableModel<Guest>) guestsTable.getModel();
+
+        for (String term : List.of("J", "Ja", "Jan")) {
+            SwingUtilities.invokeAndWait(() -> {
+                searchField.setText(term);
+                searchField.postActionEvent();
+            });
+            waitForRows(tableModel, rows -> rows.stream().allMatch(guest -> guest.matchesSearch(term.toLowerCase())));
+        }
+        List<Guest> rows = onEdtRows(tableModel);
+        assertFalse("Jane Smith should be found", rows.isEmpty());
+        assertTrue(rows.stream().anyMatch(guest -> guest.getFullName().equals("Jane Smith")));
+
+        // Shortening the term runs a full search again
+        SwingUtilities.invokeAndWait(() -> {
+            searchField.setText("");
+            searchField.postActionEvent();
+        });
+        waitForRows(tableModel, rows2 -> rows2.stream().anyMatch(guest -> guest.getFullName().equals("John Doe")));
+    }
+
+    private static void waitForRows(EntityTableModel<Guest> tableModel,
+                                    java.util.function.Predicate<List<Guest>> condition) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.test(onEdtRows(tableModel))) {
+            assertTrue("Timed out waiting for search results", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<Guest> onEdtRows(EntityTableModel<Guest> tableModel) throws Exception {
+        AtomicReference<List<Guest>> rows = new AtomicReference<>();
+        SwingUtilities.invokeAndWait(() -> rows.set(tableModel.getRows()));
+        return rows.get();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T extends Component> T findComponentByType(Container container, Class<T> type) {
+        for (Component component : container.getComponents()) {
+            if (type.isInstance(component)) {
+                return (T) component;
+            }
+            if (component instanceof Container) {
+                T found = findComponentByType((Container) component, type);
+                if (found != null) {
+                    return found;
+                }
+            }
+        }
+        return null;
+    }
+}
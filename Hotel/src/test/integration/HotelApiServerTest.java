@@ -0,0 +1,159 @@
+package test.integration;
+
+import api.HotelApiServer;
+import api.JsonWriter;
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomService;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.LocalDate;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.Assert.*;
+
+/**
+ * Integration tests for the HTTP/JSON API, through a server on a free port of localhost.
+ * The tests book a room of their own, with dates far in the future.
+ */
+public class HotelApiServerTest {
+    private static final LocalDate CHECK_IN = LocalDate.of(2053, 4, 10);
+    private static final LocalDate CHECK_OUT = CHECK_IN.plusDays(2);
+
+    private HotelApiServer server;
+    private HttpClient client;
+    private Room room;
+    private Guest guest;
+
+    @Before
+    public void setUp() throws IOException {
+        server = new HotelApiServer(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0));
+        server.start();
+        client = HttpClient.newHttpClient();
+        room = RoomService.getInstance().addRoom(new Room(8300, 83, RoomType.DOUBLE, new BigDecimal("120.00")));
+    }
+
+    @After
+    public void tearDown() {
+        server.stop(0);
+        for (Reservation reservation : ReservationService.getInstance().getReservationsByRoom(room)) {
+            ReservationService.getInstance().cancelReservation(reservation.getId());
+        }
+        RoomService.getInstance().deleteRoom(room.getRoomNumber());
+        if (guest != null) {
+            GuestService.getInstance().deleteGuest(guest.getId());
+        }
+    }
+
+    @Test
+    public void testRegisterGuest() throws Exception {
+        HttpResponse<String> response = post("/api/guests",
+                "firstName=Ana&lastName=O%27Neil+%22Nan%22&idNumber=API-8300&phone=555-8300");
+
+        assertEquals(201, response.statusCode());
+        guest = GuestService.getInstance().getGuestById(idOf(response));
+        assertEquals("O'Neil \"Nan\"", guest.getLastName());
+        assertTrue(response.body().contains("\"lastName\":\"O'Neil \\\"Nan\\\"\""));
+        assertTrue(response.body().contains("\"email\":null"));
+        assertEquals(200, get("/api/guests/" + guest.getId()).statusCode());
+    }
+
+    @Test
+    public void testStayFromBookingToFolio() throws Exception {
+        HttpResponse<String> availability = get("/api/availability?checkIn=" + CHECK_IN + "&checkOut=" + CHECK_OUT
+                + "&type=double");
+        assertEquals(200, availability.statusCode());
+        assertTrue(availability.body().contains("\"roomNumber\":8300,"));
+
+        HttpResponse<String> booking = post("/api/reservations", "guestId=1&roomNumber=8300&checkIn=" + CHECK_IN
+                + "&checkOut=" + CHECK_OUT);
+        assertEquals(201, booking.statusCode());
+        assertTrue(booking.body().contains("\"status\":\"CONFIRMED\""));
+        int reservationId = idOf(booking);
+
+        // The room is no longer free for those nights
+        HttpResponse<String> conflict = post("/api/reservations", "guestId=1&roomNumber=8300&checkIn="
+                + CHECK_IN.plusDays(1) + "&checkOut=" + CHECK_OUT.plusDays(1));
+        assertEquals(409, conflict.statusCode());
+        assertTrue(conflict.body().startsWith("{\"error\":"));
+
+        String path = "/api/reservations/" + reservationId;
+        assertEquals(409, post(path + "/check-out", "").statusCode());
+        assertTrue(post(path + "/check-in", "").body().contains("\"status\":\"CHECKED_IN\""));
+        // A stay that has started can no longer be cancelled
+        assertEquals(409, post(path + "/cancel", "").statusCode());
+        assertTrue(post(path + "/check-out", "").body().contains("\"status\":\"CHECKED_OUT\""));
+
+        assertEquals(404, get(path + "/folio").statusCode());
+        assertEquals(201, post(path + "/folio", "").statusCode());
+        assertEquals(201, post(path + "/folio/items", "description=Minibar&amount=12.50").statusCode());
+        HttpResponse<String> folio = get(path + "/folio");
+        assertEquals(200, folio.statusCode());
+        assertTrue(folio.body().contains("{\"description\":\"Minibar\",\"amount\":12.50}"));
+    }
+
+    @Test
+    public void testBadRequests() throws Exception {
+        assertEquals(400, get("/api/availability?checkIn=tomorrow&checkOut=2053-04-12").statusCode());
+        assertEquals(400, get("/api/availability?checkIn=" + CHECK_OUT + "&checkOut=" + CHECK_IN).statusCode());
+        assertEquals(400, get("/api/availability?checkIn=" + CHECK_IN).statusCode());
+        assertEquals(404, get("/api/reservations/99999999").statusCode());
+        assertEquals(404, get("/api/reservations/abc").statusCode());
+        assertEquals(404, post("/api/reservations", "guestId=1&roomNumber=99999999&checkIn=" + CHECK_IN
+                + "&checkOut=" + CHECK_OUT).statusCode());
+        assertEquals(400, post("/api/reservations", "guestId=1&type=PENTHOUSE&checkIn=" + CHECK_IN
+                + "&checkOut=" + CHECK_OUT).statusCode());
+        assertEquals(405, get("/api/guests").statusCode());
+    }
+
+    @Test
+    public void testJsonWriter() throws IOException {
+        StringWriter out = new StringWriter();
+        JsonWriter json = new JsonWriter(out);
+        json.beginObject();
+        json.name("text").value("a\"b\\c\nd\u0001");
+        json.name("list").beginArray().value(1).value(true).nullValue().beginObject().endObject().endArray();
+        json.name("amount").value(new BigDecimal("10.50"));
+        json.endObject();
+        json.close();
+
+        assertEquals("{\"text\":\"a\\\"b\\\\c\\nd\\u0001\",\"list\":[1,true,null,{}],\"amount\":10.50}", out.toString());
+        assertThrows(IllegalStateException.class, () -> new JsonWriter(new StringWriter()).beginObject().value(1));
+    }
+
+    private HttpResponse<String> get(String path) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path)).GET().build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private HttpResponse<String> post(String path, String form) throws IOException, InterruptedException {
+        return client.send(HttpRequest.newBuilder(uri(path))
+                .header("Content-Type", "application/x-www-form-urlencoded")
+                .POST(HttpRequest.BodyPublishers.ofString(form)).build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private URI uri(String path) {
+        return URI.create("http://localhost:" + server.getPort() + path);
+    }
+
+    private static int idOf(HttpResponse<String> response) {
+        Matcher matcher = Pattern.compile("^\\{\"id\":(\\d+),").matcher(response.body());
+        assertTrue(response.body(), matcher.find());
+        return Integer.parseInt(matcher.group(1));
+    }
+}
@@ -0,0 +1,161 @@
+package test.integration;
+
+import data.CsvDataSink;
+import data.DataSink;
+import data.GeneratorConfig;
+import data.SyntheticDataGenerator;
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the synthetic data generator.
+ * These tests verify that generated data sets are reproducible and consistent.
+ */
+public class SyntheticDataGeneratorTest {
+    private static final GeneratorConfig CONFIG = GeneratorConfig.forReservations(5_000);
+
+    @Test
+    public void testCounts() throws IOException {
+        CollectingSink sink = new CollectingSink();
+        SyntheticDataGenerator.Summary summary = new SyntheticDataGenerator(CONFIG).generate(sink);
+
+        assertEquals(CONFIG.reservations(), summary.reservations());
+        assertEquals(CONFIG.reservations(), sink.reservations.size());
+        assertEquals(CONFIG.rooms(), sink.rooms.size());
+        assertEquals(CONFIG.guests(), sink.guests.size());
+        assertEquals(summary.bills(), sink.bills.size());
+        assertTrue("Expected at least the configured share of cancellations",
+                summary.cancelledReservations() >= Math.round(CONFIG.reservations() * CONFIG.cancellationRate()));
+
+        // IDs are unique
+        Set<Integer> ids = new HashSet<>();
+        for (Reservation reservation : sink.reservations) {
+            assertTrue(ids.add(reservation.getId()));
+        }
+    }
+
+    @Test
+    public void testActiveReservationsDoNotOverlap() throws IOException {
+        CollectingSink sink = new CollectingSink();
+        new SyntheticDataGenerator(CONFIG).generate(sink);
+
+        Map<Integer, List<Reservation>> byRoom = new HashMap<>();
+        for (Reservation reservation : sink.reservations) {
+            if (reservation.getStatus() != ReservationStatus.CANCELLED) {
+                byRoom.computeIfAbsent(reservation.getRoom().getRoomNumber(), k -> new ArrayList<>()).add(reservation);
+            }
+        }
+        for (List<Reservation> stays : byRoom.values()) {
+            stays.sort(Comparator.comparing(Reservation::getCheckInDate));
+            for (int i = 1; i < stays.size(); i++) {
+                assertFalse("Overlapping reservations " + stays.get(i - 1).getId() + " and " + stays.get(i).getId(),
+                        stays.get(i).overlaps(stays.get(i - 1).getCheckInDate(), stays.get(i - 1).getCheckOutDate()));
+            }
+        }
+    }
+
+    @Test
+    public void testStatusesMatchToday() throws IOException {
+        CollectingSink sink = new CollectingSink();
+        new SyntheticDataGenerator(CONFIG).generate(sink);
+        LocalDate today = CONFIG.today();
+
+        Set<Integer> occupiedRooms = new HashSet<>();
+        for (Reservation reservation : sink.reservations) {
+            assertTrue(reservation.getCheckOutDate().isAfter(reservation.getCheckInDate()));
+            switch (reservation.getStatus()) {
+                case CHECKED_OUT -> assertTrue(reservation.getCheckOutDate().isBefore(today));
+                case CONFIRMED -> assertTrue(reservation.getCheckInDate().isAfter(today));
+                case CHECKED_IN -> {
+                    assertFalse(reservation.getCheckInDate().isAfter(today));
+                    assertFalse(reservation.getCheckOutDate().isBefore(today));
+                    occupiedRooms.add(reservation.getRoom().getRoomNumber());
+                }
+                default -> {
+                }
+            }
+        }
+        for (Room room : sink.rooms) {
+            assertEquals(occupiedRooms.contains(room.getRoomNumber()), room.getStatus() == RoomStatus.OCCUPIED);
+        }
+        for (Bill bill : sink.bills) {
+            assertEquals(ReservationStatus.CHECKED_OUT, bill.getReservation().getStatus());
+        }
+    }
+
+    @Test
+    public void testSameSeedWritesSameFiles() throws IOException {
+        Path first = Files.createTempDirectory("generator");
+        Path second = Files.createTempDirectory("generator");
+        Path other = Files.createTempDirectory("generator");
+        try {
+            new SyntheticDataGenerator(CONFIG).generate(new CsvDataSink(first));
+            new SyntheticDataGenerator(CONFIG).generate(new CsvDataSink(second));
+            new SyntheticDataGenerator(CONFIG.withSeed(7)).generate(new CsvDataSink(other));
+
+            for (String file : List.of("rooms.csv", "guests.csv", "reservations.csv", "bills.csv")) {
+                assertEquals(file, Files.readAllLines(first.resolve(file)), Files.readAllLines(second.resolve(file)));
+            }
+            assertNotEquals(Files.readAllLines(first.resolve("reservations.csv")),
+                    Files.readAllLines(other.resolve("reservations.csv")));
+            assertEquals(CONFIG.reservations() + 1, Files.readAllLines(first.resolve("reservations.csv")).size());
+        } finally {
+            for (Path directory : List.of(first, second, other)) {
+                try (var files = Files.list(directory)) {
+                    for (Path file : (Iterable<Path>) files::iterator) {
+                        Files.delete(file);
+                    }
+                }
+                Files.delete(directory);
+            }
+        }
+    }
+
+    // Keeps everything in memory instead of replacing the data held by the services
+    private static class CollectingSink implements DataSink {
+        final List<Room> rooms = Collections.synchronizedList(new ArrayList<>());
+        final List<Guest> guests = Collections.synchronizedList(new ArrayList<>());
+        final List<Reservation> reservations = Collections.synchronizedList(new ArrayList<>());
+        final List<Bill> bills = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public void acceptRoom(Room room) {
+            rooms.add(room);
+        }
+
+        @Override
+        public void acceptGuest(Guest guest) {
+            guests.add(guest);
+        }
+
+        @Override
+        public void acceptReservation(Reservation reservation) {
+            reservations.add(reservation);
+        }
+
+        @Override
+        public void acceptBill(Bill bill) {
+            bills.add(bill);
+        }
+    }
+}
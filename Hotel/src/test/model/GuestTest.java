@@ -80,6 +80,24 @@ public class GuestTest {
         assertEquals("Jane Smith", guest.getFullName());
     }
 
+    @Test
+    public void testMatchesSearch() {
+        // Names match anywhere, ignoring case; the ID number matches by prefix
+        assertTrue(guest.matchesSearch("oh"));
+        assertTrue(guest.matchesSearch("doe"));
+        assertTrue(guest.matchesSearch("1234"));
+        assertTrue(guest.matchesSearch(""));
+        assertFalse(guest.matchesSearch("6789"));
+        assertFalse(guest.matchesSearch("smith"));
+
+        // Missing fields never match
+        Guest incomplete = new Guest(null, "Doe", null, "", "", "");
+        assertTrue(incomplete.matchesSearch("doe"));
+        assertFalse(incomplete.matchesSearch("john"));
+        assertTrue(incomplete.matchesName(""));
+        assertFalse(incomplete.matchesName("john"));
+    }
+
     @Test
     public void testToString() {
         // The toString method should return a string containing the full name and ID number
@@ -10,6 +10,7 @@ import org.junit.Test;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 
 import static org.junit.Assert.*;
 
@@ -93,6 +94,23 @@ public class ReservationTest {
         assertEquals(newNotes, reservation.getNotes());
     }
 
+    @Test
+    public void testTimestamps() {
+        // A new reservation is booked now and not changed since
+        assertNotNull(reservation.getCreatedAt());
+        assertEquals(reservation.getCreatedAt(), reservation.getModifiedAt());
+
+        // Reservations loaded with an ID keep their timestamps, or have none
+        LocalDateTime created = LocalDateTime.of(2023, 5, 2, 9, 30);
+        LocalDateTime modified = LocalDateTime.of(2023, 6, 1, 18, 0);
+        Reservation loaded = new Reservation(1, guest, room, checkInDate, checkOutDate,
+                ReservationStatus.CONFIRMED, new BigDecimal("600.00"), notes, created, modified);
+        assertEquals(created, loaded.getCreatedAt());
+        assertEquals(modified, loaded.getModifiedAt());
+        assertNull(new Reservation(1, guest, room, checkInDate, checkOutDate,
+                ReservationStatus.CONFIRMED, new BigDecimal("600.00"), notes).getCreatedAt());
+    }
+
     @Test
     public void testCalculateTotalPrice() {
         // The total price should be the room price per night multiplied by the number of nights
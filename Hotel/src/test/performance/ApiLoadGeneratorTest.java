@@ -0,0 +1,63 @@
+package test.performance;
+
+import api.ApiLoadGenerator;
+import metrics.LatencySnapshot;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.ReservationService;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the HTTP API load generator.
+ * The load test books rooms of its own, with dates far in the future.
+ */
+public class ApiLoadGeneratorTest {
+    private final List<Room> testRooms = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        for (int i = 0; i < 8; i++) {
+            testRooms.add(RoomService.getInstance().addRoom(new Room(8310 + i, 83,
+                    RoomType.values()[i % RoomType.values().length], new BigDecimal("100.00"))));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (Room room : testRooms) {
+            for (Reservation reservation : ReservationService.getInstance().getReservationsByRoom(room)) {
+                ReservationService.getInstance().cancelReservation(reservation.getId());
+            }
+            RoomService.getInstance().deleteRoom(room.getRoomNumber());
+        }
+    }
+
+    @Test
+    public void testShortRun() throws Exception {
+        ApiLoadGenerator.Report report = new ApiLoadGenerator(testRooms, 8, Duration.ofSeconds(2), 7,
+                LocalDate.of(2054, 1, 1)).run();
+
+        assertEquals(0, report.errors());
+        assertTrue(report.getRequests() > 0);
+        assertTrue(report.getThroughput() > 0);
+        List<LatencySnapshot> latencies = report.latencies();
+        assertEquals(4, latencies.size());
+        // Availability queries are the most common request; every booking is cancelled again
+        assertTrue(latencies.get(0).count() > 0);
+        assertTrue(latencies.get(2).count() > 0);
+        assertEquals(latencies.get(2).count() - report.refused(), latencies.get(3).count());
+        assertTrue(report.format().contains("requests/s"));
+    }
+}
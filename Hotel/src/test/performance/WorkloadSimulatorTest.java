@@ -0,0 +1,141 @@
+package test.performance;
+
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomService;
+import simulation.Operation;
+import simulation.SimulationConfig;
+import simulation.SimulationReport;
+import simulation.WorkloadMix;
+import simulation.WorkloadSimulator;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the workload simulator.
+ * The simulations run against rooms of their own, with dates far in the future.
+ */
+public class WorkloadSimulatorTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2046, 1, 1);
+
+    private RoomService roomService;
+    private ReservationService reservationService;
+    private final List<Room> testRooms = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        roomService = RoomService.getInstance();
+        reservationService = ReservationService.getInstance();
+        for (int i = 0; i < 10; i++) {
+            Room room = new Room(7400 + i, 74, RoomType.values()[i % RoomType.values().length],
+                    new BigDecimal("100.00"));
+            testRooms.add(roomService.addRoom(room));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (Room room : testRooms) {
+            for (Reservation reservation : reservationService.getReservationsByRoom(room)) {
+                reservationService.cancelReservation(reservation.getId());
+            }
+            roomService.deleteRoom(room.getRoomNumber());
+        }
+    }
+
+    @Test
+    public void testClosedLoop() throws InterruptedException {
+        SimulationConfig config = SimulationConfig.closedLoop(20, 1, Duration.ofSeconds(1))
+                .withDates(FIRST_DAY, 60);
+        WorkloadSimulator simulator = new WorkloadSimulator(config, testRooms);
+        SimulationReport report = simulator.run();
+        System.out.print(report.format());
+
+        assertNull(simulator.getFirstError());
+        assertEquals(0, report.getErrors());
+        assertTrue(report.getCompleted() > 0);
+        assertTrue(report.get(Operation.BOOKING).latency().count() > 0);
+        assertTrue(report.getThroughput() > 0);
+        assertEquals(0, report.dropped());
+        assertTrue(report.doubleBookings() >= 0);
+
+        // Only the simulated rooms were booked
+        for (Reservation reservation : reservationService.getReservationsForDateRange(FIRST_DAY, FIRST_DAY.plusDays(67))) {
+            if (reservation.getStatus() != ReservationStatus.CANCELLED) {
+                assertTrue(testRooms.stream().anyMatch(room -> room.getRoomNumber() == reservation.getRoom().getRoomNumber()));
+            }
+        }
+    }
+
+    @Test
+    public void testOpenLoop() throws InterruptedException {
+        SimulationConfig config = SimulationConfig.openLoop(500, 10, Duration.ofSeconds(1))
+                .withMix(WorkloadMix.channel())
+                .withDates(FIRST_DAY, 60);
+        SimulationReport report = new WorkloadSimulator(config, testRooms).run();
+        System.out.print(report.format());
+
+        assertEquals(0, report.getErrors());
+        assertTrue(report.getCompleted() > 0);
+        // Arrivals follow the configured rate, whether they were served or dropped
+        long arrivals = report.getCompleted() + report.dropped();
+        assertTrue("Unexpected number of arrivals: " + arrivals, arrivals > 250 && arrivals < 750);
+        assertEquals(0, report.get(Operation.SEARCH).latency().count());
+    }
+
+    @Test
+    public void testCountDoubleBookings() {
+        Guest guest = GuestService.getInstance().getGuestById(1);
+        Room room = testRooms.get(0);
+        Room otherRoom = testRooms.get(1);
+        List<Reservation> reservations = List.of(
+                new Reservation(1, guest, room, FIRST_DAY, FIRST_DAY.plusDays(3), ReservationStatus.CONFIRMED,
+                        BigDecimal.ZERO, ""),
+                // Arrives on the day the first stay leaves
+                new Reservation(2, guest, room, FIRST_DAY.plusDays(3), FIRST_DAY.plusDays(5), ReservationStatus.CONFIRMED,
+                        BigDecimal.ZERO, ""),
+                new Reservation(3, guest, room, FIRST_DAY.plusDays(10), FIRST_DAY.plusDays(12),
+                        ReservationStatus.CONFIRMED, BigDecimal.ZERO, ""),
+                // Cancelled reservations and other rooms do not count
+                new Reservation(4, guest, room, FIRST_DAY.plusDays(10), FIRST_DAY.plusDays(12),
+                        ReservationStatus.CANCELLED, BigDecimal.ZERO, ""),
+                new Reservation(5, guest, otherRoom, FIRST_DAY, FIRST_DAY.plusDays(3), ReservationStatus.CHECKED_IN,
+                        BigDecimal.ZERO, ""));
+
+        assertEquals(1, WorkloadSimulator.countDoubleBookings(reservations));
+    }
+
+    @Test
+    public void testWorkloadMix() {
+        WorkloadMix mix = WorkloadMix.parse("search=3,booking=1");
+        assertEquals(0.75, mix.getShare(Operation.SEARCH), 1e-9);
+        assertEquals(0, mix.getShare(Operation.CHARGE), 1e-9);
+
+        SplittableRandom random = new SplittableRandom(1);
+        int searches = 0;
+        for (int i = 0; i < 10_000; i++) {
+            Operation operation = mix.pick(random);
+            assertTrue(operation == Operation.SEARCH || operation == Operation.BOOKING);
+            if (operation == Operation.SEARCH) {
+                searches++;
+            }
+        }
+        assertEquals(7_500, searches, 300);
+    }
+}
@@ -0,0 +1,223 @@
+package test.service;
+
+import channel.AriBatch;
+import channel.AriPublisher;
+import channel.AriUpdate;
+import channel.FileAriSink;
+import metrics.MetricsRegistry;
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+import service.RateCalendar;
+import service.ReservationService;
+import service.RoomInventory;
+import service.RoomService;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the AriPublisher.
+ * The tests book suites of their own over a short horizon and collect the batches in memory.
+ */
+public class AriPublisherTest {
+    private static final RoomType TYPE = RoomType.SUITE;
+    private static final int HORIZON = 30;
+    private static final Duration WINDOW = Duration.ofMillis(300);
+
+    private AriPublisher publisher;
+    private ReservationService reservationService;
+    private BlockingQueue<AriBatch> batches;
+    private final List<Room> rooms = new ArrayList<>();
+    private Guest guest;
+    private LocalDate today;
+
+    @Before
+    public void setUp() {
+        publisher = AriPublisher.getInstance();
+        reservationService = ReservationService.getInstance();
+        batches = new LinkedBlockingQueue<>();
+        for (int i = 0; i < 5; i++) {
+            rooms.add(RoomService.getInstance().addRoom(new Room(8400 + i, 84, TYPE, new BigDecimal("250.00"))));
+        }
+        guest = GuestService.getInstance().getGuestById(1);
+        today = LocalDate.now();
+    }
+
+    @After
+    public void tearDown() {
+        publisher.stop();
+        for (Room room : rooms) {
+            for (Reservation reservation : reservationService.getReservationsByRoom(room)) {
+                reservationService.cancelReservation(reservation.getId());
+            }
+            RoomService.getInstance().deleteRoom(room.getRoomNumber());
+        }
+    }
+
+    @Test
+    public void testStartSendsWholeHorizon() {
+        publisher.start(batches::add, WINDOW, HORIZON);
+
+        List<AriUpdate> updates = new ArrayList<>();
+        batches.forEach(batch -> updates.addAll(batch.updates()));
+        assertEquals(1, batches.peek().sequence());
+        for (RoomType type : RoomType.values()) {
+            assertEquals(HORIZON, nights(updates, type));
+        }
+        assertMatchesInventory(updates);
+    }
+
+    @Test
+    public void testBurstIsCoalesced() throws Exception {
+        publisher.start(batches::add, WINDOW, HORIZON);
+        batches.clear();
+        long coalesced = counter("AriPublisher.coalesced");
+
+        LocalDate checkIn = today.plusDays(2);
+        for (Room room : rooms) {
+            assertNotNull(reservationService.createReservation(guest, room, checkIn, checkIn.plusDays(4)));
+        }
+
+        AriBatch batch = batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull("The bookings should be pushed", batch);
+        assertNull("The bookings should be pushed together", batches.poll(2 * WINDOW.toMillis(), TimeUnit.MILLISECONDS));
+        // The four nights, and the nights before and after that need the check-in or check-out day
+        assertEquals(6, nights(batch.updates(), TYPE));
+        for (AriUpdate update : batch.updates()) {
+            assertFalse(update.from().isBefore(checkIn.minusDays(1)));
+            assertFalse(update.to().isAfter(checkIn.plusDays(5)));
+        }
+        assertMatchesInventory(batch.updates());
+        // Four nights for each of five bookings, all but the first booking's already pending
+        assertTrue(counter("AriPublisher.coalesced") - coalesced >= 16);
+    }
+
+    @Test
+    public void testBookingCancelledWithinWindowSendsNothing() throws Exception {
+        publisher.start(batches::add, WINDOW, HORIZON);
+        batches.clear();
+        long unchanged = counter("AriPublisher.unchanged");
+
+        Reservation reservation = reservationService.createReservation(guest, rooms.get(0),
+                today.plusDays(10), today.plusDays(12));
+        reservationService.cancelReservation(reservation.getId());
+
+        assertNull(batches.poll(3 * WINDOW.toMillis(), TimeUnit.MILLISECONDS));
+        assertTrue(counter("AriPublisher.unchanged") - unchanged >= 2);
+        assertEquals(0, publisher.getPendingNights());
+    }
+
+    @Test
+    public void testDepartureAndArrivalOnSameDay() throws Exception {
+        publisher.start(batches::add, WINDOW, HORIZON);
+        batches.clear();
+
+        LocalDate changeover = today.plusDays(8);
+        assertNotNull(reservationService.createReservation(guest, rooms.get(0), changeover.minusDays(2), changeover));
+        assertNotNull(reservationService.createReservation(guest, rooms.get(1), changeover, changeover.plusDays(2)));
+
+        List<AriUpdate> updates = new ArrayList<>();
+        AriBatch batch = batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull("The bookings should be pushed", batch);
+        updates.addAll(batch.updates());
+        batches.forEach(more -> updates.addAll(more.updates()));
+        assertMatchesInventory(updates);
+        // Both rooms are taken on the changeover day, so the nights either side sell what can be booked
+        for (LocalDate night : List.of(changeover.minusDays(1), changeover)) {
+            AriUpdate update = updates.stream().filter(u -> u.type() == TYPE && !u.from().isAfter(night)
+                    && u.to().isAfter(night)).findFirst().orElseThrow();
+            assertEquals(reservationService.getAvailableRoomsByTypeForDates(TYPE, night, night.plusDays(1)).size(),
+                    update.available());
+        }
+    }
+
+    @Test
+    public void testRateChangeIsPushed() throws Exception {
+        publisher.start(batches::add, WINDOW, HORIZON);
+        batches.clear();
+
+        LocalDate from = today.plusDays(5);
+        RateCalendar.getInstance().setRate(TYPE, from, from.plusDays(2), new BigDecimal("999.00"));
+        try {
+            AriBatch batch = batches.poll(5, TimeUnit.SECONDS);
+            assertNotNull("The new rates should be pushed without waiting for the daily check", batch);
+            assertEquals(List.of(new AriUpdate(TYPE, from, from.plusDays(2), batch.updates().get(0).available(),
+                    new BigDecimal("999.00"))), batch.updates());
+        } finally {
+            RateCalendar.getInstance().setRate(TYPE, from, from.plusDays(2), null);
+        }
+    }
+
+    @Test
+    public void testFailedBatchIsSentAgain() throws Exception {
+        AtomicBoolean failed = new AtomicBoolean();
+        publisher.start(batch -> {
+            if (failed.compareAndSet(false, true)) {
+                throw new IOException("Channel unavailable");
+            }
+            batches.add(batch);
+        }, WINDOW, HORIZON);
+        assertTrue(batches.isEmpty());
+
+        AriBatch batch = batches.poll(5, TimeUnit.SECONDS);
+        assertNotNull("The batch should be sent again", batch);
+        assertEquals(1, batch.sequence());
+        assertEquals(HORIZON, nights(batch.updates(), TYPE));
+    }
+
+    @Test
+    public void testFileSink() throws IOException {
+        Path file = Files.createTempFile("ari", ".jsonl");
+        try {
+            publisher.start(new FileAriSink(file), WINDOW, HORIZON);
+            publisher.markChanged(TYPE, today, today.plusDays(1));
+            reservationService.createReservation(guest, rooms.get(0), today, today.plusDays(1));
+            publisher.stop();
+
+            List<String> lines = Files.readAllLines(file);
+            assertFalse(lines.isEmpty());
+            assertTrue(lines.get(0).startsWith("{\"sequence\":1,\"created\":\""));
+            assertTrue(lines.get(0).contains("{\"type\":\"SUITE\",\"from\":\"" + today + "\""));
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    // Count the nights of a room type covered by the updates
+    private static long nights(List<AriUpdate> updates, RoomType type) {
+        return updates.stream().filter(update -> update.type() == type)
+                .mapToLong(update -> ChronoUnit.DAYS.between(update.from(), update.to())).sum();
+    }
+
+    private static void assertMatchesInventory(List<AriUpdate> updates) {
+        for (AriUpdate update : updates) {
+            int nights = (int) ChronoUnit.DAYS.between(update.from(), update.to());
+            for (int bookable : RoomInventory.getInstance().getBookableByNight(update.type(), update.from(), nights)) {
+                assertEquals(Math.max(0, bookable), update.available());
+            }
+        }
+    }
+
+    private static long counter(String name) {
+        return MetricsRegistry.getInstance().counter(name).get();
+    }
+}
@@ -0,0 +1,137 @@
+package test.service;
+
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.AsyncGuestService;
+import service.AsyncReservationService;
+import service.AsyncRoomService;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the asynchronous service facades.
+ * The tests use a room and guests of their own and remove them afterwards.
+ */
+public class AsyncReservationServiceTest {
+    private AsyncReservationService reservations;
+    private Room room;
+    private Guest guest;
+
+    @Before
+    public void setUp() {
+        reservations = AsyncReservationService.getInstance();
+        room = RoomService.getInstance().addRoom(new Room(8200, 82, RoomType.SIMPLE, new BigDecimal("90.00")));
+        guest = new Guest("Walk", "In", "AS-8200", "555-8200", "walk.in@example.com", "8200 Async St");
+    }
+
+    @After
+    public void tearDown() {
+        for (Reservation reservation : ReservationService.getInstance().getReservationsByRoom(room)) {
+            ReservationService.getInstance().cancelReservation(reservation.getId());
+        }
+        RoomService.getInstance().deleteRoom(room.getRoomNumber());
+        if (guest.getId() != 0) {
+            GuestService.getInstance().deleteGuest(guest.getId());
+        }
+    }
+
+    @Test
+    public void testQueriesRunInParallel() throws Exception {
+        CompletableFuture<List<Room>> rooms = AsyncRoomService.getInstance().getAllRooms();
+        CompletableFuture<List<Guest>> guests = AsyncGuestService.getInstance().getAllGuests();
+        CompletableFuture<Boolean> available = reservations.isRoomAvailable(room.getRoomNumber(),
+                LocalDate.now().plusDays(1), LocalDate.now().plusDays(3));
+        CompletableFuture.allOf(rooms, guests, available).get(10, TimeUnit.SECONDS);
+
+        assertTrue(rooms.get().contains(room));
+        assertFalse(guests.get().isEmpty());
+        assertTrue(available.get());
+    }
+
+    @Test
+    public void testWalkIn() throws Exception {
+        Reservation reservation = reservations.walkIn(guest, room, LocalDate.now().plusDays(2)).get(10, TimeUnit.SECONDS);
+
+        assertTrue(guest.getId() > 0);
+        assertSame(guest, reservation.getGuest());
+        assertEquals(ReservationStatus.CHECKED_IN, reservation.getStatus());
+        assertEquals(RoomStatus.OCCUPIED, room.getStatus());
+    }
+
+    @Test
+    public void testWalkInFailsWhenRoomIsTaken() throws Exception {
+        Guest other = GuestService.getInstance().getGuestById(1);
+        assertNotNull(reservations.createReservation(other, room, LocalDate.now(), LocalDate.now().plusDays(5)).get());
+
+        try {
+            reservations.walkIn(guest, room, LocalDate.now().plusDays(2)).get(10, TimeUnit.SECONDS);
+            fail("The walk-in should fail");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof IllegalStateException);
+        }
+        // The guest was registered before the booking failed
+        assertSame(guest, GuestService.getInstance().getGuestById(guest.getId()));
+    }
+
+    @Test
+    public void testTimeoutAndCancellation() throws Exception {
+        // One thread, kept busy so that later calls wait
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            executor.execute(() -> {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+
+            AsyncRoomService rooms = new AsyncRoomService(executor, Duration.ofMillis(50));
+            try {
+                rooms.getAllRooms().get(10, TimeUnit.SECONDS);
+                fail("The call should time out");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof TimeoutException);
+            }
+
+            // A cancelled call that has not started never runs, nor does anything composed after it
+            AtomicBoolean composedRan = new AtomicBoolean();
+            CompletableFuture<Boolean> deletion = new AsyncRoomService(executor, null).deleteRoom(room.getRoomNumber());
+            CompletableFuture<Void> after = deletion.thenAccept(deleted -> composedRan.set(true));
+            assertTrue(deletion.cancel(true));
+            release.countDown();
+            assertThrows(CancellationException.class, deletion::join);
+            assertTrue(after.isCompletedExceptionally());
+            executor.submit(() -> { }).get(10, TimeUnit.SECONDS);
+            assertFalse(composedRan.get());
+            assertSame(room, RoomService.getInstance().getRoomByNumber(room.getRoomNumber()));
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package test.service;
+
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.AvailabilityCache;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the cache of available-room queries.
+ * The tests use a room of their own and dates in 2049.
+ */
+public class AvailabilityCacheTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2049, 6, 1);
+
+    private AvailabilityCache cache;
+    private ReservationService reservationService;
+    private RoomService roomService;
+    private Guest guest;
+    private Room testRoom;
+
+    @Before
+    public void setUp() {
+        cache = AvailabilityCache.getInstance();
+        reservationService = ReservationService.getInstance();
+        roomService = RoomService.getInstance();
+        guest = GuestService.getInstance().getGuestById(1);
+        testRoom = roomService.addRoom(new Room(7700, 77, RoomType.SUITE, new BigDecimal("250.00")));
+    }
+
+    @After
+    public void tearDown() {
+        for (Reservation reservation : reservationService.getReservationsByRoom(testRoom)) {
+            reservationService.cancelReservation(reservation.getId());
+        }
+        roomService.deleteRoom(testRoom.getRoomNumber());
+    }
+
+    @Test
+    public void testRepeatedQueryIsHit() {
+        long hits = cache.getHitCount();
+        long misses = cache.getMissCount();
+        List<Room> first = reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, FIRST_DAY, FIRST_DAY.plusDays(2));
+        List<Room> second = reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, FIRST_DAY, FIRST_DAY.plusDays(2));
+
+        assertEquals(misses + 1, cache.getMissCount());
+        assertEquals(hits + 1, cache.getHitCount());
+        assertEquals(first, second);
+        assertTrue(second.contains(testRoom));
+
+        // Callers get their own copy
+        second.clear();
+        assertFalse(reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, FIRST_DAY, FIRST_DAY.plusDays(2))
+                .isEmpty());
+    }
+
+    @Test
+    public void testBookingInvalidatesOverlappingQueries() {
+        LocalDate weekend = FIRST_DAY.plusDays(10);
+        assertTrue(containsTestRoom(reservationService.getAvailableRoomsForDates(weekend, weekend.plusDays(2))));
+        assertTrue(containsTestRoom(reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, weekend, weekend.plusDays(2))));
+        reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, weekend.plusDays(20), weekend.plusDays(22));
+        reservationService.getAvailableRoomsByTypeForDates(RoomType.DOUBLE, weekend, weekend.plusDays(2));
+
+        Reservation reservation = reservationService.createReservation(guest, testRoom, weekend, weekend.plusDays(1));
+        assertNotNull(reservation);
+        long hits = cache.getHitCount();
+        long misses = cache.getMissCount();
+
+        // Queries for the room's type and for all types over the stay are recomputed
+        assertFalse(containsTestRoom(reservationService.getAvailableRoomsForDates(weekend, weekend.plusDays(2))));
+        assertFalse(containsTestRoom(reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, weekend, weekend.plusDays(2))));
+        assertEquals(misses + 2, cache.getMissCount());
+
+        // Other dates and other types are still cached
+        reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, weekend.plusDays(20), weekend.plusDays(22));
+        reservationService.getAvailableRoomsByTypeForDates(RoomType.DOUBLE, weekend, weekend.plusDays(2));
+        assertEquals(hits + 2, cache.getHitCount());
+
+        // Cancelling frees the room again
+        reservationService.cancelReservation(reservation.getId());
+        assertTrue(containsTestRoom(reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, weekend, weekend.plusDays(2))));
+    }
+
+    @Test
+    public void testRoomStatusChangeInvalidatesType() {
+        LocalDate day = FIRST_DAY.plusDays(40);
+        assertTrue(containsTestRoom(reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, day, day.plusDays(1))));
+
+        roomService.changeRoomStatus(testRoom.getRoomNumber(), RoomStatus.MAINTENANCE);
+        assertFalse(containsTestRoom(reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, day, day.plusDays(1))));
+        roomService.changeRoomStatus(testRoom.getRoomNumber(), RoomStatus.AVAILABLE);
+        assertTrue(containsTestRoom(reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, day, day.plusDays(1))));
+    }
+
+    @Test
+    public void testReAddingRoomAsOtherTypeInvalidatesBothTypes() {
+        LocalDate day = FIRST_DAY.plusDays(50);
+        assertTrue(containsTestRoom(reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, day, day.plusDays(1))));
+
+        testRoom = roomService.addRoom(new Room(testRoom.getRoomNumber(), 77, RoomType.DOUBLE, new BigDecimal("150.00")));
+        assertFalse(containsTestRoom(reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, day, day.plusDays(1))));
+        assertTrue(containsTestRoom(reservationService.getAvailableRoomsByTypeForDates(RoomType.DOUBLE, day, day.plusDays(1))));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedQueriesAreEvicted() {
+        cache.clear();
+        long evictions = cache.getEvictionCount();
+        LocalDate day = FIRST_DAY.plusDays(60);
+        reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, day, day.plusDays(1));
+        for (int i = 1; i <= 1100; i++) {
+            reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, day.plusDays(i), day.plusDays(i + 1));
+            // Keep the first query in use
+            reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, day, day.plusDays(1));
+        }
+
+        assertTrue(cache.getEvictionCount() > evictions);
+        assertTrue(cache.size() <= 1024);
+        long misses = cache.getMissCount();
+        reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, day, day.plusDays(1));
+        assertEquals(misses, cache.getMissCount());
+        reservationService.getAvailableRoomsByTypeForDates(RoomType.SUITE, day.plusDays(1), day.plusDays(2));
+        assertEquals(misses + 1, cache.getMissCount());
+    }
+
+    private boolean containsTestRoom(List<Room> rooms) {
+        return rooms.stream().anyMatch(room -> room.getRoomNumber() == testRoom.getRoomNumber());
+    }
+}
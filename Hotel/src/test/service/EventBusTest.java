@@ -0,0 +1,147 @@
+package test.service;
+
+import event.DomainEvent;
+import event.EventBus;
+import model.Guest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the EventBus class.
+ * These tests verify typed delivery, unsubscribing, EDT batching and that the services publish their changes.
+ */
+public class EventBusTest {
+    private EventBus eventBus;
+    private List<EventBus.Subscription> subscriptions;
+
+    @Before
+    public void setUp() {
+        eventBus = EventBus.getInstance();
+        subscriptions = new ArrayList<>();
+    }
+
+    @After
+    public void tearDown() {
+        subscriptions.forEach(EventBus.Subscription::unsubscribe);
+    }
+
+    @Test
+    public void testTypedListenerRunsOffCallerThread() throws Exception {
+        BlockingQueue<DomainEvent.GuestAdded> received = new LinkedBlockingQueue<>();
+        AtomicBoolean onCallerThread = new AtomicBoolean(false);
+        Thread caller = Thread.currentThread();
+        subscriptions.add(eventBus.subscribe(DomainEvent.GuestAdded.class, event -> {
+            onCallerThread.compareAndSet(false, Thread.currentThread() == caller);
+            received.add(event);
+        }));
+
+        Guest guest = new Guest(1, "John", "Doe", "123", "", "", "");
+        eventBus.publish(new DomainEvent.GuestUpdated(guest));
+        eventBus.publish(new DomainEvent.GuestAdded(guest));
+
+        DomainEvent.GuestAdded event = received.poll(2, TimeUnit.SECONDS);
+        assertNotNull("GuestAdded should be delivered", event);
+        assertSame(guest, event.guest());
+        assertFalse("Listeners should not run on the publishing thread", onCallerThread.get());
+        assertNull("Other event types should not be delivered", received.poll(100, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    public void testUnsubscribe() throws Exception {
+        AtomicInteger count = new AtomicInteger();
+        CountDownLatch delivered = new CountDownLatch(1);
+        EventBus.Subscription subscription = eventBus.subscribe(DomainEvent.GuestAdded.class, event -> {
+            count.incrementAndGet();
+            delivered.countDown();
+        });
+        Guest guest = new Guest(1, "John", "Doe", "123", "", "", "");
+
+        eventBus.publish(new DomainEvent.GuestAdded(guest));
+        assertTrue(delivered.await(2, TimeUnit.SECONDS));
+        subscription.unsubscribe();
+        eventBus.publish(new DomainEvent.GuestAdded(guest));
+        Thread.sleep(100);
+
+        assertEquals(1, count.get());
+    }
+
+    @Test
+    public void testEdtListenerReceivesBatches() throws Exception {
+        int eventCount = 1000;
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        AtomicBoolean offEdt = new AtomicBoolean(false);
+        AtomicInteger total = new AtomicInteger();
+        CountDownLatch allDelivered = new CountDownLatch(1);
+        subscriptions.add(eventBus.subscribeOnEdt(events -> {
+            offEdt.compareAndSet(false, !SwingUtilities.isEventDispatchThread());
+            batchSizes.add(events.size());
+            if (total.addAndGet(events.size()) >= eventCount) {
+                allDelivered.countDown();
+            }
+        }));
+
+        Guest guest = new Guest(1, "John", "Doe", "123", "", "", "");
+        for (int i = 0; i < eventCount; i++) {
+            eventBus.publish(new DomainEvent.GuestUpdated(guest));
+        }
+
+        assertTrue("All events should reach the EDT", allDelivered.await(5, TimeUnit.SECONDS));
+        assertFalse("EDT listeners should run on the EDT", offEdt.get());
+        assertEquals(eventCount, total.get());
+        assertTrue("Events should be batched, got " + batchSizes.size() + " batches",
+                batchSizes.size() < eventCount / 10);
+    }
+
+    @Test
+    public void testServicesPublishChanges() throws Exception {
+        // Create the singleton first so its sample guests are not mistaken for the one added below
+        GuestService guestService = GuestService.getInstance();
+        BlockingQueue<DomainEvent> received = new LinkedBlockingQueue<>();
+        subscriptions.add(eventBus.subscribe(DomainEvent.GuestAdded.class, received::add));
+        subscriptions.add(eventBus.subscribe(DomainEvent.GuestDeleted.class, received::add));
+
+        Guest guest = guestService.addGuest(new Guest(0, "Event", "Guest", "EV-1", "", "", ""));
+        guestService.deleteGuest(guest.getId());
+
+        DomainEvent added = pollFor(received, guest);
+        DomainEvent deleted = pollFor(received, guest);
+        assertTrue(added instanceof DomainEvent.GuestAdded);
+        assertSame(guest, ((DomainEvent.GuestAdded) added).guest());
+        assertTrue(deleted instanceof DomainEvent.GuestDeleted);
+        assertEquals(guest.getId(), ((DomainEvent.GuestDeleted) deleted).guest().getId());
+    }
+
+    /**
+     * Polls the queue until an event about the given guest arrives, skipping events about other guests.
+     */
+    private DomainEvent pollFor(BlockingQueue<DomainEvent> received, Guest guest) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        while (true) {
+            DomainEvent event = received.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (event == null) {
+                fail("No event received for guest " + guest.getId());
+            }
+            Guest subject = event instanceof DomainEvent.GuestAdded
+                    ? ((DomainEvent.GuestAdded) event).guest()
+                    : ((DomainEvent.GuestDeleted) event).guest();
+            if (subject.getId() == guest.getId()) {
+                return event;
+            }
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package test.service;
+
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import model.StayOption;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+import service.RateCalendar;
+import service.ReservationService;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the flexible-date search of the ReservationService.
+ * The tests use two cheap suites of their own and dates in March 2050.
+ */
+public class FlexibleStaySearchTest {
+    private static final LocalDate MARCH_1 = LocalDate.of(2050, 3, 1);
+    private static final LocalDate MARCH_31 = LocalDate.of(2050, 3, 31);
+
+    private ReservationService reservationService;
+    private RoomService roomService;
+    private Room cheapRoom;
+    private Room otherRoom;
+
+    @Before
+    public void setUp() {
+        reservationService = ReservationService.getInstance();
+        roomService = RoomService.getInstance();
+        cheapRoom = roomService.addRoom(new Room(7800, 78, RoomType.SUITE, new BigDecimal("10.00")));
+        otherRoom = roomService.addRoom(new Room(7801, 78, RoomType.SUITE, new BigDecimal("20.00")));
+
+        // The cheap suite is taken from the 5th to the 8th
+        Guest guest = GuestService.getInstance().getGuestById(1);
+        assertNotNull(reservationService.createReservation(guest, cheapRoom, MARCH_1.plusDays(4), MARCH_1.plusDays(7)));
+    }
+
+    @After
+    public void tearDown() {
+        for (Room room : List.of(cheapRoom, otherRoom)) {
+            for (Reservation reservation : reservationService.getReservationsByRoom(room)) {
+                reservationService.cancelReservation(reservation.getId());
+            }
+            roomService.deleteRoom(room.getRoomNumber());
+        }
+    }
+
+    @Test
+    public void testCheapestWindowsFirst() {
+        List<StayOption> options = reservationService.findFlexibleStays(MARCH_1, MARCH_31, 3, RoomType.SUITE, 2, 5);
+
+        assertEquals(5, options.size());
+        // The cheap suite is free for three nights from the 1st, and again from the 9th
+        assertStay(options.get(0), cheapRoom, MARCH_1, "30.00");
+        for (int i = 1; i < 5; i++) {
+            assertStay(options.get(i), cheapRoom, MARCH_1.plusDays(7 + i), "30.00");
+        }
+    }
+
+    @Test
+    public void testEveryStartDayOnce() {
+        List<StayOption> options = reservationService.findFlexibleStays(MARCH_1, MARCH_31, 3, RoomType.SUITE, 1, 100);
+
+        // Check-in from the 1st to the 28th, so the guests leave by the 31st
+        assertEquals(28, options.size());
+        assertEquals(28, options.stream().map(StayOption::getCheckInDate).distinct().count());
+        assertTrue(options.stream().allMatch(option -> !option.getCheckOutDate().isAfter(MARCH_31)));
+
+        // While the cheap suite is taken, the other suite is offered and there is one room less
+        StayOption second = find(options, MARCH_1.plusDays(1));
+        assertStay(second, otherRoom, MARCH_1.plusDays(1), "60.00");
+        assertEquals(find(options, MARCH_1).getAvailableRooms() - 1, second.getAvailableRooms());
+
+        // Prices never go down along the list
+        for (int i = 1; i < options.size(); i++) {
+            assertTrue(options.get(i - 1).getTotalPrice().compareTo(options.get(i).getTotalPrice()) <= 0);
+        }
+    }
+
+    @Test
+    public void testPartySizeAndPeriod() {
+        assertTrue(reservationService.findFlexibleStays(MARCH_1, MARCH_31, 3, null, 4, 10).isEmpty());
+        assertTrue(reservationService.findFlexibleStays(MARCH_1, MARCH_1.plusDays(2), 3, RoomType.SUITE, 1, 10).isEmpty());
+
+        // Any type that holds three guests
+        List<StayOption> options = reservationService.findFlexibleStays(MARCH_1, MARCH_31, 3, null, 3, 1);
+        assertStay(options.get(0), cheapRoom, MARCH_1, "30.00");
+    }
+
+    @Test
+    public void testPricesFromRateCalendar() {
+        // Rates only apply within the calendar, which does not reach 2050
+        LocalDate first = LocalDate.now().plusYears(5);
+        RateCalendar rateCalendar = RateCalendar.getInstance();
+        rateCalendar.setRate(RoomType.SUITE, first, first.plusDays(1), new BigDecimal("100.00"));
+        rateCalendar.setRoomRate(otherRoom, first.plusDays(2), first.plusDays(5), new BigDecimal("1.00"));
+        try {
+            List<StayOption> options = reservationService.findFlexibleStays(first, first.plusDays(10), 3,
+                    RoomType.SUITE, 2, 100);
+
+            assertStay(options.get(0), otherRoom, first.plusDays(2), "3.00");
+            assertStay(find(options, first), cheapRoom, first, "120.00");
+            assertStay(find(options, first.plusDays(1)), otherRoom, first.plusDays(1), "22.00");
+        } finally {
+            rateCalendar.setRate(RoomType.SUITE, first, first.plusDays(1), null);
+            rateCalendar.clearRoomRates(otherRoom.getRoomNumber());
+        }
+    }
+
+    private static StayOption find(List<StayOption> options, LocalDate checkIn) {
+        return options.stream().filter(option -> option.getCheckInDate().equals(checkIn)).findFirst().orElseThrow();
+    }
+
+    private static void assertStay(StayOption option, Room room, LocalDate checkIn, String price) {
+        assertEquals(room.getRoomNumber(), option.getRoom().getRoomNumber());
+        assertEquals(checkIn, option.getCheckInDate());
+        assertEquals(checkIn.plusDays(3), option.getCheckOutDate());
+        assertEquals(0, new BigDecimal(price).compareTo(option.getTotalPrice()));
+    }
+}
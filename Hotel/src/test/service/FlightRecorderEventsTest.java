@@ -0,0 +1,156 @@
+package test.service;
+
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.BillingService;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Tests for the Flight Recorder events emitted by the services.
+ */
+public class FlightRecorderEventsTest {
+    private static final String[] EVENTS = {"hotel.Booking", "hotel.AvailabilityCheck", "hotel.AvailableRooms",
+            "hotel.GuestSearch", "hotel.BillTotal", "hotel.PanelLoad"};
+
+    private final LocalDate checkInDate = LocalDate.of(2031, 3, 10);
+    private final LocalDate checkOutDate = LocalDate.of(2031, 3, 13);
+    private Recording recording;
+    private Path file;
+    private Room testRoom;
+    private Room otherRoom;
+    private Reservation otherReservation;
+
+    @Before
+    public void setUp() throws Exception {
+        testRoom = RoomService.getInstance().addRoom(new Room(7301, 73, RoomType.DOUBLE, new BigDecimal("120.00")));
+        RoomService.getInstance().changeRoomStatus(testRoom.getRoomNumber(), RoomStatus.AVAILABLE);
+        // A booking of another room over the same dates, for the availability checks to look at
+        otherRoom = RoomService.getInstance().addRoom(new Room(7302, 73, RoomType.DOUBLE, new BigDecimal("120.00")));
+        RoomService.getInstance().changeRoomStatus(otherRoom.getRoomNumber(), RoomStatus.AVAILABLE);
+        otherReservation = ReservationService.getInstance().createReservation(
+                GuestService.getInstance().getGuestById(1), otherRoom, checkInDate, checkOutDate);
+
+        recording = new Recording();
+        for (String event : EVENTS) {
+            recording.enable(event).withThreshold(Duration.ZERO);
+        }
+        recording.start();
+        file = Files.createTempFile("hotel", ".jfr");
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        recording.close();
+        Files.deleteIfExists(file);
+        ReservationService.getInstance().cancelReservation(otherReservation.getId());
+        RoomService.getInstance().deleteRoom(testRoom.getRoomNumber());
+        RoomService.getInstance().deleteRoom(otherRoom.getRoomNumber());
+    }
+
+    @Test
+    public void testBookingEvents() throws Exception {
+        Guest guest = GuestService.getInstance().getGuestById(1);
+        Reservation reservation = ReservationService.getInstance()
+                .createReservation(guest, testRoom, checkInDate, checkOutDate);
+        assertNotNull(reservation);
+        // The same room again is refused
+        assertNull(ReservationService.getInstance().createReservation(guest, testRoom, checkInDate, checkOutDate));
+        ReservationService.getInstance().getAvailableRoomsByTypeForDates(RoomType.DOUBLE, checkInDate, checkOutDate);
+
+        List<RecordedEvent> bookings = readEvents("hotel.Booking");
+        assertEquals(2, bookings.size());
+        RecordedEvent booked = bookings.get(0);
+        assertEquals(testRoom.getRoomNumber(), booked.getInt("roomNumber"));
+        assertEquals(guest.getId(), booked.getInt("guestId"));
+        assertEquals("2031-03-10", booked.getString("checkInDate"));
+        assertEquals(3, booked.getInt("nights"));
+        assertEquals(reservation.getId(), booked.getInt("reservationId"));
+        assertEquals(0, bookings.get(1).getInt("reservationId"));
+
+        List<RecordedEvent> checks = readEvents("hotel.AvailabilityCheck");
+        assertEquals(2, checks.size());
+        assertTrue(checks.get(0).getBoolean("available"));
+        assertFalse(checks.get(1).getBoolean("available"));
+        // The checks look at the reservations over the requested dates, including the one just made
+        assertTrue(checks.get(0).getInt("scanned") >= 1);
+        assertEquals(checks.get(0).getInt("scanned") + 1, checks.get(1).getInt("scanned"));
+
+        // The typed query only looks at rooms of its type
+        List<RecordedEvent> queries = readEvents("hotel.AvailableRooms");
+        assertEquals(1, queries.size());
+        assertEquals("DOUBLE", queries.get(0).getString("roomType"));
+
+        ReservationService.getInstance().cancelReservation(reservation.getId());
+    }
+
+    @Test
+    public void testSearchAndBillingEvents() throws Exception {
+        GuestService.getInstance().searchGuests("smi");
+        GuestService.getInstance().searchGuestByIdNumber("does-not-exist");
+        List<Bill> bills = BillingService.getInstance().getAllBills();
+        int billId = bills.isEmpty() ? -1 : bills.get(0).getId();
+        BillingService.getInstance().calculateTotal(billId);
+
+        List<RecordedEvent> searches = readEvents("hotel.GuestSearch");
+        assertEquals(2, searches.size());
+        assertEquals("any", searches.get(0).getString("searchType"));
+        assertEquals(3, searches.get(0).getInt("termLength"));
+        assertTrue(searches.get(0).getInt("resultSize") >= 1);
+        assertEquals(0, searches.get(1).getInt("resultSize"));
+
+        List<RecordedEvent> totals = readEvents("hotel.BillTotal");
+        assertEquals(1, totals.size());
+        assertEquals(billId, totals.get(0).getInt("billId"));
+    }
+
+    @Test
+    public void testBundledSettings() throws Exception {
+        // Tests run from either the project or the source directory
+        Path settings = Path.of("resources", "hotel.jfc");
+        if (!Files.exists(settings)) {
+            settings = Path.of("src", "resources", "hotel.jfc");
+        }
+        Configuration configuration = Configuration.create(settings);
+        for (String event : EVENTS) {
+            assertEquals("true", configuration.getSettings().get(event + "#enabled"));
+        }
+    }
+
+    private List<RecordedEvent> readEvents(String name) throws Exception {
+        if (recording.getState() == RecordingState.RUNNING) {
+            recording.stop();
+            recording.dump(file);
+        }
+        return RecordingFile.readAllEvents(file).stream()
+                .filter(event -> event.getEventType().getName().equals(name))
+                .filter(event -> event.getThread() != null
+                        && event.getThread().getJavaThreadId() == Thread.currentThread().getId())
+                .sorted(Comparator.comparing(RecordedEvent::getStartTime))
+                .collect(Collectors.toList());
+    }
+}
@@ -182,6 +182,20 @@ public class GuestServiceTest {
         guestService.deleteGuest(addedGuest.getId());
     }
 
+    @Test
+    public void testSearchSkipsGuestsWithoutNames() {
+        Guest unnamed = guestService.addGuest(new Guest(null, null, "NONAME-1", "", "", ""));
+        Guest lastNameOnly = guestService.addGuest(new Guest(null, "Nameless", "NONAME-2", "", "", ""));
+        try {
+            List<Guest> results = guestService.searchGuestsByName("Nameless");
+            assertTrue(results.stream().anyMatch(guest -> guest.getId() == lastNameOnly.getId()));
+            assertFalse(results.stream().anyMatch(guest -> guest.getId() == unnamed.getId()));
+        } finally {
+            guestService.deleteGuest(unnamed.getId());
+            guestService.deleteGuest(lastNameOnly.getId());
+        }
+    }
+
     @Test
     public void testSearchGuestByIdNumber() {
         // Add the test guest
@@ -0,0 +1,197 @@
+package test.service;
+
+import event.DomainEvent;
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.BillingService;
+import service.ExecutionMode;
+import service.GuestService;
+import service.HotelChain;
+import service.Property;
+import service.ReservationService;
+import service.RoomService;
+import service.StateWriter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the HotelChain and its properties.
+ * Two properties are opened for each test, with rooms numbered like those of the main hotel.
+ */
+public class HotelChainTest {
+    private static final LocalDate DAY = LocalDate.now().plusYears(3);
+
+    private HotelChain chain;
+    private Property north;
+    private Property south;
+    private Guest guest;
+
+    @Before
+    public void setUp() {
+        chain = HotelChain.getInstance();
+        guest = GuestService.getInstance().getGuestById(1);
+        north = chain.addProperty("North");
+        south = chain.addProperty("South");
+        for (Property property : List.of(north, south)) {
+            property.getRoomService().addRoom(new Room(101, 1, RoomType.SIMPLE, new BigDecimal("90.00")));
+            property.getRoomService().addRoom(new Room(102, 1, RoomType.SUITE, new BigDecimal("300.00")));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        StateWriter.getInstance().setMode(ExecutionMode.DIRECT);
+        chain.removeProperty(north.getId());
+        chain.removeProperty(south.getId());
+        for (Reservation reservation : ReservationService.getInstance().getReservationsForDateRange(DAY, DAY.plusDays(30))) {
+            ReservationService.getInstance().cancelReservation(reservation.getId());
+        }
+    }
+
+    @Test
+    public void testPropertiesAreSeparate() {
+        assertSame(RoomService.getInstance(), chain.getMainProperty().getRoomService());
+        assertEquals(List.of(chain.getMainProperty(), north, south), chain.getProperties());
+        assertSame(south, chain.getProperty(south.getId()));
+        assertNotSame(north.getWriter(), south.getWriter());
+
+        // The same room number at each hotel is a different room, booked and billed on its own
+        Room northRoom = north.getRoomService().getRoomByNumber(101);
+        Room southRoom = south.getRoomService().getRoomByNumber(101);
+        assertNotSame(northRoom, southRoom);
+        assertEquals(new BigDecimal("90.00"), northRoom.getPricePerNight());
+        assertEquals(new BigDecimal("100.00"), RoomService.getInstance().getRoomByNumber(101).getPricePerNight());
+        Reservation atNorth = north.getReservationService().createReservation(guest, northRoom, DAY, DAY.plusDays(2));
+        Reservation atSouth = south.getReservationService().createReservation(guest, southRoom, DAY, DAY.plusDays(2));
+        assertNotNull(atNorth);
+        assertNotNull(atSouth);
+        assertEquals(1, atNorth.getId());
+        assertEquals(1, atSouth.getId());
+        assertFalse(north.getReservationService().isRoomAvailable(101, DAY, DAY.plusDays(2)));
+        assertTrue(ReservationService.getInstance().isRoomAvailable(101, DAY, DAY.plusDays(2)));
+        assertTrue(ReservationService.getInstance().getReservationsByRoom(northRoom).isEmpty());
+
+        BillingService billing = north.getBillingService();
+        Bill bill = billing.createBill(atNorth);
+        assertSame(bill, billing.getBillByReservation(atNorth));
+        assertNull(south.getBillingService().getBillByReservation(atSouth));
+
+        assertTrue(chain.removeProperty(south.getId()));
+        assertNull(chain.getProperty(south.getId()));
+        assertThrows(IllegalArgumentException.class, () -> chain.removeProperty(chain.getMainProperty().getId()));
+    }
+
+    @Test
+    public void testGuestHistorySpansTheChain() {
+        Reservation third = south.getReservationService().createReservation(guest,
+                south.getRoomService().getRoomByNumber(102), DAY.plusDays(20), DAY.plusDays(22));
+        Reservation first = north.getReservationService().createReservation(guest,
+                north.getRoomService().getRoomByNumber(101), DAY, DAY.plusDays(3));
+        Reservation second = ReservationService.getInstance().createReservation(guest,
+                RoomService.getInstance().getRoomByNumber(202), DAY.plusDays(10), DAY.plusDays(12));
+
+        // Leaving out the guest's stays from other tests at the main hotel
+        List<Reservation> booked = List.of(first, second, third);
+        List<HotelChain.PropertyReservation> history = chain.getGuestHistory(guest).stream()
+                .filter(stay -> booked.contains(stay.reservation()))
+                .collect(Collectors.toList());
+        assertEquals(List.of(new HotelChain.PropertyReservation(north, first),
+                new HotelChain.PropertyReservation(chain.getMainProperty(), second),
+                new HotelChain.PropertyReservation(south, third)), history);
+    }
+
+    @Test
+    public void testChainAvailabilityLeavesOutFullProperties() {
+        north.getReservationService().createReservation(guest, north.getRoomService().getRoomByNumber(102),
+                DAY, DAY.plusDays(4));
+        List<HotelChain.PropertyRooms> suites = chain.getChainAvailability(RoomType.SUITE, DAY.plusDays(1), DAY.plusDays(2));
+        List<Property> withSuites = suites.stream().map(HotelChain.PropertyRooms::property).collect(Collectors.toList());
+        assertFalse(withSuites.contains(north));
+        assertTrue(withSuites.contains(south));
+        assertEquals(withSuites.indexOf(south), withSuites.size() - 1);
+
+        List<HotelChain.PropertyRooms> any = chain.getChainAvailability(null, DAY.plusDays(1), DAY.plusDays(2));
+        HotelChain.PropertyRooms atNorth = any.stream().filter(free -> free.property() == north).findFirst().orElseThrow();
+        assertEquals(List.of(north.getRoomService().getRoomByNumber(101)), atNorth.rooms());
+    }
+
+    @Test
+    public void testPropertiesDoNotWaitForEachOther() throws Exception {
+        StateWriter.getInstance().setMode(ExecutionMode.LOCKED);
+        Property east = chain.addProperty("East");
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            assertEquals(ExecutionMode.LOCKED, east.getWriter().getMode());
+            // Hold the main hotel's writer while a room is added at another property
+            CountDownLatch held = new CountDownLatch(1);
+            CountDownLatch release = new CountDownLatch(1);
+            Future<Object> holder = executor.submit(() -> StateWriter.getInstance().write(() -> {
+                held.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return null;
+            }));
+            assertTrue(held.await(5, TimeUnit.SECONDS));
+            Room room = executor.submit(() ->
+                    east.getRoomService().addRoom(new Room(101, 1, RoomType.DOUBLE, new BigDecimal("150.00"))))
+                    .get(2, TimeUnit.SECONDS);
+            assertNotNull(room);
+            release.countDown();
+            holder.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+            chain.removeProperty(east.getId());
+        }
+    }
+
+    @Test
+    public void testRemovedPropertyStopsItsThreads() throws Exception {
+        StateWriter.getInstance().setMode(ExecutionMode.PIPELINE);
+        long before = countThreads("event-bus");
+        Property west = chain.addProperty("West");
+        try {
+            // A listener makes the bus start its dispatcher thread
+            CountDownLatch delivered = new CountDownLatch(1);
+            west.getEventBus().subscribe(DomainEvent.RoomAdded.class, event -> delivered.countDown());
+            west.getRoomService().addRoom(new Room(101, 1, RoomType.SIMPLE, new BigDecimal("90.00")));
+            assertTrue(delivered.await(2, TimeUnit.SECONDS));
+            assertEquals(ExecutionMode.PIPELINE, west.getWriter().getMode());
+            assertEquals(before + 1, countThreads("event-bus"));
+        } finally {
+            assertTrue(chain.removeProperty(west.getId()));
+        }
+
+        assertEquals(ExecutionMode.DIRECT, west.getWriter().getMode());
+        // Publishing on the closed bus is ignored
+        west.getEventBus().publish(new DomainEvent.GuestAdded(guest));
+        for (int i = 0; i < 100 && countThreads("event-bus") > before; i++) {
+            Thread.sleep(20);
+        }
+        assertEquals(before, countThreads("event-bus"));
+    }
+
+    private static long countThreads(String name) {
+        return Thread.getAllStackTraces().keySet().stream()
+                .filter(thread -> thread.isAlive() && thread.getName().equals(name))
+                .count();
+    }
+}
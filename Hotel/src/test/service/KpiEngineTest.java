@@ -0,0 +1,170 @@
+package test.service;
+
+import analytics.KpiEngine;
+import analytics.KpiFigures;
+import analytics.KpiPeriod;
+import model.Bill;
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.BillingService;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomInventory;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the KpiEngine.
+ * Reports are checked on dates far in the future, where only the tests' own rooms are booked.
+ */
+public class KpiEngineTest {
+    private static final LocalDate MARCH = LocalDate.of(2055, 3, 1);
+
+    private KpiEngine engine;
+    private ReservationService reservationService;
+    private Room room;
+    private Room otherRoom;
+    private Guest guest;
+
+    @Before
+    public void setUp() {
+        engine = KpiEngine.getInstance();
+        reservationService = ReservationService.getInstance();
+        room = RoomService.getInstance().addRoom(new Room(8500, 85, RoomType.DOUBLE, new BigDecimal("100.00")));
+        otherRoom = RoomService.getInstance().addRoom(new Room(8501, 85, RoomType.DOUBLE, new BigDecimal("150.00")));
+        guest = GuestService.getInstance().getGuestById(1);
+    }
+
+    @After
+    public void tearDown() {
+        for (Room testRoom : List.of(room, otherRoom)) {
+            for (Reservation reservation : reservationService.getReservationsByRoom(testRoom)) {
+                reservationService.cancelReservation(reservation.getId());
+            }
+            RoomService.getInstance().deleteRoom(testRoom.getRoomNumber());
+        }
+    }
+
+    @Test
+    public void testComputeByDay() {
+        Reservation first = reservationService.createReservation(guest, room, MARCH, MARCH.plusDays(3));
+        reservationService.createReservation(guest, otherRoom, MARCH.plusDays(2), MARCH.plusDays(4));
+        // 100.00 over three nights: the cent left over goes on the first night
+        first.setTotalPrice(new BigDecimal("100.00"));
+        reservationService.updateReservation(first);
+
+        List<KpiFigures> rows = engine.compute(MARCH, MARCH.plusDays(5), KpiPeriod.DAY);
+        assertEquals(5 * (RoomType.values().length + 1), rows.size());
+
+        KpiFigures firstNight = row(rows, MARCH, RoomType.DOUBLE);
+        assertEquals(1, firstNight.soldRoomNights());
+        assertEquals(new BigDecimal("33.34"), firstNight.roomRevenue());
+        KpiFigures busiestNight = row(rows, MARCH.plusDays(2), RoomType.DOUBLE);
+        assertEquals(2, busiestNight.soldRoomNights());
+        assertEquals(new BigDecimal("183.33"), busiestNight.roomRevenue());
+        assertEquals(new BigDecimal("91.67"), busiestNight.adr());
+
+        int capacity = RoomInventory.getInstance().getCapacity(RoomType.DOUBLE);
+        assertEquals(capacity, busiestNight.availableRoomNights());
+        assertEquals(2.0 / capacity, busiestNight.occupancy(), 1e-9);
+        assertEquals(new BigDecimal("183.33").divide(BigDecimal.valueOf(capacity), 2, RoundingMode.HALF_UP),
+                busiestNight.revPar());
+        assertEquals(2, row(rows, MARCH.plusDays(2), null).soldRoomNights());
+        assertEquals(0, row(rows, MARCH.plusDays(4), null).soldRoomNights());
+        assertEquals(0, row(rows, MARCH.plusDays(2), RoomType.SUITE).soldRoomNights());
+    }
+
+    @Test
+    public void testComputeByWeekAndMonth() {
+        reservationService.createReservation(guest, room, MARCH.minusDays(2), MARCH.plusDays(3));
+        reservationService.createReservation(guest, otherRoom, MARCH.plusDays(20), MARCH.plusDays(22));
+
+        List<KpiFigures> weeks = engine.compute(MARCH.minusDays(10), MARCH.plusDays(30), KpiPeriod.WEEK);
+        KpiFigures firstWeek = weeks.get(0);
+        assertEquals(MARCH.minusDays(10), firstWeek.from());
+        long sold = 0;
+        for (KpiFigures week : weeks) {
+            assertTrue(week.from().equals(firstWeek.from()) || week.from().getDayOfWeek() == DayOfWeek.MONDAY);
+            sold += week.type() == null ? week.soldRoomNights() : 0;
+        }
+        assertEquals(7, sold);
+
+        List<KpiFigures> months = engine.compute(MARCH.minusDays(10), MARCH.plusDays(30), KpiPeriod.MONTH);
+        assertEquals(2 * (RoomType.values().length + 1), months.size());
+        assertEquals(2, row(months, MARCH.minusDays(10), null).soldRoomNights());
+        assertEquals(5, row(months, MARCH, RoomType.DOUBLE).soldRoomNights());
+        assertEquals(new BigDecimal("600.00"), row(months, MARCH, null).roomRevenue());
+    }
+
+    @Test
+    public void testComputeCountsEveryNightBooked() {
+        LocalDate from = LocalDate.now().minusYears(1);
+        LocalDate to = LocalDate.now().plusYears(1);
+        long expected = 0;
+        for (Reservation reservation : reservationService.getAllReservations()) {
+            if (reservation.getStatus() != ReservationStatus.CANCELLED) {
+                LocalDate first = reservation.getCheckInDate().isBefore(from) ? from : reservation.getCheckInDate();
+                LocalDate end = reservation.getCheckOutDate().isAfter(to) ? to : reservation.getCheckOutDate();
+                expected += Math.max(0, end.toEpochDay() - first.toEpochDay());
+            }
+        }
+
+        long sold = engine.compute(from, to, KpiPeriod.MONTH).stream()
+                .filter(row -> row.type() == null).mapToLong(KpiFigures::soldRoomNights).sum();
+        assertEquals(expected, sold);
+    }
+
+    @Test
+    public void testCurrentPeriodIsLive() throws Exception {
+        LocalDate today = LocalDate.now();
+        long soldBefore = current(KpiPeriod.DAY, RoomType.DOUBLE).soldRoomNights();
+        BigDecimal otherBefore = current(KpiPeriod.MONTH, null).otherRevenue();
+
+        Reservation reservation = reservationService.createReservation(guest, room, today, today.plusDays(1));
+        await(() -> current(KpiPeriod.DAY, RoomType.DOUBLE).soldRoomNights() == soldBefore + 1);
+
+        reservationService.checkIn(reservation.getId());
+        reservationService.checkOut(reservation.getId());
+        Bill bill = BillingService.getInstance().createBill(reservation);
+        BillingService.getInstance().addItemToBill(bill.getId(), "Minibar", new BigDecimal("20.00"));
+        await(() -> current(KpiPeriod.MONTH, null).otherRevenue().subtract(otherBefore).compareTo(new BigDecimal("20.00")) == 0);
+
+        // The live figures agree with a report computed from the reservations
+        LocalDate monthStart = KpiPeriod.MONTH.start(today);
+        assertEquals(engine.compute(monthStart, KpiPeriod.MONTH.end(today), KpiPeriod.MONTH), engine.getCurrent(KpiPeriod.MONTH));
+
+        reservationService.cancelReservation(reservation.getId());
+        await(() -> current(KpiPeriod.DAY, RoomType.DOUBLE).soldRoomNights() == soldBefore);
+    }
+
+    private KpiFigures current(KpiPeriod period, RoomType type) {
+        return row(engine.getCurrent(period), period.start(LocalDate.now()), type);
+    }
+
+    private static KpiFigures row(List<KpiFigures> rows, LocalDate from, RoomType type) {
+        return rows.stream().filter(row -> row.from().equals(from) && row.type() == type).findFirst().orElseThrow();
+    }
+
+    // Wait for the events to reach the engine
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("The live figures should follow the change", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package test.service;
+
+import metrics.Counter;
+import metrics.LatencyHistogram;
+import metrics.LatencySnapshot;
+import metrics.MetricsRegistry;
+import model.Guest;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the MetricsRegistry and its histograms and counters.
+ */
+public class MetricsRegistryTest {
+    private MetricsRegistry registry;
+
+    @Before
+    public void setUp() {
+        registry = MetricsRegistry.getInstance();
+    }
+
+    @Test
+    public void testHistogramPercentiles() {
+        LatencyHistogram histogram = registry.histogram("MetricsRegistryTest.percentiles");
+        histogram.reset();
+
+        // 1 to 10000 microseconds, once each
+        for (int i = 1; i <= 10_000; i++) {
+            histogram.record(i * 1_000L);
+        }
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.count());
+        assertEquals(10_000_000, snapshot.maxNanos());
+        assertWithinBucket(5_000_000, snapshot.p50Nanos());
+        assertWithinBucket(9_900_000, snapshot.p99Nanos());
+        assertWithinBucket(9_990_000, snapshot.p999Nanos());
+        assertEquals(5_000_500, snapshot.meanNanos(), 5_000_500 * 0.04);
+    }
+
+    @Test
+    public void testHistogramSmallAndLargeValues() {
+        LatencyHistogram histogram = registry.histogram("MetricsRegistryTest.range");
+        histogram.reset();
+
+        histogram.record(3);
+        histogram.record(-5);
+        histogram.record(Long.MAX_VALUE);
+
+        LatencySnapshot snapshot = histogram.snapshot();
+        assertEquals(3, snapshot.count());
+        assertEquals(3, snapshot.p50Nanos());
+        assertEquals(Long.MAX_VALUE, snapshot.maxNanos());
+
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().count());
+        assertEquals(0, histogram.snapshot().p99Nanos());
+    }
+
+    @Test
+    public void testConcurrentRecording() throws InterruptedException {
+        LatencyHistogram histogram = registry.histogram("MetricsRegistryTest.concurrent");
+        Counter counter = registry.counter("MetricsRegistryTest.concurrent");
+        histogram.reset();
+        counter.reset();
+
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.record(i);
+                    counter.increment();
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertEquals(80_000, histogram.snapshot().count());
+        assertEquals(80_000, counter.get());
+        assertEquals(9_999, histogram.snapshot().maxNanos());
+    }
+
+    @Test
+    public void testServiceCallsAreRecorded() {
+        LatencyHistogram histogram = registry.histogram("GuestService.getGuestById");
+        long before = histogram.snapshot().count();
+
+        Guest guest = GuestService.getInstance().getGuestById(1);
+        GuestService.getInstance().getGuestById(-1);
+
+        assertNotNull(guest);
+        assertEquals(before + 2, histogram.snapshot().count());
+        assertSame(histogram, registry.histogram("GuestService.getGuestById"));
+    }
+
+    @Test
+    public void testDumpToFile() throws IOException {
+        registry.histogram("MetricsRegistryTest.dump").record(1_500);
+        registry.counter("MetricsRegistryTest.dumpCounter").increment();
+        Path file = Files.createTempFile("metrics", ".log");
+        try {
+            registry.dumpTo(file);
+            registry.dumpTo(file);
+
+            String content = Files.readString(file);
+            assertTrue(content.contains("MetricsRegistryTest.dump "));
+            assertTrue(content.contains("MetricsRegistryTest.dumpCounter"));
+            // Dumps are appended
+            assertNotEquals(content.indexOf("MetricsRegistryTest.dumpCounter"),
+                    content.lastIndexOf("MetricsRegistryTest.dumpCounter"));
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    // Percentiles are reported to within about 3%
+    private static void assertWithinBucket(long expected, long actual) {
+        assertEquals(expected, actual, expected * 0.04);
+    }
+}
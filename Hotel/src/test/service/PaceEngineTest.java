@@ -0,0 +1,142 @@
+package test.service;
+
+import analytics.PaceEngine;
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomInventory;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the PaceEngine.
+ * The forecast is fitted as of a day far in the future, after a year in which two rooms of
+ * the tests' own were booked every night, one 30 days and the other 5 days ahead. Each is
+ * booked in two rooms taking turns, as a stay cannot start on another's check-out day.
+ */
+public class PaceEngineTest {
+    private static final RoomType TYPE = RoomType.SIMPLE;
+    private static final LocalDate TODAY = LocalDate.of(2057, 1, 5);
+
+    private PaceEngine engine;
+    private ReservationService reservationService;
+    private final List<Room> early = new ArrayList<>();
+    private final List<Room> late = new ArrayList<>();
+    private Guest guest;
+
+    @Before
+    public void setUp() {
+        engine = PaceEngine.getInstance();
+        reservationService = ReservationService.getInstance();
+        for (int i = 0; i < 2; i++) {
+            early.add(RoomService.getInstance().addRoom(new Room(8600 + i, 86, TYPE, new BigDecimal("80.00"))));
+            late.add(RoomService.getInstance().addRoom(new Room(8602 + i, 86, TYPE, new BigDecimal("80.00"))));
+        }
+        guest = GuestService.getInstance().getGuestById(1);
+        for (LocalDate night = TODAY.minusDays(364); night.isBefore(TODAY); night = night.plusDays(1)) {
+            book(room(early, night), night, 30);
+            book(room(late, night), night, 5);
+        }
+        engine.fit(TODAY);
+    }
+
+    @After
+    public void tearDown() {
+        for (Room testRoom : rooms()) {
+            for (Reservation reservation : reservationService.getReservationsByRoom(testRoom)) {
+                reservationService.cancelReservation(reservation.getId());
+            }
+            RoomService.getInstance().deleteRoom(testRoom.getRoomNumber());
+        }
+    }
+
+    @Test
+    public void testPaceOfPastNight() {
+        int[] pace = engine.getPace(TYPE, TODAY.minusDays(10));
+        assertEquals(PaceEngine.LEAD_DAYS, pace.length);
+        assertEquals(2, pace[0]);
+        assertEquals(2, pace[5]);
+        assertEquals(1, pace[6]);
+        assertEquals(1, pace[30]);
+        assertEquals(0, pace[31]);
+        assertEquals(0, engine.getPace(TYPE, TODAY.plusYears(2)).length);
+    }
+
+    @Test
+    public void testForecastAddsPickupToBookings() {
+        assertEquals(TODAY, engine.getFittedFor());
+        // Both rooms are still to be booked 60 days ahead, one 19 days ahead and none 2 days ahead
+        assertEquals(2.0, engine.getForecast(TYPE, TODAY.plusDays(60)), 1e-9);
+        assertEquals(1.0, engine.getForecast(TYPE, TODAY.plusDays(19)), 1e-9);
+        assertEquals(0.0, engine.getForecast(TYPE, TODAY.plusDays(2)), 1e-9);
+        assertEquals(-1, engine.getForecast(TYPE, TODAY.minusDays(1)), 1e-9);
+
+        book(room(early, TODAY.plusDays(19)), TODAY.plusDays(19), 20);
+        engine.fit(TODAY);
+        assertEquals(2.0, engine.getForecast(TYPE, TODAY.plusDays(19)), 1e-9);
+
+        double[] pickup = engine.getExpectedPickup(TYPE, TODAY.plusDays(2), 40);
+        assertEquals(0.0, pickup[0], 1e-9);
+        assertEquals(0.0, pickup[3], 1e-9);
+        assertEquals(1.0, pickup[4], 1e-9);
+        assertEquals(2.0, pickup[29], 1e-9);
+
+        int capacity = RoomInventory.getInstance().getCapacity(TYPE);
+        assertEquals(2.0 / capacity, engine.getForecastOccupancy(TYPE, TODAY.plusDays(60), 1), 1e-9);
+        assertEquals(-1, engine.getForecastOccupancy(TYPE, TODAY.plusDays(300), 100), 1e-9);
+    }
+
+    @Test
+    public void testFollowsBookings() throws Exception {
+        LocalDate night = TODAY.plusDays(40);
+        Reservation reservation = reservationService.createReservation(guest, room(late, night), night, night.plusDays(1));
+        // Booked today, decades ahead of the night
+        await(() -> engine.getPace(TYPE, night)[PaceEngine.LEAD_DAYS - 1] == 1);
+        assertEquals(3.0, engine.getForecast(TYPE, night), 1e-9);
+
+        reservationService.cancelReservation(reservation.getId());
+        await(() -> engine.getPace(TYPE, night)[0] == 0);
+        assertEquals(2.0, engine.getForecast(TYPE, night), 1e-9);
+    }
+
+    // Rooms take turns by night
+    private static Room room(List<Room> rooms, LocalDate night) {
+        return rooms.get((int) (night.toEpochDay() % rooms.size()));
+    }
+
+    private List<Room> rooms() {
+        List<Room> rooms = new ArrayList<>(early);
+        rooms.addAll(late);
+        return rooms;
+    }
+
+    // Book a room for one night, as if some days before it
+    private void book(Room room, LocalDate night, int daysBefore) {
+        Reservation reservation = reservationService.createReservation(guest, room, night, night.plusDays(1));
+        assertNotNull(reservation);
+        reservation.setCreatedAt(night.minusDays(daysBefore).atTime(12, 0));
+        reservationService.updateReservation(reservation);
+    }
+
+    // Wait for the events to reach the engine
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("The pace should follow the change", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
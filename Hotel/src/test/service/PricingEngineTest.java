@@ -0,0 +1,131 @@
+package test.service;
+
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import pricing.PricingEngine;
+import pricing.PricingRules;
+import service.GuestService;
+import service.RateCalendar;
+import service.ReservationService;
+import service.RoomInventory;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the PricingEngine.
+ * The tests price suites only, over a short horizon, using a suite of their own; the rates
+ * they set are removed afterwards because other tests share the calendar.
+ */
+public class PricingEngineTest {
+    private static final RoomType TYPE = RoomType.SUITE;
+    private static final int HORIZON = 30;
+
+    private PricingEngine engine;
+    private RateCalendar calendar;
+    private RoomInventory inventory;
+    private Room room;
+    private Guest guest;
+    private LocalDate today;
+
+    @Before
+    public void setUp() {
+        engine = PricingEngine.getInstance();
+        calendar = RateCalendar.getInstance();
+        inventory = RoomInventory.getInstance();
+        room = RoomService.getInstance().addRoom(new Room(8000, 80, TYPE, new BigDecimal("300.00")));
+        guest = GuestService.getInstance().getGuestById(1);
+        today = LocalDate.now();
+    }
+
+    @After
+    public void tearDown() {
+        engine.stop();
+        calendar.setRate(TYPE, today.minusDays(1), today.plusDays(HORIZON + 1), null);
+        for (Reservation reservation : ReservationService.getInstance().getReservationsByRoom(room)) {
+            ReservationService.getInstance().cancelReservation(reservation.getId());
+        }
+        RoomService.getInstance().deleteRoom(room.getRoomNumber());
+    }
+
+    @Test
+    public void testDefaultRules() {
+        PricingRules rules = PricingRules.defaults(Map.of(TYPE, new BigDecimal("100.00")));
+        assertEquals(10_000, rules.rateCents(TYPE, 0.2, 30));
+        assertEquals(11_000, rules.rateCents(TYPE, 0.2, 1));
+        assertEquals(12_500, rules.rateCents(TYPE, 0.7, 30));
+        assertEquals(16_625, rules.rateCents(TYPE, 0.97, 90));
+        assertEquals(-1, rules.rateCents(RoomType.SIMPLE, 0.5, 30));
+    }
+
+    @Test
+    public void testFactorsStayWithinFloorAndCeiling() {
+        PricingRules rules = new PricingRules(Map.of(TYPE, new BigDecimal("100.00")),
+                List.of(new PricingRules.Step(0.5, 4.0)), List.of(new PricingRules.Step(10, 0.5)), 0.8, 2.5, HORIZON);
+        assertEquals(25_000, rules.rateCents(TYPE, 0.6, 0));
+        assertEquals(8_000, rules.rateCents(TYPE, 0.1, 20));
+    }
+
+    @Test
+    public void testStartPricesTheHorizon() {
+        engine.start(PricingRules.defaults(Map.of(TYPE, new BigDecimal("200.00"))).withHorizon(HORIZON));
+        assertTrue(engine.isRunning());
+
+        // Every night of the horizon has a rate of the type, whatever the room's own price
+        LocalDate night = today.plusDays(10);
+        long expected = engine.getRules().rateCents(TYPE, occupancy(night), 10);
+        assertEquals(BigDecimal.valueOf(expected, 2), calendar.getNightlyRate(room, night));
+        // Nights beyond it keep the room's price
+        assertEquals(0, new BigDecimal("300.00").compareTo(calendar.getNightlyRate(room, today.plusDays(HORIZON + 5))));
+    }
+
+    @Test
+    public void testBookingRepricesItsNights() {
+        LocalDate checkIn = today.plusDays(12);
+        int capacity = inventory.getCapacity(TYPE);
+        int sold = inventory.getSold(TYPE, checkIn);
+        // A factor of 2 from one more room sold than now on that night
+        double threshold = (sold + 0.5) / capacity;
+        engine.start(new PricingRules(Map.of(TYPE, new BigDecimal("100.00")),
+                List.of(new PricingRules.Step(threshold, 2.0)), List.of(), 0.5, 3.0, HORIZON));
+        assertEquals(0, new BigDecimal("100.00").compareTo(calendar.getNightlyRate(room, checkIn)));
+
+        Reservation reservation = ReservationService.getInstance().createReservation(guest, room, checkIn, checkIn.plusDays(1));
+        assertNotNull(reservation);
+        engine.repricePending();
+        assertEquals(0, new BigDecimal("200.00").compareTo(calendar.getNightlyRate(room, checkIn)));
+
+        ReservationService.getInstance().cancelReservation(reservation.getId());
+        engine.repricePending();
+        assertEquals(0, new BigDecimal("100.00").compareTo(calendar.getNightlyRate(room, checkIn)));
+    }
+
+    @Test
+    public void testStoppedEngineIgnoresBookings() {
+        LocalDate checkIn = today.plusDays(5);
+        engine.start(PricingRules.defaults(Map.of(TYPE, new BigDecimal("150.00"))).withHorizon(HORIZON));
+        engine.stop();
+        assertFalse(engine.isRunning());
+        BigDecimal before = calendar.getNightlyRate(room, checkIn);
+
+        assertNotNull(ReservationService.getInstance().createReservation(guest, room, checkIn, checkIn.plusDays(2)));
+        engine.repricePending();
+        assertEquals(0, engine.recompute(TYPE, checkIn, checkIn.plusDays(2)));
+        assertEquals(before, calendar.getNightlyRate(room, checkIn));
+    }
+
+    private double occupancy(LocalDate night) {
+        int capacity = inventory.getCapacity(TYPE);
+        return (double) inventory.getSold(TYPE, night) / capacity;
+    }
+}
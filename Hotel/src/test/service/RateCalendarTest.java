@@ -0,0 +1,131 @@
+package test.service;
+
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+import service.RateCalendar;
+import service.ReservationService;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.temporal.TemporalAdjusters;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the RateCalendar.
+ * The tests use rooms of their own, with stays about three years ahead, and remove the
+ * rates they set afterwards because other tests share the calendar.
+ */
+public class RateCalendarTest {
+    private RateCalendar calendar;
+    private Room room;
+    private Room otherRoom;
+    private LocalDate monday;
+
+    @Before
+    public void setUp() {
+        calendar = RateCalendar.getInstance();
+        room = RoomService.getInstance().addRoom(new Room(7900, 79, RoomType.SIMPLE, new BigDecimal("100.00")));
+        otherRoom = RoomService.getInstance().addRoom(new Room(7901, 79, RoomType.SIMPLE, new BigDecimal("80.00")));
+        monday = LocalDate.now().plusYears(3).with(TemporalAdjusters.next(DayOfWeek.MONDAY));
+    }
+
+    @After
+    public void tearDown() {
+        calendar.setRate(RoomType.SIMPLE, monday, monday.plusDays(60), null);
+        for (Room testRoom : List.of(room, otherRoom)) {
+            for (Reservation reservation : ReservationService.getInstance().getReservationsByRoom(testRoom)) {
+                ReservationService.getInstance().cancelReservation(reservation.getId());
+            }
+            RoomService.getInstance().deleteRoom(testRoom.getRoomNumber());
+        }
+    }
+
+    @Test
+    public void testRoomPriceWithoutRates() {
+        assertPrice("300.00", calendar.quote(room, monday, monday.plusDays(3)));
+        assertPrice("0.00", calendar.quote(room, monday, monday));
+        // Nights outside the calendar
+        LocalDate end = calendar.getEndDay();
+        assertPrice("500.00", calendar.quote(room, end.minusDays(2), end.plusDays(3)));
+    }
+
+    @Test
+    public void testSeasonAndWeekendRates() {
+        calendar.setRate(RoomType.SIMPLE, monday, monday.plusDays(14), new BigDecimal("120.00"));
+        calendar.setWeekendRate(RoomType.SIMPLE, monday, monday.plusDays(14), new BigDecimal("150.00"));
+
+        // Monday to Monday: five weekdays, Friday and Saturday at the weekend rate, and Sunday
+        assertPrice("900.00", calendar.quote(room, monday, monday.plusDays(7)));
+        assertPrice("150.00", calendar.getNightlyRate(room, monday.plusDays(4)));
+        // The season applies to every room of the type, the last night falls outside it
+        assertPrice("980.00", calendar.quote(otherRoom, monday.plusDays(7), monday.plusDays(15)));
+
+        // Going back to the room price
+        calendar.setRate(RoomType.SIMPLE, monday, monday.plusDays(7), null);
+        assertPrice("700.00", calendar.quote(room, monday, monday.plusDays(7)));
+    }
+
+    @Test
+    public void testRoomOverridesTypeRate() {
+        calendar.setRate(RoomType.SIMPLE, monday, monday.plusDays(10), new BigDecimal("120.00"));
+        calendar.setRoomRate(room, monday.plusDays(2), monday.plusDays(4), new BigDecimal("99.99"));
+        assertPrice("439.98", calendar.quote(room, monday, monday.plusDays(4)));
+        assertPrice("480.00", calendar.quote(otherRoom, monday, monday.plusDays(4)));
+
+        // Type changes keep the override on top
+        calendar.setRate(RoomType.SIMPLE, monday, monday.plusDays(10), new BigDecimal("130.00"));
+        assertPrice("459.98", calendar.quote(room, monday, monday.plusDays(4)));
+
+        calendar.clearRoomRates(room.getRoomNumber());
+        assertPrice("520.00", calendar.quote(room, monday, monday.plusDays(4)));
+    }
+
+    @Test
+    public void testQuotesMatchNightlySums() {
+        Random random = new Random(11);
+        List<BigDecimal> rates = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            rates.add(i % 7 == 3 ? null : BigDecimal.valueOf(5_000 + random.nextInt(10_000), 2));
+        }
+        calendar.setRates(RoomType.SIMPLE, monday, rates);
+        calendar.setRoomRate(room, monday.plusDays(20), monday.plusDays(25), new BigDecimal("42.00"));
+
+        for (int i = 0; i < 100; i++) {
+            int from = random.nextInt(60);
+            int to = from + random.nextInt(60 - from + 1);
+            BigDecimal expected = BigDecimal.ZERO;
+            for (int night = from; night < to; night++) {
+                expected = expected.add(calendar.getNightlyRate(room, monday.plusDays(night)));
+            }
+            assertPrice(expected.toPlainString(), calendar.quote(room, monday.plusDays(from), monday.plusDays(to)));
+        }
+    }
+
+    @Test
+    public void testReservationsKeepBookedPrice() {
+        calendar.setRate(RoomType.SIMPLE, monday, monday.plusDays(7), new BigDecimal("110.00"));
+        Guest guest = GuestService.getInstance().getGuestById(1);
+        Reservation reservation = ReservationService.getInstance().createReservation(guest, room, monday, monday.plusDays(2));
+        assertNotNull(reservation);
+        assertPrice("220.00", reservation.getTotalPrice());
+
+        calendar.setRate(RoomType.SIMPLE, monday, monday.plusDays(7), new BigDecimal("200.00"));
+        assertPrice("220.00", ReservationService.getInstance().getReservationById(reservation.getId()).getTotalPrice());
+    }
+
+    private static void assertPrice(String expected, BigDecimal actual) {
+        assertEquals(0, new BigDecimal(expected).compareTo(actual));
+    }
+}
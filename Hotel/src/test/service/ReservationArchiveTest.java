@@ -0,0 +1,188 @@
+package test.service;
+
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+import service.ReservationArchive;
+import service.ReservationService;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for archiving finished reservations.
+ * The tests use rooms of their own, with stays in 2047 that are archived as of 2048.
+ */
+public class ReservationArchiveTest {
+    private static final LocalDate FIRST_DAY = LocalDate.of(2047, 3, 1);
+    private static final LocalDate TODAY = LocalDate.of(2048, 1, 1);
+
+    private ReservationService reservationService;
+    private RoomService roomService;
+    private Guest guest;
+    private final List<Room> testRooms = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        reservationService = ReservationService.getInstance();
+        roomService = RoomService.getInstance();
+        guest = GuestService.getInstance().addGuest(
+                new Guest("Archived", "Guest", "ARCH-0001", "555-0101", "archived@example.com", "1 Cold St"));
+        for (int i = 0; i < 5; i++) {
+            testRooms.add(roomService.addRoom(new Room(7500 + i, 75, RoomType.DOUBLE, new BigDecimal("100.00"))));
+        }
+    }
+
+    @After
+    public void tearDown() {
+        for (Room room : testRooms) {
+            roomService.deleteRoom(room.getRoomNumber());
+        }
+        GuestService.getInstance().deleteGuest(guest.getId());
+    }
+
+    @Test
+    public void testArchivedReservationsStayQueryable() {
+        Reservation cancelled = book(0, 0);
+        reservationService.cancelReservation(cancelled.getId());
+        Reservation checkedOut = book(1, 10);
+        reservationService.checkIn(checkedOut.getId());
+        reservationService.checkOut(checkedOut.getId());
+        Reservation confirmed = book(2, 20);
+
+        int active = reservationService.getActiveReservationCount();
+        long archived = reservationService.getArchive().size();
+        assertTrue(reservationService.archiveHistoric(TODAY, 30) >= 2);
+
+        ReservationArchive archive = reservationService.getArchive();
+        assertTrue(archive.size() >= archived + 2);
+        assertTrue(reservationService.getActiveReservationCount() <= active - 2);
+        assertTrue(archive.getCompressedBytes() > 0);
+
+        // The same queries find the archived reservations, with the same contents
+        Reservation found = reservationService.getReservationById(checkedOut.getId());
+        assertNotNull(found);
+        assertEquals(ReservationStatus.CHECKED_OUT, found.getStatus());
+        assertEquals(checkedOut.getCheckInDate(), found.getCheckInDate());
+        assertEquals(checkedOut.getCheckOutDate(), found.getCheckOutDate());
+        assertEquals(0, checkedOut.getTotalPrice().compareTo(found.getTotalPrice()));
+        assertEquals(checkedOut.getCreatedAt().withNano(0), found.getCreatedAt());
+        assertEquals(checkedOut.getModifiedAt().withNano(0), found.getModifiedAt());
+        assertEquals(guest.getId(), found.getGuest().getId());
+        assertEquals(testRooms.get(1).getRoomNumber(), found.getRoom().getRoomNumber());
+
+        assertEquals(ReservationStatus.CONFIRMED, reservationService.getReservationById(confirmed.getId()).getStatus());
+        assertEquals(3, reservationService.getReservationsByGuest(guest).size());
+        assertEquals(3, reservationService.getReservationsByGuestIds(Set.of(guest.getId())).size());
+        assertEquals(1, reservationService.getReservationsByRoom(testRooms.get(0)).size());
+        assertTrue(containsId(reservationService.getReservationsByStatus(ReservationStatus.CANCELLED), cancelled.getId()));
+        assertTrue(containsId(reservationService.getReservationsForDateRange(FIRST_DAY, FIRST_DAY.plusDays(1)),
+                cancelled.getId()));
+        assertFalse(containsId(reservationService.getReservationsForDateRange(FIRST_DAY.plusDays(30), FIRST_DAY.plusDays(31)),
+                cancelled.getId()));
+        assertTrue(containsId(reservationService.getAllReservations(), checkedOut.getId()));
+
+        // Archived stays still count for availability; cancelled ones do not
+        roomService.changeRoomStatus(testRooms.get(1).getRoomNumber(), RoomStatus.AVAILABLE);
+        assertFalse(reservationService.isRoomAvailable(testRooms.get(1).getRoomNumber(),
+                FIRST_DAY.plusDays(10), FIRST_DAY.plusDays(12)));
+        assertTrue(reservationService.isRoomAvailable(testRooms.get(0).getRoomNumber(),
+                FIRST_DAY, FIRST_DAY.plusDays(2)));
+    }
+
+    @Test
+    public void testChangingArchivedReservationBringsItBack() {
+        Reservation reservation = book(3, 40);
+        reservationService.checkIn(reservation.getId());
+        reservationService.checkOut(reservation.getId());
+        reservationService.archiveHistoric(TODAY, 30);
+        int active = reservationService.getActiveReservationCount();
+
+        assertTrue(reservationService.cancelReservation(reservation.getId()));
+        assertEquals(active + 1, reservationService.getActiveReservationCount());
+        assertEquals(ReservationStatus.CANCELLED, reservationService.getReservationById(reservation.getId()).getStatus());
+        // Only the new copy is returned, not the archived one as well
+        assertEquals(1, reservationService.getReservationsByRoom(testRooms.get(3)).size());
+        assertFalse(containsId(reservationService.getReservationsByStatus(ReservationStatus.CHECKED_OUT), reservation.getId()));
+
+        // Archived a second time, the newest copy wins
+        reservationService.archiveHistoric(TODAY, 30);
+        assertEquals(ReservationStatus.CANCELLED, reservationService.getReservationById(reservation.getId()).getStatus());
+        assertEquals(1, reservationService.getReservationsByRoom(testRooms.get(3)).size());
+    }
+
+    @Test
+    public void testArchiveKeepsWhetherTheRoomCanBeChanged() {
+        Reservation pinned = book(4, 60);
+        // Another type, so that no other test finds the booking in its rooms
+        Reservation byType = reservationService.createReservationByType(guest, RoomType.SUITE,
+                FIRST_DAY.plusDays(60), FIRST_DAY.plusDays(62));
+        assertNotNull(byType);
+        assertTrue(byType.isRoomFlexible());
+        reservationService.cancelReservation(pinned.getId());
+        reservationService.cancelReservation(byType.getId());
+        long archived = reservationService.getArchive().size();
+        reservationService.archiveHistoric(TODAY, 30);
+        assertTrue(reservationService.getArchive().size() >= archived + 2);
+
+        assertFalse(reservationService.getReservationById(pinned.getId()).isRoomFlexible());
+        assertTrue(reservationService.getReservationById(byType.getId()).isRoomFlexible());
+    }
+
+    @Test
+    public void testLongNotesAreArchived() {
+        Reservation reservation = book(2, 80);
+        // Over the 64 KB that DataOutputStream.writeUTF takes, with characters of several bytes
+        String notes = "Nota de llegada ñ € ".repeat(4000);
+        reservation.setNotes(notes);
+        reservationService.updateReservation(reservation);
+        reservationService.cancelReservation(reservation.getId());
+        reservationService.archiveHistoric(TODAY, 30);
+
+        Reservation found = reservationService.getReservationById(reservation.getId());
+        assertEquals(ReservationStatus.CANCELLED, found.getStatus());
+        assertEquals(notes, found.getNotes());
+    }
+
+    @Test
+    public void testRecentStaysAreKept() {
+        Reservation reservation = book(4, 50);
+        reservationService.checkIn(reservation.getId());
+        reservationService.checkOut(reservation.getId());
+
+        // Checked out less than 30 days before the given day
+        reservationService.archiveHistoric(reservation.getCheckOutDate().plusDays(10), 30);
+        int active = reservationService.getActiveReservationCount();
+        reservationService.archiveHistoric(reservation.getCheckOutDate().plusDays(10), 30);
+        assertEquals(active, reservationService.getActiveReservationCount());
+
+        reservationService.archiveHistoric(reservation.getCheckOutDate().plusDays(31), 30);
+        assertTrue(reservationService.getActiveReservationCount() < active);
+        assertNotNull(reservationService.getReservationById(reservation.getId()));
+    }
+
+    // Book one of the test rooms for two nights, the given number of days after the first day
+    private Reservation book(int room, int day) {
+        Reservation reservation = reservationService.createReservation(guest, testRooms.get(room),
+                FIRST_DAY.plusDays(day), FIRST_DAY.plusDays(day + 2));
+        assertNotNull(reservation);
+        return reservation;
+    }
+
+    private static boolean containsId(List<Reservation> reservations, int reservationId) {
+        return reservations.stream().anyMatch(reservation -> reservation.getId() == reservationId);
+    }
+}
@@ -14,7 +14,9 @@ import service.RoomService;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Set;
 
 import static org.junit.Assert.*;
 
@@ -163,6 +165,42 @@ public class ReservationServiceTest {
         assertEquals(ReservationStatus.CANCELLED, retrievedReservation.getStatus());
     }
 
+    @Test
+    public void testChangesAreTimestamped() {
+        Reservation reservation = reservationService.createReservation(testGuest, testRoom, checkInDate, checkOutDate);
+        assertNotNull("Failed to create test reservation. Room might not be available for the given dates.", reservation);
+        LocalDateTime created = reservation.getCreatedAt();
+        assertNotNull(created);
+
+        // A copy without timestamps keeps the booking time of the reservation it replaces
+        Reservation copy = new Reservation(reservation.getId(), testGuest, testRoom, checkInDate, checkOutDate,
+                reservation.getStatus(), reservation.getTotalPrice(), "Late arrival");
+        reservationService.updateReservation(copy);
+        assertEquals(created, copy.getCreatedAt());
+        assertFalse(copy.getModifiedAt().isBefore(created));
+
+        reservationService.cancelReservation(reservation.getId());
+        Reservation cancelled = reservationService.getReservationById(reservation.getId());
+        assertEquals(created, cancelled.getCreatedAt());
+        assertFalse(cancelled.getModifiedAt().isBefore(copy.getModifiedAt()));
+    }
+
+    @Test
+    public void testCancelIfConfirmed() {
+        Reservation reservation = reservationService.createReservation(testGuest, testRoom, checkInDate, checkOutDate);
+        assertNotNull("Failed to create test reservation. Room might not be available for the given dates.", reservation);
+        assertTrue(reservationService.cancelIfConfirmed(reservation.getId()));
+        assertEquals(ReservationStatus.CANCELLED, reservationService.getReservationById(reservation.getId()).getStatus());
+
+        // Once checked in, the reservation is left as it is
+        Reservation checkedIn = reservationService.createReservation(testGuest, testRoom, checkInDate, checkOutDate);
+        assertNotNull(checkedIn);
+        assertTrue(reservationService.checkIn(checkedIn.getId()));
+        assertFalse(reservationService.cancelIfConfirmed(checkedIn.getId()));
+        assertEquals(ReservationStatus.CHECKED_IN, reservationService.getReservationById(checkedIn.getId()).getStatus());
+        assertFalse(reservationService.cancelIfConfirmed(9999));
+    }
+
     @Test
     public void testCancelNonExistentReservation() {
         // Try to cancel a reservation that doesn't exist
@@ -198,6 +236,26 @@ public class ReservationServiceTest {
         assertEquals(RoomStatus.CLEANING, retrievedRoom.getStatus());
     }
 
+    @Test
+    public void testImportReservation() {
+        // Import a reservation with a given ID and status, without the availability check
+        LocalDate importCheckIn = LocalDate.of(2030, 1, 10);
+        Reservation imported = new Reservation(1_000_000, testGuest, testRoom, importCheckIn, importCheckIn.plusDays(2),
+                ReservationStatus.CHECKED_OUT, new BigDecimal("600.00"), "");
+        assertSame(imported, reservationService.importReservation(imported));
+        assertSame(imported, reservationService.getReservationById(1_000_000));
+        assertEquals(ReservationStatus.CHECKED_OUT, imported.getStatus());
+
+        // New reservations get IDs after the imported one
+        Reservation created = reservationService.createReservation(testGuest, testRoom, checkInDate, checkOutDate);
+        assertNotNull(created);
+        assertTrue(created.getId() > 1_000_000);
+
+        // Clean up
+        reservationService.cancelReservation(created.getId());
+        reservationService.cancelReservation(imported.getId());
+    }
+
     @Test
     public void testGetAllReservations() {
         // Create a reservation
@@ -233,6 +291,23 @@ public class ReservationServiceTest {
         reservationService.cancelReservation(reservation.getId());
     }
 
+    @Test
+    public void testGetReservationsByGuestIds() {
+        // Create a reservation
+        Reservation reservation = reservationService.createReservation(testGuest, testRoom, checkInDate, checkOutDate);
+
+        // Get reservations by a set of guest IDs
+        List<Reservation> guestReservations = reservationService.getReservationsByGuestIds(Set.of(testGuest.getId(), -1));
+
+        // Should contain our reservation and only reservations of the given guests
+        assertTrue(guestReservations.stream().anyMatch(r -> r.getId() == reservation.getId()));
+        assertTrue(guestReservations.stream().allMatch(r -> r.getGuest().getId() == testGuest.getId()));
+        assertTrue(reservationService.getReservationsByGuestIds(Set.of()).isEmpty());
+
+        // Clean up
+        reservationService.cancelReservation(reservation.getId());
+    }
+
     @Test
     public void testGetReservationsByRoom() {
         // Create a reservation
@@ -0,0 +1,151 @@
+package test.service;
+
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomAssignmentOptimizer;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for bookings by room type and the RoomAssignmentOptimizer.
+ * Every other room of the type is taken around the test dates, some years ahead, so that
+ * bookings by type can only go to the tests' own two rooms.
+ */
+public class RoomAssignmentTest {
+    private static final RoomType TYPE = RoomType.SUITE;
+    private static final LocalDate DAY = LocalDate.now().plusYears(2);
+
+    private ReservationService reservationService;
+    private RoomAssignmentOptimizer optimizer;
+    private Room first;
+    private Room second;
+    private Guest guest;
+
+    @Before
+    public void setUp() {
+        reservationService = ReservationService.getInstance();
+        optimizer = RoomAssignmentOptimizer.getInstance();
+        guest = GuestService.getInstance().getGuestById(1);
+        for (Room room : RoomService.getInstance().getRoomsByType(TYPE)) {
+            if (room.getStatus() != RoomStatus.MAINTENANCE) {
+                reservationService.createOverbookedReservation(guest, room, DAY.minusDays(60), DAY.plusDays(90));
+            }
+        }
+        first = RoomService.getInstance().addRoom(new Room(8800, 88, TYPE, new BigDecimal("250.00")));
+        second = RoomService.getInstance().addRoom(new Room(8801, 88, TYPE, new BigDecimal("250.00")));
+    }
+
+    @After
+    public void tearDown() {
+        optimizer.stop();
+        for (Reservation reservation : reservationService.getReservationsForDateRange(DAY.minusDays(60), DAY.plusDays(90))) {
+            if (reservation.getRoom().getType() == TYPE && reservation.getStatus() != ReservationStatus.CANCELLED) {
+                reservationService.cancelReservation(reservation.getId());
+            }
+        }
+        RoomService.getInstance().deleteRoom(first.getRoomNumber());
+        RoomService.getInstance().deleteRoom(second.getRoomNumber());
+    }
+
+    @Test
+    public void testBookingByTypeFillsTheGapThatFitsBest() {
+        Reservation fixed = reservationService.createReservation(guest, second, DAY, DAY.plusDays(3));
+        assertNotNull(fixed);
+        // Next to the stay already in the second room, rather than splitting the empty first room
+        Reservation reservation = reservationService.createReservationByType(guest, TYPE, DAY.plusDays(5), DAY.plusDays(7));
+        assertEquals(second, reservation.getRoom());
+        assertTrue(reservation.isRoomFlexible());
+        assertFalse(fixed.isRoomFlexible());
+        assertEquals(ReservationStatus.CONFIRMED, reservation.getStatus());
+    }
+
+    @Test
+    public void testBookingByTypeMovesStaysToMakeRoom() {
+        // Both rooms are empty, so the lowest numbered one is taken
+        Reservation flexible = reservationService.createReservationByType(guest, TYPE, DAY.plusDays(1), DAY.plusDays(4));
+        assertEquals(first, flexible.getRoom());
+        Reservation fixed = reservationService.createReservation(guest, second, DAY.plusDays(6), DAY.plusDays(9));
+        assertNotNull(fixed);
+        assertTrue(reservationService.getAvailableRoomsByTypeForDates(TYPE, DAY.plusDays(1), DAY.plusDays(9)).isEmpty());
+
+        // Neither room is free for the whole stay until the flexible one moves in front of the fixed one
+        Reservation longStay = reservationService.createReservationByType(guest, TYPE, DAY.plusDays(1), DAY.plusDays(9));
+        assertNotNull(longStay);
+        assertEquals(first, longStay.getRoom());
+        assertEquals(second, reservationService.getReservationById(flexible.getId()).getRoom());
+        assertEquals(second, reservationService.getReservationById(fixed.getId()).getRoom());
+
+        // No room is left for these dates, and the stays booked on a room are not moved
+        assertNull(reservationService.createReservationByType(guest, TYPE, DAY.plusDays(2), DAY.plusDays(3)));
+    }
+
+    @Test
+    public void testReassignRoomsGathersFreeNights() {
+        Reservation flexible = reservationService.createReservationByType(guest, TYPE, DAY.plusDays(7), DAY.plusDays(9));
+        assertEquals(first, flexible.getRoom());
+        reservationService.createReservation(guest, second, DAY.plusDays(3), DAY.plusDays(5));
+        LocalDate from = DAY.minusDays(14);
+        LocalDate to = DAY.plusDays(30);
+        int longStaysBefore = reservationService.getBookableNights(TYPE, from, to, 30);
+
+        assertEquals(1, reservationService.reassignRooms(TYPE, from, to));
+        assertEquals(second, reservationService.getReservationById(flexible.getId()).getRoom());
+        assertTrue(reservationService.getReservationById(flexible.getId()).isRoomFlexible());
+        assertTrue(reservationService.getBookableNights(TYPE, from, to, 30) > longStaysBefore);
+        // Nothing more to gain
+        assertEquals(0, reservationService.reassignRooms(TYPE, from, to));
+    }
+
+    @Test
+    public void testBookableNights() {
+        LocalDate from = DAY;
+        LocalDate to = DAY.plusDays(10);
+        // Two empty rooms, each free for a stay of up to 10 nights
+        assertEquals(20, reservationService.getBookableNights(TYPE, from, to, 1));
+        reservationService.createReservation(guest, first, DAY.plusDays(4), DAY.plusDays(6));
+        // The first room is left with stays of up to 3 nights before and 3 after, as check-in and check-out days are taken
+        assertEquals(16, reservationService.getBookableNights(TYPE, from, to, 1));
+        assertEquals(16, reservationService.getBookableNights(TYPE, from, to, 3));
+        assertEquals(10, reservationService.getBookableNights(TYPE, from, to, 4));
+    }
+
+    @Test
+    public void testOptimizerFollowsBookings() throws Exception {
+        optimizer.start();
+        assertTrue(optimizer.isRunning());
+        Reservation flexible = reservationService.createReservationByType(guest, TYPE, DAY.plusDays(7), DAY.plusDays(9));
+        reservationService.createReservation(guest, second, DAY.plusDays(3), DAY.plusDays(5));
+        await(() -> reservationService.getReservationById(flexible.getId()).getRoom().equals(second));
+
+        // Stopped, it leaves the rooms alone
+        optimizer.stop();
+        assertFalse(optimizer.isRunning());
+        Reservation other = reservationService.createReservationByType(guest, TYPE, DAY.plusDays(20), DAY.plusDays(22));
+        reservationService.createReservation(guest, other.getRoom().equals(first) ? second : first,
+                DAY.plusDays(16), DAY.plusDays(18));
+        assertEquals(0, optimizer.optimizePending());
+    }
+
+    // Wait for the optimizer to move the reservation
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("The reservation should be moved", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
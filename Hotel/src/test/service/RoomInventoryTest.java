@@ -0,0 +1,174 @@
+package test.service;
+
+import model.Guest;
+import model.Reservation;
+import model.RoomStatus;
+import model.Room;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomInventory;
+import service.RoomService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the RoomInventory.
+ * The tests use suites of their own, with stays about two years ahead, and compare the
+ * inventory before and after each change because other tests share it.
+ */
+public class RoomInventoryTest {
+    private static final RoomType TYPE = RoomType.SUITE;
+
+    private RoomInventory inventory;
+    private RoomService roomService;
+    private ReservationService reservationService;
+    private Guest guest;
+    private LocalDate firstDay;
+    private final List<Room> testRooms = new ArrayList<>();
+
+    @Before
+    public void setUp() {
+        inventory = RoomInventory.getInstance();
+        roomService = RoomService.getInstance();
+        reservationService = ReservationService.getInstance();
+        guest = GuestService.getInstance().getGuestById(1);
+        firstDay = LocalDate.now().plusYears(2);
+    }
+
+    @After
+    public void tearDown() {
+        for (Room room : testRooms) {
+            for (Reservation reservation : reservationService.getReservationsByRoom(room)) {
+                reservationService.cancelReservation(reservation.getId());
+            }
+            roomService.deleteRoom(room.getRoomNumber());
+        }
+    }
+
+    @Test
+    public void testRoomsChangeCapacity() {
+        int capacity = inventory.getCapacity(TYPE);
+        Room room = addRoom(7600);
+        assertEquals(capacity + 1, inventory.getCapacity(TYPE));
+
+        // Rooms under maintenance cannot be sold; occupied or dirty rooms can, for later nights
+        roomService.changeRoomStatus(room.getRoomNumber(), RoomStatus.MAINTENANCE);
+        assertEquals(capacity, inventory.getCapacity(TYPE));
+        roomService.changeRoomStatus(room.getRoomNumber(), RoomStatus.CLEANING);
+        assertEquals(capacity + 1, inventory.getCapacity(TYPE));
+
+        roomService.updateRoom(new Room(room.getRoomNumber(), 76, RoomType.DOUBLE, new BigDecimal("150.00")));
+        assertEquals(capacity, inventory.getCapacity(TYPE));
+        roomService.deleteRoom(room.getRoomNumber());
+        assertEquals(capacity, inventory.getCapacity(TYPE));
+    }
+
+    @Test
+    public void testBookingsSellNights() {
+        Room room = addRoom(7610);
+        addRoom(7611);
+        int sellable = inventory.getSellable(TYPE, firstDay, firstDay.plusDays(10));
+
+        // Nights 2 to 4 are sold, and the room is held from day 2 through the check-out day
+        Reservation reservation = reservationService.createReservation(guest, room, firstDay.plusDays(2), firstDay.plusDays(5));
+        assertNotNull(reservation);
+        assertEquals(sellable - 1, inventory.getSellable(TYPE, firstDay, firstDay.plusDays(10)));
+        assertEquals(sellable - 1, inventory.getSellable(TYPE, firstDay, firstDay.plusDays(2)));
+        assertEquals(sellable, inventory.getSellable(TYPE, firstDay, firstDay.plusDays(1)));
+        assertEquals(sellable - 1, inventory.getSellable(TYPE, firstDay.plusDays(5), firstDay.plusDays(10)));
+        assertEquals(sellable, inventory.getSellable(TYPE, firstDay.plusDays(6), firstDay.plusDays(10)));
+        assertEquals(1, inventory.getSold(TYPE, firstDay.plusDays(4)) - inventory.getSold(TYPE, firstDay.plusDays(5)));
+
+        // Moving the stay moves the sold nights
+        reservation.setCheckInDate(firstDay.plusDays(6));
+        reservation.setCheckOutDate(firstDay.plusDays(8));
+        reservationService.updateReservation(reservation);
+        assertEquals(sellable, inventory.getSellable(TYPE, firstDay, firstDay.plusDays(5)));
+        assertEquals(sellable - 1, inventory.getSellable(TYPE, firstDay.plusDays(7), firstDay.plusDays(8)));
+
+        // Cancelling gives them back
+        reservationService.cancelReservation(reservation.getId());
+        assertEquals(sellable, inventory.getSellable(TYPE, firstDay, firstDay.plusDays(10)));
+    }
+
+    @Test
+    public void testBackToBackStaysAgreeWithBooking() {
+        Room room = addRoom(7615);
+        LocalDate arrival = firstDay.plusDays(12);
+        LocalDate departure = arrival.plusDays(2);
+        int sellable = inventory.getSellable(TYPE, departure, departure.plusDays(2));
+        int available = reservationService.getAvailableRoomsByTypeForDates(TYPE, departure, departure.plusDays(2)).size();
+        int[] bookable = inventory.getBookableByNight(TYPE, arrival.minusDays(1), 5);
+
+        assertNotNull(reservationService.createReservation(guest, room, arrival, departure));
+        // A stay starting on the check-out day cannot have the room, and the inventory says so too
+        assertNull(reservationService.createReservation(guest, room, departure, departure.plusDays(2)));
+        assertEquals(available - 1,
+                reservationService.getAvailableRoomsByTypeForDates(TYPE, departure, departure.plusDays(2)).size());
+        assertEquals(sellable - 1, inventory.getSellable(TYPE, departure, departure.plusDays(2)));
+        // Nor can a stay ending on the check-in day
+        assertNull(reservationService.createReservation(guest, room, arrival.minusDays(2), arrival));
+        assertEquals(sellable - 1, inventory.getSellable(TYPE, arrival.minusDays(2), arrival));
+        // From the night before arrival through the departure night, one room less can be booked
+        int[] after = inventory.getBookableByNight(TYPE, arrival.minusDays(1), 5);
+        for (int night = 0; night < 4; night++) {
+            assertEquals(bookable[night] - 1, after[night]);
+        }
+        assertEquals(bookable[4], after[4]);
+
+        // The day after check-out is free again
+        assertEquals(sellable, inventory.getSellable(TYPE, departure.plusDays(1), departure.plusDays(3)));
+        assertNotNull(reservationService.createReservation(guest, room, departure.plusDays(1), departure.plusDays(3)));
+    }
+
+    @Test
+    public void testSellableIsMinimumOfRemainingNights() {
+        for (int i = 0; i < 4; i++) {
+            addRoom(7620 + i);
+        }
+        Random random = new Random(7);
+        for (int i = 0; i < 40; i++) {
+            Room room = testRooms.get(random.nextInt(testRooms.size()));
+            LocalDate checkIn = firstDay.plusDays(random.nextInt(60));
+            reservationService.createReservation(guest, room, checkIn, checkIn.plusDays(1 + random.nextInt(6)));
+        }
+
+        int[] remaining = inventory.getBookableByNight(TYPE, firstDay, 70);
+        for (int i = 0; i < 200; i++) {
+            int from = random.nextInt(70);
+            int to = from + 1 + random.nextInt(70 - from);
+            int expected = Integer.MAX_VALUE;
+            for (int night = from; night < to; night++) {
+                expected = Math.min(expected, remaining[night]);
+            }
+            assertEquals(Math.max(0, expected), inventory.getSellable(TYPE, firstDay.plusDays(from), firstDay.plusDays(to)));
+            assertEquals(expected, inventory.getRemaining(TYPE, firstDay.plusDays(from), firstDay.plusDays(to)));
+        }
+    }
+
+    @Test
+    public void testNightsOutsideWindow() {
+        LocalDate end = inventory.getEndDay();
+        int capacity = inventory.getCapacity(TYPE);
+        assertEquals(capacity, inventory.getSellable(TYPE, end, end.plusDays(5)));
+        assertArrayEquals(new int[] {capacity, capacity}, inventory.getRemainingByNight(TYPE, end, 2));
+        assertArrayEquals(new int[] {capacity, capacity}, inventory.getBookableByNight(TYPE, end, 2));
+        assertEquals(0, inventory.getSold(TYPE, inventory.getFirstDay().minusDays(1)));
+    }
+
+    private Room addRoom(int roomNumber) {
+        Room room = roomService.addRoom(new Room(roomNumber, 76, TYPE, new BigDecimal("250.00")));
+        testRooms.add(room);
+        return room;
+    }
+}
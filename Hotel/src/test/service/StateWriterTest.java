@@ -0,0 +1,174 @@
+package test.service;
+
+import model.Guest;
+import model.Reservation;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.CommandPipeline;
+import service.ExecutionMode;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomService;
+import service.StateWriter;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the CommandPipeline and the StateWriter modes.
+ * The service tests use a room of their own with stays in 2051, and go back to the DIRECT
+ * mode afterwards because other tests share the services.
+ */
+public class StateWriterTest {
+    private static final int THREADS = 8;
+
+    private ExecutorService executor;
+    private Room room;
+
+    @Before
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(THREADS);
+        room = RoomService.getInstance().addRoom(new Room(8100, 81, RoomType.DOUBLE, new BigDecimal("150.00")));
+    }
+
+    @After
+    public void tearDown() {
+        executor.shutdownNow();
+        StateWriter.getInstance().setMode(ExecutionMode.DIRECT);
+        for (Reservation reservation : ReservationService.getInstance().getReservationsByRoom(room)) {
+            ReservationService.getInstance().cancelReservation(reservation.getId());
+        }
+        RoomService.getInstance().deleteRoom(room.getRoomNumber());
+    }
+
+    @Test
+    public void testPipelineAppliesEveryCommandOnOneThread() throws Exception {
+        // A small ring buffer, so that slots are reused many times
+        try (CommandPipeline pipeline = new CommandPipeline(4, "test-writer")) {
+            int[] counter = new int[1];
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tasks.add(() -> {
+                    int last = 0;
+                    for (int i = 0; i < 2_000; i++) {
+                        last = pipeline.execute(() -> {
+                            assertTrue(pipeline.isWriterThread());
+                            return ++counter[0];
+                        });
+                    }
+                    return last;
+                });
+            }
+            for (Future<Integer> future : executor.invokeAll(tasks)) {
+                assertTrue(future.get() > 0);
+            }
+            assertEquals(THREADS * 2_000, counter[0]);
+            assertEquals(THREADS * 2_000, pipeline.getAppliedCount());
+        }
+    }
+
+    @Test
+    public void testPipelineRethrowsAndRunsNestedCommands() {
+        CommandPipeline pipeline = new CommandPipeline(16, "test-writer");
+        try {
+            pipeline.execute(() -> {
+                throw new IllegalStateException("Broken command");
+            });
+            fail("The exception should reach the caller");
+        } catch (IllegalStateException e) {
+            assertEquals("Broken command", e.getMessage());
+        }
+        // A command that submits another one runs it straight away instead of waiting for itself
+        assertEquals("outer inner", pipeline.execute(() -> "outer " + pipeline.execute(() -> "inner")));
+
+        pipeline.close();
+        assertThrows(RejectedExecutionException.class, () -> pipeline.execute(() -> 1));
+    }
+
+    @Test
+    public void testCloseWhileSubmittingNeverStrandsCallers() throws Exception {
+        for (int round = 0; round < 200; round++) {
+            CommandPipeline pipeline = new CommandPipeline(4, "test-writer");
+            List<Callable<Integer>> tasks = new ArrayList<>();
+            for (int t = 0; t < THREADS; t++) {
+                tasks.add(() -> {
+                    int applied = 0;
+                    try {
+                        while (true) {
+                            applied += pipeline.execute(() -> 1);
+                        }
+                    } catch (RejectedExecutionException e) {
+                        return applied;
+                    }
+                });
+            }
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (Callable<Integer> task : tasks) {
+                futures.add(executor.submit(task));
+            }
+            pipeline.close();
+            // Every caller either had its command applied or was rejected; none is left waiting
+            for (Future<Integer> future : futures) {
+                future.get(5, TimeUnit.SECONDS);
+            }
+        }
+    }
+
+    @Test
+    public void testPipelineBooksEachRoomOnce() throws Exception {
+        StateWriter.getInstance().setMode(ExecutionMode.PIPELINE);
+        assertEquals(1, concurrentBookings(LocalDate.of(2051, 3, 1)));
+    }
+
+    @Test
+    public void testLockedModeBooksEachRoomOnce() throws Exception {
+        StateWriter.getInstance().setMode(ExecutionMode.LOCKED);
+        assertEquals(1, concurrentBookings(LocalDate.of(2051, 4, 1)));
+    }
+
+    @Test
+    public void testCheckInChangesRoomInPipeline() {
+        StateWriter.getInstance().setMode(ExecutionMode.PIPELINE);
+        Guest guest = GuestService.getInstance().getGuestById(1);
+        LocalDate checkIn = LocalDate.of(2051, 5, 1);
+        Reservation reservation = ReservationService.getInstance().createReservation(guest, room, checkIn, checkIn.plusDays(2));
+        assertNotNull(reservation);
+
+        // Check-in changes the room status from within the writer
+        assertTrue(ReservationService.getInstance().checkIn(reservation.getId()));
+        assertEquals(RoomStatus.OCCUPIED, RoomService.getInstance().getRoomByNumber(room.getRoomNumber()).getStatus());
+        assertTrue(ReservationService.getInstance().checkOut(reservation.getId()));
+        assertEquals(RoomStatus.CLEANING, room.getStatus());
+        RoomService.getInstance().changeRoomStatus(room.getRoomNumber(), RoomStatus.AVAILABLE);
+    }
+
+    // Book the test room for the same nights from many threads at once, and count the bookings made
+    private int concurrentBookings(LocalDate checkIn) throws Exception {
+        Guest guest = GuestService.getInstance().getGuestById(1);
+        List<Callable<Reservation>> tasks = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            tasks.add(() -> ReservationService.getInstance().createReservation(guest, room, checkIn, checkIn.plusDays(3)));
+        }
+        int booked = 0;
+        for (Future<Reservation> future : executor.invokeAll(tasks)) {
+            if (future.get() != null) {
+                booked++;
+            }
+        }
+        return booked;
+    }
+}
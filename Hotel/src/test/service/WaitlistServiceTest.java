@@ -0,0 +1,214 @@
+package test.service;
+
+import metrics.MetricsRegistry;
+import model.Guest;
+import model.Reservation;
+import model.ReservationStatus;
+import model.Room;
+import model.RoomStatus;
+import model.RoomType;
+import model.WaitlistEntry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomInventory;
+import service.RoomService;
+import service.WaitlistService;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BooleanSupplier;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit tests for the WaitlistService.
+ * Every room of the type is booked for two stays some years ahead, so that requests for those
+ * dates must wait; cancelling the stay of one of the tests' own rooms then frees a room.
+ */
+public class WaitlistServiceTest {
+    private static final RoomType TYPE = RoomType.DOUBLE;
+    private static final LocalDate FIRST_IN = LocalDate.now().plusYears(9);
+    private static final LocalDate FIRST_OUT = FIRST_IN.plusDays(3);
+    private static final LocalDate SECOND_IN = FIRST_IN.plusDays(10);
+    private static final LocalDate SECOND_OUT = SECOND_IN.plusDays(2);
+
+    private WaitlistService waitlistService;
+    private ReservationService reservationService;
+    private RoomInventory inventory;
+    private final List<Room> testRooms = new ArrayList<>();
+    private final List<WaitlistEntry> entries = new ArrayList<>();
+    // The stay filling each of the tests' own rooms on the first dates
+    private final Map<Integer, Reservation> firstStays = new HashMap<>();
+    private Guest guest;
+
+    @Before
+    public void setUp() {
+        waitlistService = WaitlistService.getInstance();
+        reservationService = ReservationService.getInstance();
+        inventory = RoomInventory.getInstance();
+        guest = GuestService.getInstance().getGuestById(1);
+        for (int i = 0; i < 2; i++) {
+            testRooms.add(RoomService.getInstance().addRoom(
+                    new Room(8700 + i, 87, TYPE, RoomStatus.AVAILABLE, new BigDecimal("120.00"), "Waitlist test room")));
+        }
+        for (Room room : RoomService.getInstance().getRoomsByType(TYPE)) {
+            if (room.getStatus() != RoomStatus.MAINTENANCE) {
+                firstStays.put(room.getRoomNumber(),
+                        reservationService.createOverbookedReservation(guest, room, FIRST_IN, FIRST_OUT));
+                reservationService.createOverbookedReservation(guest, room, SECOND_IN, SECOND_OUT);
+            }
+        }
+        assertEquals(0, inventory.getRemaining(TYPE, FIRST_IN, FIRST_OUT));
+        assertEquals(0, inventory.getRemaining(TYPE, SECOND_IN, SECOND_OUT));
+    }
+
+    @After
+    public void tearDown() {
+        waitlistService.setOverbookingAllowance(TYPE, 0);
+        for (WaitlistEntry entry : entries) {
+            waitlistService.withdraw(entry.getId());
+        }
+        for (Reservation reservation : reservationService.getReservationsForDateRange(FIRST_IN, SECOND_OUT)) {
+            if (reservation.getRoom().getType() == TYPE && reservation.getStatus() != ReservationStatus.CANCELLED) {
+                reservationService.cancelReservation(reservation.getId());
+            }
+        }
+        for (Room room : testRooms) {
+            RoomService.getInstance().deleteRoom(room.getRoomNumber());
+        }
+    }
+
+    @Test
+    public void testRequestIsBookedWhenARoomIsFree() {
+        LocalDate checkIn = SECOND_OUT.plusDays(5);
+        WaitlistEntry entry = request(checkIn, checkIn.plusDays(2), 0);
+        assertEquals(WaitlistEntry.Status.BOOKED, entry.getStatus());
+        assertEquals(TYPE, entry.getReservation().getRoom().getType());
+        assertFalse(waitlistService.getWaiting(TYPE).contains(entry));
+    }
+
+    @Test
+    public void testCancellationPromotesHighestPriority() throws Exception {
+        long promotions = promotionCount();
+        WaitlistEntry low = request(FIRST_IN, FIRST_OUT, 0);
+        WaitlistEntry high = request(FIRST_IN.plusDays(1), FIRST_OUT, 5);
+        assertEquals(WaitlistEntry.Status.WAITING, low.getStatus());
+        assertEquals(WaitlistEntry.Status.WAITING, high.getStatus());
+        assertNull(high.getReservation());
+        assertEquals(List.of(high, low), waiting());
+
+        reservationService.cancelReservation(firstStays.get(8700).getId());
+        await(() -> high.getStatus() == WaitlistEntry.Status.BOOKED);
+        assertEquals(8700, high.getReservation().getRoom().getRoomNumber());
+        assertEquals(WaitlistEntry.Status.WAITING, low.getStatus());
+        assertEquals(List.of(low), waiting());
+        assertTrue(promotionCount() > promotions);
+    }
+
+    @Test
+    public void testOnlyRequestsOverlappingTheReleaseAreChecked() throws Exception {
+        WaitlistEntry first = request(FIRST_IN, FIRST_OUT, 0);
+        WaitlistEntry second = request(SECOND_IN, SECOND_OUT, 9);
+        long checked = MetricsRegistry.getInstance().counter("WaitlistService.candidatesChecked").get();
+
+        reservationService.cancelReservation(firstStays.get(8701).getId());
+        await(() -> first.getStatus() == WaitlistEntry.Status.BOOKED);
+        waitlistService.promotePending();
+        assertEquals(WaitlistEntry.Status.WAITING, second.getStatus());
+        assertEquals(checked + 1, MetricsRegistry.getInstance().counter("WaitlistService.candidatesChecked").get());
+    }
+
+    @Test
+    public void testOverbookingAllowance() throws Exception {
+        waitlistService.setOverbookingAllowance(TYPE, 1);
+        assertEquals(1, waitlistService.getOverbookingAllowance(TYPE));
+        WaitlistEntry overbooked = request(FIRST_IN, FIRST_OUT, 0);
+        assertEquals(WaitlistEntry.Status.BOOKED, overbooked.getStatus());
+        assertEquals(ReservationService.OVERBOOKED_NOTE, overbooked.getReservation().getNotes());
+        assertEquals(-1, inventory.getRemaining(TYPE, FIRST_IN, FIRST_OUT));
+
+        // The allowance is used up on the nights it overlaps
+        WaitlistEntry waiting = request(FIRST_OUT.minusDays(1), FIRST_OUT.plusDays(1), 0);
+        assertEquals(WaitlistEntry.Status.WAITING, waiting.getStatus());
+
+        // Raising the allowance lets the waiting request in
+        waitlistService.setOverbookingAllowance(TYPE, 2);
+        await(() -> waiting.getStatus() == WaitlistEntry.Status.BOOKED);
+        assertEquals(ReservationService.OVERBOOKED_NOTE, waiting.getReservation().getNotes());
+
+        try {
+            waitlistService.setOverbookingAllowance(TYPE, -1);
+            fail("A negative allowance should be rejected");
+        } catch (IllegalArgumentException e) {
+            // Expected
+        }
+    }
+
+    @Test
+    public void testRequestArrivingOnCheckOutDay() throws Exception {
+        long overbooked = MetricsRegistry.getInstance().counter("WaitlistService.overbooked").get();
+        // Every room is taken on the check-out day of the first stays, so the request waits
+        WaitlistEntry entry = request(FIRST_OUT, FIRST_OUT.plusDays(2), 0);
+        assertEquals(WaitlistEntry.Status.WAITING, entry.getStatus());
+        assertEquals(0, inventory.getRemaining(TYPE, FIRST_OUT, FIRST_OUT.plusDays(2)));
+
+        // Releasing a stay ending on its check-in day lets it in on that room, without overbooking
+        reservationService.cancelReservation(firstStays.get(8700).getId());
+        await(() -> entry.getStatus() == WaitlistEntry.Status.BOOKED);
+        assertEquals(8700, entry.getReservation().getRoom().getRoomNumber());
+        assertNotEquals(ReservationService.OVERBOOKED_NOTE, entry.getReservation().getNotes());
+        assertEquals(overbooked, MetricsRegistry.getInstance().counter("WaitlistService.overbooked").get());
+    }
+
+    @Test
+    public void testWithdrawnRequestIsNotPromoted() throws Exception {
+        WaitlistEntry withdrawn = request(FIRST_IN, FIRST_OUT, 5);
+        WaitlistEntry kept = request(FIRST_IN, FIRST_OUT, 0);
+        assertTrue(waitlistService.withdraw(withdrawn.getId()));
+        assertFalse(waitlistService.withdraw(withdrawn.getId()));
+        assertEquals(WaitlistEntry.Status.WITHDRAWN, waitlistService.getEntry(withdrawn.getId()).getStatus());
+
+        reservationService.cancelReservation(firstStays.get(8700).getId());
+        await(() -> kept.getStatus() == WaitlistEntry.Status.BOOKED);
+        assertEquals(WaitlistEntry.Status.WITHDRAWN, withdrawn.getStatus());
+        assertNull(withdrawn.getReservation());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testRequestRejectsInvalidDates() {
+        waitlistService.request(guest, TYPE, FIRST_OUT, FIRST_IN, 0);
+    }
+
+    private WaitlistEntry request(LocalDate checkIn, LocalDate checkOut, int priority) {
+        WaitlistEntry entry = waitlistService.request(guest, TYPE, checkIn, checkOut, priority);
+        entries.add(entry);
+        return entry;
+    }
+
+    // Get the tests' own requests still waiting, in the order they will be served
+    private List<WaitlistEntry> waiting() {
+        List<WaitlistEntry> waiting = new ArrayList<>(waitlistService.getWaiting(TYPE));
+        waiting.retainAll(entries);
+        return waiting;
+    }
+
+    private static long promotionCount() {
+        return MetricsRegistry.getInstance().histogram("WaitlistService.promotion").snapshot().count();
+    }
+
+    // Wait for the background thread to promote the waiting requests
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (!condition.getAsBoolean()) {
+            assertTrue("The request should be promoted", System.currentTimeMillis() < deadline);
+            Thread.sleep(10);
+        }
+    }
+}
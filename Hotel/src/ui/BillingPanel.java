@@ -1,5 +1,7 @@
 package ui;
 
+import event.DomainEvent;
+import event.EventBus;
 import model.Bill;
 import model.Reservation;
 import model.ReservationStatus;
@@ -13,17 +15,21 @@ import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.math.BigDecimal;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
 
 /**
  * Panel for managing bills.
  */
 public class BillingPanel extends JPanel {
+    private static final DateTimeFormatter ISSUE_DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
+    
     private final BillingService billingService;
     private final ReservationService reservationService;
     private JTable billsTable;
-    private DefaultTableModel tableModel;
+    private EntityTableModel<Bill> tableModel;
     private JComboBox<String> filterComboBox;
+    private PanelLoader loader;
     
     public BillingPanel() {
         billingService = BillingService.getInstance();
@@ -35,6 +41,7 @@ public class BillingPanel extends JPanel {
         
         createUI();
         loadBills();
+        EventBus.getInstance().subscribeOnEdt(this::applyEvents);
     }
     
     private void createUI() {
@@ -51,8 +58,12 @@ public class BillingPanel extends JPanel {
         filterComboBox = UIUtils.createComboBox(filterOptions);
         filterComboBox.addActionListener(e -> loadBills());
         
+        JProgressBar loadingIndicator = UIUtils.createLoadingIndicator();
+        loader = new PanelLoader(loadingIndicator);
+        
         filterPanel.add(filterLabel);
         filterPanel.add(filterComboBox);
+        filterPanel.add(loadingIndicator);
         
         headerPanel.add(filterPanel, BorderLayout.CENTER);
         
@@ -60,13 +71,13 @@ public class BillingPanel extends JPanel {
         JPanel buttonPanel = UIUtils.createPanel(new FlowLayout(FlowLayout.RIGHT), ColorScheme.BACKGROUND);
         
         JButton createButton = UIUtils.createPrimaryButton("Create Bill");
-        createButton.addActionListener(e -> showCreateBillDialog());
+        createButton.addActionListener(e -> loadBillableReservations());
         
         JButton viewButton = UIUtils.createSecondaryButton("View Bill");
         viewButton.addActionListener(e -> {
             int selectedRow = billsTable.getSelectedRow();
             if (selectedRow >= 0) {
-                int billId = (int) tableModel.getValueAt(selectedRow, 0);
+                int billId = tableModel.getRow(selectedRow).getId();
                 Bill bill = billingService.getBillById(billId);
                 if (bill != null) {
                     showViewBillDialog(bill);
@@ -80,11 +91,9 @@ public class BillingPanel extends JPanel {
         markPaidButton.addActionListener(e -> {
             int selectedRow = billsTable.getSelectedRow();
             if (selectedRow >= 0) {
-                int billId = (int) tableModel.getValueAt(selectedRow, 0);
-                boolean isPaid = (boolean) tableModel.getValueAt(selectedRow, 4);
-                if (!isPaid) {
-                    billingService.markBillAsPaid(billId);
-                    loadBills();
+                Bill bill = tableModel.getRow(selectedRow);
+                if (!bill.isPaid()) {
+                    loader.run(() -> billingService.markBillAsPaid(bill.getId()));
                 } else {
                     JOptionPane.showMessageDialog(this, "This bill is already marked as paid.", "Already Paid", JOptionPane.INFORMATION_MESSAGE);
                 }
@@ -100,21 +109,14 @@ public class BillingPanel extends JPanel {
         headerPanel.add(buttonPanel, BorderLayout.EAST);
         
         // Create table
-        String[] columnNames = {"ID", "Guest", "Room", "Issue Date", "Paid", "Total Amount"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-            
-            @Override
-            public Class<?> getColumnClass(int columnIndex) {
-                if (columnIndex == 4) { // Paid column
-                    return Boolean.class;
-                }
-                return super.getColumnClass(columnIndex);
-            }
-        };
+        tableModel = new EntityTableModel<>(Bill::getId, List.of(
+                new EntityTableModel.Column<>("ID", Integer.class, Bill::getId),
+                new EntityTableModel.Column<>("Guest", bill -> bill.getReservation().getGuest().getFullName()),
+                new EntityTableModel.Column<>("Room", bill -> bill.getReservation().getRoom().toString()),
+                new EntityTableModel.Column<>("Issue Date", bill -> bill.getIssueDate().format(ISSUE_DATE_FORMATTER)),
+                new EntityTableModel.Column<>("Paid", Boolean.class, Bill::isPaid),
+                new EntityTableModel.Column<>("Total Amount", Bill::calculateTotal)
+        ));
         billsTable = UIUtils.createTable();
         billsTable.setModel(tableModel);
         
@@ -126,35 +128,57 @@ public class BillingPanel extends JPanel {
     }
     
     private void loadBills() {
-        tableModel.setRowCount(0);
-        
-        List<Bill> bills;
         String filter = (String) filterComboBox.getSelectedItem();
         
-        if ("Paid Bills".equals(filter)) {
-            bills = billingService.getBillsByPaidStatus(true);
-        } else if ("Unpaid Bills".equals(filter)) {
-            bills = billingService.getBillsByPaidStatus(false);
-        } else {
-            bills = billingService.getAllBills();
+        loader.load("bills", () -> {
+            if ("Paid Bills".equals(filter)) {
+                return billingService.getBillsByPaidStatus(true);
+            } else if ("Unpaid Bills".equals(filter)) {
+                return billingService.getBillsByPaidStatus(false);
+            } else {
+                return billingService.getAllBills();
+            }
+        }, tableModel::setRows);
+    }
+    
+    // Apply bill changes published by the services
+    private void applyEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof DomainEvent.BillCreated created) {
+                refreshBill(created.bill());
+            } else if (event instanceof DomainEvent.BillItemAdded itemAdded) {
+                refreshBill(itemAdded.bill());
+            } else if (event instanceof DomainEvent.BillItemRemoved itemRemoved) {
+                refreshBill(itemRemoved.bill());
+            } else if (event instanceof DomainEvent.BillPaid paid) {
+                refreshBill(paid.bill());
+            }
         }
-        
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm");
-        
-        for (Bill bill : bills) {
-            Object[] rowData = {
-                    bill.getId(),
-                    bill.getReservation().getGuest().getFullName(),
-                    bill.getReservation().getRoom().toString(),
-                    bill.getIssueDate().format(dateFormatter),
-                    bill.isPaid(),
-                    bill.calculateTotal()
-            };
-            tableModel.addRow(rowData);
+    }
+    
+    // Show, refresh or hide the row of a changed bill depending on the current filter
+    private void refreshBill(Bill bill) {
+        String filter = (String) filterComboBox.getSelectedItem();
+        if (("Paid Bills".equals(filter) && !bill.isPaid()) || ("Unpaid Bills".equals(filter) && bill.isPaid())) {
+            tableModel.removeByKey(bill.getId());
+        } else {
+            tableModel.upsertRow(bill);
         }
     }
     
-    private void showCreateBillDialog() {
+    private void loadBillableReservations() {
+        // Get checked-out reservations without bills
+        loader.load("billable-reservations", () -> reservationService.getReservationsByStatus(ReservationStatus.CHECKED_OUT).stream()
+                .filter(reservation -> billingService.getBillByReservation(reservation) == null)
+                .toList(), this::showCreateBillDialog);
+    }
+    
+    private void showCreateBillDialog(List<Reservation> checkedOutReservations) {
+        if (checkedOutReservations.isEmpty()) {
+            JOptionPane.showMessageDialog(this, "No checked-out reservations without bills found.", "No Reservations", JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
         JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), "Create Bill", true);
         dialog.setSize(500, 400);
         dialog.setLocationRelativeTo(this);
@@ -163,18 +187,6 @@ public class BillingPanel extends JPanel {
         JPanel formPanel = UIUtils.createPanel(new BorderLayout(), ColorScheme.BACKGROUND);
         formPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         
-        // Get checked-out reservations without bills
-        List<Reservation> checkedOutReservations = reservationService.getReservationsByStatus(ReservationStatus.CHECKED_OUT);
-        checkedOutReservations = checkedOutReservations.stream()
-                .filter(reservation -> billingService.getBillByReservation(reservation) == null)
-                .toList();
-        
-        if (checkedOutReservations.isEmpty()) {
-            JOptionPane.showMessageDialog(this, "No checked-out reservations without bills found.", "No Reservations", JOptionPane.INFORMATION_MESSAGE);
-            dialog.dispose();
-            return;
-        }
-        
         // Reservation selection
         JLabel reservationLabel = UIUtils.createRegularLabel("Select Reservation:");
         JComboBox<Reservation> reservationComboBox = new JComboBox<>();
@@ -260,23 +272,32 @@ public class BillingPanel extends JPanel {
         createButton.addActionListener(e -> {
             Reservation reservation = (Reservation) reservationComboBox.getSelectedItem();
             if (reservation != null) {
-                Bill bill = billingService.createBill(reservation);
-                if (bill != null) {
-                    // Add additional items
-                    for (int i = 0; i < itemsTableModel.getRowCount(); i++) {
-                        String description = (String) itemsTableModel.getValueAt(i, 0);
-                        BigDecimal amount = (BigDecimal) itemsTableModel.getValueAt(i, 1);
-                        billingService.addItemToBill(bill.getId(), description, amount);
-                    }
-                    
-                    loadBills();
-                    dialog.dispose();
-                    
-                    // Show the bill
-                    showViewBillDialog(bill);
-                } else {
-                    JOptionPane.showMessageDialog(dialog, "Failed to create bill. The reservation may already have a bill.", "Bill Creation Failed", JOptionPane.ERROR_MESSAGE);
+                List<Bill.BillItem> additionalItems = new ArrayList<>();
+                for (int i = 0; i < itemsTableModel.getRowCount(); i++) {
+                    String description = (String) itemsTableModel.getValueAt(i, 0);
+                    BigDecimal amount = (BigDecimal) itemsTableModel.getValueAt(i, 1);
+                    additionalItems.add(new Bill.BillItem(description, amount));
                 }
+                
+                loader.run(() -> {
+                    Bill bill = billingService.createBill(reservation);
+                    if (bill != null) {
+                        // Add additional items
+                        for (Bill.BillItem item : additionalItems) {
+                            billingService.addItemToBill(bill.getId(), item.getDescription(), item.getAmount());
+                        }
+                    }
+                    return bill;
+                }, bill -> {
+                    if (bill != null) {
+                        dialog.dispose();
+                        
+                        // Show the bill
+                        showViewBillDialog(bill);
+                    } else {
+                        JOptionPane.showMessageDialog(dialog, "Failed to create bill. The reservation may already have a bill.", "Bill Creation Failed", JOptionPane.ERROR_MESSAGE);
+                    }
+                });
             }
         });
         
@@ -317,7 +338,7 @@ public class BillingPanel extends JPanel {
         JLabel checkOutValue = UIUtils.createRegularLabel(bill.getReservation().getCheckOutDate().toString());
         
         JLabel issueDateLabel = UIUtils.createRegularLabel("Issue Date:");
-        JLabel issueDateValue = UIUtils.createRegularLabel(bill.getIssueDate().format(DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")));
+        JLabel issueDateValue = UIUtils.createRegularLabel(bill.getIssueDate().format(ISSUE_DATE_FORMATTER));
         
         headerPanel.add(billIdLabel);
         headerPanel.add(billIdValue);
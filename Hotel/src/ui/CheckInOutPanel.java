@@ -1,5 +1,7 @@
 package ui;
 
+import event.DomainEvent;
+import event.EventBus;
 import model.Reservation;
 import model.ReservationStatus;
 import service.ReservationService;
@@ -7,7 +9,6 @@ import util.ColorScheme;
 import util.UIUtils;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
@@ -17,10 +18,13 @@ import java.util.List;
  * Panel for handling check-in and check-out operations.
  */
 public class CheckInOutPanel extends JPanel {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
     private final ReservationService reservationService;
-    private JTable reservationsTable;
-    private DefaultTableModel tableModel;
+    private EntityTableModel<Reservation> checkInTableModel;
+    private EntityTableModel<Reservation> checkOutTableModel;
     private JTabbedPane tabbedPane;
+    private PanelLoader loader;
     
     public CheckInOutPanel() {
         reservationService = ReservationService.getInstance();
@@ -30,6 +34,7 @@ public class CheckInOutPanel extends JPanel {
         setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
         
         createUI();
+        EventBus.getInstance().subscribeOnEdt(this::applyEvents);
     }
     
     private void createUI() {
@@ -38,6 +43,10 @@ public class CheckInOutPanel extends JPanel {
         JLabel titleLabel = UIUtils.createTitleLabel("Check-in / Check-out");
         headerPanel.add(titleLabel, BorderLayout.WEST);
         
+        JProgressBar loadingIndicator = UIUtils.createLoadingIndicator();
+        loader = new PanelLoader(loadingIndicator);
+        headerPanel.add(loadingIndicator, BorderLayout.EAST);
+        
         // Create tabbed pane
         tabbedPane = UIUtils.createTabbedPane();
         
@@ -55,13 +64,7 @@ public class CheckInOutPanel extends JPanel {
         panel.setBorder(BorderFactory.createEmptyBorder(20, 0, 0, 0));
         
         // Create table
-        String[] columnNames = {"ID", "Guest", "Room", "Check-in Date", "Check-out Date", "Total Price"};
-        DefaultTableModel checkInTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        checkInTableModel = new EntityTableModel<>(Reservation::getId, createReservationColumns());
         JTable checkInTable = UIUtils.createTable();
         checkInTable.setModel(checkInTableModel);
         
@@ -71,15 +74,14 @@ public class CheckInOutPanel extends JPanel {
         JPanel buttonPanel = UIUtils.createPanel(new FlowLayout(FlowLayout.RIGHT), ColorScheme.BACKGROUND);
         
         JButton refreshButton = UIUtils.createSecondaryButton("Refresh");
-        refreshButton.addActionListener(e -> loadCheckInReservations(checkInTableModel));
+        refreshButton.addActionListener(e -> loadCheckInReservations());
         
         JButton checkInButton = UIUtils.createPrimaryButton("Check-in");
         checkInButton.addActionListener(e -> {
             int selectedRow = checkInTable.getSelectedRow();
             if (selectedRow >= 0) {
-                int reservationId = (int) checkInTableModel.getValueAt(selectedRow, 0);
+                int reservationId = checkInTableModel.getRow(selectedRow).getId();
                 performCheckIn(reservationId);
-                loadCheckInReservations(checkInTableModel);
             } else {
                 JOptionPane.showMessageDialog(this, "Please select a reservation to check in.", "No Selection", JOptionPane.WARNING_MESSAGE);
             }
@@ -93,7 +95,7 @@ public class CheckInOutPanel extends JPanel {
         panel.add(buttonPanel, BorderLayout.SOUTH);
         
         // Load reservations
-        loadCheckInReservations(checkInTableModel);
+        loadCheckInReservations();
         
         return panel;
     }
@@ -103,13 +105,7 @@ public class CheckInOutPanel extends JPanel {
         panel.setBorder(BorderFactory.createEmptyBorder(20, 0, 0, 0));
         
         // Create table
-        String[] columnNames = {"ID", "Guest", "Room", "Check-in Date", "Check-out Date", "Total Price"};
-        DefaultTableModel checkOutTableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        checkOutTableModel = new EntityTableModel<>(Reservation::getId, createReservationColumns());
         JTable checkOutTable = UIUtils.createTable();
         checkOutTable.setModel(checkOutTableModel);
         
@@ -119,15 +115,14 @@ public class CheckInOutPanel extends JPanel {
         JPanel buttonPanel = UIUtils.createPanel(new FlowLayout(FlowLayout.RIGHT), ColorScheme.BACKGROUND);
         
         JButton refreshButton = UIUtils.createSecondaryButton("Refresh");
-        refreshButton.addActionListener(e -> loadCheckOutReservations(checkOutTableModel));
+        refreshButton.addActionListener(e -> loadCheckOutReservations());
         
         JButton checkOutButton = UIUtils.createPrimaryButton("Check-out");
         checkOutButton.addActionListener(e -> {
             int selectedRow = checkOutTable.getSelectedRow();
             if (selectedRow >= 0) {
-                int reservationId = (int) checkOutTableModel.getValueAt(selectedRow, 0);
+                int reservationId = checkOutTableModel.getRow(selectedRow).getId();
                 performCheckOut(reservationId);
-                loadCheckOutReservations(checkOutTableModel);
             } else {
                 JOptionPane.showMessageDialog(this, "Please select a reservation to check out.", "No Selection", JOptionPane.WARNING_MESSAGE);
             }
@@ -141,67 +136,78 @@ public class CheckInOutPanel extends JPanel {
         panel.add(buttonPanel, BorderLayout.SOUTH);
         
         // Load reservations
-        loadCheckOutReservations(checkOutTableModel);
+        loadCheckOutReservations();
         
         return panel;
     }
     
-    private void loadCheckInReservations(DefaultTableModel tableModel) {
-        tableModel.setRowCount(0);
-        
+    private List<EntityTableModel.Column<Reservation>> createReservationColumns() {
+        return List.of(
+                new EntityTableModel.Column<>("ID", Integer.class, Reservation::getId),
+                new EntityTableModel.Column<>("Guest", reservation -> reservation.getGuest().getFullName()),
+                new EntityTableModel.Column<>("Room", reservation -> reservation.getRoom().toString()),
+                new EntityTableModel.Column<>("Check-in Date", reservation -> reservation.getCheckInDate().format(DATE_FORMATTER)),
+                new EntityTableModel.Column<>("Check-out Date", reservation -> reservation.getCheckOutDate().format(DATE_FORMATTER)),
+                new EntityTableModel.Column<>("Total Price", Reservation::getTotalPrice)
+        );
+    }
+    
+    private void loadCheckInReservations() {
         // Get reservations with status CONFIRMED and check-in date today or earlier
-        List<Reservation> reservations = reservationService.getReservationsByStatus(ReservationStatus.CONFIRMED);
         LocalDate today = LocalDate.now();
-        
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        
-        for (Reservation reservation : reservations) {
-            if (!reservation.getCheckInDate().isAfter(today)) {
-                Object[] rowData = {
-                        reservation.getId(),
-                        reservation.getGuest().getFullName(),
-                        reservation.getRoom().toString(),
-                        reservation.getCheckInDate().format(dateFormatter),
-                        reservation.getCheckOutDate().format(dateFormatter),
-                        reservation.getTotalPrice()
-                };
-                tableModel.addRow(rowData);
-            }
-        }
+        loader.load("check-in", () -> reservationService.getReservationsByStatus(ReservationStatus.CONFIRMED).stream()
+                .filter(reservation -> !reservation.getCheckInDate().isAfter(today))
+                .toList(), checkInTableModel::setRows);
     }
     
-    private void loadCheckOutReservations(DefaultTableModel tableModel) {
-        tableModel.setRowCount(0);
-        
+    private void loadCheckOutReservations() {
         // Get reservations with status CHECKED_IN
-        List<Reservation> reservations = reservationService.getReservationsByStatus(ReservationStatus.CHECKED_IN);
-        
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        
-        for (Reservation reservation : reservations) {
-            Object[] rowData = {
-                    reservation.getId(),
-                    reservation.getGuest().getFullName(),
-                    reservation.getRoom().toString(),
-                    reservation.getCheckInDate().format(dateFormatter),
-                    reservation.getCheckOutDate().format(dateFormatter),
-                    reservation.getTotalPrice()
-            };
-            tableModel.addRow(rowData);
+        loader.load("check-out", () -> reservationService.getReservationsByStatus(ReservationStatus.CHECKED_IN),
+                checkOutTableModel::setRows);
+    }
+    
+    // Move reservations between the check-in and check-out tables as their status changes
+    private void applyEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof DomainEvent.ReservationCreated created) {
+                refreshReservation(created.reservation());
+            } else if (event instanceof DomainEvent.ReservationUpdated updated) {
+                refreshReservation(updated.reservation());
+            } else if (event instanceof DomainEvent.ReservationStatusChanged statusChanged) {
+                refreshReservation(statusChanged.reservation());
+            }
         }
     }
     
-    private void performCheckIn(int reservationId) {
-        boolean success = reservationService.checkIn(reservationId);
-        if (success) {
-            JOptionPane.showMessageDialog(this, "Check-in successful!", "Success", JOptionPane.INFORMATION_MESSAGE);
+    private void refreshReservation(Reservation reservation) {
+        if (reservation.getStatus() == ReservationStatus.CONFIRMED
+                && !reservation.getCheckInDate().isAfter(LocalDate.now())) {
+            checkInTableModel.upsertRow(reservation);
         } else {
-            JOptionPane.showMessageDialog(this, "Failed to check in. The reservation may have been cancelled or already checked in.", "Error", JOptionPane.ERROR_MESSAGE);
+            checkInTableModel.removeByKey(reservation.getId());
+        }
+        if (reservation.getStatus() == ReservationStatus.CHECKED_IN) {
+            checkOutTableModel.upsertRow(reservation);
+        } else {
+            checkOutTableModel.removeByKey(reservation.getId());
         }
     }
     
+    private void performCheckIn(int reservationId) {
+        loader.run(() -> reservationService.checkIn(reservationId), success -> {
+            if (success) {
+                JOptionPane.showMessageDialog(this, "Check-in successful!", "Success", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(this, "Failed to check in. The reservation may have been cancelled or already checked in.", "Error", JOptionPane.ERROR_MESSAGE);
+            }
+        });
+    }
+    
     private void performCheckOut(int reservationId) {
-        boolean success = reservationService.checkOut(reservationId);
+        loader.run(() -> reservationService.checkOut(reservationId), success -> onCheckedOut(reservationId, success));
+    }
+    
+    private void onCheckedOut(int reservationId, boolean success) {
         if (success) {
             JOptionPane.showMessageDialog(this, "Check-out successful!", "Success", JOptionPane.INFORMATION_MESSAGE);
             
@@ -0,0 +1,163 @@
+package ui;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Table model backed by a list of entities.
+ * Cell values are computed from the entity when the table asks for them, and
+ * changes fire row-level events for the affected rows only.
+ *
+ * @param <T> the entity type shown in each row
+ */
+public class EntityTableModel<T> extends AbstractTableModel {
+    private final Function<T, Object> keyExtractor;
+    private final List<Column<T>> columns;
+    private final List<T> rows;
+    private final Map<Object, Integer> rowIndex;
+
+    public EntityTableModel(Function<T, Object> keyExtractor, List<Column<T>> columns) {
+        this.keyExtractor = keyExtractor;
+        this.columns = new ArrayList<>(columns);
+        this.rows = new ArrayList<>();
+        this.rowIndex = new HashMap<>();
+    }
+
+    // Replace all rows
+    public void setRows(Collection<? extends T> entities) {
+        rows.clear();
+        rowIndex.clear();
+        for (T entity : entities) {
+            rowIndex.put(keyExtractor.apply(entity), rows.size());
+            rows.add(entity);
+        }
+        fireTableDataChanged();
+    }
+
+    // Get the entity shown in a row
+    public T getRow(int row) {
+        return rows.get(row);
+    }
+
+    // Get all entities, in row order
+    public List<T> getRows() {
+        return new ArrayList<>(rows);
+    }
+
+    // Find the entity with the given key, or null if it is not shown
+    public T findByKey(Object key) {
+        Integer index = rowIndex.get(key);
+        return index != null ? rows.get(index) : null;
+    }
+
+    // Check whether an entity with the given key is shown
+    public boolean containsKey(Object key) {
+        return rowIndex.containsKey(key);
+    }
+
+    // Append a row
+    public void addRow(T entity) {
+        int index = rows.size();
+        rowIndex.put(keyExtractor.apply(entity), index);
+        rows.add(entity);
+        fireTableRowsInserted(index, index);
+    }
+
+    // Refresh the row showing the given entity; returns false if it is not shown
+    public boolean updateRow(T entity) {
+        Integer index = rowIndex.get(keyExtractor.apply(entity));
+        if (index == null) {
+            return false;
+        }
+        rows.set(index, entity);
+        fireTableRowsUpdated(index, index);
+        return true;
+    }
+
+    // Refresh the row showing the given entity, or append it if it is not shown
+    public void upsertRow(T entity) {
+        if (!updateRow(entity)) {
+            addRow(entity);
+        }
+    }
+
+    // Remove the row with the given key; returns false if it is not shown
+    public boolean removeByKey(Object key) {
+        Integer index = rowIndex.remove(key);
+        if (index == null) {
+            return false;
+        }
+        rows.remove((int) index);
+        for (int i = index; i < rows.size(); i++) {
+            rowIndex.put(keyExtractor.apply(rows.get(i)), i);
+        }
+        fireTableRowsDeleted(index, index);
+        return true;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return columns.size();
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return columns.get(column).getName();
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return columns.get(column).getType();
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        return columns.get(column).getValue(rows.get(row));
+    }
+
+    /**
+     * A column of an {@link EntityTableModel}, computing its cell value from the row entity.
+     */
+    public static class Column<T> {
+        private final String name;
+        private final Class<?> type;
+        private final Function<T, ?> valueFunction;
+
+        public Column(String name, Function<T, ?> valueFunction) {
+            this(name, Object.class, valueFunction);
+        }
+
+        public Column(String name, Class<?> type, Function<T, ?> valueFunction) {
+            this.name = name;
+            this.type = type;
+            this.valueFunction = valueFunction;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public Class<?> getType() {
+            return type;
+        }
+
+        public Object getValue(T entity) {
+            return valueFunction.apply(entity);
+        }
+    }
+}
@@ -1,12 +1,13 @@
 package ui;
 
+import event.DomainEvent;
+import event.EventBus;
 import model.Guest;
 import service.GuestService;
 import util.ColorScheme;
 import util.UIUtils;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.util.List;
 
@@ -16,8 +17,11 @@ import java.util.List;
 public class GuestsPanel extends JPanel {
     private final GuestService guestService;
     private JTable guestsTable;
-    private DefaultTableModel tableModel;
+    private EntityTableModel<Guest> tableModel;
     private JTextField searchField;
+    private PanelLoader loader;
+    // Search term whose results are currently shown, or null before the first load
+    private String shownSearchTerm;
     
     public GuestsPanel() {
         guestService = GuestService.getInstance();
@@ -27,6 +31,7 @@ public class GuestsPanel extends JPanel {
         
         createUI();
         loadGuests();
+        EventBus.getInstance().subscribeOnEdt(this::applyEvents);
     }
     
     private void createUI() {
@@ -40,12 +45,14 @@ public class GuestsPanel extends JPanel {
         
         JLabel searchLabel = UIUtils.createRegularLabel("Search: ");
         searchField = UIUtils.createTextField(20);
-        JButton searchButton = UIUtils.createPrimaryButton("Search");
-        searchButton.addActionListener(e -> searchGuests());
+        new SearchDebouncer(searchField, this::searchGuests);
+        
+        JProgressBar loadingIndicator = UIUtils.createLoadingIndicator();
+        loader = new PanelLoader(loadingIndicator);
         
         searchPanel.add(searchLabel);
         searchPanel.add(searchField);
-        searchPanel.add(searchButton);
+        searchPanel.add(loadingIndicator);
         
         headerPanel.add(searchPanel, BorderLayout.CENTER);
         
@@ -59,7 +66,7 @@ public class GuestsPanel extends JPanel {
         editButton.addActionListener(e -> {
             int selectedRow = guestsTable.getSelectedRow();
             if (selectedRow >= 0) {
-                int guestId = (int) tableModel.getValueAt(selectedRow, 0);
+                int guestId = tableModel.getRow(selectedRow).getId();
                 Guest guest = guestService.getGuestById(guestId);
                 if (guest != null) {
                     showEditGuestDialog(guest);
@@ -73,13 +80,12 @@ public class GuestsPanel extends JPanel {
         deleteButton.addActionListener(e -> {
             int selectedRow = guestsTable.getSelectedRow();
             if (selectedRow >= 0) {
-                int guestId = (int) tableModel.getValueAt(selectedRow, 0);
+                int guestId = tableModel.getRow(selectedRow).getId();
                 int confirm = JOptionPane.showConfirmDialog(this,
                         "Are you sure you want to delete this guest?",
                         "Confirm Deletion", JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
-                    guestService.deleteGuest(guestId);
-                    loadGuests();
+                    loader.run(() -> guestService.deleteGuest(guestId));
                 }
             } else {
                 JOptionPane.showMessageDialog(this, "Please select a guest to delete.", "No Selection", JOptionPane.WARNING_MESSAGE);
@@ -93,13 +99,15 @@ public class GuestsPanel extends JPanel {
         headerPanel.add(buttonPanel, BorderLayout.EAST);
         
         // Create table
-        String[] columnNames = {"ID", "First Name", "Last Name", "ID Number", "Phone", "Email", "Address"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new EntityTableModel<>(Guest::getId, List.of(
+                new EntityTableModel.Column<>("ID", Integer.class, Guest::getId),
+                new EntityTableModel.Column<>("First Name", Guest::getFirstName),
+                new EntityTableModel.Column<>("Last Name", Guest::getLastName),
+                new EntityTableModel.Column<>("ID Number", Guest::getIdNumber),
+                new EntityTableModel.Column<>("Phone", Guest::getPhone),
+                new EntityTableModel.Column<>("Email", Guest::getEmail),
+                new EntityTableModel.Column<>("Address", Guest::getAddress)
+        ));
         guestsTable = UIUtils.createTable();
         guestsTable.setModel(tableModel);
         
@@ -111,61 +119,48 @@ public class GuestsPanel extends JPanel {
     }
     
     private void loadGuests() {
-        tableModel.setRowCount(0);
-        
-        List<Guest> guests = guestService.getAllGuests();
-        
-        for (Guest guest : guests) {
-            Object[] rowData = {
-                    guest.getId(),
-                    guest.getFirstName(),
-                    guest.getLastName(),
-                    guest.getIdNumber(),
-                    guest.getPhone(),
-                    guest.getEmail(),
-                    guest.getAddress()
-            };
-            tableModel.addRow(rowData);
+        searchGuests(searchField.getText().trim());
+    }
+    
+    private void searchGuests(String searchTerm) {
+        String lowerCaseTerm = searchTerm.toLowerCase();
+        if (shownSearchTerm != null && lowerCaseTerm.startsWith(shownSearchTerm)) {
+            // The new term extends the shown one, so only the shown guests can still match
+            List<Guest> shownGuests = tableModel.getRows();
+            loader.load("guests", () -> shownGuests.stream()
+                    .filter(guest -> guest.matchesSearch(lowerCaseTerm))
+                    .toList(), guests -> showGuests(lowerCaseTerm, guests));
+        } else if (lowerCaseTerm.isEmpty()) {
+            loader.load("guests", guestService::getAllGuests, guests -> showGuests(lowerCaseTerm, guests));
+        } else {
+            loader.load("guests", () -> guestService.searchGuests(lowerCaseTerm), guests -> showGuests(lowerCaseTerm, guests));
         }
     }
     
-    private void searchGuests() {
-        String searchTerm = searchField.getText().trim();
-        if (searchTerm.isEmpty()) {
-            loadGuests();
-            return;
+    private void showGuests(String lowerCaseTerm, List<Guest> guests) {
+        tableModel.setRows(guests);
+        shownSearchTerm = lowerCaseTerm;
+    }
+    
+    // Apply guest changes published by the services
+    private void applyEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof DomainEvent.GuestAdded added) {
+                refreshGuest(added.guest());
+            } else if (event instanceof DomainEvent.GuestUpdated updated) {
+                refreshGuest(updated.guest());
+            } else if (event instanceof DomainEvent.GuestDeleted deleted) {
+                tableModel.removeByKey(deleted.guest().getId());
+            }
         }
-        
-        tableModel.setRowCount(0);
-        
-        // Try to find by ID number first
-        Guest guestByIdNumber = guestService.searchGuestByIdNumber(searchTerm);
-        if (guestByIdNumber != null) {
-            Object[] rowData = {
-                    guestByIdNumber.getId(),
-                    guestByIdNumber.getFirstName(),
-                    guestByIdNumber.getLastName(),
-                    guestByIdNumber.getIdNumber(),
-                    guestByIdNumber.getPhone(),
-                    guestByIdNumber.getEmail(),
-                    guestByIdNumber.getAddress()
-            };
-            tableModel.addRow(rowData);
+    }
+    
+    // Show, refresh or hide the row of a changed guest depending on the current search
+    private void refreshGuest(Guest guest) {
+        if (shownSearchTerm == null || guest.matchesSearch(shownSearchTerm)) {
+            tableModel.upsertRow(guest);
         } else {
-            // Search by name
-            List<Guest> guestsByName = guestService.searchGuestsByName(searchTerm);
-            for (Guest guest : guestsByName) {
-                Object[] rowData = {
-                        guest.getId(),
-                        guest.getFirstName(),
-                        guest.getLastName(),
-                        guest.getIdNumber(),
-                        guest.getPhone(),
-                        guest.getEmail(),
-                        guest.getAddress()
-                };
-                tableModel.addRow(rowData);
-            }
+            tableModel.removeByKey(guest.getId());
         }
     }
     
@@ -229,9 +224,7 @@ public class GuestsPanel extends JPanel {
             }
             
             Guest guest = new Guest(firstName, lastName, idNumber, phone, email, address);
-            guestService.addGuest(guest);
-            loadGuests();
-            dialog.dispose();
+            loader.run(() -> guestService.addGuest(guest), addedGuest -> dialog.dispose());
         });
         
         buttonPanel.add(cancelButton);
@@ -315,9 +308,7 @@ public class GuestsPanel extends JPanel {
             guest.setEmail(email);
             guest.setAddress(address);
             
-            guestService.updateGuest(guest);
-            loadGuests();
-            dialog.dispose();
+            loader.run(() -> guestService.updateGuest(guest), updatedGuest -> dialog.dispose());
         });
         
         buttonPanel.add(cancelButton);
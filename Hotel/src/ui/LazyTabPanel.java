@@ -0,0 +1,55 @@
+package ui;
+
+import util.ColorScheme;
+import util.UIUtils;
+
+import javax.swing.*;
+import java.awt.*;
+import java.util.function.Supplier;
+
+/**
+ * Placeholder for a tab whose content is only built the first time it is needed.
+ * Until then it shows a loading indicator.
+ */
+public class LazyTabPanel extends JPanel {
+    private final Supplier<? extends JComponent> factory;
+    private JComponent content;
+
+    public LazyTabPanel(Supplier<? extends JComponent> factory) {
+        super(new BorderLayout());
+        this.factory = factory;
+        setBackground(ColorScheme.BACKGROUND);
+
+        JProgressBar loadingIndicator = UIUtils.createLoadingIndicator();
+        loadingIndicator.setVisible(true);
+        JPanel loadingPanel = UIUtils.createPanel(new GridBagLayout(), ColorScheme.BACKGROUND);
+        loadingPanel.add(loadingIndicator);
+        add(loadingPanel, BorderLayout.CENTER);
+    }
+
+    /**
+     * Build the content if it has not been built yet. Must be called on the EDT.
+     *
+     * @return the tab content
+     */
+    public JComponent ensureCreated() {
+        if (content == null) {
+            content = factory.get();
+            removeAll();
+            add(content, BorderLayout.CENTER);
+            revalidate();
+            repaint();
+        }
+        return content;
+    }
+
+    // Check whether the content has been built
+    public boolean isCreated() {
+        return content != null;
+    }
+
+    // Get the content, or null if it has not been built yet
+    public JComponent getContent() {
+        return content;
+    }
+}
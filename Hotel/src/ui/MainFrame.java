@@ -1,26 +1,82 @@
 package ui;
 
+import analytics.KpiEngine;
+import analytics.KpiFigures;
+import analytics.KpiPeriod;
+import analytics.PaceEngine;
+import event.EventBus;
+import metrics.LatencyHistogram;
+import metrics.LatencySnapshot;
+import metrics.MetricsRegistry;
+import model.RoomType;
+import service.BillingService;
+import service.GuestService;
+import service.ReservationService;
+import service.RoomService;
 import util.ColorScheme;
 import util.Messages;
+import util.StartupTimeline;
 import util.UIUtils;
 
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
 
 /**
  * Main application window.
+ * Services are warmed up in parallel in the background while the window is built, and each
+ * tab is only created the first time it is selected. How long each startup phase and each
+ * tab takes is recorded in the startup timeline, and tab creation times also go to the
+ * metrics registry; the timeline is only printed when startup timing is turned on.
  */
 public class MainFrame extends JFrame {
+    private static final int METRICS_REFRESH_SECONDS = 5;
+    private static final int FORECAST_NIGHTS = 30;
+
+    private final StartupTimeline timeline;
+    private final boolean printStartupTiming;
+    private final LatencyHistogram createTabLatency = MetricsRegistry.getInstance().histogram("MainFrame.createTab");
+    private final CompletableFuture<Void> servicesReady;
     private JPanel statusBar;
     private JLabel statusLabel;
+    private JLabel metricsLabel;
     private JLabel timeLabel;
+    private JTabbedPane tabbedPane;
     private Timer timer;
+    // Live figures on the dashboard: occupancy tonight, then occupancy, ADR and RevPAR of the month
+    private JLabel occupancyTodayLabel;
+    private JLabel occupancyMonthLabel;
+    private JLabel adrLabel;
+    private JLabel revParLabel;
+    // Occupancy forecast over the coming nights
+    private JLabel forecastLabel;
 
     public MainFrame() {
+        this(false);
+    }
+
+    /**
+     * @param printStartupTiming print the startup timeline once the services are ready, and the
+     *                           time taken by each tab when it is created
+     */
+    public MainFrame(boolean printStartupTiming) {
+        this.printStartupTiming = printStartupTiming;
+        timeline = new StartupTimeline();
+
+        // Start loading the services before building the UI
+        servicesReady = warmUpServices();
+
         // Set up the frame
         setTitle(Messages.get("app.title"));
         setSize(1200, 800);
@@ -29,17 +85,66 @@ public class MainFrame extends JFrame {
 
         // Set system look and feel
         UIUtils.setSystemLookAndFeel();
+        timeline.mark("look and feel");
 
         // Create components
         createMenuBar();
         createStatusBar();
+        timeline.mark("menu and status bar");
         createMainPanel();
+        timeline.mark("tabs");
 
         // Start the timer for updating the time
         startTimer();
 
         // Make the frame visible
         setVisible(true);
+        timeline.mark("window shown");
+
+        servicesReady.whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> onServicesReady(error)));
+    }
+
+    // Initialize all services in parallel on background threads
+    private CompletableFuture<Void> warmUpServices() {
+        AtomicInteger threadCount = new AtomicInteger();
+        ExecutorService warmUpPool = Executors.newFixedThreadPool(4, runnable -> {
+            Thread thread = new Thread(runnable, "service-warmup-" + threadCount.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        CompletableFuture<Void> ready = CompletableFuture.allOf(
+                warmUp("EventBus", EventBus::getInstance, warmUpPool),
+                warmUp("RoomService", RoomService::getInstance, warmUpPool),
+                warmUp("GuestService", GuestService::getInstance, warmUpPool),
+                warmUp("ReservationService", ReservationService::getInstance, warmUpPool),
+                warmUp("BillingService", BillingService::getInstance, warmUpPool),
+                warmUp("KpiEngine", KpiEngine::getInstance, warmUpPool));
+        ready.whenComplete((ignored, error) -> warmUpPool.shutdown());
+        return ready;
+    }
+
+    private CompletableFuture<Void> warmUp(String name, Supplier<?> service, ExecutorService executor) {
+        return CompletableFuture.runAsync(() -> timeline.time(name, service::get), executor);
+    }
+
+    private void onServicesReady(Throwable error) {
+        timeline.mark("services ready");
+        if (error != null) {
+            error.printStackTrace();
+            JOptionPane.showMessageDialog(this, "An error occurred: " + error.getMessage(),
+                    "Error", JOptionPane.ERROR_MESSAGE);
+        }
+        setStatusMessage(Messages.get("status.ready"));
+        if (printStartupTiming) {
+            System.out.println(timeline.format());
+            System.out.println("JVM uptime at startup complete: " + ManagementFactory.getRuntimeMXBean().getUptime() + " ms");
+        }
+    }
+
+    // Get the startup phases recorded so far, including the tabs created
+    public StartupTimeline getStartupTimeline() {
+        return timeline;
     }
 
     private void createMenuBar() {
@@ -74,29 +179,52 @@ public class MainFrame extends JFrame {
         statusBar = UIUtils.createPanel(new BorderLayout(), ColorScheme.PRIMARY_DARK);
         statusBar.setBorder(BorderFactory.createEmptyBorder(5, 10, 5, 10));
 
-        statusLabel = UIUtils.createLabel(Messages.get("status.ready"), new Font("Arial", Font.PLAIN, 12), ColorScheme.TEXT_LIGHT);
+        statusLabel = UIUtils.createLabel(Messages.get("status.loading"), new Font("Arial", Font.PLAIN, 12), ColorScheme.TEXT_LIGHT);
+        metricsLabel = UIUtils.createLabel("", new Font("Arial", Font.PLAIN, 12), ColorScheme.TEXT_LIGHT);
+        metricsLabel.setHorizontalAlignment(SwingConstants.CENTER);
         timeLabel = UIUtils.createLabel("", new Font("Arial", Font.PLAIN, 12), ColorScheme.TEXT_LIGHT);
 
         statusBar.add(statusLabel, BorderLayout.WEST);
+        statusBar.add(metricsLabel, BorderLayout.CENTER);
         statusBar.add(timeLabel, BorderLayout.EAST);
 
         add(statusBar, BorderLayout.SOUTH);
     }
 
     private void createMainPanel() {
-        JTabbedPane tabbedPane = UIUtils.createTabbedPane();
+        tabbedPane = UIUtils.createTabbedPane();
 
-        // Add tabs for different screens
+        // Add tabs for different screens; all but the dashboard are built on first selection
         tabbedPane.addTab(Messages.get("tab.dashboard"), createDashboardPanel());
-        tabbedPane.addTab(Messages.get("tab.rooms"), new RoomsPanel());
-        tabbedPane.addTab(Messages.get("tab.guests"), new GuestsPanel());
-        tabbedPane.addTab(Messages.get("tab.reservations"), new ReservationsPanel());
-        tabbedPane.addTab(Messages.get("tab.checkinout"), new CheckInOutPanel());
-        tabbedPane.addTab(Messages.get("tab.billing"), new BillingPanel());
+        tabbedPane.addTab(Messages.get("tab.rooms"), new LazyTabPanel(RoomsPanel::new));
+        tabbedPane.addTab(Messages.get("tab.guests"), new LazyTabPanel(GuestsPanel::new));
+        tabbedPane.addTab(Messages.get("tab.reservations"), new LazyTabPanel(ReservationsPanel::new));
+        tabbedPane.addTab(Messages.get("tab.checkinout"), new LazyTabPanel(CheckInOutPanel::new));
+        tabbedPane.addTab(Messages.get("tab.billing"), new LazyTabPanel(BillingPanel::new));
+        tabbedPane.addChangeListener(e -> createSelectedTab());
 
         add(tabbedPane, BorderLayout.CENTER);
     }
 
+    // Build the selected tab once the services it uses are ready
+    private void createSelectedTab() {
+        int index = tabbedPane.getSelectedIndex();
+        if (index < 0 || !(tabbedPane.getComponentAt(index) instanceof LazyTabPanel lazyTab) || lazyTab.isCreated()) {
+            return;
+        }
+        String title = tabbedPane.getTitleAt(index);
+        servicesReady.thenRun(() -> SwingUtilities.invokeLater(() -> {
+            if (!lazyTab.isCreated()) {
+                long start = System.nanoTime();
+                timeline.time("tab " + title, lazyTab::ensureCreated);
+                createTabLatency.recordSince(start);
+                if (printStartupTiming) {
+                    System.out.println("Created tab " + title + " in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+                }
+            }
+        }));
+    }
+
     private JPanel createDashboardPanel() {
         JPanel panel = UIUtils.createPanel(new BorderLayout(), ColorScheme.BACKGROUND);
         panel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
@@ -118,10 +246,43 @@ public class MainFrame extends JFrame {
 
         panel.add(headerPanel, BorderLayout.NORTH);
         panel.add(contentPanel, BorderLayout.CENTER);
+        panel.add(createKpiPanel(), BorderLayout.SOUTH);
 
         return panel;
     }
 
+    private JPanel createKpiPanel() {
+        JPanel panel = UIUtils.createPanel(new GridLayout(1, 5, 20, 0), ColorScheme.BACKGROUND);
+        panel.setBorder(BorderFactory.createEmptyBorder(20, 0, 0, 0));
+        occupancyTodayLabel = createKpiValueLabel();
+        occupancyMonthLabel = createKpiValueLabel();
+        adrLabel = createKpiValueLabel();
+        revParLabel = createKpiValueLabel();
+        forecastLabel = createKpiValueLabel();
+        panel.add(createKpiTile(Messages.get("dashboard.kpi.occupancyToday"), occupancyTodayLabel));
+        panel.add(createKpiTile(Messages.get("dashboard.kpi.occupancyMonth"), occupancyMonthLabel));
+        panel.add(createKpiTile(Messages.get("dashboard.kpi.adr"), adrLabel));
+        panel.add(createKpiTile(Messages.get("dashboard.kpi.revpar"), revParLabel));
+        panel.add(createKpiTile(Messages.get("dashboard.kpi.forecast"), forecastLabel));
+        return panel;
+    }
+
+    private JLabel createKpiValueLabel() {
+        JLabel label = UIUtils.createLabel("-", new Font("Arial", Font.BOLD, 24), ColorScheme.PRIMARY_DARK);
+        label.setHorizontalAlignment(SwingConstants.CENTER);
+        return label;
+    }
+
+    private JPanel createKpiTile(String title, JLabel valueLabel) {
+        JPanel panel = UIUtils.createPanel(new BorderLayout(), ColorScheme.BACKGROUND);
+        panel.setBorder(BorderFactory.createLineBorder(ColorScheme.BACKGROUND_DARK, 1));
+        JLabel titleLabel = UIUtils.createRegularLabel(title);
+        titleLabel.setHorizontalAlignment(SwingConstants.CENTER);
+        panel.add(titleLabel, BorderLayout.NORTH);
+        panel.add(valueLabel, BorderLayout.CENTER);
+        return panel;
+    }
+
     private JPanel createDashboardCard(String title, String description, Color color) {
         JPanel panel = UIUtils.createPanel(new BorderLayout(), ColorScheme.BACKGROUND);
         panel.setBorder(BorderFactory.createLineBorder(color, 2));
@@ -149,9 +310,16 @@ public class MainFrame extends JFrame {
 
     private void startTimer() {
         timer = new Timer(1000, new ActionListener() {
+            private int ticks;
+
             @Override
             public void actionPerformed(ActionEvent e) {
                 updateTime();
+                updateKpis();
+                // The metrics readout changes slowly, so refresh it every few seconds
+                if (ticks++ % METRICS_REFRESH_SECONDS == 0) {
+                    updateMetrics();
+                }
             }
         });
         timer.start();
@@ -163,6 +331,71 @@ public class MainFrame extends JFrame {
         timeLabel.setText(now.format(formatter));
     }
 
+    // Show the live figures once the services are ready; the figures per room type are in the tooltips
+    private void updateKpis() {
+        if (!servicesReady.isDone() || servicesReady.isCompletedExceptionally()) {
+            return;
+        }
+        KpiEngine kpis = KpiEngine.getInstance();
+        List<KpiFigures> today = kpis.getCurrent(KpiPeriod.DAY);
+        List<KpiFigures> month = kpis.getCurrent(KpiPeriod.MONTH);
+        KpiFigures monthTotal = month.get(month.size() - 1);
+        occupancyTodayLabel.setText(String.format("%.1f %%", today.get(today.size() - 1).occupancy() * 100));
+        occupancyMonthLabel.setText(String.format("%.1f %%", monthTotal.occupancy() * 100));
+        adrLabel.setText(monthTotal.adr().toPlainString());
+        revParLabel.setText(monthTotal.revPar().toPlainString());
+
+        StringBuilder occupancyToday = new StringBuilder("<html>");
+        StringBuilder occupancyMonth = new StringBuilder("<html>");
+        StringBuilder adr = new StringBuilder("<html>");
+        StringBuilder revPar = new StringBuilder("<html>");
+        for (int i = 0; i < month.size() - 1; i++) {
+            String type = month.get(i).type().getDisplayName();
+            occupancyToday.append(String.format("%s: %.1f %%<br>", type, today.get(i).occupancy() * 100));
+            occupancyMonth.append(String.format("%s: %.1f %%<br>", type, month.get(i).occupancy() * 100));
+            adr.append(type).append(": ").append(month.get(i).adr().toPlainString()).append("<br>");
+            revPar.append(type).append(": ").append(month.get(i).revPar().toPlainString()).append("<br>");
+        }
+        occupancyTodayLabel.setToolTipText(occupancyToday.append("</html>").toString());
+        occupancyMonthLabel.setToolTipText(occupancyMonth.append("</html>").toString());
+        adrLabel.setToolTipText(adr.append("</html>").toString());
+        revParLabel.setToolTipText(revPar.append("</html>").toString());
+        updateForecast();
+    }
+
+    // Show the average occupancy forecast for the next 30 nights, once fitted
+    private void updateForecast() {
+        PaceEngine pace = PaceEngine.getInstance();
+        LocalDate today = LocalDate.now();
+        double occupancy = pace.getForecastOccupancy(null, today, FORECAST_NIGHTS);
+        forecastLabel.setText(occupancy < 0 ? "-" : String.format("%.1f %%", occupancy * 100));
+        StringBuilder tooltip = new StringBuilder("<html>");
+        for (RoomType type : RoomType.values()) {
+            double typeOccupancy = pace.getForecastOccupancy(type, today, FORECAST_NIGHTS);
+            if (typeOccupancy >= 0) {
+                tooltip.append(String.format("%s: %.1f %%<br>", type.getDisplayName(), typeOccupancy * 100));
+            }
+        }
+        forecastLabel.setToolTipText(tooltip.append("</html>").toString());
+    }
+
+    // Show the total number of service calls and the operation with the slowest p99
+    private void updateMetrics() {
+        long calls = 0;
+        LatencySnapshot slowest = null;
+        for (LatencySnapshot snapshot : MetricsRegistry.getInstance().getLatencySnapshots()) {
+            calls += snapshot.count();
+            if (snapshot.count() > 0 && (slowest == null || snapshot.p99Nanos() > slowest.p99Nanos())) {
+                slowest = snapshot;
+            }
+        }
+        if (slowest != null) {
+            metricsLabel.setText(Messages.get("status.metrics", calls, slowest.name(),
+                    LatencySnapshot.formatNanos(slowest.p99Nanos())));
+            metricsLabel.setToolTipText("<html><pre>" + MetricsRegistry.getInstance().format() + "</pre></html>");
+        }
+    }
+
     public void setStatusMessage(String message) {
         statusLabel.setText(message);
     }
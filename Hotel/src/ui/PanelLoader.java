@@ -0,0 +1,167 @@
+package ui;
+
+import profiling.PanelLoadEvent;
+
+import javax.swing.*;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Runs service calls for a panel on a shared worker pool and hands the results back on the
+ * Event Dispatch Thread. Starting a load with the same key as a running one cancels the
+ * running one, so a filter changed again mid-load only ever shows the latest result.
+ */
+public class PanelLoader {
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+    private static final ExecutorService WORKER_POOL = Executors.newFixedThreadPool(
+            Math.max(2, Runtime.getRuntime().availableProcessors()), runnable -> {
+                Thread thread = new Thread(runnable, "panel-loader-" + THREAD_COUNT.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+
+    private final JComponent loadingIndicator;
+    private final Map<String, SwingWorker<?, ?>> runningLoads;
+    private int pending;
+
+    public PanelLoader(JComponent loadingIndicator) {
+        this.loadingIndicator = loadingIndicator;
+        this.runningLoads = new HashMap<>();
+        this.pending = 0;
+    }
+
+    /**
+     * Run a query in the background and pass its result to the consumer on the EDT.
+     * A previous load with the same key that has not finished yet is cancelled.
+     *
+     * @param key identifies what is being loaded, e.g. "rooms"
+     * @param query the service call to run off the EDT
+     * @param onLoaded receives the result on the EDT
+     */
+    public <T> void load(String key, Callable<T> query, Consumer<T> onLoaded) {
+        load(key, query, onLoaded, this::showError);
+    }
+
+    /**
+     * Run a query in the background and pass its result or failure to the consumers on the EDT.
+     */
+    public <T> void load(String key, Callable<T> query, Consumer<T> onLoaded, Consumer<Throwable> onError) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> load(key, query, onLoaded, onError));
+            return;
+        }
+
+        SwingWorker<?, ?> previous = runningLoads.remove(key);
+        if (previous != null) {
+            previous.cancel(true);
+        }
+        SwingWorker<T, Void> worker = createWorker(key, query, onLoaded, onError, createEvent(key));
+        runningLoads.put(key, worker);
+        WORKER_POOL.execute(worker);
+    }
+
+    /**
+     * Run an action in the background whose result is not needed, e.g. because the change
+     * reaches the panel as a domain event.
+     */
+    public void run(Callable<?> action) {
+        run(action, result -> { });
+    }
+
+    /**
+     * Run an action (for example a check-in) in the background and pass its result to the consumer on the EDT.
+     * Actions are never cancelled by later calls.
+     */
+    public <T> void run(Callable<T> action, Consumer<T> onDone) {
+        if (!SwingUtilities.isEventDispatchThread()) {
+            SwingUtilities.invokeLater(() -> run(action, onDone));
+            return;
+        }
+        WORKER_POOL.execute(createWorker(null, action, onDone, this::showError, null));
+    }
+
+    // Check whether any load or action started by this loader is still running
+    public boolean isLoading() {
+        return pending > 0;
+    }
+
+    // Start a Flight Recorder event for a load, or return null if loads are not being recorded
+    private static PanelLoadEvent createEvent(String key) {
+        PanelLoadEvent event = new PanelLoadEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.load = key;
+        event.rows = -1;
+        event.begin();
+        return event;
+    }
+
+    private <T> SwingWorker<T, Void> createWorker(String key, Callable<T> query, Consumer<T> onLoaded,
+                                                  Consumer<Throwable> onError, PanelLoadEvent event) {
+        setPending(pending + 1);
+        return new SwingWorker<>() {
+            @Override
+            protected T doInBackground() throws Exception {
+                long start = System.nanoTime();
+                T result = query.call();
+                if (event != null) {
+                    event.queryTime = System.nanoTime() - start;
+                    if (result instanceof Collection<?> collection) {
+                        event.rows = collection.size();
+                    }
+                }
+                return result;
+            }
+
+            @Override
+            protected void done() {
+                setPending(pending - 1);
+                if (key != null && runningLoads.get(key) == this) {
+                    runningLoads.remove(key);
+                }
+                if (isCancelled()) {
+                    commit(event, true, false);
+                    return;
+                }
+                try {
+                    onLoaded.accept(get());
+                    commit(event, false, false);
+                } catch (ExecutionException e) {
+                    commit(event, false, true);
+                    onError.accept(e.getCause());
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        };
+    }
+
+    private static void commit(PanelLoadEvent event, boolean cancelled, boolean failed) {
+        if (event != null) {
+            event.cancelled = cancelled;
+            event.failed = failed;
+            event.commit();
+        }
+    }
+
+    private void setPending(int pending) {
+        this.pending = pending;
+        if (loadingIndicator != null) {
+            loadingIndicator.setVisible(pending > 0);
+        }
+    }
+
+    private void showError(Throwable error) {
+        error.printStackTrace();
+        JOptionPane.showMessageDialog(loadingIndicator, "An error occurred: " + error.getMessage(),
+                "Error", JOptionPane.ERROR_MESSAGE);
+    }
+}
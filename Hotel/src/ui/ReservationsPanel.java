@@ -1,35 +1,55 @@
 package ui;
 
+import event.DomainEvent;
+import event.EventBus;
 import model.*;
+import service.AsyncGuestService;
+import service.AsyncReservationService;
 import service.GuestService;
+import service.RateCalendar;
 import service.ReservationService;
 import service.RoomService;
+import service.WaitlistService;
 import util.ColorScheme;
 import util.UIUtils;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.stream.Collectors;
 
 /**
  * Panel for managing reservations.
  */
 public class ReservationsPanel extends JPanel {
+    private static final DateTimeFormatter DATE_FORMATTER = DateTimeFormatter.ofPattern("yyyy-MM-dd");
+
     private final ReservationService reservationService;
     private final GuestService guestService;
     private final RoomService roomService;
+    private final WaitlistService waitlistService;
+    private final AsyncReservationService asyncReservationService;
+    private final AsyncGuestService asyncGuestService;
     private JTable reservationsTable;
-    private DefaultTableModel tableModel;
+    private EntityTableModel<Reservation> tableModel;
     private JComboBox<ReservationStatus> statusFilterComboBox;
     private JTextField guestSearchField;
+    private PanelLoader loader;
+    // Filters whose results are currently shown; the guest search is null before the first load
+    private ReservationStatus shownStatusFilter;
+    private String shownGuestSearch;
     
     public ReservationsPanel() {
         reservationService = ReservationService.getInstance();
         guestService = GuestService.getInstance();
         roomService = RoomService.getInstance();
+        waitlistService = WaitlistService.getInstance();
+        asyncReservationService = AsyncReservationService.getInstance();
+        asyncGuestService = AsyncGuestService.getInstance();
         
         setLayout(new BorderLayout());
         setBackground(ColorScheme.BACKGROUND);
@@ -37,6 +57,7 @@ public class ReservationsPanel extends JPanel {
         
         createUI();
         loadReservations();
+        EventBus.getInstance().subscribeOnEdt(this::applyEvents);
     }
     
     private void createUI() {
@@ -56,15 +77,17 @@ public class ReservationsPanel extends JPanel {
         
         JLabel guestSearchLabel = UIUtils.createRegularLabel("Search by Guest: ");
         guestSearchField = UIUtils.createTextField(15);
-        JButton searchButton = UIUtils.createPrimaryButton("Search");
-        searchButton.addActionListener(e -> loadReservations());
+        new SearchDebouncer(guestSearchField, guestSearch -> loadReservations());
         
         filterPanel.add(statusFilterLabel);
         filterPanel.add(statusFilterComboBox);
         filterPanel.add(Box.createHorizontalStrut(20));
         filterPanel.add(guestSearchLabel);
         filterPanel.add(guestSearchField);
-        filterPanel.add(searchButton);
+        
+        JProgressBar loadingIndicator = UIUtils.createLoadingIndicator();
+        loader = new PanelLoader(loadingIndicator);
+        filterPanel.add(loadingIndicator);
         
         headerPanel.add(filterPanel, BorderLayout.CENTER);
         
@@ -78,7 +101,7 @@ public class ReservationsPanel extends JPanel {
         editButton.addActionListener(e -> {
             int selectedRow = reservationsTable.getSelectedRow();
             if (selectedRow >= 0) {
-                int reservationId = (int) tableModel.getValueAt(selectedRow, 0);
+                int reservationId = tableModel.getRow(selectedRow).getId();
                 Reservation reservation = reservationService.getReservationById(reservationId);
                 if (reservation != null) {
                     showEditReservationDialog(reservation);
@@ -92,13 +115,12 @@ public class ReservationsPanel extends JPanel {
         cancelButton.addActionListener(e -> {
             int selectedRow = reservationsTable.getSelectedRow();
             if (selectedRow >= 0) {
-                int reservationId = (int) tableModel.getValueAt(selectedRow, 0);
+                int reservationId = tableModel.getRow(selectedRow).getId();
                 int confirm = JOptionPane.showConfirmDialog(this,
                         "Are you sure you want to cancel this reservation?",
                         "Confirm Cancellation", JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
-                    reservationService.cancelReservation(reservationId);
-                    loadReservations();
+                    loader.run(() -> reservationService.cancelReservation(reservationId));
                 }
             } else {
                 JOptionPane.showMessageDialog(this, "Please select a reservation to cancel.", "No Selection", JOptionPane.WARNING_MESSAGE);
@@ -112,13 +134,15 @@ public class ReservationsPanel extends JPanel {
         headerPanel.add(buttonPanel, BorderLayout.EAST);
         
         // Create table
-        String[] columnNames = {"ID", "Guest", "Room", "Check-in Date", "Check-out Date", "Status", "Total Price"};
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new EntityTableModel<>(Reservation::getId, List.of(
+                new EntityTableModel.Column<>("ID", Integer.class, Reservation::getId),
+                new EntityTableModel.Column<>("Guest", reservation -> reservation.getGuest().getFullName()),
+                new EntityTableModel.Column<>("Room", reservation -> reservation.getRoom().toString()),
+                new EntityTableModel.Column<>("Check-in Date", reservation -> reservation.getCheckInDate().format(DATE_FORMATTER)),
+                new EntityTableModel.Column<>("Check-out Date", reservation -> reservation.getCheckOutDate().format(DATE_FORMATTER)),
+                new EntityTableModel.Column<>("Status", reservation -> reservation.getStatus().getDisplayName()),
+                new EntityTableModel.Column<>("Total Price", Reservation::getTotalPrice)
+        ));
         reservationsTable = UIUtils.createTable();
         reservationsTable.setModel(tableModel);
         
@@ -130,49 +154,80 @@ public class ReservationsPanel extends JPanel {
     }
     
     private void loadReservations() {
-        tableModel.setRowCount(0);
-        
-        List<Reservation> reservations;
         ReservationStatus statusFilter = (ReservationStatus) statusFilterComboBox.getSelectedItem();
-        String guestSearch = guestSearchField.getText().trim();
-        
-        if (statusFilter != null && !guestSearch.isEmpty()) {
-            // Filter by status and guest name
-            List<Guest> guests = guestService.searchGuestsByName(guestSearch);
-            reservations = reservationService.getReservationsByStatus(statusFilter);
-            reservations = reservations.stream()
-                    .filter(reservation -> guests.stream()
-                            .anyMatch(guest -> guest.getId() == reservation.getGuest().getId()))
-                    .toList();
-        } else if (statusFilter != null) {
-            // Filter by status only
-            reservations = reservationService.getReservationsByStatus(statusFilter);
-        } else if (!guestSearch.isEmpty()) {
-            // Filter by guest name only
-            List<Guest> guests = guestService.searchGuestsByName(guestSearch);
-            reservations = reservationService.getAllReservations();
-            reservations = reservations.stream()
-                    .filter(reservation -> guests.stream()
-                            .anyMatch(guest -> guest.getId() == reservation.getGuest().getId()))
-                    .toList();
-        } else {
-            // No filters
-            reservations = reservationService.getAllReservations();
+        String guestSearch = guestSearchField.getText().trim().toLowerCase();
+        
+        if (shownGuestSearch != null && statusFilter == shownStatusFilter && guestSearch.startsWith(shownGuestSearch)) {
+            // The new search extends the shown one, so only the shown reservations can still match
+            List<Reservation> shownReservations = tableModel.getRows();
+            loader.load("reservations", () -> shownReservations.stream()
+                    .filter(reservation -> reservation.getGuest().matchesName(guestSearch))
+                    .toList(), reservations -> showReservations(statusFilter, guestSearch, reservations));
+            return;
         }
         
-        DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("yyyy-MM-dd");
-        
-        for (Reservation reservation : reservations) {
-            Object[] rowData = {
-                    reservation.getId(),
-                    reservation.getGuest().getFullName(),
-                    reservation.getRoom().toString(),
-                    reservation.getCheckInDate().format(dateFormatter),
-                    reservation.getCheckOutDate().format(dateFormatter),
-                    reservation.getStatus().getDisplayName(),
-                    reservation.getTotalPrice()
-            };
-            tableModel.addRow(rowData);
+        loader.load("reservations", () -> {
+            if (guestSearch.isEmpty()) {
+                return statusFilter != null
+                        ? reservationService.getReservationsByStatus(statusFilter)
+                        : reservationService.getAllReservations();
+            }
+            // Join on a set of matching guest IDs
+            CompletableFuture<Set<Integer>> guestIds = asyncGuestService.searchGuestsByName(guestSearch)
+                    .thenApply(guests -> guests.stream().map(Guest::getId).collect(Collectors.toSet()));
+            if (statusFilter != null) {
+                // The status query does not need the guests, so both run at the same time
+                return asyncReservationService.getReservationsByStatus(statusFilter)
+                        .thenCombine(guestIds, (reservations, ids) -> reservations.stream()
+                                .filter(reservation -> ids.contains(reservation.getGuest().getId()))
+                                .toList())
+                        .get();
+            }
+            return reservationService.getReservationsByGuestIds(guestIds.get());
+        }, reservations -> showReservations(statusFilter, guestSearch, reservations));
+    }
+    
+    private void showReservations(ReservationStatus statusFilter, String guestSearch, List<Reservation> reservations) {
+        tableModel.setRows(reservations);
+        shownStatusFilter = statusFilter;
+        shownGuestSearch = guestSearch;
+    }
+    
+    // Apply reservation changes, and guest or room changes shown in reservation rows
+    private void applyEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof DomainEvent.ReservationCreated created) {
+                refreshReservation(created.reservation());
+            } else if (event instanceof DomainEvent.ReservationUpdated updated) {
+                refreshReservation(updated.reservation());
+            } else if (event instanceof DomainEvent.ReservationStatusChanged statusChanged) {
+                refreshReservation(statusChanged.reservation());
+            } else if (event instanceof DomainEvent.GuestUpdated guestUpdated) {
+                int guestId = guestUpdated.guest().getId();
+                for (Reservation reservation : tableModel.getRows()) {
+                    if (reservation.getGuest().getId() == guestId) {
+                        refreshReservation(reservation);
+                    }
+                }
+            } else if (event instanceof DomainEvent.RoomUpdated roomUpdated) {
+                int roomNumber = roomUpdated.room().getRoomNumber();
+                for (Reservation reservation : tableModel.getRows()) {
+                    if (reservation.getRoom().getRoomNumber() == roomNumber) {
+                        tableModel.updateRow(reservation);
+                    }
+                }
+            }
+        }
+    }
+    
+    // Show, refresh or hide the row of a changed reservation depending on the current filters
+    private void refreshReservation(Reservation reservation) {
+        if (shownGuestSearch == null
+                || ((shownStatusFilter == null || reservation.getStatus() == shownStatusFilter)
+                    && reservation.getGuest().matchesName(shownGuestSearch))) {
+            tableModel.upsertRow(reservation);
+        } else {
+            tableModel.removeByKey(reservation.getId());
         }
     }
     
@@ -189,9 +244,11 @@ public class ReservationsPanel extends JPanel {
         JLabel guestLabel = UIUtils.createRegularLabel("Guest:");
         JPanel guestPanel = UIUtils.createPanel(new BorderLayout(5, 0), ColorScheme.BACKGROUND);
         JComboBox<Guest> guestComboBox = new JComboBox<>();
-        for (Guest guest : guestService.getAllGuests()) {
-            guestComboBox.addItem(guest);
-        }
+        loader.load("dialog-guests", guestService::getAllGuests, guests -> {
+            for (Guest guest : guests) {
+                guestComboBox.addItem(guest);
+            }
+        });
         JButton newGuestButton = UIUtils.createSecondaryButton("New Guest");
         newGuestButton.setPreferredSize(new Dimension(120, 30));
         newGuestButton.addActionListener(e -> {
@@ -232,15 +289,19 @@ public class ReservationsPanel extends JPanel {
                     return;
                 }
                 
-                List<Room> availableRooms = reservationService.getAvailableRoomsByTypeForDates(roomType, checkInDate, checkOutDate);
-                availableRoomsComboBox.removeAllItems();
-                for (Room room : availableRooms) {
-                    availableRoomsComboBox.addItem(room);
-                }
-                
-                if (availableRooms.isEmpty()) {
-                    JOptionPane.showMessageDialog(dialog, "No rooms available for the selected dates and room type.", "No Availability", JOptionPane.WARNING_MESSAGE);
-                }
+                loader.load("dialog-availability",
+                        () -> reservationService.getAvailableRoomsByTypeForDates(roomType, checkInDate, checkOutDate),
+                        availableRooms -> {
+                            availableRoomsComboBox.removeAllItems();
+                            for (Room room : availableRooms) {
+                                availableRoomsComboBox.addItem(room);
+                            }
+                            
+                            if (availableRooms.isEmpty()) {
+                                offerWaitlist(dialog, (Guest) guestComboBox.getSelectedItem(), roomType, checkInDate, checkOutDate,
+                                        "No rooms available for the selected dates and room type.");
+                            }
+                        });
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(dialog, "Please enter valid dates in the format yyyy-MM-dd.", "Invalid Input", JOptionPane.ERROR_MESSAGE);
             }
@@ -269,11 +330,12 @@ public class ReservationsPanel extends JPanel {
             try {
                 Guest guest = (Guest) guestComboBox.getSelectedItem();
                 Room room = (Room) availableRoomsComboBox.getSelectedItem();
+                RoomType roomType = (RoomType) roomTypeComboBox.getSelectedItem();
                 LocalDate checkInDate = LocalDate.parse(checkInField.getText());
                 LocalDate checkOutDate = LocalDate.parse(checkOutField.getText());
                 
-                if (guest == null || room == null) {
-                    JOptionPane.showMessageDialog(dialog, "Please select a guest and a room.", "Missing Information", JOptionPane.ERROR_MESSAGE);
+                if (guest == null) {
+                    JOptionPane.showMessageDialog(dialog, "Please select a guest.", "Missing Information", JOptionPane.ERROR_MESSAGE);
                     return;
                 }
                 
@@ -282,13 +344,17 @@ public class ReservationsPanel extends JPanel {
                     return;
                 }
                 
-                Reservation reservation = reservationService.createReservation(guest, room, checkInDate, checkOutDate);
-                if (reservation != null) {
-                    loadReservations();
-                    dialog.dispose();
-                } else {
-                    JOptionPane.showMessageDialog(dialog, "Failed to create reservation. The room may no longer be available.", "Reservation Failed", JOptionPane.ERROR_MESSAGE);
-                }
+                // Without a room chosen, the reservation is for the room type and the hotel assigns the room
+                loader.run(() -> room == null
+                        ? reservationService.createReservationByType(guest, roomType, checkInDate, checkOutDate)
+                        : reservationService.createReservation(guest, room, checkInDate, checkOutDate), reservation -> {
+                    if (reservation != null) {
+                        dialog.dispose();
+                    } else {
+                        offerWaitlist(dialog, guest, room == null ? roomType : room.getType(), checkInDate, checkOutDate,
+                                "Failed to create reservation. The room may no longer be available.");
+                    }
+                });
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(dialog, "Please enter valid information and check availability.", "Invalid Input", JOptionPane.ERROR_MESSAGE);
             }
@@ -303,6 +369,27 @@ public class ReservationsPanel extends JPanel {
         dialog.setVisible(true);
     }
     
+    // Offer to put the guest on the waitlist for a room type and dates that could not be booked
+    private void offerWaitlist(JDialog dialog, Guest guest, RoomType roomType, LocalDate checkInDate, LocalDate checkOutDate, String message) {
+        if (guest == null) {
+            JOptionPane.showMessageDialog(dialog, message, "No Availability", JOptionPane.WARNING_MESSAGE);
+            return;
+        }
+        int choice = JOptionPane.showConfirmDialog(dialog, message + "\nAdd " + guest.getFullName() + " to the waitlist?",
+                "No Availability", JOptionPane.YES_NO_OPTION, JOptionPane.WARNING_MESSAGE);
+        if (choice != JOptionPane.YES_OPTION) {
+            return;
+        }
+        loader.run(() -> waitlistService.request(guest, roomType, checkInDate, checkOutDate, 0), entry -> {
+            if (entry.getStatus() == WaitlistEntry.Status.BOOKED) {
+                JOptionPane.showMessageDialog(dialog, "A room came free and the reservation was made: " + entry.getReservation(), "Reservation Created", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                JOptionPane.showMessageDialog(dialog, "Added to the waitlist as request #" + entry.getId() + ". The guest will be booked when a room comes free.", "Waitlisted", JOptionPane.INFORMATION_MESSAGE);
+            }
+            dialog.dispose();
+        });
+    }
+
     private void showEditReservationDialog(Reservation reservation) {
         JDialog dialog = new JDialog((Frame) SwingUtilities.getWindowAncestor(this), "Edit Reservation", true);
         dialog.setSize(600, 400);
@@ -368,20 +455,22 @@ public class ReservationsPanel extends JPanel {
                 }
                 
                 // Check if the room is still available for the new dates
-                if (!reservation.getCheckInDate().equals(checkInDate) || !reservation.getCheckOutDate().equals(checkOutDate)) {
-                    boolean isAvailable = reservationService.isRoomAvailable(reservation.getRoom().getRoomNumber(), checkInDate, checkOutDate);
+                boolean datesChanged = !reservation.getCheckInDate().equals(checkInDate) || !reservation.getCheckOutDate().equals(checkOutDate);
+                loader.run(() -> !datesChanged || reservationService.isRoomAvailable(reservation.getRoom().getRoomNumber(), checkInDate, checkOutDate), isAvailable -> {
                     if (!isAvailable) {
                         JOptionPane.showMessageDialog(dialog, "The room is not available for the selected dates.", "No Availability", JOptionPane.WARNING_MESSAGE);
                         return;
                     }
-                }
-                
-                reservation.setCheckInDate(checkInDate);
-                reservation.setCheckOutDate(checkOutDate);
-                
-                reservationService.updateReservation(reservation);
-                loadReservations();
-                dialog.dispose();
+                    
+                    // New dates are priced at the current rates; otherwise the booked price is kept
+                    if (datesChanged) {
+                        reservation.setCheckInDate(checkInDate);
+                        reservation.setCheckOutDate(checkOutDate);
+                        reservation.setTotalPrice(RateCalendar.getInstance().quote(reservation.getRoom(), checkInDate, checkOutDate));
+                    }
+                    
+                    loader.run(() -> reservationService.updateReservation(reservation), updatedReservation -> dialog.dispose());
+                });
             } catch (Exception ex) {
                 JOptionPane.showMessageDialog(dialog, "Please enter valid dates in the format yyyy-MM-dd.", "Invalid Input", JOptionPane.ERROR_MESSAGE);
             }
@@ -456,16 +545,13 @@ public class ReservationsPanel extends JPanel {
             }
             
             Guest guest = new Guest(firstName, lastName, idNumber, phone, email, address);
-            Guest addedGuest = guestService.addGuest(guest);
-            
-            // Refresh the guest combo box
-            guestComboBox.removeAllItems();
-            for (Guest g : guestService.getAllGuests()) {
-                guestComboBox.addItem(g);
-            }
-            guestComboBox.setSelectedItem(addedGuest);
-            
-            dialog.dispose();
+            loader.run(() -> guestService.addGuest(guest), addedGuest -> {
+                // Add the new guest to the combo box
+                guestComboBox.addItem(addedGuest);
+                guestComboBox.setSelectedItem(addedGuest);
+                
+                dialog.dispose();
+            });
         });
         
         buttonPanel.add(cancelButton);
@@ -1,5 +1,7 @@
 package ui;
 
+import event.DomainEvent;
+import event.EventBus;
 import model.Room;
 import model.RoomStatus;
 import model.RoomType;
@@ -9,7 +11,6 @@ import util.Messages;
 import util.UIUtils;
 
 import javax.swing.*;
-import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.math.BigDecimal;
 import java.util.List;
@@ -20,9 +21,10 @@ import java.util.List;
 public class RoomsPanel extends JPanel {
     private final RoomService roomService;
     private JTable roomsTable;
-    private DefaultTableModel tableModel;
+    private EntityTableModel<Room> tableModel;
     private JComboBox<RoomStatus> statusFilterComboBox;
     private JComboBox<RoomType> typeFilterComboBox;
+    private PanelLoader loader;
 
     public RoomsPanel() {
         roomService = RoomService.getInstance();
@@ -32,6 +34,7 @@ public class RoomsPanel extends JPanel {
 
         createUI();
         loadRooms();
+        EventBus.getInstance().subscribeOnEdt(this::applyEvents);
     }
 
     private void createUI() {
@@ -61,6 +64,11 @@ public class RoomsPanel extends JPanel {
         filterPanel.add(typeFilterLabel);
         filterPanel.add(typeFilterComboBox);
 
+        JProgressBar loadingIndicator = UIUtils.createLoadingIndicator();
+        loader = new PanelLoader(loadingIndicator);
+        filterPanel.add(Box.createHorizontalStrut(20));
+        filterPanel.add(loadingIndicator);
+
         headerPanel.add(filterPanel, BorderLayout.CENTER);
 
         // Create button panel
@@ -73,7 +81,7 @@ public class RoomsPanel extends JPanel {
         editButton.addActionListener(e -> {
             int selectedRow = roomsTable.getSelectedRow();
             if (selectedRow >= 0) {
-                int roomNumber = (int) tableModel.getValueAt(selectedRow, 0);
+                int roomNumber = tableModel.getRow(selectedRow).getRoomNumber();
                 Room room = roomService.getRoomByNumber(roomNumber);
                 if (room != null) {
                     showEditRoomDialog(room);
@@ -88,13 +96,12 @@ public class RoomsPanel extends JPanel {
         deleteButton.addActionListener(e -> {
             int selectedRow = roomsTable.getSelectedRow();
             if (selectedRow >= 0) {
-                int roomNumber = (int) tableModel.getValueAt(selectedRow, 0);
+                int roomNumber = tableModel.getRow(selectedRow).getRoomNumber();
                 int confirm = JOptionPane.showConfirmDialog(this,
                         Messages.get("rooms.message.confirmdelete", roomNumber),
                         Messages.get("dialog.title.confirmdeletion"), JOptionPane.YES_NO_OPTION);
                 if (confirm == JOptionPane.YES_OPTION) {
-                    roomService.deleteRoom(roomNumber);
-                    loadRooms();
+                    loader.run(() -> roomService.deleteRoom(roomNumber));
                 }
             } else {
                 JOptionPane.showMessageDialog(this, Messages.get("rooms.message.selecttodelete"), 
@@ -106,7 +113,7 @@ public class RoomsPanel extends JPanel {
         changeStatusButton.addActionListener(e -> {
             int selectedRow = roomsTable.getSelectedRow();
             if (selectedRow >= 0) {
-                int roomNumber = (int) tableModel.getValueAt(selectedRow, 0);
+                int roomNumber = tableModel.getRow(selectedRow).getRoomNumber();
                 Room room = roomService.getRoomByNumber(roomNumber);
                 if (room != null) {
                     showChangeStatusDialog(room);
@@ -125,20 +132,14 @@ public class RoomsPanel extends JPanel {
         headerPanel.add(buttonPanel, BorderLayout.EAST);
 
         // Create table
-        String[] columnNames = {
-            Messages.get("table.room.number"),
-            Messages.get("table.room.floor"),
-            Messages.get("table.room.type"),
-            Messages.get("table.room.status"),
-            Messages.get("table.room.price"),
-            Messages.get("table.room.description")
-        };
-        tableModel = new DefaultTableModel(columnNames, 0) {
-            @Override
-            public boolean isCellEditable(int row, int column) {
-                return false;
-            }
-        };
+        tableModel = new EntityTableModel<>(Room::getRoomNumber, List.of(
+                new EntityTableModel.Column<>(Messages.get("table.room.number"), Integer.class, Room::getRoomNumber),
+                new EntityTableModel.Column<>(Messages.get("table.room.floor"), Integer.class, Room::getFloor),
+                new EntityTableModel.Column<>(Messages.get("table.room.type"), room -> room.getType().getDisplayName()),
+                new EntityTableModel.Column<>(Messages.get("table.room.status"), room -> room.getStatus().getDisplayName()),
+                new EntityTableModel.Column<>(Messages.get("table.room.price"), Room::getPricePerNight),
+                new EntityTableModel.Column<>(Messages.get("table.room.description"), Room::getDescription)
+        ));
         roomsTable = UIUtils.createTable();
         roomsTable.setModel(tableModel);
 
@@ -150,34 +151,48 @@ public class RoomsPanel extends JPanel {
     }
 
     private void loadRooms() {
-        tableModel.setRowCount(0);
-
-        List<Room> rooms;
         RoomStatus statusFilter = (RoomStatus) statusFilterComboBox.getSelectedItem();
         RoomType typeFilter = (RoomType) typeFilterComboBox.getSelectedItem();
 
-        if (statusFilter != null && typeFilter != null) {
-            rooms = roomService.getRoomsByStatus(statusFilter).stream()
-                    .filter(room -> room.getType() == typeFilter)
-                    .toList();
-        } else if (statusFilter != null) {
-            rooms = roomService.getRoomsByStatus(statusFilter);
-        } else if (typeFilter != null) {
-            rooms = roomService.getRoomsByType(typeFilter);
-        } else {
-            rooms = roomService.getAllRooms();
+        loader.load("rooms", () -> {
+            if (statusFilter != null && typeFilter != null) {
+                return roomService.getRoomsByStatus(statusFilter).stream()
+                        .filter(room -> room.getType() == typeFilter)
+                        .toList();
+            } else if (statusFilter != null) {
+                return roomService.getRoomsByStatus(statusFilter);
+            } else if (typeFilter != null) {
+                return roomService.getRoomsByType(typeFilter);
+            } else {
+                return roomService.getAllRooms();
+            }
+        }, tableModel::setRows);
+    }
+
+    // Apply room changes published by the services
+    private void applyEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof DomainEvent.RoomAdded added) {
+                refreshRoom(added.room());
+            } else if (event instanceof DomainEvent.RoomUpdated updated) {
+                refreshRoom(updated.room());
+            } else if (event instanceof DomainEvent.RoomStatusChanged statusChanged) {
+                refreshRoom(statusChanged.room());
+            } else if (event instanceof DomainEvent.RoomDeleted deleted) {
+                tableModel.removeByKey(deleted.room().getRoomNumber());
+            }
         }
+    }
 
-        for (Room room : rooms) {
-            Object[] rowData = {
-                    room.getRoomNumber(),
-                    room.getFloor(),
-                    room.getType().getDisplayName(),
-                    room.getStatus().getDisplayName(),
-                    room.getPricePerNight(),
-                    room.getDescription()
-            };
-            tableModel.addRow(rowData);
+    // Show, refresh or hide the row of a changed room depending on the current filters
+    private void refreshRoom(Room room) {
+        RoomStatus statusFilter = (RoomStatus) statusFilterComboBox.getSelectedItem();
+        RoomType typeFilter = (RoomType) typeFilterComboBox.getSelectedItem();
+        if ((statusFilter == null || room.getStatus() == statusFilter)
+                && (typeFilter == null || room.getType() == typeFilter)) {
+            tableModel.upsertRow(room);
+        } else {
+            tableModel.removeByKey(room.getRoomNumber());
         }
     }
 
@@ -237,9 +252,7 @@ public class RoomsPanel extends JPanel {
                 String description = descriptionField.getText();
 
                 Room room = new Room(roomNumber, floor, type, status, price, description);
-                roomService.addRoom(room);
-                loadRooms();
-                dialog.dispose();
+                loader.run(() -> roomService.addRoom(room), addedRoom -> dialog.dispose());
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, Messages.get("rooms.message.invalidinput"), 
                     Messages.get("dialog.title.invalidinput"), JOptionPane.ERROR_MESSAGE);
@@ -323,9 +336,7 @@ public class RoomsPanel extends JPanel {
                 room.setPricePerNight(price);
                 room.setDescription(description);
 
-                roomService.updateRoom(room);
-                loadRooms();
-                dialog.dispose();
+                loader.run(() -> roomService.updateRoom(room), updatedRoom -> dialog.dispose());
             } catch (NumberFormatException ex) {
                 JOptionPane.showMessageDialog(dialog, Messages.get("rooms.message.invalidfloorprice"), 
                     Messages.get("dialog.title.invalidinput"), JOptionPane.ERROR_MESSAGE);
@@ -365,9 +376,7 @@ public class RoomsPanel extends JPanel {
         JButton saveButton = UIUtils.createPrimaryButton(Messages.get("button.save"));
         saveButton.addActionListener(e -> {
             RoomStatus status = (RoomStatus) statusComboBox.getSelectedItem();
-            roomService.changeRoomStatus(room.getRoomNumber(), status);
-            loadRooms();
-            dialog.dispose();
+            loader.run(() -> roomService.changeRoomStatus(room.getRoomNumber(), status), changed -> dialog.dispose());
         });
 
         buttonPanel.add(cancelButton);
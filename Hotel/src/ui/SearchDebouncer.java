@@ -0,0 +1,70 @@
+package ui;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import javax.swing.text.JTextComponent;
+import java.util.function.Consumer;
+
+/**
+ * Runs a search while the user types, once typing has paused for a short delay.
+ * Pressing Enter in a text field runs the search immediately.
+ */
+public class SearchDebouncer {
+    public static final int DEFAULT_DELAY_MILLIS = 150;
+
+    private final JTextComponent field;
+    private final Consumer<String> onSearch;
+    private final Timer timer;
+
+    public SearchDebouncer(JTextComponent field, Consumer<String> onSearch) {
+        this(field, DEFAULT_DELAY_MILLIS, onSearch);
+    }
+
+    /**
+     * @param field the search field to watch
+     * @param delayMillis how long typing must pause before searching
+     * @param onSearch receives the trimmed search term on the EDT
+     */
+    public SearchDebouncer(JTextComponent field, int delayMillis, Consumer<String> onSearch) {
+        this.field = field;
+        this.onSearch = onSearch;
+        this.timer = new Timer(delayMillis, e -> fire());
+        this.timer.setRepeats(false);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                timer.restart();
+            }
+        });
+        if (field instanceof JTextField textField) {
+            textField.addActionListener(e -> flush());
+        }
+    }
+
+    // Run the search now instead of waiting for the delay
+    public void flush() {
+        timer.stop();
+        fire();
+    }
+
+    // Check whether a search is waiting for typing to pause
+    public boolean isPending() {
+        return timer.isRunning();
+    }
+
+    private void fire() {
+        onSearch.accept(field.getText().trim());
+    }
+}
@@ -0,0 +1,89 @@
+package util;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Records how long each phase of application startup takes.
+ * Sequential phases are recorded with {@link #mark(String)}; phases that run on other
+ * threads (for example service warm-up) are recorded with {@link #time(String, Runnable)}.
+ */
+public class StartupTimeline {
+    private final long startNanos;
+    private final List<Phase> phases;
+    private long lastMarkNanos;
+
+    public StartupTimeline() {
+        this.startNanos = System.nanoTime();
+        this.phases = new CopyOnWriteArrayList<>();
+        this.lastMarkNanos = startNanos;
+    }
+
+    /**
+     * End a sequential phase. The phase started at the previous mark, or when the timeline was created.
+     *
+     * @param name the phase name
+     * @return the duration of the phase in milliseconds
+     */
+    public synchronized long mark(String name) {
+        long now = System.nanoTime();
+        Phase phase = new Phase(name, Thread.currentThread().getName(), toMillis(lastMarkNanos - startNanos),
+                toMillis(now - lastMarkNanos));
+        lastMarkNanos = now;
+        phases.add(phase);
+        return phase.durationMillis();
+    }
+
+    /**
+     * Run a task and record it as a phase of its own, without affecting the sequential marks.
+     *
+     * @param name the phase name
+     * @param task the work to time
+     */
+    public void time(String name, Runnable task) {
+        long start = System.nanoTime();
+        try {
+            task.run();
+        } finally {
+            phases.add(new Phase(name, Thread.currentThread().getName(), toMillis(start - startNanos),
+                    toMillis(System.nanoTime() - start)));
+        }
+    }
+
+    // Get the time since the timeline was created
+    public long getElapsedMillis() {
+        return toMillis(System.nanoTime() - startNanos);
+    }
+
+    // Get all recorded phases, ordered by start time
+    public List<Phase> getPhases() {
+        List<Phase> sorted = new ArrayList<>(phases);
+        sorted.sort(Comparator.comparingLong(Phase::startMillis));
+        return sorted;
+    }
+
+    /**
+     * Format the timeline as one line per phase, e.g. {@code  +12 ms  tabs  5 ms  [main]}.
+     */
+    public String format() {
+        StringBuilder builder = new StringBuilder("Startup timeline (total ")
+                .append(getElapsedMillis()).append(" ms):");
+        for (Phase phase : getPhases()) {
+            builder.append(String.format("%n  +%5d ms  %-28s %5d ms  [%s]",
+                    phase.startMillis(), phase.name(), phase.durationMillis(), phase.thread()));
+        }
+        return builder.toString();
+    }
+
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * A recorded phase. Times are in milliseconds since the timeline was created.
+     */
+    public record Phase(String name, String thread, long startMillis, long durationMillis) { }
+}
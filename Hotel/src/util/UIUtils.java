@@ -160,6 +160,18 @@ public class UIUtils {
         return tabbedPane;
     }
 
+    // Create a loading indicator, hidden until something is loading
+    public static JProgressBar createLoadingIndicator() {
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setString(Messages.get("status.loading"));
+        progressBar.setStringPainted(true);
+        progressBar.setFont(new Font("Arial", Font.PLAIN, 12));
+        progressBar.setPreferredSize(new Dimension(120, 20));
+        progressBar.setVisible(false);
+        return progressBar;
+    }
+
     // Set look and feel to system look and feel
     public static void setSystemLookAndFeel() {
         try {